@@ -0,0 +1,234 @@
+package com.demo.domain;
+
+import com.demo.domain.location.Address;
+import com.demo.domain.location.Postcode;
+import com.demo.domain.location.State;
+import com.demo.domain.pricing.Quote;
+import com.demo.domain.pricing.QuoteTracker;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the pricing methods called while rendering the reservation summary fragments.
+ *
+ * <p>The reservation is built the same way the flow builds one: a room, a stay, guests with one meal plan each and
+ * a selection of general and food extras. {@code guests} and {@code extras} cover a couple on a short stay up to a
+ * full family room with every extra selected.</p>
+ *
+ * <pre>
+ *     mvn -P jmh test-compile exec:exec
+ *     mvn -P jmh test-compile exec:exec -Djmh.args="ReservationPricingBenchmark.summaryFragment -prof gc -f 1"
+ * </pre>
+ *
+ * <p>The gc profiler reports {@code gc.alloc.rate.norm}, the bytes allocated per operation, which is the number to
+ * compare when changing how prices are calculated.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ReservationPricingBenchmark {
+
+    @Param({"2", "6"})
+    private int guests;
+
+    @Param({"3", "8"})
+    private int extras;
+
+    @Param({"3", "14"})
+    private int nights;
+
+    private Reservation reservation;
+    private MealPlan childMealPlan;
+    private Extra foodExtra;
+    private Extra generalExtra;
+    private int childMealPlanIndex;
+    private QuoteTracker quoteTracker;
+
+    @Setup
+    public void setup() {
+        Hotel hotel = new Hotel("Hotel Royal",
+                new Address("Hotel Royal", "33 kent street", null, State.VIC, "Melbourne", new Postcode("3000")),
+                4, "royal@hotel.com");
+        Room room = new Room("A1", RoomType.Economy, guests, new BigDecimal("129.95"));
+        hotel.addRoom(room);
+
+        reservation = new Reservation();
+        reservation.setRoom(room);
+        LocalDate checkIn = LocalDate.of(2018, 6, 1);
+        reservation.setDates(new ReservationDates(checkIn, checkIn.plusDays(nights), LocalTime.of(14, 0), true, true));
+
+        for (int i = 0; i < guests; i++) {
+            // every second guest is a child so the discount path is exercised
+            reservation.addGuest(new Guest("Guest", "Number " + i, i % 2 == 1));
+        }
+
+        Set<Extra> generalExtras = new HashSet<>();
+        List<Extra> foodExtras = new ArrayList<>();
+        for (int i = 0; i < extras; i++) {
+            Extra general = new Extra("General " + i, new BigDecimal("2.50").add(BigDecimal.valueOf(i)),
+                    Extra.Type.Basic, Extra.Category.General);
+            general.setId((long) i);
+            generalExtras.add(general);
+
+            Extra food = new Extra("Food " + i, new BigDecimal("4.20").add(BigDecimal.valueOf(i)),
+                    Extra.Type.Basic, Extra.Category.Food);
+            food.setId((long) (extras + i));
+            foodExtras.add(food);
+        }
+        reservation.setGeneralExtras(generalExtras);
+
+        reservation.createMealPlans();
+        for (MealPlan plan : reservation.getMealPlans()) {
+            plan.setFoodExtras(new ArrayList<>(foodExtras));
+            if (plan.getGuest().isChild()) {
+                childMealPlan = plan;
+            }
+        }
+        if (childMealPlan == null) {
+            childMealPlan = reservation.getMealPlans().get(0);
+        }
+        foodExtra = foodExtras.get(0);
+        generalExtra = generalExtras.iterator().next();
+        childMealPlanIndex = reservation.getMealPlans().indexOf(childMealPlan);
+
+        quoteTracker = new QuoteTracker();
+        quoteTracker.quote(reservation);
+    }
+
+    @Benchmark
+    public BigDecimal totalCostIncludingTax() {
+        return reservation.getTotalCostIncludingTax();
+    }
+
+    @Benchmark
+    public BigDecimal totalCostExcludingTax() {
+        return reservation.getTotalCostExcludingTax();
+    }
+
+    @Benchmark
+    public BigDecimal taxableAmount() {
+        return reservation.getTaxableAmount();
+    }
+
+    @Benchmark
+    public BigDecimal totalMealPlansCost() {
+        return reservation.getTotalMealPlansCost();
+    }
+
+    @Benchmark
+    public BigDecimal mealPlanTotal() {
+        return childMealPlan.getTotalMealPlanCost();
+    }
+
+    @Benchmark
+    public BigDecimal calculateExtraCost() {
+        return childMealPlan.calculateExtraCost(foodExtra);
+    }
+
+    @Benchmark
+    public BigDecimal extraTotalPrice() {
+        return generalExtra.getTotalPrice(nights);
+    }
+
+    @Benchmark
+    public long totalNights() {
+        return reservation.getDates().totalNights();
+    }
+
+    /**
+     * Every pricing call made by one render of the {@code quickSummary} fragment.
+     */
+    @Benchmark
+    public void summaryFragment(Blackhole blackhole) {
+        blackhole.consume(reservation.getDates().totalNights());
+        blackhole.consume(reservation.getTotalRoomCost());
+        blackhole.consume(reservation.getChargeableLateCheckoutFee());
+        blackhole.consume(reservation.getTotalGeneralExtrasCost());
+        blackhole.consume(reservation.hasEmptyMealPlans());
+        blackhole.consume(reservation.getTotalMealPlansCost());
+        blackhole.consume(reservation.getTotalCostExcludingTax());
+        blackhole.consume(reservation.getTaxableAmount());
+        blackhole.consume(reservation.getTotalCostIncludingTax());
+    }
+
+    @Benchmark
+    public Quote quote() {
+        return reservation.getQuote();
+    }
+
+    /**
+     * The {@code quickSummary} fragment as it renders now, one quote read for every total.
+     */
+    @Benchmark
+    public void summaryFragmentFromQuote(Blackhole blackhole) {
+        Quote quote = reservation.getQuote();
+        blackhole.consume(quote.getNights());
+        blackhole.consume(quote.getRoomCost());
+        blackhole.consume(quote.getLateCheckoutFeeCents() == 0 ? null : quote.getLateCheckoutFee());
+        blackhole.consume(quote.getGeneralExtrasCost());
+        blackhole.consume(quote.getMealPlansCents() == 0);
+        blackhole.consume(quote.getMealPlansCost());
+        blackhole.consume(quote.getTotalExcludingTax());
+        blackhole.consume(quote.getTax());
+        blackhole.consume(quote.getTotalIncludingTax());
+    }
+
+    private void toggleGeneralExtra() {
+        if (!reservation.getGeneralExtras().remove(generalExtra)) {
+            reservation.getGeneralExtras().add(generalExtra);
+        }
+    }
+
+    private void toggleFoodExtra() {
+        List<Extra> foodExtras = childMealPlan.getFoodExtras();
+        if (!foodExtras.remove(foodExtra)) {
+            foodExtras.add(foodExtra);
+        }
+    }
+
+    /**
+     * An extras page AJAX post priced the way it was before the flow kept a {@code QuoteTracker}: one extra is
+     * ticked or unticked and the whole reservation is priced again. Compare with {@link #generalExtraToggledTracked}.
+     */
+    @Benchmark
+    public Quote generalExtraToggledFullQuote() {
+        toggleGeneralExtra();
+        return reservation.getQuote();
+    }
+
+    /**
+     * The same post with the tracker, only the ticked extra is priced.
+     */
+    @Benchmark
+    public Quote generalExtraToggledTracked() {
+        toggleGeneralExtra();
+        return quoteTracker.generalExtraToggled(reservation, generalExtra.getId());
+    }
+
+    /**
+     * A meals page AJAX post priced as a whole. Compare with {@link #foodExtraToggledTracked}.
+     */
+    @Benchmark
+    public Quote foodExtraToggledFullQuote() {
+        toggleFoodExtra();
+        return reservation.getQuote();
+    }
+
+    @Benchmark
+    public Quote foodExtraToggledTracked() {
+        toggleFoodExtra();
+        return quoteTracker.foodExtraToggled(reservation, childMealPlanIndex, foodExtra.getId());
+    }
+}
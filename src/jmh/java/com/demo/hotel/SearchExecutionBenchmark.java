@@ -0,0 +1,116 @@
+package com.demo.hotel;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Latency of a request that needs no database, such as a {@code 304} revalidation, while slow searches keep every
+ * thread the application can afford busy.
+ *
+ * <p>Both modes get the same number of threads, {@code threadBudget}, which is what bounds memory since each thread
+ * reserves its stack. In {@code container} they are all servlet container threads and a search holds its thread for
+ * the whole query. In {@code offload}, {@code hotel.search.execution=offload}, half are container threads that only
+ * start a search and render the result while the query waits on the {@code hotel-search-} pool.</p>
+ *
+ * <p>{@code slowClients} searches are kept in flight, each query sleeping for {@code dbMillis}.</p>
+ *
+ * <pre>
+ *     mvn -P jmh test-compile exec:exec -Djmh.args="SearchExecutionBenchmark -f 1"
+ * </pre>
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class SearchExecutionBenchmark {
+
+    @Param({"container", "offload"})
+    private String mode;
+
+    @Param({"32"})
+    private int threadBudget;
+
+    @Param({"64"})
+    private int slowClients;
+
+    @Param({"20"})
+    private int dbMillis;
+
+    private ExecutorService containerThreads;
+    private ExecutorService offloadThreads;
+    private Semaphore inFlight;
+    private Thread searchLoad;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Setup
+    public void setup() {
+        boolean offload = mode.equals("offload");
+        int containerSize = offload ? threadBudget / 2 : threadBudget;
+        containerThreads = Executors.newFixedThreadPool(containerSize);
+        offloadThreads = offload ? Executors.newFixedThreadPool(threadBudget - containerSize) : null;
+
+        inFlight = new Semaphore(slowClients);
+        running.set(true);
+        searchLoad = new Thread(() -> {
+            while (running.get()) {
+                try {
+                    inFlight.acquire();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                containerThreads.execute(offload ? this::startOffloadedSearch : this::search);
+            }
+        }, "search-load");
+        searchLoad.start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        running.set(false);
+        searchLoad.interrupt();
+        searchLoad.join();
+        containerThreads.shutdownNow();
+        if (offloadThreads != null) {
+            offloadThreads.shutdownNow();
+        }
+    }
+
+    private void search() {
+        query();
+        render();
+        inFlight.release();
+    }
+
+    private void startOffloadedSearch() {
+        offloadThreads.execute(() -> {
+            query();
+            // The async dispatch renders the page on a container thread.
+            containerThreads.execute(() -> {
+                render();
+                inFlight.release();
+            });
+        });
+    }
+
+    private void query() {
+        try {
+            Thread.sleep(dbMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void render() {
+        Blackhole.consumeCPU(10_000);
+    }
+
+    @Benchmark
+    public void revalidation() throws Exception {
+        containerThreads.submit(() -> Blackhole.consumeCPU(1_000)).get();
+    }
+}
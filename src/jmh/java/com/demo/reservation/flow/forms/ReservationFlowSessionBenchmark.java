@@ -0,0 +1,141 @@
+package com.demo.reservation.flow.forms;
+
+import com.demo.domain.*;
+import com.demo.domain.location.Address;
+import com.demo.domain.location.Postcode;
+import com.demo.domain.location.State;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what {@code SESSIONS} concurrent reservation flows cost, one operation per session.
+ *
+ * <ul>
+ *     <li>{@code openSessions} builds each flow the way the flow builds one up to the extras step. With
+ *     {@code roomLookup=perSession} every flow gets its own room and hotel, as the uncached {@code findById} did.
+ *     With {@code roomLookup=cached} the flows share one instance per room. {@code gc.alloc.rate.norm} is the heap
+ *     each session holds.</li>
+ *     <li>{@code serializeSession} writes one held flow the way a persisted or replicated session is written.
+ *     The {@code bytes} counter divided by the op count is the serialized size of a session.</li>
+ * </ul>
+ *
+ * <pre>
+ *     mvn -P jmh test-compile exec:exec -Djmh.args="ReservationFlowSessionBenchmark -prof gc -f 1"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ReservationFlowSessionBenchmark {
+    private static final int SESSIONS = 10_000;
+
+    @Param({"perSession", "cached"})
+    private String roomLookup;
+
+    @Param({"20", "500"})
+    private int hotelRooms;
+
+    private Room[] rooms;
+    private Extra[] generalExtras;
+    private ReservationFlow[] sessions;
+    private int next;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class SerializedBytes {
+        public long bytes;
+    }
+
+    @Setup
+    public void setup() {
+        Hotel hotel = createHotel();
+        rooms = new Room[hotelRooms];
+        for (int i = 0; i < hotelRooms; i++) {
+            rooms[i] = createRoom(i);
+            rooms[i].setId((long) i);
+            hotel.addRoom(rooms[i]);
+        }
+
+        generalExtras = new Extra[3];
+        for (int i = 0; i < generalExtras.length; i++) {
+            generalExtras[i] = new Extra("General " + i, BigDecimal.valueOf(2 + i), Extra.Type.Basic,
+                    Extra.Category.General);
+            generalExtras[i].setId((long) i);
+        }
+
+        sessions = new ReservationFlow[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            sessions[i] = openSession(i);
+        }
+    }
+
+    private static Hotel createHotel() {
+        return new Hotel("Hotel Royal",
+                new Address("Hotel Royal", "33 kent street", null, State.VIC, "Melbourne", new Postcode("3000")),
+                4, "royal@hotel.com");
+    }
+
+    private static Room createRoom(int number) {
+        return new Room("A" + number, RoomType.Economy, 2, new BigDecimal("129.95"));
+    }
+
+    private Room lookupRoom(int session) {
+        int number = session % hotelRooms;
+        if ("cached".equals(roomLookup)) {
+            return rooms[number];
+        }
+        Room room = createRoom(number);
+        room.setId((long) number);
+        room.setHotel(createHotel());
+        return room;
+    }
+
+    private ReservationFlow openSession(int session) {
+        ReservationFlow flow = new ReservationFlow(0);
+        Reservation reservation = flow.getReservation();
+        reservation.setRoom(lookupRoom(session));
+
+        LocalDate checkIn = LocalDate.of(2018, 6, 1).plusDays(session % 30);
+        reservation.setDates(new ReservationDates(checkIn, checkIn.plusDays(3), LocalTime.of(14, 0), false, true));
+        reservation.addGuest(new Guest("Guest", "Number " + session, false));
+        reservation.addGuest(new Guest("Child", "Number " + session, true));
+        reservation.setGeneralExtras(new HashSet<>(Arrays.asList(generalExtras)));
+        flow.completeStep(ReservationFlow.Step.Dates);
+        flow.completeStep(ReservationFlow.Step.Guests);
+        flow.setActive(ReservationFlow.Step.Extras, 0);
+        return flow;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SESSIONS)
+    public void openSessions(Blackhole blackhole) {
+        ReservationFlow[] opened = new ReservationFlow[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            opened[i] = openSession(i);
+        }
+        blackhole.consume(opened);
+    }
+
+    @Benchmark
+    public int serializeSession(SerializedBytes counter) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(sessions[next]);
+        }
+        next = (next + 1) % SESSIONS;
+        counter.bytes += bytes.size();
+        return bytes.size();
+    }
+}
@@ -0,0 +1,206 @@
+package com.demo.util;
+
+import com.demo.domain.*;
+import com.demo.domain.location.Address;
+import com.demo.domain.location.Postcode;
+import com.demo.domain.location.State;
+import com.demo.reservation.flow.forms.ReservationFlow;
+import com.github.mjstewart.querystring.dialect.QueryStringDialect;
+import nz.net.ultraq.thymeleaf.LayoutDialect;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.extras.java8time.dialect.Java8TimeDialect;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.spring5.expression.ThymeleafEvaluationContext;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Render time of each page and fragment that can be rendered without a form binding, using the same dialects and
+ * messages as the application.
+ *
+ * <p>{@code templateCache=false} is the development setup where every render parses the template again.
+ * {@code templateCache=true} is the {@code prod} profile, parsed templates are cached and so are the fragments
+ * rendered through {@code FragmentCache}.</p>
+ *
+ * <p>The flow pages other than {@code completed} bind forms through the Spring request context so they need a
+ * full MVC request and are not measured here.</p>
+ *
+ * <pre>
+ *     mvn -P jmh test-compile exec:exec -Djmh.args="TemplateRenderBenchmark -prof gc -f 1"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class TemplateRenderBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"false", "true"})
+    private boolean templateCache;
+
+    private SpringTemplateEngine templateEngine;
+    private GenericApplicationContext applicationContext;
+    private FragmentCache fragmentCache;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    private Hotel hotel;
+    private List<Hotel> hotels;
+    private List<Room> rooms;
+    private ReservationFlow reservationFlow;
+
+    @Setup
+    public void setup() {
+        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setTemplateMode(TemplateMode.HTML);
+        templateResolver.setCharacterEncoding("UTF-8");
+        templateResolver.setCacheable(templateCache);
+
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("messages");
+
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.setTemplateEngineMessageSource(messageSource);
+        templateEngine.addDialect(new LayoutDialect());
+        templateEngine.addDialect(new Java8TimeDialect());
+        templateEngine.addDialect(new QueryStringDialect());
+
+        applicationContext = new GenericApplicationContext();
+        applicationContext.refresh();
+        fragmentCache = new FragmentCache(() -> templateEngine, applicationContext, templateCache);
+        applicationContext.getBeanFactory().registerSingleton("fragmentCache", fragmentCache);
+
+        request = new MockHttpServletRequest(new MockServletContext(), "GET", "/hotels");
+        request.setQueryString("state=VIC&page=0&size=" + PAGE_SIZE + "&sort=name,asc");
+        response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+
+        hotels = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Hotel next = new Hotel("Hotel " + i,
+                    new Address("Hotel " + i, i + " kent street", null, State.VIC, "Melbourne", new Postcode("3000")),
+                    1 + i % 5, "hotel" + i + "@hotel.com");
+            next.setId((long) i);
+            hotels.add(next);
+        }
+        hotel = hotels.get(0);
+
+        rooms = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Room room = new Room("A" + i, RoomType.values()[i % RoomType.values().length], 1 + i % 4,
+                    new BigDecimal("129.95"));
+            room.setId((long) i);
+            hotel.addRoom(room);
+            rooms.add(room);
+        }
+
+        reservationFlow = new ReservationFlow(0);
+        Reservation reservation = reservationFlow.getReservation();
+        reservation.setRoom(rooms.get(3));
+        LocalDate checkIn = LocalDate.of(2018, 6, 1);
+        reservation.setDates(new ReservationDates(checkIn, checkIn.plusDays(4), LocalTime.of(14, 0), true, true));
+        reservation.addGuest(new Guest("John", "Smith", false));
+        reservation.addGuest(new Guest("Jane", "Smith", true));
+        Extra foxtel = new Extra("Foxtel", new BigDecimal("4.50"), Extra.Type.Premium, Extra.Category.General);
+        foxtel.setId(1L);
+        reservation.setGeneralExtras(new HashSet<>(Set.of(foxtel)));
+        reservation.createMealPlans();
+        Extra breakfast = new Extra("Breakfast", new BigDecimal("12.00"), Extra.Type.Premium, Extra.Category.Food);
+        breakfast.setId(2L);
+        reservation.getMealPlans().forEach(plan -> plan.setFoodExtras(new ArrayList<>(List.of(breakfast))));
+        reservationFlow.completeStep(ReservationFlow.Step.Dates);
+        reservationFlow.completeStep(ReservationFlow.Step.Guests);
+        reservationFlow.completeStep(ReservationFlow.Step.Extras);
+        reservationFlow.completeStep(ReservationFlow.Step.Meals);
+        reservationFlow.setActive(ReservationFlow.Step.Review, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        applicationContext.close();
+    }
+
+    private WebContext context(Map<String, Object> variables) {
+        Map<String, Object> contextVariables = new HashMap<>(variables);
+        contextVariables.put(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME,
+                new ThymeleafEvaluationContext(applicationContext, null));
+        return new WebContext(request, response, request.getServletContext(), Locale.forLanguageTag("en-AU"),
+                contextVariables);
+    }
+
+    @Benchmark
+    public String search() {
+        return templateEngine.process("hotel/search", context(Map.of()));
+    }
+
+    @Benchmark
+    public String hotels() {
+        return templateEngine.process("hotel/hotels", context(Map.of(
+                "hotels", new PageImpl<>(hotels, PageRequest.of(0, PAGE_SIZE), 200),
+                "keyset", false)));
+    }
+
+    @Benchmark
+    public String rooms() {
+        return templateEngine.process("hotel/rooms", context(Map.of(
+                "hotel", hotel,
+                "rooms", new PageImpl<>(rooms, PageRequest.of(0, PAGE_SIZE), 60),
+                "checkInDate", LocalDate.of(2018, 6, 1),
+                "checkOutDate", LocalDate.of(2018, 6, 3),
+                "keyset", false)));
+    }
+
+    @Benchmark
+    public String completed() {
+        return templateEngine.process("reservation/completed", context(Map.of()));
+    }
+
+    @Benchmark
+    public String reservationFlowSteps() {
+        return templateEngine.process("reservation/fragments", Set.of("reservationFlowSteps"),
+                context(Map.of("reservationFlow", reservationFlow)));
+    }
+
+    /**
+     * The step header as the flow pages include it.
+     */
+    @Benchmark
+    public String reservationFlowStepsFromFragmentCache() {
+        return fragmentCache.reservationFlowSteps(reservationFlow);
+    }
+
+    @Benchmark
+    public String roomCosts() {
+        return templateEngine.process("reservation/fragments", Set.of("roomCosts"),
+                context(Map.of("reservationFlow", reservationFlow)));
+    }
+
+    @Benchmark
+    public String quickSummary() {
+        return templateEngine.process("reservation/fragments", Set.of("quickSummary"),
+                context(Map.of("reservationFlow", reservationFlow)));
+    }
+}
@@ -0,0 +1,124 @@
+package com.demo.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, errors and booking conflicts of each {@link FlowStep}, shared by every virtual user.
+ *
+ * <p>Every attempt at a step is counted and timed, whether it failed or not. Latencies are recorded in microseconds
+ * and reported in milliseconds. A conflict is the application refusing dates another session has taken, at the dates
+ * step or when booking at the payment step. It is expected under load and is not an error.</p>
+ */
+class FlowStats {
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private static final int MAX_PRINTED_ERRORS = 10;
+
+    private final Map<FlowStep, Histogram> latencies = new EnumMap<>(FlowStep.class);
+    private final Map<FlowStep, LongAdder> errors = new EnumMap<>(FlowStep.class);
+    private final Map<FlowStep, LongAdder> conflicts = new EnumMap<>(FlowStep.class);
+    private final LongAdder bookings = new LongAdder();
+    private final AtomicInteger printedErrors = new AtomicInteger();
+    private volatile long startNanos = System.nanoTime();
+    private volatile long stopNanos;
+
+    FlowStats() {
+        for (FlowStep step : FlowStep.values()) {
+            latencies.put(step, new ConcurrentHistogram(SIGNIFICANT_DIGITS));
+            errors.put(step, new LongAdder());
+            conflicts.put(step, new LongAdder());
+        }
+    }
+
+    void recordLatency(FlowStep step, long nanos) {
+        latencies.get(step).recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * @param detail Printed for the first few errors only, enough to tell why a run fails.
+     */
+    void recordError(FlowStep step, String detail) {
+        errors.get(step).increment();
+        if (printedErrors.getAndIncrement() < MAX_PRINTED_ERRORS) {
+            System.err.println(step + " failed: " + detail);
+        }
+    }
+
+    void recordConflict(FlowStep step) {
+        conflicts.get(step).increment();
+    }
+
+    void recordBooking() {
+        bookings.increment();
+    }
+
+    /**
+     * Drops everything recorded so far, used at the end of the warm up.
+     */
+    void reset() {
+        for (FlowStep step : FlowStep.values()) {
+            latencies.get(step).reset();
+            errors.get(step).reset();
+            conflicts.get(step).reset();
+        }
+        bookings.reset();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Ends the measured time, the bookings per second are over the time between the last reset and this.
+     */
+    void stop() {
+        stopNanos = System.nanoTime();
+    }
+
+    void printReport(PrintStream out) {
+        double seconds = ((stopNanos == 0 ? System.nanoTime() : stopNanos) - startNanos) / 1e9;
+
+        out.printf("%-8s %8s %7s %7s %9s %9s %9s %9s %9s%n",
+                "step", "count", "errors", "error %", "conflicts", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (FlowStep step : FlowStep.values()) {
+            Histogram histogram = latencies.get(step);
+            long count = histogram.getTotalCount();
+            long stepErrors = errors.get(step).sum();
+            out.printf("%-8s %8d %7d %7.2f %9d %9.1f %9.1f %9.1f %9.1f%n",
+                    step,
+                    count,
+                    stepErrors,
+                    count == 0 ? 0.0 : 100.0 * stepErrors / count,
+                    conflicts.get(step).sum(),
+                    histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+                    histogram.getValueAtPercentile(95) / MICROS_PER_MILLI,
+                    histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                    histogram.getMaxValue() / MICROS_PER_MILLI);
+        }
+
+        long sessions = latencies.get(FlowStep.Search).getTotalCount();
+        out.printf("%nsessions %d, bookings %d, %.2f bookings/s over %.0f s%n",
+                sessions, bookings.sum(), bookings.sum() / seconds, seconds);
+    }
+
+    /**
+     * Writes the full percentile distribution of each step as {@code <step>.hgrm}, which the HdrHistogram plotter
+     * reads.
+     */
+    void writeHistograms(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (FlowStep step : FlowStep.values()) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(step + ".hgrm")))) {
+                latencies.get(step).outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+    }
+}
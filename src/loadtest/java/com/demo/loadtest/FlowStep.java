@@ -0,0 +1,23 @@
+package com.demo.loadtest;
+
+/**
+ * The steps a virtual user goes through to book a room, in order. The latency of a step is the time spent waiting
+ * on all of its requests, think time excluded.
+ */
+public enum FlowStep {
+    /** {@code GET /hotel/search} */
+    Search,
+    /** {@code GET /hotel/{id}/rooms} for the chosen dates. */
+    Rooms,
+    /** The date form and posting it, which checks availability. */
+    Dates,
+    /** Adding guests one at a time then posting the guest list. */
+    Guests,
+    /** The extras page, one AJAX quote per ticked extra then posting the page. */
+    Extras,
+    /** Same as extras for the meal plan of each guest. */
+    Meals,
+    Review,
+    /** The payment form and posting it, which books the room. */
+    Payment
+}
@@ -0,0 +1,177 @@
+package com.demo.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A browser session of one virtual user. Cookies are kept per session so each user has its own
+ * {@code reservationFlow}, and redirects are followed by hand so the cookies set on the way are kept too.
+ *
+ * <p>Not thread safe, a session belongs to the thread of its virtual user.</p>
+ */
+class HttpSession {
+    private static final int MAX_REDIRECTS = 5;
+    private static final Pattern INPUT = Pattern.compile("<input\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+
+    private final URI baseUri;
+    private final int timeoutMillis;
+    private final CookieManager cookies = new CookieManager(null, CookiePolicy.ACCEPT_ALL);
+
+    HttpSession(URI baseUri, int timeoutMillis) {
+        this.baseUri = baseUri;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    Response get(String pathAndQuery) throws IOException {
+        return send("GET", baseUri.resolve(pathAndQuery), null);
+    }
+
+    /**
+     * Posts a form, following the redirect of a successful post like a browser.
+     *
+     * @param form Repeated names such as ticked checkboxes are written once per value.
+     */
+    Response post(String pathAndQuery, Map<String, List<String>> form) throws IOException {
+        return send("POST", baseUri.resolve(pathAndQuery), encode(form));
+    }
+
+    private Response send(String method, URI uri, String form) throws IOException {
+        for (int redirects = 0; ; redirects++) {
+            HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+            connection.setInstanceFollowRedirects(false);
+            connection.setConnectTimeout(timeoutMillis);
+            connection.setReadTimeout(timeoutMillis);
+            connection.setRequestMethod(method);
+            cookies.get(uri, Map.of()).forEach((name, values) ->
+                    values.forEach(value -> connection.addRequestProperty(name, value)));
+
+            if (form != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(form.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+
+            int status = connection.getResponseCode();
+            cookies.put(uri, connection.getHeaderFields());
+            String body = readBody(connection);
+
+            String location = connection.getHeaderField("Location");
+            if (status / 100 != 3 || location == null) {
+                return new Response(status, uri, body);
+            }
+            if (redirects == MAX_REDIRECTS) {
+                throw new IOException("Too many redirects from " + uri);
+            }
+            uri = uri.resolve(location);
+            method = "GET";
+            form = null;
+        }
+    }
+
+    /**
+     * Reads the whole body even for errors so the connection can be kept alive.
+     */
+    private static String readBody(HttpURLConnection connection) throws IOException {
+        InputStream in = connection.getErrorStream();
+        if (in == null) {
+            try {
+                in = connection.getInputStream();
+            } catch (IOException e) {
+                return "";
+            }
+        }
+        try (InputStream body = in) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String encode(Map<String, List<String>> form) throws UnsupportedEncodingException {
+        StringJoiner joiner = new StringJoiner("&");
+        for (Map.Entry<String, List<String>> field : form.entrySet()) {
+            String name = URLEncoder.encode(field.getKey(), "UTF-8");
+            for (String value : field.getValue()) {
+                joiner.add(name + "=" + URLEncoder.encode(value, "UTF-8"));
+            }
+        }
+        return joiner.toString();
+    }
+
+    static final class Response {
+        private final int status;
+        private final URI uri;
+        private final String body;
+
+        Response(int status, URI uri, String body) {
+            this.status = status;
+            this.uri = uri;
+            this.body = body;
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        /**
+         * @return Where the response came from after any redirects, which tells which flow page was returned.
+         */
+        String getPath() {
+            return uri.getPath();
+        }
+
+        String getBody() {
+            return body;
+        }
+
+        boolean isOk() {
+            return status == HttpURLConnection.HTTP_OK;
+        }
+
+        boolean contains(String text) {
+            return body.contains(text);
+        }
+
+        /**
+         * @return Every capture of the first group of {@code pattern} in order, without duplicates.
+         */
+        List<String> findAll(Pattern pattern) {
+            Set<String> found = new LinkedHashSet<>();
+            Matcher matcher = pattern.matcher(body);
+            while (matcher.find()) {
+                found.add(matcher.group(1));
+            }
+            return new ArrayList<>(found);
+        }
+
+        /**
+         * @return The values of the inputs named {@code name}, such as the ids of the extras that can be ticked.
+         */
+        List<String> inputValues(String name) {
+            List<String> values = new ArrayList<>();
+            Matcher input = INPUT.matcher(body);
+            while (input.find()) {
+                String tag = input.group();
+                if (name.equals(attribute(tag, "name"))) {
+                    String value = attribute(tag, "value");
+                    if (value != null) {
+                        values.add(value);
+                    }
+                }
+            }
+            return values;
+        }
+
+        private static String attribute(String tag, String attribute) {
+            Matcher matcher = Pattern.compile("\\s" + attribute + "=\"([^\"]*)\"").matcher(tag);
+            return matcher.find() ? matcher.group(1) : null;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.demo.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Command line options of {@link ReservationLoadTest}, each given as {@code -name value}.
+ */
+class LoadTestOptions {
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Options, each as -name value:",
+            "  url       application to load, started on a random port when not given",
+            "  users     concurrent virtual users, default 20",
+            "  duration  seconds measured after the warm up, default 60",
+            "  warmup    seconds run before measuring, default 10",
+            "  think     mean milliseconds between two steps of a user, 0 for none, default 500",
+            "  horizon   check in is up to this many days from today, smaller means more conflicts, default 90",
+            "  nights    most nights booked, default 5",
+            "  state     state searched for hotels, default VIC",
+            "  timeout   request timeout in milliseconds, default 10000",
+            "  out       directory the .hgrm files are written to, default target/loadtest");
+
+    private String url;
+    private int users = 20;
+    private int durationSeconds = 60;
+    private int warmupSeconds = 10;
+    private int thinkMillis = 500;
+    private int horizonDays = 90;
+    private int maxNights = 5;
+    private String state = "VIC";
+    private int timeoutMillis = 10_000;
+    private Path out = Paths.get("target", "loadtest");
+
+    /**
+     * @throws IllegalArgumentException For an unknown option, a missing or invalid value.
+     */
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (int i = 0; i < args.length; i += 2) {
+            String name = args[i].startsWith("-") ? args[i].substring(1) : args[i];
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            String value = args[i + 1];
+            switch (name) {
+                case "url":
+                    options.url = value;
+                    break;
+                case "users":
+                    options.users = positive(name, value);
+                    break;
+                case "duration":
+                    options.durationSeconds = positive(name, value);
+                    break;
+                case "warmup":
+                    options.warmupSeconds = notNegative(name, value);
+                    break;
+                case "think":
+                    options.thinkMillis = notNegative(name, value);
+                    break;
+                case "horizon":
+                    options.horizonDays = positive(name, value);
+                    break;
+                case "nights":
+                    options.maxNights = positive(name, value);
+                    break;
+                case "state":
+                    options.state = value;
+                    break;
+                case "timeout":
+                    options.timeoutMillis = positive(name, value);
+                    break;
+                case "out":
+                    options.out = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        return options;
+    }
+
+    private static int positive(String name, String value) {
+        int parsed = notNegative(name, value);
+        if (parsed == 0) {
+            throw new IllegalArgumentException(name + " must be greater than 0");
+        }
+        return parsed;
+    }
+
+    private static int notNegative(String name, String value) {
+        int parsed;
+        try {
+            parsed = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number, was " + value);
+        }
+        if (parsed < 0) {
+            throw new IllegalArgumentException(name + " must not be negative");
+        }
+        return parsed;
+    }
+
+    /**
+     * @return {@code null} to start the application in this JVM.
+     */
+    String getUrl() {
+        return url;
+    }
+
+    int getUsers() {
+        return users;
+    }
+
+    int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    int getThinkMillis() {
+        return thinkMillis;
+    }
+
+    int getHorizonDays() {
+        return horizonDays;
+    }
+
+    int getMaxNights() {
+        return maxNights;
+    }
+
+    String getState() {
+        return state;
+    }
+
+    int getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    Path getOut() {
+        return out;
+    }
+
+    @Override
+    public String toString() {
+        return "users=" + users + ", duration=" + durationSeconds + "s, warmup=" + warmupSeconds
+                + "s, think=" + thinkMillis + "ms, horizon=" + horizonDays + " days, nights=1-" + maxNights
+                + ", state=" + state;
+    }
+}
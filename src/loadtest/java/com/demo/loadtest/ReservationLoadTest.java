@@ -0,0 +1,103 @@
+package com.demo.loadtest;
+
+import com.demo.HotelApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the application holds up when many visitors book rooms at once. Each {@link VirtualUser} drives real
+ * HTTP sessions from the hotel search to the payment, see {@link FlowStep}, and the latency, errors and booking
+ * conflicts of every step are reported once the run ends.
+ *
+ * <p>Without {@code -url} the application is started in this JVM on a random port with the demo catalogue, so
+ * nothing else is needed. It then shares the CPU with the users, pass the url of a separately started application
+ * for numbers that are not skewed by that.</p>
+ *
+ * <pre>
+ *     mvn -P loadtest test-compile exec:exec -Dloadtest.args="-users 50 -think 200 -duration 120"
+ * </pre>
+ *
+ * See {@link LoadTestOptions#USAGE} for the options.
+ */
+public class ReservationLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadTestOptions.USAGE);
+            System.exit(1);
+            return;
+        }
+
+        // Otherwise only 5 connections to the application are kept alive and the rest reconnect on every request.
+        System.setProperty("http.maxConnections", String.valueOf(options.getUsers()));
+
+        ConfigurableApplicationContext application = null;
+        URI baseUri;
+        if (options.getUrl() == null) {
+            // Its own journal directory, the one of an application started from the same directory is locked.
+            Path journal = Files.createTempDirectory("loadtest-booking-journal");
+            application = new SpringApplicationBuilder(HotelApplication.class)
+                    .properties("server.port=0", "booking.journal.directory=" + journal)
+                    .run();
+            int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+            baseUri = URI.create("http://localhost:" + port + "/");
+        } else {
+            baseUri = URI.create(options.getUrl().endsWith("/") ? options.getUrl() : options.getUrl() + "/");
+        }
+
+        try {
+            FlowStats stats = run(baseUri, options);
+            System.out.println();
+            System.out.println("Reservation flow against " + baseUri + ", " + options);
+            stats.printReport(System.out);
+            stats.writeHistograms(options.getOut());
+            System.out.println("Percentile distributions written to " + options.getOut().toAbsolutePath());
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+
+    private static FlowStats run(URI baseUri, LoadTestOptions options) throws InterruptedException {
+        FlowStats stats = new FlowStats();
+        long endNanos = System.nanoTime()
+                + TimeUnit.SECONDS.toNanos(options.getWarmupSeconds() + options.getDurationSeconds());
+
+        List<Thread> users = new ArrayList<>();
+        for (int i = 0; i < options.getUsers(); i++) {
+            VirtualUser user = new VirtualUser(baseUri, options, stats, () -> System.nanoTime() - endNanos >= 0);
+            Thread thread = new Thread(user, "virtual-user-" + i);
+            thread.setDaemon(true);
+            users.add(thread);
+            thread.start();
+        }
+
+        if (options.getWarmupSeconds() > 0) {
+            TimeUnit.SECONDS.sleep(options.getWarmupSeconds());
+            stats.reset();
+        }
+
+        TimeUnit.NANOSECONDS.sleep(endNanos - System.nanoTime());
+        stats.stop();
+
+        // Users stop at their next step, give a request that was just sent the time to finish.
+        long joinEndNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.getTimeoutMillis());
+        for (Thread user : users) {
+            user.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(joinEndNanos - System.nanoTime())));
+        }
+        return stats;
+    }
+}
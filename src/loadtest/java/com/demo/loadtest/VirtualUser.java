@@ -0,0 +1,300 @@
+package com.demo.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Books rooms one after another like a visitor would, each booking in a new session: search the hotels of a state,
+ * list the free rooms of one for random dates then go through the six reservation steps for one of them.
+ *
+ * <p>Ticking an extra or meal sends the same AJAX quote request the page does, one per ticked box. A session ends at
+ * the first error or conflict since the flow cannot go on.</p>
+ */
+class VirtualUser implements Runnable {
+    private static final Pattern HOTEL_ROOMS_LINK = Pattern.compile("/hotel/(\\d+)/rooms");
+    private static final Pattern BOOK_ROOM_LINK = Pattern.compile("roomId=(\\d+)");
+
+    private enum Outcome {
+        Done, Conflict, Error
+    }
+
+    private final URI baseUri;
+    private final LoadTestOptions options;
+    private final FlowStats stats;
+    private final BooleanSupplier stopped;
+    private final Random random = new Random();
+
+    // State of the booking in progress.
+    private HttpSession session;
+    private HttpSession.Response page;
+    private Long hotelId;
+    private Long roomId;
+    private LocalDate checkInDate;
+    private LocalDate checkOutDate;
+    private String error;
+
+    VirtualUser(URI baseUri, LoadTestOptions options, FlowStats stats, BooleanSupplier stopped) {
+        this.baseUri = baseUri;
+        this.options = options;
+        this.stats = stats;
+        this.stopped = stopped;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!stopped.getAsBoolean()) {
+                book();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void book() throws InterruptedException {
+        session = new HttpSession(baseUri, options.getTimeoutMillis());
+        page = null;
+
+        for (FlowStep step : FlowStep.values()) {
+            error = null;
+            long start = System.nanoTime();
+            Outcome outcome;
+            try {
+                outcome = perform(step);
+            } catch (IOException e) {
+                error = e.toString();
+                outcome = Outcome.Error;
+            }
+            stats.recordLatency(step, System.nanoTime() - start);
+
+            if (outcome == Outcome.Conflict) {
+                stats.recordConflict(step);
+                return;
+            }
+            if (outcome == Outcome.Error) {
+                stats.recordError(step, error);
+                return;
+            }
+            if (!think()) {
+                return;
+            }
+        }
+        stats.recordBooking();
+    }
+
+    /**
+     * @return {@code false} if the run ended while thinking.
+     */
+    private boolean think() throws InterruptedException {
+        int thinkMillis = options.getThinkMillis();
+        if (thinkMillis > 0) {
+            Thread.sleep(thinkMillis / 2 + random.nextInt(thinkMillis + 1));
+        }
+        return !stopped.getAsBoolean();
+    }
+
+    private Outcome perform(FlowStep step) throws IOException {
+        switch (step) {
+            case Search:
+                return search();
+            case Rooms:
+                return rooms();
+            case Dates:
+                return dates();
+            case Guests:
+                return guests();
+            case Extras:
+                return extras();
+            case Meals:
+                return meals();
+            case Review:
+                return expectPage(session.post("/reservation/review", new LinkedHashMap<>()),
+                        "/reservation/payment");
+            case Payment:
+                return payment();
+            default:
+                throw new IllegalArgumentException("Unknown step " + step);
+        }
+    }
+
+    private Outcome search() throws IOException {
+        page = session.get("/hotel/search?state=" + options.getState());
+        if (!page.isOk()) {
+            return unexpected(page);
+        }
+        List<String> hotelIds = page.findAll(HOTEL_ROOMS_LINK);
+        if (hotelIds.isEmpty()) {
+            error = "No hotels found in " + options.getState();
+            return Outcome.Error;
+        }
+        hotelId = Long.valueOf(pick(hotelIds));
+        return Outcome.Done;
+    }
+
+    private Outcome rooms() throws IOException {
+        checkInDate = LocalDate.now().plusDays(1 + random.nextInt(options.getHorizonDays()));
+        checkOutDate = checkInDate.plusDays(1 + random.nextInt(options.getMaxNights()));
+
+        page = session.get("/hotel/" + hotelId + "/rooms?checkInDate=" + iso(checkInDate)
+                + "&checkOutDate=" + iso(checkOutDate));
+        if (!page.isOk()) {
+            return unexpected(page);
+        }
+        List<String> roomIds = page.findAll(BOOK_ROOM_LINK);
+        if (roomIds.isEmpty()) {
+            // Every room of the hotel is booked for these dates.
+            return Outcome.Conflict;
+        }
+        roomId = Long.valueOf(pick(roomIds));
+        return Outcome.Done;
+    }
+
+    private Outcome dates() throws IOException {
+        page = session.get("/reservation?roomId=" + roomId + "&checkInDate=" + iso(checkInDate)
+                + "&checkOutDate=" + iso(checkOutDate));
+        if (!page.isOk()) {
+            return unexpected(page);
+        }
+
+        Map<String, List<String>> form = new LinkedHashMap<>();
+        form.put("reservation.dates.checkInDate", List.of(iso(checkInDate)));
+        form.put("reservation.dates.checkOutDate", List.of(iso(checkOutDate)));
+        form.put("reservation.dates.estimatedCheckInTime", List.of("12:00"));
+        form.put("reservation.dates.policyAcknowledged", List.of("true"));
+        form.put("_reservation.dates.policyAcknowledged", List.of("on"));
+        if (random.nextBoolean()) {
+            form.put("reservation.dates.lateCheckout", List.of("true"));
+        }
+        form.put("_reservation.dates.lateCheckout", List.of("on"));
+
+        page = session.post("/reservation/dates", form);
+        if (page.isOk() && page.getPath().equals("/reservation/dates") && page.contains("not available")) {
+            return Outcome.Conflict;
+        }
+        return expectPage(page, "/reservation/guests");
+    }
+
+    private Outcome guests() throws IOException {
+        List<Map<String, List<String>>> guests = new ArrayList<>();
+        guests.add(guest("john", "smith", false));
+        if (random.nextBoolean()) {
+            guests.add(guest("jane", "smith", true));
+        }
+
+        for (Map<String, List<String>> guest : guests) {
+            page = session.post("/reservation/guests", guest);
+            // A second guest is refused when the room is full, which still renders the guest page.
+            if (!page.isOk()) {
+                return unexpected(page);
+            }
+        }
+        page = session.post("/reservation/guests", new LinkedHashMap<>());
+        return expectPage(page, "/reservation/extras");
+    }
+
+    private static Map<String, List<String>> guest(String firstName, String lastName, boolean child) {
+        Map<String, List<String>> form = new LinkedHashMap<>();
+        form.put("firstName", List.of(firstName));
+        form.put("lastName", List.of(lastName));
+        form.put("child", List.of(String.valueOf(child)));
+        form.put("addGuest", List.of(""));
+        return form;
+    }
+
+    private Outcome extras() throws IOException {
+        String field = "reservation.generalExtras";
+        Map<String, List<String>> form = new LinkedHashMap<>();
+        form.put("_" + field, List.of("on"));
+
+        Outcome outcome = tick(page.inputValues(field), form, field, "/reservation/extras?add");
+        if (outcome != Outcome.Done) {
+            return outcome;
+        }
+        page = session.post("/reservation/extras", form);
+        return expectPage(page, "/reservation/meals");
+    }
+
+    private Outcome meals() throws IOException {
+        Map<String, List<String>> form = new LinkedHashMap<>();
+        for (int i = 0; ; i++) {
+            String field = "reservation.mealPlans[" + i + "].foodExtras";
+            List<String> foodExtraIds = page.inputValues(field);
+            if (foodExtraIds.isEmpty()) {
+                break;
+            }
+            form.put("_" + field, List.of("on"));
+            form.put("_reservation.mealPlans[" + i + "].dietaryRequirements", List.of("on"));
+
+            Outcome outcome = tick(foodExtraIds, form, field, "/reservation/meals?add");
+            if (outcome != Outcome.Done) {
+                return outcome;
+            }
+        }
+        page = session.post("/reservation/meals", form);
+        return expectPage(page, "/reservation/review");
+    }
+
+    /**
+     * Ticks up to two of {@code ids} one at a time, asking for a new quote after each.
+     */
+    private Outcome tick(List<String> ids, Map<String, List<String>> form, String field, String quoteUrl)
+            throws IOException {
+        List<String> shuffled = new ArrayList<>(ids);
+        Collections.shuffle(shuffled, random);
+        List<String> ticked = new ArrayList<>();
+
+        for (String id : shuffled.subList(0, random.nextInt(Math.min(2, shuffled.size()) + 1))) {
+            ticked.add(id);
+            form.put(field, new ArrayList<>(ticked));
+            HttpSession.Response quote = session.post(quoteUrl, form);
+            if (!quote.isOk() || !quote.contains("quoteTotalIncludingTax")) {
+                return unexpected(quote);
+            }
+        }
+        return Outcome.Done;
+    }
+
+    private Outcome payment() throws IOException {
+        List<String> createdTime = page.inputValues("createdTime");
+
+        Map<String, List<String>> form = new LinkedHashMap<>();
+        form.put("createdTime", createdTime.isEmpty()
+                ? List.of(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME)) : createdTime);
+        form.put("creditCardType", List.of("MasterCard"));
+        form.put("creditCardNumber", List.of("1234567892"));
+        form.put("cvv", List.of("123"));
+        form.put("cardHolderName", List.of("john smith"));
+        form.put("cardExpiryYear", List.of(String.valueOf(LocalDate.now().getYear() + 1)));
+        form.put("cardExpiryMonth", List.of(Month.JULY.name()));
+
+        page = session.post("/reservation/payment", form);
+        if (page.isOk() && page.getPath().equals("/reservation/payment") && page.contains("no longer available")) {
+            return Outcome.Conflict;
+        }
+        return expectPage(page, "/reservation/completed");
+    }
+
+    private Outcome expectPage(HttpSession.Response response, String path) {
+        return response.isOk() && response.getPath().equals(path) ? Outcome.Done : unexpected(response);
+    }
+
+    private Outcome unexpected(HttpSession.Response response) {
+        error = response.getStatus() + " from " + response.getPath();
+        return Outcome.Error;
+    }
+
+    private String pick(List<String> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static String iso(LocalDate date) {
+        return date.format(DateTimeFormatter.ISO_DATE);
+    }
+}
@@ -1,11 +1,20 @@
 package com.demo;
 
+import com.demo.util.FragmentCache;
 import com.github.mjstewart.querystring.dialect.QueryStringDialect;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.thymeleaf.ITemplateEngine;
 
 @SpringBootApplication
+@EnableCaching
+@EnableScheduling
 public class HotelApplication {
 
 	public static void main(String[] args) {
@@ -21,4 +30,15 @@ public class HotelApplication {
 	public QueryStringDialect queryStringDialect() {
 		return new QueryStringDialect();
 	}
+
+	/**
+	 * Declared here rather than scanned so web slice tests that render templates also have it. The template engine
+	 * is looked up on first use since slices without Thymeleaf load this class too.
+	 */
+	@Bean
+	public FragmentCache fragmentCache(ObjectProvider<ITemplateEngine> templateEngine,
+									   ApplicationContext applicationContext,
+									   @Value("${spring.thymeleaf.cache:true}") boolean cache) {
+		return new FragmentCache(templateEngine::getObject, applicationContext, cache);
+	}
 }
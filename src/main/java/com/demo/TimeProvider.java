@@ -12,4 +12,8 @@ public class TimeProvider {
     public LocalDate localDate() {
         return LocalDate.now();
     }
+
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
 }
@@ -0,0 +1,190 @@
+package com.demo.availability;
+
+import com.demo.TimeProvider;
+import com.demo.persistance.RoomRepository;
+import com.demo.reservation.ReservationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In memory index answering whether rooms are free for a range of nights without querying the database.
+ *
+ * <p>Each room has a {@code RoomNightCalendar} covering a rolling horizon of {@code availability.horizon-days}
+ * starting from today. The index is built from the database once the application is ready and kept in sync by
+ * claiming nights when a {@code Reservation} is committed. Nights held by {@code RoomHolds} for a flow in progress
+ * are claimed too.</p>
+ *
+ * <p>Nights before today or beyond the horizon are never available. Every change moves the {@link AvailabilityVersion}
+ * forward so cached availability pages are revalidated.</p>
+ */
+@Component
+public class AvailabilityIndex {
+
+    private static final int ROLL_INTERVAL_DAYS = 64;
+
+    private final RoomRepository roomRepository;
+    private final ReservationRepository reservationRepository;
+    private final TimeProvider timeProvider;
+    private final AvailabilityVersion availabilityVersion;
+    private final int horizonDays;
+
+    private volatile Map<Long, RoomNightCalendar> calendars = new ConcurrentHashMap<>();
+    private volatile Map<Long, Set<Long>> roomsByHotel = new ConcurrentHashMap<>();
+    private volatile long rolledEpochDay;
+
+    public AvailabilityIndex(RoomRepository roomRepository,
+                             ReservationRepository reservationRepository,
+                             TimeProvider timeProvider,
+                             AvailabilityVersion availabilityVersion,
+                             @Value("${availability.horizon-days:365}") int horizonDays) {
+        this.roomRepository = roomRepository;
+        this.reservationRepository = reservationRepository;
+        this.timeProvider = timeProvider;
+        this.availabilityVersion = availabilityVersion;
+        this.horizonDays = horizonDays;
+        this.rolledEpochDay = timeProvider.localDate().toEpochDay();
+    }
+
+    /**
+     * Loads every room and all reservations that have nights remaining then atomically replaces the current index.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        LocalDate today = timeProvider.localDate();
+        Map<Long, RoomNightCalendar> newCalendars = new ConcurrentHashMap<>();
+        Map<Long, Set<Long>> newRoomsByHotel = new ConcurrentHashMap<>();
+
+        for (RoomRef ref : roomRepository.findAllRoomRefs()) {
+            newCalendars.put(ref.getRoomId(), new RoomNightCalendar(today.toEpochDay(), horizonDays));
+            newRoomsByHotel.computeIfAbsent(ref.getHotelId(), id -> ConcurrentHashMap.newKeySet()).add(ref.getRoomId());
+        }
+
+        for (BookedNights booked : reservationRepository.findAllBookedNightsFrom(today)) {
+            RoomNightCalendar calendar = newCalendars.get(booked.getRoomId());
+            if (calendar != null) {
+                // Clamp to the calendar so stays that started in the past or end beyond the horizon are still marked.
+                long from = Math.max(booked.getCheckInDate().toEpochDay(), calendar.getBaseEpochDay());
+                long to = Math.min(booked.getCheckOutDate().toEpochDay(), calendar.getEndEpochDay());
+                if (from < to) {
+                    calendar.claim(from, to);
+                }
+            }
+        }
+
+        rolledEpochDay = today.toEpochDay();
+        roomsByHotel = newRoomsByHotel;
+        calendars = newCalendars;
+        availabilityVersion.increment();
+    }
+
+    /**
+     * Registers a newly created room so it appears in {@link #availableRooms} with every night free.
+     */
+    public void registerRoom(Long hotelId, Long roomId) {
+        calendarFor(roomId);
+        roomsByHotel.computeIfAbsent(hotelId, id -> ConcurrentHashMap.newKeySet()).add(roomId);
+    }
+
+    /**
+     * @param checkOutDate Exclusive, no night is spent on the check out date.
+     * @return {@code true} if the room is free for every night from check in until check out.
+     */
+    public boolean isAvailable(Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+        long today = rollIfNeeded();
+        long from = checkInDate.toEpochDay();
+        long to = checkOutDate.toEpochDay();
+        if (!withinHorizon(today, from, to)) {
+            return false;
+        }
+        RoomNightCalendar calendar = calendars.get(roomId);
+        return calendar == null || calendar.isFree(from, to);
+    }
+
+    /**
+     * @return The ids of every room in the hotel that is free for every night from check in until check out, in
+     * ascending order.
+     */
+    public List<Long> availableRooms(Long hotelId, LocalDate checkInDate, LocalDate checkOutDate) {
+        long today = rollIfNeeded();
+        long from = checkInDate.toEpochDay();
+        long to = checkOutDate.toEpochDay();
+        Set<Long> roomIds = roomsByHotel.get(hotelId);
+        if (roomIds == null || !withinHorizon(today, from, to)) {
+            return List.of();
+        }
+
+        Map<Long, RoomNightCalendar> current = calendars;
+        List<Long> available = new ArrayList<>(roomIds.size());
+        for (Long roomId : roomIds) {
+            RoomNightCalendar calendar = current.get(roomId);
+            if (calendar == null || calendar.isFree(from, to)) {
+                available.add(roomId);
+            }
+        }
+        available.sort(Comparator.naturalOrder());
+        return available;
+    }
+
+    /**
+     * Atomically marks the nights as booked if they are all free.
+     *
+     * @return {@code true} if the nights were claimed, {@code false} if another booking already holds any of them.
+     */
+    public boolean claim(Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+        long today = rollIfNeeded();
+        long from = checkInDate.toEpochDay();
+        long to = checkOutDate.toEpochDay();
+        if (withinHorizon(today, from, to) && calendarFor(roomId).claim(from, to)) {
+            availabilityVersion.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Marks the nights as free again, such as when a booking could not be persisted.
+     */
+    public void release(Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+        RoomNightCalendar calendar = calendars.get(roomId);
+        if (calendar != null) {
+            calendar.release(checkInDate.toEpochDay(), checkOutDate.toEpochDay());
+            availabilityVersion.increment();
+        }
+    }
+
+    public int getHorizonDays() {
+        return horizonDays;
+    }
+
+    private RoomNightCalendar calendarFor(Long roomId) {
+        return calendars.computeIfAbsent(roomId, id -> new RoomNightCalendar(rolledEpochDay, horizonDays));
+    }
+
+    private boolean withinHorizon(long today, long from, long to) {
+        return from < to && from >= today && to <= today + horizonDays;
+    }
+
+    /**
+     * Calendars only roll a whole word at a time so there is no point visiting them more than every 64 days.
+     *
+     * @return Today as an epoch day.
+     */
+    private long rollIfNeeded() {
+        long today = timeProvider.localDate().toEpochDay();
+        if (today - rolledEpochDay >= ROLL_INTERVAL_DAYS) {
+            synchronized (this) {
+                if (today - rolledEpochDay >= ROLL_INTERVAL_DAYS) {
+                    calendars.values().forEach(calendar -> calendar.rollTo(today));
+                    rolledEpochDay = today;
+                }
+            }
+        }
+        return today;
+    }
+}
@@ -0,0 +1,37 @@
+package com.demo.availability;
+
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A counter that moves forward whenever nights are claimed or released in the {@link AvailabilityIndex}, used with
+ * the {@code CatalogueVersion} for the {@code ETag} of the room availability pages.
+ *
+ * <p>Nights held for flows in progress only live in this instance's index, so the counter starts from a random
+ * value rather than the clock. A tag handed out by another instance or before a restart is never mistaken for a
+ * current one.</p>
+ */
+@Component
+public class AvailabilityVersion {
+
+    private final AtomicLong version = new AtomicLong(UUID.randomUUID().getMostSignificantBits());
+    private volatile long lastModified = System.currentTimeMillis();
+
+    public long get() {
+        return version.get();
+    }
+
+    /**
+     * @return epoch millis of the last change, used for {@code Last-Modified}.
+     */
+    public long lastModified() {
+        return lastModified;
+    }
+
+    public void increment() {
+        lastModified = System.currentTimeMillis();
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,40 @@
+package com.demo.availability;
+
+import java.time.LocalDate;
+
+/**
+ * The nights a {@code Reservation} occupies a room. {@code checkOutDate} is exclusive since no night is spent
+ * on the check out date.
+ */
+public class BookedNights {
+    private final Long roomId;
+    private final LocalDate checkInDate;
+    private final LocalDate checkOutDate;
+
+    public BookedNights(Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+        this.roomId = roomId;
+        this.checkInDate = checkInDate;
+        this.checkOutDate = checkOutDate;
+    }
+
+    public Long getRoomId() {
+        return roomId;
+    }
+
+    public LocalDate getCheckInDate() {
+        return checkInDate;
+    }
+
+    public LocalDate getCheckOutDate() {
+        return checkOutDate;
+    }
+
+    @Override
+    public String toString() {
+        return "BookedNights{" +
+                "roomId=" + roomId +
+                ", checkInDate=" + checkInDate +
+                ", checkOutDate=" + checkOutDate +
+                '}';
+    }
+}
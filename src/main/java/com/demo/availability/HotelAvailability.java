@@ -0,0 +1,71 @@
+package com.demo.availability;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * How many rooms of a hotel are free for a stay and the lowest {@code costPerNight} among them.
+ */
+public class HotelAvailability {
+    private final Long hotelId;
+    private final int availableRooms;
+    private final BigDecimal cheapestRate;
+
+    public HotelAvailability(Long hotelId, int availableRooms, BigDecimal cheapestRate) {
+        this.hotelId = hotelId;
+        this.availableRooms = availableRooms;
+        this.cheapestRate = cheapestRate;
+    }
+
+    public static HotelAvailability none(Long hotelId) {
+        return new HotelAvailability(hotelId, 0, null);
+    }
+
+    /**
+     * Combines the rooms of the same hotel counted in separate batches.
+     */
+    public HotelAvailability merge(HotelAvailability other) {
+        BigDecimal cheapest = cheapestRate == null || (other.cheapestRate != null
+                && other.cheapestRate.compareTo(cheapestRate) < 0) ? other.cheapestRate : cheapestRate;
+        return new HotelAvailability(hotelId, availableRooms + other.availableRooms, cheapest);
+    }
+
+    public Long getHotelId() {
+        return hotelId;
+    }
+
+    public int getAvailableRooms() {
+        return availableRooms;
+    }
+
+    /**
+     * @return {@code null} when no room is available.
+     */
+    public BigDecimal getCheapestRate() {
+        return cheapestRate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        HotelAvailability that = (HotelAvailability) o;
+        return availableRooms == that.availableRooms &&
+                Objects.equals(hotelId, that.hotelId) &&
+                Objects.equals(cheapestRate, that.cheapestRate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hotelId, availableRooms, cheapestRate);
+    }
+
+    @Override
+    public String toString() {
+        return "HotelAvailability{" +
+                "hotelId=" + hotelId +
+                ", availableRooms=" + availableRooms +
+                ", cheapestRate=" + cheapestRate +
+                '}';
+    }
+}
@@ -0,0 +1,182 @@
+package com.demo.availability;
+
+import com.demo.TimeProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Temporary holds on the nights of a room while a reservation flow goes from the dates step to the payment.
+ *
+ * <p>A hold claims its nights in the {@code AvailabilityIndex} so the room search and other flows see them as taken
+ * without asking the database. It lasts {@code reservation.hold.ttl-minutes} from the last step the flow went
+ * through, a flow that is abandoned gives its nights back once {@link #expireHolds} finds it expired.</p>
+ *
+ * <p>Expiry deadlines are kept in a queue ordered by deadline so a sweep only looks at holds that are due. Renewing a
+ * hold does not move its queue entry, the sweep queues it again for the new deadline when the old one comes up.</p>
+ */
+@Component
+public class RoomHolds {
+
+    private final AvailabilityIndex availabilityIndex;
+    private final TimeProvider timeProvider;
+    private final long ttlMillis;
+
+    private final Map<UUID, Hold> holds = new ConcurrentHashMap<>();
+    private final PriorityQueue<Deadline> deadlines = new PriorityQueue<>();
+
+    public RoomHolds(AvailabilityIndex availabilityIndex,
+                     TimeProvider timeProvider,
+                     @Value("${reservation.hold.ttl-minutes:15}") long ttlMinutes) {
+        this.availabilityIndex = availabilityIndex;
+        this.timeProvider = timeProvider;
+        this.ttlMillis = ttlMinutes * 60_000;
+    }
+
+    /**
+     * @param checkOutDate Exclusive, no night is spent on the check out date.
+     * @return The id of the new hold or empty if any of the nights are already booked or held.
+     */
+    public Optional<UUID> hold(Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+        if (!availabilityIndex.claim(roomId, checkInDate, checkOutDate)) {
+            return Optional.empty();
+        }
+        Hold hold = new Hold(UUID.randomUUID(), roomId, checkInDate, checkOutDate,
+                timeProvider.currentTimeMillis() + ttlMillis);
+        holds.put(hold.id, hold);
+        synchronized (deadlines) {
+            deadlines.add(new Deadline(hold.id, hold.expiresAtMillis));
+        }
+        return Optional.of(hold.id);
+    }
+
+    /**
+     * Extends the hold to a full time to live from now.
+     *
+     * @return {@code false} if there is no such hold, it has expired or was released.
+     */
+    public boolean renew(UUID holdId) {
+        Hold hold = holdId == null ? null : holds.get(holdId);
+        if (hold == null) {
+            return false;
+        }
+        synchronized (hold) {
+            if (holds.get(holdId) != hold) {
+                return false;
+            }
+            hold.expiresAtMillis = timeProvider.currentTimeMillis() + ttlMillis;
+            return true;
+        }
+    }
+
+    /**
+     * Gives the nights back, nothing happens if the hold is already gone.
+     */
+    public void release(UUID holdId) {
+        Hold hold = holdId == null ? null : holds.remove(holdId);
+        if (hold != null) {
+            availabilityIndex.release(hold.roomId, hold.checkInDate, hold.checkOutDate);
+        }
+    }
+
+    /**
+     * Turns the hold into a booking, its nights stay claimed in the index. Without a matching hold, such as one that
+     * expired or was made for other dates, the nights are claimed if they are still free.
+     *
+     * @param holdId May be {@code null}.
+     * @return {@code true} if the nights are now booked for the caller, who must release them through the
+     * {@code AvailabilityIndex} if the booking can not be saved.
+     */
+    public boolean book(UUID holdId, Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+        Hold hold = holdId == null ? null : holds.remove(holdId);
+        if (hold != null) {
+            if (hold.covers(roomId, checkInDate, checkOutDate)) {
+                return true;
+            }
+            availabilityIndex.release(hold.roomId, hold.checkInDate, hold.checkOutDate);
+        }
+        return availabilityIndex.claim(roomId, checkInDate, checkOutDate);
+    }
+
+    /**
+     * Releases every hold whose time to live has passed.
+     *
+     * @return How many holds expired.
+     */
+    @Scheduled(fixedDelayString = "${reservation.hold.sweep-interval-millis:5000}")
+    public int expireHolds() {
+        long now = timeProvider.currentTimeMillis();
+        int expired = 0;
+        Deadline due;
+        while ((due = pollDue(now)) != null) {
+            Hold hold = holds.get(due.holdId);
+            if (hold == null) {
+                // Released or booked since.
+                continue;
+            }
+            synchronized (hold) {
+                if (hold.expiresAtMillis > now) {
+                    synchronized (deadlines) {
+                        deadlines.add(new Deadline(hold.id, hold.expiresAtMillis));
+                    }
+                } else if (holds.remove(hold.id, hold)) {
+                    availabilityIndex.release(hold.roomId, hold.checkInDate, hold.checkOutDate);
+                    expired++;
+                }
+            }
+        }
+        return expired;
+    }
+
+    private Deadline pollDue(long now) {
+        synchronized (deadlines) {
+            Deadline next = deadlines.peek();
+            return next != null && next.atMillis <= now ? deadlines.poll() : null;
+        }
+    }
+
+    public int size() {
+        return holds.size();
+    }
+
+    private static final class Hold {
+        private final UUID id;
+        private final Long roomId;
+        private final LocalDate checkInDate;
+        private final LocalDate checkOutDate;
+        // Guarded by the hold itself.
+        private long expiresAtMillis;
+
+        Hold(UUID id, Long roomId, LocalDate checkInDate, LocalDate checkOutDate, long expiresAtMillis) {
+            this.id = id;
+            this.roomId = roomId;
+            this.checkInDate = checkInDate;
+            this.checkOutDate = checkOutDate;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        boolean covers(Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+            return this.roomId.equals(roomId) && this.checkInDate.equals(checkInDate)
+                    && this.checkOutDate.equals(checkOutDate);
+        }
+    }
+
+    private static final class Deadline implements Comparable<Deadline> {
+        private final UUID holdId;
+        private final long atMillis;
+
+        Deadline(UUID holdId, long atMillis) {
+            this.holdId = holdId;
+            this.atMillis = atMillis;
+        }
+
+        @Override
+        public int compareTo(Deadline other) {
+            return Long.compare(atMillis, other.atMillis);
+        }
+    }
+}
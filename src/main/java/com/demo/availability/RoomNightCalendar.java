@@ -0,0 +1,151 @@
+package com.demo.availability;
+
+/**
+ * One bit per night for a single room. A set bit means the night is booked.
+ *
+ * <p>Nights are addressed by epoch day. Bit 0 of {@code words[0]} is the night starting on {@code baseEpochDay}.
+ * Range checks build a mask for the first and last word and test everything in between as whole words, so checking
+ * a year long stay touches at most 6 longs.</p>
+ *
+ * <p>The calendar rolls forward a whole word at a time once the nights it tracks are more than 64 days old which
+ * keeps the masks aligned and avoids shifting bits within words.</p>
+ */
+public class RoomNightCalendar {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final int BITS_PER_WORD = 1 << ADDRESS_BITS_PER_WORD;
+
+    private long baseEpochDay;
+    private final long[] words;
+
+    /**
+     * @param baseEpochDay The first night this calendar tracks.
+     * @param horizonDays  The minimum number of nights that can be tracked from {@code baseEpochDay}. An extra word is
+     *                     allocated so the full horizon is still available right before the calendar rolls.
+     */
+    public RoomNightCalendar(long baseEpochDay, int horizonDays) {
+        if (horizonDays < 1) {
+            throw new IllegalArgumentException("horizonDays must be at least 1");
+        }
+        this.baseEpochDay = baseEpochDay;
+        this.words = new long[((horizonDays + BITS_PER_WORD - 1) >>> ADDRESS_BITS_PER_WORD) + 1];
+    }
+
+    public synchronized long getBaseEpochDay() {
+        return baseEpochDay;
+    }
+
+    /**
+     * @return The first night that can no longer be tracked by this calendar.
+     */
+    public synchronized long getEndEpochDay() {
+        return baseEpochDay + ((long) words.length << ADDRESS_BITS_PER_WORD);
+    }
+
+    /**
+     * @param fromEpochDay The first night (check in date).
+     * @param toEpochDay   The exclusive last night (check out date).
+     * @return {@code true} if every night in the range is free. Ranges outside of the calendar are never free.
+     */
+    public synchronized boolean isFree(long fromEpochDay, long toEpochDay) {
+        if (!inRange(fromEpochDay, toEpochDay)) {
+            return false;
+        }
+        return !intersects((int) (fromEpochDay - baseEpochDay), (int) (toEpochDay - baseEpochDay));
+    }
+
+    /**
+     * Atomically checks the range is free and marks it as booked.
+     *
+     * @return {@code true} if the nights were claimed, {@code false} if any night was already booked or the range is
+     * outside of the calendar.
+     */
+    public synchronized boolean claim(long fromEpochDay, long toEpochDay) {
+        if (!inRange(fromEpochDay, toEpochDay)) {
+            return false;
+        }
+        int fromBit = (int) (fromEpochDay - baseEpochDay);
+        int toBit = (int) (toEpochDay - baseEpochDay);
+        if (intersects(fromBit, toBit)) {
+            return false;
+        }
+        apply(fromBit, toBit, true);
+        return true;
+    }
+
+    /**
+     * Marks the range as free. Nights outside of the calendar are ignored.
+     */
+    public synchronized void release(long fromEpochDay, long toEpochDay) {
+        long from = Math.max(fromEpochDay, baseEpochDay);
+        long to = Math.min(toEpochDay, getEndEpochDay());
+        if (from >= to) {
+            return;
+        }
+        apply((int) (from - baseEpochDay), (int) (to - baseEpochDay), false);
+    }
+
+    /**
+     * Drops whole words of nights that occur before {@code epochDay}.
+     */
+    public synchronized void rollTo(long epochDay) {
+        if (epochDay <= baseEpochDay) {
+            return;
+        }
+        long shift = (epochDay - baseEpochDay) >>> ADDRESS_BITS_PER_WORD;
+        if (shift == 0) {
+            return;
+        }
+        int wordShift = (int) Math.min(shift, words.length);
+        System.arraycopy(words, wordShift, words, 0, words.length - wordShift);
+        for (int i = words.length - wordShift; i < words.length; i++) {
+            words[i] = 0L;
+        }
+        baseEpochDay += shift << ADDRESS_BITS_PER_WORD;
+    }
+
+    private boolean inRange(long fromEpochDay, long toEpochDay) {
+        return fromEpochDay < toEpochDay && fromEpochDay >= baseEpochDay && toEpochDay <= getEndEpochDay();
+    }
+
+    /**
+     * Same word masking technique as {@code java.util.BitSet}, the shift operators only use the low 6 bits.
+     */
+    private boolean intersects(int fromBit, int toBit) {
+        int firstWord = fromBit >>> ADDRESS_BITS_PER_WORD;
+        int lastWord = (toBit - 1) >>> ADDRESS_BITS_PER_WORD;
+        long firstMask = -1L << fromBit;
+        long lastMask = -1L >>> -toBit;
+
+        if (firstWord == lastWord) {
+            return (words[firstWord] & firstMask & lastMask) != 0;
+        }
+        if ((words[firstWord] & firstMask) != 0) {
+            return true;
+        }
+        for (int i = firstWord + 1; i < lastWord; i++) {
+            if (words[i] != 0) {
+                return true;
+            }
+        }
+        return (words[lastWord] & lastMask) != 0;
+    }
+
+    private void apply(int fromBit, int toBit, boolean booked) {
+        int firstWord = fromBit >>> ADDRESS_BITS_PER_WORD;
+        int lastWord = (toBit - 1) >>> ADDRESS_BITS_PER_WORD;
+        long firstMask = -1L << fromBit;
+        long lastMask = -1L >>> -toBit;
+
+        for (int i = firstWord; i <= lastWord; i++) {
+            long mask = -1L;
+            if (i == firstWord) {
+                mask &= firstMask;
+            }
+            if (i == lastWord) {
+                mask &= lastMask;
+            }
+            words[i] = booked ? words[i] | mask : words[i] & ~mask;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.demo.availability;
+
+/**
+ * Lightweight projection used to build the {@code AvailabilityIndex} without loading full {@code Room} entities.
+ */
+public class RoomRef {
+    private final Long roomId;
+    private final Long hotelId;
+
+    public RoomRef(Long roomId, Long hotelId) {
+        this.roomId = roomId;
+        this.hotelId = hotelId;
+    }
+
+    public Long getRoomId() {
+        return roomId;
+    }
+
+    public Long getHotelId() {
+        return hotelId;
+    }
+
+    @Override
+    public String toString() {
+        return "RoomRef{" +
+                "roomId=" + roomId +
+                ", hotelId=" + hotelId +
+                '}';
+    }
+}
@@ -0,0 +1,100 @@
+package com.demo.catalogue;
+
+import com.demo.domain.Hotel;
+import com.demo.domain.Room;
+import com.demo.persistance.RoomRepository;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Moves the {@link CatalogueVersion} forward once a transaction that wrote a hotel or room commits. Reservations
+ * only change availability, which the {@code AvailabilityIndex} versions itself.
+ *
+ * <p>A changed room is also evicted from {@code RoomRepository.ROOMS_CACHE}, a changed hotel clears it since every
+ * cached room carries its hotel.</p>
+ *
+ * <p>Listening after commit means a page rendered from the old data can never be tagged with the new version. Bulk
+ * JPQL updates do not raise these events, the only one in use bumps {@code Room.version} while booking, which
+ * changes nothing shown on the search pages.</p>
+ */
+@Component
+public class CatalogueChangeListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final CatalogueVersion catalogueVersion;
+    private final CacheManager cacheManager;
+
+    public CatalogueChangeListener(EntityManagerFactory entityManagerFactory, CatalogueVersion catalogueVersion,
+                                   CacheManager cacheManager) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.catalogueVersion = catalogueVersion;
+        this.cacheManager = cacheManager;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        changed(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        changed(event.getEntity());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return type == Hotel.class || type == Room.class;
+    }
+
+    private void changed(Object entity) {
+        if (entity instanceof Hotel || entity instanceof Room) {
+            catalogueVersion.increment();
+        }
+        Cache rooms = cacheManager.getCache(RoomRepository.ROOMS_CACHE);
+        if (rooms == null) {
+            return;
+        }
+        if (entity instanceof Room) {
+            rooms.evict(((Room) entity).getId());
+        } else if (entity instanceof Hotel) {
+            rooms.clear();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.demo.catalogue;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+import javax.validation.Validator;
+import java.util.List;
+
+/**
+ * One line of a JSON lines catalogue file. The {@code type} property selects the kind of line.
+ *
+ * <pre>
+ * {"type":"extra","description":"Foxtel","perNightPrice":1.20,"pricing":"Basic","category":"General"}
+ * {"type":"hotel","name":"The Grand Hotel","email":"grandhotel.com.au","stars":4,
+ *  "address":{"streetLine1":"166 Albert Road","state":"VIC","suburb":"Melbourne","postcode":"3000",
+ *             "latitude":-37.815,"longitude":144.966},
+ *  "rooms":[{"roomNumber":"G1","roomType":"Economy","beds":1,"costPerNight":65.12}]}
+ * </pre>
+ *
+ * <p>Rooms are nested inside their hotel so each line can be persisted on its own without remembering earlier
+ * lines. The address latitude and longitude are optional, a hotel without them is not found by radius
+ * searches.</p>
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = HotelLine.class, name = "hotel"),
+        @JsonSubTypes.Type(value = ExtraLine.class, name = "extra")
+})
+public abstract class CatalogueLine {
+
+    /**
+     * @return A description of each missing or invalid value, empty if the line can be imported.
+     */
+    public abstract List<String> validate(Validator validator);
+
+    /**
+     * @return The number of rows this line inserts.
+     */
+    public abstract int rowCount();
+}
@@ -0,0 +1,254 @@
+package com.demo.catalogue;
+
+import com.demo.availability.AvailabilityIndex;
+import com.demo.availability.RoomRef;
+import com.demo.domain.Hotel;
+import com.demo.domain.Room;
+import com.demo.facet.FacetIndex;
+import com.demo.facet.HotelFacetRow;
+import com.demo.facet.RoomFacetRow;
+import com.demo.geo.HotelGeoIndex;
+import com.demo.geo.HotelPoint;
+import com.demo.reservation.ExtrasService;
+import com.demo.suggest.HotelLocation;
+import com.demo.suggest.SuggestionIndex;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.Validator;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams a JSON lines catalogue of hotels, rooms and extras into the database.
+ *
+ * <p>The file is read one line at a time and committed in chunks of {@code catalogue.import.chunk-size} lines. Within
+ * a chunk the persistence context is flushed and cleared every {@code catalogue.import.batch-size} rows so inserts
+ * are sent as JDBC batches and memory use does not grow with the size of the file. Ids come from the pooled
+ * sequences on {@code Hotel}, {@code Room} and {@code Extra}.</p>
+ *
+ * <p>Lines that cannot be parsed or fail validation are skipped and reported. A database error such as a duplicate
+ * room number rolls back the current chunk and stops the import, chunks already committed are kept.</p>
+ *
+ * <p>See {@link CatalogueLine} for the file format.</p>
+ */
+@Component
+public class CatalogueLoader {
+
+    private final ObjectReader lineReader;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ExtrasService extrasService;
+    private final AvailabilityIndex availabilityIndex;
+    private final SuggestionIndex suggestionIndex;
+    private final HotelGeoIndex hotelGeoIndex;
+    private final FacetIndex facetIndex;
+    private final int chunkSize;
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public CatalogueLoader(ObjectMapper objectMapper,
+                           Validator validator,
+                           PlatformTransactionManager transactionManager,
+                           ExtrasService extrasService,
+                           AvailabilityIndex availabilityIndex,
+                           SuggestionIndex suggestionIndex,
+                           HotelGeoIndex hotelGeoIndex,
+                           FacetIndex facetIndex,
+                           @Value("${catalogue.import.chunk-size:1000}") int chunkSize,
+                           @Value("${catalogue.import.batch-size:50}") int batchSize) {
+        this.lineReader = objectMapper.readerFor(CatalogueLine.class);
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.extrasService = extrasService;
+        this.availabilityIndex = availabilityIndex;
+        this.suggestionIndex = suggestionIndex;
+        this.hotelGeoIndex = hotelGeoIndex;
+        this.facetIndex = facetIndex;
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+    }
+
+    public ImportReport load(Resource resource, boolean dryRun) throws IOException {
+        return load(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8), dryRun);
+    }
+
+    /**
+     * @param dryRun Parse and validate every line without writing anything.
+     */
+    public ImportReport load(Reader source, boolean dryRun) throws IOException {
+        ImportReport report = new ImportReport(dryRun);
+        long start = System.nanoTime();
+
+        try (LineSource lines = new LineSource(source)) {
+            while (!lines.isFinished()) {
+                if (dryRun) {
+                    readChunk(lines, report, null);
+                    continue;
+                }
+
+                NewRows created = new NewRows();
+                long linesBefore = report.getLines();
+                transactionTemplate.execute(status -> {
+                    entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                    readChunk(lines, report, created);
+                    entityManager.flush();
+                    entityManager.clear();
+                    return null;
+                });
+                if (report.getLines() > linesBefore) {
+                    report.chunkCommitted();
+                }
+                created.rooms.forEach(room -> availabilityIndex.registerRoom(room.getHotelId(), room.getRoomId()));
+                suggestionIndex.add(created.locations);
+                hotelGeoIndex.add(created.points);
+                facetIndex.add(created.facetHotels, created.facetRooms);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        if (!dryRun && report.getExtras() > 0) {
+            extrasService.reload();
+        }
+        report.finished(System.nanoTime() - start);
+        return report;
+    }
+
+    /**
+     * Reads up to {@code chunkSize} lines. When {@code created} is {@code null} nothing is persisted.
+     */
+    private void readChunk(LineSource lines, ImportReport report, NewRows created) {
+        int pendingRows = 0;
+        for (int i = 0; i < chunkSize; i++) {
+            String text = lines.next();
+            if (text == null) {
+                return;
+            }
+            if (text.trim().isEmpty()) {
+                continue;
+            }
+            report.lineRead();
+
+            CatalogueLine line = parse(text, lines.getLineNumber(), report);
+            if (line == null) {
+                continue;
+            }
+            List<String> errors = line.validate(validator);
+            if (!errors.isEmpty()) {
+                errors.forEach(error -> report.error(lines.getLineNumber(), error));
+                continue;
+            }
+
+            if (line instanceof HotelLine) {
+                HotelLine hotelLine = (HotelLine) line;
+                if (created != null) {
+                    Hotel hotel = hotelLine.toHotel();
+                    entityManager.persist(hotel);
+                    created.hotelAdded(hotel);
+                }
+                report.hotelImported(hotelLine.getRoomCount());
+            } else if (line instanceof ExtraLine) {
+                if (created != null) {
+                    entityManager.persist(((ExtraLine) line).toExtra());
+                }
+                report.extraImported();
+            }
+
+            pendingRows += line.rowCount();
+            if (created != null && pendingRows >= batchSize) {
+                entityManager.flush();
+                entityManager.clear();
+                pendingRows = 0;
+            }
+        }
+    }
+
+    private CatalogueLine parse(String text, long lineNumber, ImportReport report) {
+        try {
+            return lineReader.readValue(text);
+        } catch (JsonProcessingException e) {
+            report.error(lineNumber, e.getOriginalMessage());
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * What a chunk added, handed to the in memory indexes once the chunk has committed.
+     */
+    private static class NewRows {
+        private final List<RoomRef> rooms = new ArrayList<>();
+        private final List<HotelLocation> locations = new ArrayList<>();
+        private final List<HotelPoint> points = new ArrayList<>();
+        private final List<HotelFacetRow> facetHotels = new ArrayList<>();
+        private final List<RoomFacetRow> facetRooms = new ArrayList<>();
+
+        private void hotelAdded(Hotel hotel) {
+            for (Room room : hotel.getRooms()) {
+                rooms.add(new RoomRef(room.getId(), hotel.getId()));
+                facetRooms.add(RoomFacetRow.of(hotel.getId(), room));
+            }
+            facetHotels.add(HotelFacetRow.of(hotel));
+            locations.add(HotelLocation.of(hotel));
+            HotelPoint point = HotelPoint.of(hotel);
+            if (point != null) {
+                points.add(point);
+            }
+        }
+    }
+
+    /**
+     * Line numbered reader that remembers when the end of the file has been reached.
+     */
+    private static class LineSource implements Closeable {
+        private final BufferedReader reader;
+        private long lineNumber;
+        private boolean finished;
+
+        private LineSource(Reader reader) {
+            this.reader = new BufferedReader(reader);
+        }
+
+        private String next() {
+            try {
+                String line = reader.readLine();
+                if (line == null) {
+                    finished = true;
+                } else {
+                    lineNumber++;
+                }
+                return line;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private long getLineNumber() {
+            return lineNumber;
+        }
+
+        private boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
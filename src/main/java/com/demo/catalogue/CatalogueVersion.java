@@ -0,0 +1,71 @@
+package com.demo.catalogue;
+
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A version that changes whenever a hotel or room shown on the hotel search pages may have changed. Room
+ * availability has its own {@code AvailabilityVersion} so bookings do not revalidate the search pages.
+ *
+ * <p>Pages rendered from the same version for the same url are identical, apart from anything derived from today's
+ * date, so the version is used to build their {@code ETag}. It is derived from the persisted hotels and rooms, their
+ * count, highest id and sum of {@code @Version}s, so every instance, and an instance after a restart, hands out the
+ * same tag for the same catalogue. It is read again on the first {@link #get} after each {@link #increment}.</p>
+ *
+ * <p>Booking a room bumps its version too, a catalogue read after a booking moves on even though the search pages did
+ * not change, which only costs one extra render per url.</p>
+ */
+@Component
+public class CatalogueVersion {
+
+    private final AtomicLong changes = new AtomicLong();
+    private volatile long readAtChange = -1;
+    private volatile long version;
+    private volatile long lastModified = System.currentTimeMillis();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public long get() {
+        long change = changes.get();
+        if (readAtChange != change) {
+            synchronized (this) {
+                if (readAtChange != change) {
+                    version = persistedVersion();
+                    readAtChange = change;
+                }
+            }
+        }
+        return version;
+    }
+
+    /**
+     * @return epoch millis of the last change, used for {@code Last-Modified}.
+     */
+    public long lastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Called once a change to a hotel or room has been committed.
+     */
+    public void increment() {
+        lastModified = System.currentTimeMillis();
+        changes.incrementAndGet();
+    }
+
+    private long persistedVersion() {
+        long version = 17;
+        for (String entity : new String[]{"Hotel", "Room"}) {
+            Object[] state = entityManager.createQuery("select count(e), coalesce(sum(e.version), 0), " +
+                    "coalesce(max(e.id), 0) from " + entity + " e", Object[].class).getSingleResult();
+            for (Object value : state) {
+                version = 31 * version + ((Number) value).longValue();
+            }
+        }
+        return version;
+    }
+}
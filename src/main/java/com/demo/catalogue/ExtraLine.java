@@ -0,0 +1,68 @@
+package com.demo.catalogue;
+
+import com.demo.domain.Extra;
+
+import javax.validation.Validator;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ExtraLine extends CatalogueLine {
+    private String description;
+    private BigDecimal perNightPrice;
+    private Extra.Type pricing;
+    private Extra.Category category;
+
+    public ExtraLine(String description, BigDecimal perNightPrice, Extra.Type pricing, Extra.Category category) {
+        this.description = description;
+        this.perNightPrice = perNightPrice;
+        this.pricing = pricing;
+        this.category = category;
+    }
+
+    public ExtraLine() {
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public void setPerNightPrice(BigDecimal perNightPrice) {
+        this.perNightPrice = perNightPrice;
+    }
+
+    public void setPricing(Extra.Type pricing) {
+        this.pricing = pricing;
+    }
+
+    public void setCategory(Extra.Category category) {
+        this.category = category;
+    }
+
+    @Override
+    public List<String> validate(Validator validator) {
+        List<String> errors = new ArrayList<>();
+        if (description == null || description.trim().isEmpty()) {
+            errors.add("description: required");
+        }
+        if (perNightPrice == null || perNightPrice.signum() < 0) {
+            errors.add("perNightPrice: must be zero or more");
+        }
+        if (pricing == null) {
+            errors.add("pricing: required");
+        }
+        if (category == null) {
+            errors.add("category: required");
+        }
+        return errors;
+    }
+
+    @Override
+    public int rowCount() {
+        return 1;
+    }
+
+    public Extra toExtra() {
+        return new Extra(description, perNightPrice, pricing, category);
+    }
+}
@@ -0,0 +1,151 @@
+package com.demo.catalogue;
+
+import com.demo.domain.Hotel;
+import com.demo.domain.location.Address;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hotel and all of its rooms. Check in and check out times are optional and fall back to the {@code Hotel}
+ * defaults.
+ */
+public class HotelLine extends CatalogueLine {
+    private String name;
+    private String email;
+    private int stars;
+    private Address address;
+    private LocalTime earliestCheckInTime;
+    private LocalTime latestCheckInTime;
+    private LocalTime standardCheckOutTime;
+    private LocalTime latestCheckOutTime;
+    private BigDecimal lateCheckoutFee;
+    private List<RoomLine> rooms = new ArrayList<>();
+
+    public HotelLine(String name, String email, int stars, Address address, List<RoomLine> rooms) {
+        this.name = name;
+        this.email = email;
+        this.stars = stars;
+        this.address = address;
+        this.rooms = rooms;
+    }
+
+    public HotelLine() {
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public void setStars(int stars) {
+        this.stars = stars;
+    }
+
+    public void setAddress(Address address) {
+        this.address = address;
+    }
+
+    public void setEarliestCheckInTime(LocalTime earliestCheckInTime) {
+        this.earliestCheckInTime = earliestCheckInTime;
+    }
+
+    public void setLatestCheckInTime(LocalTime latestCheckInTime) {
+        this.latestCheckInTime = latestCheckInTime;
+    }
+
+    public void setStandardCheckOutTime(LocalTime standardCheckOutTime) {
+        this.standardCheckOutTime = standardCheckOutTime;
+    }
+
+    public void setLatestCheckOutTime(LocalTime latestCheckOutTime) {
+        this.latestCheckOutTime = latestCheckOutTime;
+    }
+
+    public void setLateCheckoutFee(BigDecimal lateCheckoutFee) {
+        this.lateCheckoutFee = lateCheckoutFee;
+    }
+
+    public void setRooms(List<RoomLine> rooms) {
+        this.rooms = rooms == null ? new ArrayList<>() : rooms;
+    }
+
+    /**
+     * The address is checked with the same bean validation constraints used when a guest enters an address.
+     */
+    @Override
+    public List<String> validate(Validator validator) {
+        List<String> errors = new ArrayList<>();
+        if (name == null || name.trim().isEmpty()) {
+            errors.add("name: required");
+        }
+        if (email == null || email.trim().isEmpty()) {
+            errors.add("email: required");
+        }
+        if (stars < 1 || stars > 5) {
+            errors.add("stars: must be between 1 and 5");
+        }
+
+        if (address == null) {
+            errors.add("address: required");
+        } else {
+            for (ConstraintViolation<Address> violation : validator.validate(address)) {
+                errors.add("address." + violation.getPropertyPath() + ": " + violation.getMessage());
+            }
+            if (address.getState() == null) {
+                errors.add("address.state: required");
+            }
+            if (address.getSearchSuburb() == null || address.getSearchSuburb().isEmpty()) {
+                errors.add("address.suburb: required");
+            }
+            if (address.getPostcode() == null) {
+                errors.add("address.postcode: required");
+            }
+            if ((address.getLatitude() == null) != (address.getLongitude() == null)) {
+                errors.add("address: latitude and longitude must be given together");
+            }
+        }
+
+        for (int i = 0; i < rooms.size(); i++) {
+            errors.addAll(rooms.get(i).validate("rooms[" + i + "]"));
+        }
+        return errors;
+    }
+
+    @Override
+    public int rowCount() {
+        return 1 + rooms.size();
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    public Hotel toHotel() {
+        Hotel hotel = new Hotel(name, address, stars, email);
+        if (earliestCheckInTime != null) {
+            hotel.setEarliestCheckInTime(earliestCheckInTime);
+        }
+        if (latestCheckInTime != null) {
+            hotel.setLatestCheckInTime(latestCheckInTime);
+        }
+        if (standardCheckOutTime != null) {
+            hotel.setStandardCheckOutTime(standardCheckOutTime);
+        }
+        if (latestCheckOutTime != null) {
+            hotel.setLatestCheckOutTime(latestCheckOutTime);
+        }
+        if (lateCheckoutFee != null) {
+            hotel.setLateCheckoutFee(lateCheckoutFee);
+        }
+        rooms.forEach(room -> hotel.addRoom(room.toRoom()));
+        return hotel;
+    }
+}
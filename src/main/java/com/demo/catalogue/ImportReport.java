@@ -0,0 +1,116 @@
+package com.demo.catalogue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Totals for a single run of the {@code CatalogueLoader}. Only the first {@value #MAX_ERRORS} errors are kept so
+ * a badly broken file cannot exhaust memory, {@link #getErrorCount()} is always the full count.
+ */
+public class ImportReport {
+    static final int MAX_ERRORS = 100;
+
+    private final boolean dryRun;
+    private long lines;
+    private long hotels;
+    private long rooms;
+    private long extras;
+    private long chunks;
+    private long errorCount;
+    private final List<String> errors = new ArrayList<>();
+    private long elapsedNanos;
+
+    ImportReport(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    void lineRead() {
+        lines++;
+    }
+
+    void hotelImported(int roomCount) {
+        hotels++;
+        rooms += roomCount;
+    }
+
+    void extraImported() {
+        extras++;
+    }
+
+    void chunkCommitted() {
+        chunks++;
+    }
+
+    void error(long lineNumber, String message) {
+        errorCount++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add("line " + lineNumber + ": " + message);
+        }
+    }
+
+    void finished(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return {@code true} if the file was only validated and nothing was written.
+     */
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    public long getHotels() {
+        return hotels;
+    }
+
+    public long getRooms() {
+        return rooms;
+    }
+
+    public long getExtras() {
+        return extras;
+    }
+
+    public long getRows() {
+        return hotels + rooms + extras;
+    }
+
+    public long getChunks() {
+        return chunks;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    public boolean hasErrors() {
+        return errorCount > 0;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    /**
+     * @return Hotels, rooms and extras imported (or validated in a dry run) per second.
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : getRows() * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %d lines: %d hotels, %d rooms, %d extras in %d ms (%.0f rows/sec), %d chunks, %d errors",
+                dryRun ? "Validated" : "Imported", lines, hotels, rooms, extras, getElapsedMillis(),
+                getRowsPerSecond(), chunks, errorCount);
+    }
+}
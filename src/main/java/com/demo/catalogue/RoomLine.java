@@ -0,0 +1,65 @@
+package com.demo.catalogue;
+
+import com.demo.domain.Room;
+import com.demo.domain.RoomType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RoomLine {
+    private String roomNumber;
+    private RoomType roomType;
+    private int beds;
+    private BigDecimal costPerNight;
+
+    public RoomLine(String roomNumber, RoomType roomType, int beds, BigDecimal costPerNight) {
+        this.roomNumber = roomNumber;
+        this.roomType = roomType;
+        this.beds = beds;
+        this.costPerNight = costPerNight;
+    }
+
+    public RoomLine() {
+    }
+
+    public void setRoomNumber(String roomNumber) {
+        this.roomNumber = roomNumber;
+    }
+
+    public void setRoomType(RoomType roomType) {
+        this.roomType = roomType;
+    }
+
+    public void setBeds(int beds) {
+        this.beds = beds;
+    }
+
+    public void setCostPerNight(BigDecimal costPerNight) {
+        this.costPerNight = costPerNight;
+    }
+
+    /**
+     * @param path Prefix for the error messages, such as {@code rooms[2]}.
+     */
+    List<String> validate(String path) {
+        List<String> errors = new ArrayList<>();
+        if (roomNumber == null || roomNumber.trim().isEmpty()) {
+            errors.add(path + ".roomNumber: required");
+        }
+        if (roomType == null) {
+            errors.add(path + ".roomType: required");
+        }
+        if (beds < 1) {
+            errors.add(path + ".beds: must be at least 1");
+        }
+        if (costPerNight == null || costPerNight.signum() < 0) {
+            errors.add(path + ".costPerNight: must be zero or more");
+        }
+        return errors;
+    }
+
+    public Room toRoom() {
+        return new Room(roomNumber, roomType, beds, costPerNight);
+    }
+}
@@ -19,6 +19,10 @@ public class CompletedPayment {
     @Column(nullable = false)
     private UUID transactionId = UUID.randomUUID();
 
+    // The gateway's reference to the card, the card number itself is never stored.
+    @Column(nullable = false)
+    private String paymentToken;
+
     @Column(nullable = false)
     @Enumerated(EnumType.STRING)
     private PendingPayment.CreditCardType creditCardType;
@@ -35,10 +39,15 @@ public class CompletedPayment {
     public CompletedPayment() {
     }
 
-    public CompletedPayment(PendingPayment.CreditCardType creditCardType,
+    /**
+     * @param paymentToken From {@code PaymentGateway.tokenize}, what the payment is charged to.
+     */
+    public CompletedPayment(String paymentToken,
+                            PendingPayment.CreditCardType creditCardType,
                             String last4CreditCardDigits,
                             String cvv,
                             YearMonth cardExpiry) {
+        this.paymentToken = paymentToken;
         this.creditCardType = creditCardType;
         this.last4CreditCardDigits = last4CreditCardDigits;
         this.cvv = cvv;
@@ -61,6 +70,14 @@ public class CompletedPayment {
         this.transactionId = transactionId;
     }
 
+    public String getPaymentToken() {
+        return paymentToken;
+    }
+
+    public void setPaymentToken(String paymentToken) {
+        this.paymentToken = paymentToken;
+    }
+
     public PendingPayment.CreditCardType getCreditCardType() {
         return creditCardType;
     }
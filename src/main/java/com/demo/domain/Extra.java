@@ -1,5 +1,8 @@
 package com.demo.domain;
 
+import com.demo.domain.pricing.Money;
+import com.demo.domain.pricing.PriceCalculator;
+
 import javax.persistence.*;
 import java.math.BigDecimal;
 import java.util.Comparator;
@@ -14,7 +17,8 @@ import java.util.Objects;
 @Entity
 public class Extra {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "extra_seq")
+    @SequenceGenerator(name = "extra_seq", sequenceName = "extra_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -31,6 +35,10 @@ public class Extra {
     @Enumerated(EnumType.STRING)
     private Category category;
 
+    // Extras are shared across sessions by the ExtrasService so the converted price is worked out once.
+    @Transient
+    private Long perNightCents;
+
     /**
      * Allows different pricing models
      */
@@ -75,12 +83,25 @@ public class Extra {
         return perNightPrice;
     }
 
+    /**
+     * @return {@link #getPerNightPrice()} rounded half up to whole cents.
+     */
+    public long getPerNightCents() {
+        Long cents = perNightCents;
+        if (cents == null) {
+            cents = Money.toCents(perNightPrice);
+            perNightCents = cents;
+        }
+        return cents;
+    }
+
     public BigDecimal getTotalPrice(long totalNights) {
-        return perNightPrice.multiply(BigDecimal.valueOf(totalNights));
+        return Money.toDecimal(PriceCalculator.extraCents(this, totalNights));
     }
 
     public void setPerNightPrice(BigDecimal perNightPrice) {
         this.perNightPrice = perNightPrice;
+        this.perNightCents = null;
     }
 
     public Type getType() {
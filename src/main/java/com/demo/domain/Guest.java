@@ -5,12 +5,13 @@ import com.demo.util.Utils;
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import java.io.Serializable;
 import java.util.Comparator;
 import java.util.Objects;
 import java.util.UUID;
 
 @Entity
-public class Guest {
+public class Guest implements Serializable {
     // Allows UI to delete guest by its temp id rather than send full name details which equals/hashCode use.
     @Transient
     private UUID tempId = UUID.randomUUID();
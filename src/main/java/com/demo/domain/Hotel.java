@@ -16,12 +16,31 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Location searches compare against the normalized columns of {@code Address} so the indexes below can be used.
+ */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_hotel_state_suburb", columnList = "state, search_suburb"),
+        @Index(name = "idx_hotel_suburb", columnList = "search_suburb"),
+        @Index(name = "idx_hotel_postcode", columnList = "postcode")
+})
 public class Hotel implements Serializable {
+    /**
+     * Hotels, rooms and extras use pooled sequences so bulk loading a catalogue only goes to the database for ids
+     * once every 50 rows.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hotel_seq")
+    @SequenceGenerator(name = "hotel_seq", sequenceName = "hotel_seq", allocationSize = 50)
     private Long id;
 
+    /**
+     * Cached hotel fragments are keyed by this so they are rendered again once the hotel changes.
+     */
+    @Version
+    private Long version;
+
     @Column(nullable = false)
     private String name;
 
@@ -111,6 +130,10 @@ public class Hotel implements Serializable {
         return id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public void setId(Long id) {
         this.id = id;
     }
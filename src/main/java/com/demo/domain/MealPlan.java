@@ -1,5 +1,7 @@
 package com.demo.domain;
 
+import com.demo.domain.pricing.Money;
+import com.demo.domain.pricing.PriceCalculator;
 import com.demo.util.Utils;
 
 import javax.persistence.*;
@@ -24,7 +26,7 @@ public class MealPlan implements Serializable {
     @OneToOne
     private Guest guest;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     private Reservation reservation;
 
     @ManyToMany
@@ -111,14 +113,13 @@ public class MealPlan implements Serializable {
      * @return The sum of calculating the total extra cost including total nights and child discounts for each extra.
      */
     public BigDecimal getTotalMealPlanCost() {
-        return foodExtras.stream()
-                .map(this::calculateExtraCost)
-                .reduce(BigDecimal.ZERO, BigDecimal::add, BigDecimal::add);
+        return Money.toDecimal(PriceCalculator.mealPlanCents(this, reservation.getDates().totalNights()));
     }
 
     /**
      * @param foodExtra The food extra
-     * @return The food extra cost multiplied by total nights with child discounts applied if applicable.
+     * @return The food extra cost multiplied by total nights with child discounts applied if applicable, rounded
+     * to the cent.
      * @throws IllegalArgumentException if Extra is not {@code Extra.Category.Food}
      */
     public BigDecimal calculateExtraCost(Extra foodExtra) throws IllegalArgumentException {
@@ -126,12 +127,8 @@ public class MealPlan implements Serializable {
             throw new IllegalArgumentException("Extra is not of type Extra.Category.Food");
         }
 
-        BigDecimal total = foodExtra.getTotalPrice(reservation.getDates().totalNights());
-        if (guest.isChild()) {
-            BigDecimal discount = total.multiply(BigDecimal.valueOf(CHILD_DISCOUNT_PERCENT));
-            return total.subtract(discount);
-        }
-        return total;
+        long nights = reservation.getDates().totalNights();
+        return Money.toDecimal(PriceCalculator.foodExtraCents(foodExtra, nights, guest.isChild()));
     }
 
     public boolean hasFoodExtras() {
@@ -0,0 +1,222 @@
+package com.demo.domain;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Outbox row asking for a booked {@code Reservation} to be charged. It is written in the booking transaction so a
+ * booking is never committed without it, the {@code PaymentProcessor} then takes it to the gateway and records the
+ * {@link PaymentStatus}.
+ *
+ * <p>Everything the gateway and a declined payment need is copied from the reservation, the row outlives a
+ * reservation that is cancelled because its payment was declined. The card is charged through its
+ * {@link #getPaymentToken() payment token}, the card type and last 4 digits are only for display.</p>
+ */
+@Entity
+@Table(indexes = @Index(columnList = "status"))
+public class PaymentRequest {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @Version
+    private Long version;
+
+    @Column(nullable = false, unique = true)
+    private UUID reservationId;
+
+    @Column(nullable = false)
+    private Long roomId;
+
+    private Long hotelId;
+
+    @Column(nullable = false)
+    private LocalDate checkInDate;
+
+    @Column(nullable = false)
+    private LocalDate checkOutDate;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    // Sent to the gateway as the idempotency key so a retried charge is not taken twice.
+    @Column(nullable = false)
+    private UUID transactionId;
+
+    // What the gateway charges, taken from the card at the payment step.
+    @Column(nullable = false)
+    private String paymentToken;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private PendingPayment.CreditCardType creditCardType;
+
+    @Column(nullable = false)
+    private String last4CreditCardDigits;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private PaymentStatus status = PaymentStatus.Pending;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime createdTime;
+
+    private LocalDateTime processedTime;
+
+    // Set when the booking could not be journalled after it committed, it is journalled before the payment.
+    @Column(nullable = false)
+    private boolean journalPending;
+
+    public PaymentRequest() {
+    }
+
+    /**
+     * @param reservation Must have its {@code CompletedPayment} card details and a room.
+     */
+    public PaymentRequest(Reservation reservation, LocalDateTime createdTime) {
+        CompletedPayment payment = Objects.requireNonNull(reservation.getCompletedPayment(), "No card details");
+        this.reservationId = reservation.getReservationId();
+        this.roomId = reservation.getRoom().getId();
+        this.hotelId = reservation.getRoom().getHotel() == null ? null : reservation.getRoom().getHotel().getId();
+        this.checkInDate = reservation.getDates().getCheckInDate();
+        this.checkOutDate = reservation.getDates().getCheckOutDate();
+        this.amount = reservation.getTotalCostIncludingTax();
+        this.transactionId = payment.getTransactionId();
+        this.paymentToken = payment.getPaymentToken();
+        this.creditCardType = payment.getCreditCardType();
+        this.last4CreditCardDigits = payment.getLast4CreditCardDigits();
+        this.createdTime = createdTime;
+    }
+
+    /**
+     * Records the gateway's answer.
+     */
+    public void complete(PaymentStatus status, LocalDateTime processedTime) {
+        if (!status.isSettled()) {
+            throw new IllegalArgumentException("Not an outcome " + status);
+        }
+        this.status = status;
+        this.processedTime = processedTime;
+    }
+
+    /**
+     * Counts a gateway call that failed without an answer, the request stays pending to be tried again.
+     *
+     * @return The number of failed attempts so far.
+     */
+    public int failedAttempt() {
+        return ++attempts;
+    }
+
+    /**
+     * No more charges are attempted, the outcome is asked for by transaction id instead.
+     */
+    public void markUnknown() {
+        this.status = PaymentStatus.Unknown;
+    }
+
+    public boolean isPending() {
+        return status == PaymentStatus.Pending;
+    }
+
+    public boolean isJournalPending() {
+        return journalPending;
+    }
+
+    public void setJournalPending(boolean journalPending) {
+        this.journalPending = journalPending;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public UUID getReservationId() {
+        return reservationId;
+    }
+
+    public Long getRoomId() {
+        return roomId;
+    }
+
+    public Long getHotelId() {
+        return hotelId;
+    }
+
+    public LocalDate getCheckInDate() {
+        return checkInDate;
+    }
+
+    public LocalDate getCheckOutDate() {
+        return checkOutDate;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public UUID getTransactionId() {
+        return transactionId;
+    }
+
+    public String getPaymentToken() {
+        return paymentToken;
+    }
+
+    public PendingPayment.CreditCardType getCreditCardType() {
+        return creditCardType;
+    }
+
+    public String getLast4CreditCardDigits() {
+        return last4CreditCardDigits;
+    }
+
+    public PaymentStatus getStatus() {
+        return status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public LocalDateTime getCreatedTime() {
+        return createdTime;
+    }
+
+    public LocalDateTime getProcessedTime() {
+        return processedTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PaymentRequest that = (PaymentRequest) o;
+        return Objects.equals(reservationId, that.reservationId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(reservationId);
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentRequest{" +
+                "id=" + id +
+                ", reservationId=" + reservationId +
+                ", roomId=" + roomId +
+                ", amount=" + amount +
+                ", transactionId=" + transactionId +
+                ", status=" + status +
+                ", attempts=" + attempts +
+                '}';
+    }
+}
@@ -2,8 +2,17 @@ package com.demo.domain;
 
 /**
  * These would mirror payment API vendor responses. Accepted and Declined are used to determine if the payment
- * went through.
+ * went through, a {@code PaymentRequest} is Pending until the gateway has answered. Unknown means the gateway never
+ * answered the charge, the card may have been charged so the booking stands until the outcome is found by
+ * transaction id.
  */
 public enum PaymentStatus {
-    Accepted, Declined
+    Pending, Accepted, Declined, Unknown;
+
+    /**
+     * @return {@code true} once the gateway has said whether the payment went through.
+     */
+    public boolean isSettled() {
+        return this == Accepted || this == Declined;
+    }
 }
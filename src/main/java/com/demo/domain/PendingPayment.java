@@ -151,8 +151,11 @@ public class PendingPayment {
         return creditCardNumber.substring(creditCardNumber.length() - 4);
     }
 
-    public CompletedPayment toCompletedPayment() {
-        return new CompletedPayment(creditCardType, last4CardDigits(), cvv, getCardExpiry());
+    /**
+     * @param paymentToken The gateway's token for this card, only the token and the last 4 digits are kept.
+     */
+    public CompletedPayment toCompletedPayment(String paymentToken) {
+        return new CompletedPayment(paymentToken, creditCardType, last4CardDigits(), cvv, getCardExpiry());
     }
 
     @Override
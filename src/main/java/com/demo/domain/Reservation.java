@@ -1,5 +1,7 @@
 package com.demo.domain;
 
+import com.demo.domain.pricing.PriceCalculator;
+import com.demo.domain.pricing.Quote;
 import javax.persistence.*;
 import javax.validation.Valid;
 import java.math.BigDecimal;
@@ -17,7 +19,7 @@ public class Reservation {
 
     private UUID reservationId = UUID.randomUUID();
 
-    @OneToOne(mappedBy = "reservation")
+    @ManyToOne(fetch = FetchType.LAZY)
     private Room room;
 
     @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
@@ -44,7 +46,7 @@ public class Reservation {
     @OneToMany(cascade = CascadeType.ALL)
     private List<MealPlan> mealPlans = new ArrayList<>();
 
-    @OneToOne(cascade = CascadeType.ALL)
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private CompletedPayment completedPayment;
 
     @Column(nullable = false)
@@ -128,6 +130,10 @@ public class Reservation {
         return reservationId;
     }
 
+    public void setReservationId(UUID reservationId) {
+        this.reservationId = reservationId;
+    }
+
     public Set<Extra> getGeneralExtras() {
         return generalExtras;
     }
@@ -190,11 +196,21 @@ public class Reservation {
         }
     }
 
+    /**
+     * Prices the whole reservation in one pass. Templates showing several totals should take a quote once and read
+     * from it rather than calling the individual total getters, each of which builds a new quote.
+     *
+     * @return An immutable snapshot of the current price, it does not follow later changes to the reservation.
+     */
+    public Quote getQuote() {
+        return PriceCalculator.quote(this);
+    }
+
     /**
      * Calculates the chargeable late fee price only if the user has selected the late checkout option.
      */
     public BigDecimal getChargeableLateCheckoutFee() {
-        return dates.isLateCheckout() ? getLateCheckoutFee() : BigDecimal.ZERO;
+        return getQuote().getLateCheckoutFee();
     }
 
     /**
@@ -218,11 +234,7 @@ public class Reservation {
      * @return Total nights * per night cost
      */
     public BigDecimal getTotalRoomCost() {
-        long nights = dates.totalNights();
-        if (nights == 0) {
-            return BigDecimal.ZERO;
-        }
-        return room.getCostPerNight().multiply(BigDecimal.valueOf(nights));
+        return getQuote().getRoomCost();
     }
 
     /**
@@ -231,7 +243,7 @@ public class Reservation {
      * @return {@link #getTotalRoomCost} + {@link #getChargeableLateCheckoutFee}
      */
     public BigDecimal getTotalRoomCostWithLateCheckoutFee() {
-        return getTotalRoomCost().add(getChargeableLateCheckoutFee());
+        return getQuote().getRoomCostWithLateCheckoutFee();
     }
 
     /**
@@ -241,12 +253,7 @@ public class Reservation {
      * {@code Daily extra cost * total nights}
      */
     public BigDecimal getTotalGeneralExtrasCost() {
-        long totalNights = dates.totalNights();
-        return generalExtras.stream().reduce(
-                BigDecimal.ZERO,
-                (acc, next) -> acc.add(next.getTotalPrice(totalNights))
-                , BigDecimal::add
-        );
+        return getQuote().getGeneralExtrasCost();
     }
 
     /**
@@ -255,9 +262,7 @@ public class Reservation {
      * @return Total cost of all guests meal plans
      */
     public BigDecimal getTotalMealPlansCost() {
-        return mealPlans.stream()
-                .map(MealPlan::getTotalMealPlanCost)
-                .reduce(BigDecimal.ZERO, BigDecimal::add, BigDecimal::add);
+        return getQuote().getMealPlansCost();
     }
 
     /**
@@ -265,18 +270,16 @@ public class Reservation {
      * Provided separately to allow break down to sub totals on invoices.
      */
     public BigDecimal getTotalCostExcludingTax() {
-        return getTotalRoomCostWithLateCheckoutFee()
-                .add(getTotalGeneralExtrasCost())
-                .add(getTotalMealPlansCost());
+        return getQuote().getTotalExcludingTax();
     }
 
     /**
      * Provided separately to allow break down to sub totals on invoices.
      *
-     * @return The taxable amount from the total cost. Eg 10% of $100 = $10.
+     * @return The taxable amount from the total cost rounded to the cent. Eg 10% of $100 = $10.
      */
     public BigDecimal getTaxableAmount() {
-        return getTotalCostExcludingTax().multiply(BigDecimal.valueOf(TAX_AMOUNT));
+        return getQuote().getTax();
     }
 
     /**
@@ -285,7 +288,7 @@ public class Reservation {
      * @return The total cost including tax.
      */
     public BigDecimal getTotalCostIncludingTax() {
-        return getTotalCostExcludingTax().add(getTaxableAmount());
+        return getQuote().getTotalIncludingTax();
     }
 
 
@@ -310,10 +313,7 @@ public class Reservation {
      * @return {@code true} if all meal plans add up to 0.
      */
     public boolean hasEmptyMealPlans() {
-        return mealPlans.stream()
-                .map(MealPlan::getTotalMealPlanCost)
-                .reduce(BigDecimal.ZERO, BigDecimal::add, BigDecimal::add)
-                .equals(BigDecimal.ZERO);
+        return PriceCalculator.mealPlansCents(mealPlans, dates.totalNights()) == 0;
     }
 
     @Override
@@ -6,13 +6,14 @@ import javax.persistence.Column;
 import javax.persistence.Embeddable;
 import javax.validation.constraints.AssertTrue;
 import javax.validation.constraints.NotNull;
+import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Optional;
 
 @Embeddable
-public class ReservationDates {
+public class ReservationDates implements Serializable {
     @Column(nullable = false)
     @NotNull(message = "Check in date required")
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
@@ -5,15 +5,30 @@ import org.hibernate.annotations.NaturalId;
 import javax.persistence.*;
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
 
 @Entity
 public class Room {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "room_seq")
+    @SequenceGenerator(name = "room_seq", sequenceName = "room_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    /**
+     * Bumped by every booking of this room, see {@code ReservationRepository.book}. The update locks the room row so
+     * bookings of the same room are checked for overlapping nights one at a time.
+     */
+    @Version
+    private Long version;
+
+    /**
+     * Lazy so listing rooms does not load the hotel of each row. Use {@code RoomRepository.findById} when the hotel
+     * is needed once the room is detached, such as in the reservation flow.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
     private Hotel hotel;
 
     @NaturalId
@@ -30,8 +45,12 @@ public class Room {
     @Column(nullable = false)
     private BigDecimal costPerNight;
 
-    @OneToOne(cascade = CascadeType.ALL)
-    private Reservation reservation;
+    /**
+     * Every {@code Reservation} ever made for this room. Which nights are free is answered by the
+     * {@code AvailabilityIndex} rather than by walking this collection.
+     */
+    @OneToMany(mappedBy = "room", cascade = CascadeType.ALL)
+    private Set<Reservation> reservations = new HashSet<>();
 
     public Room(String roomNumber, RoomType roomType, int beds, BigDecimal costPerNight) {
         this.roomNumber = roomNumber;
@@ -47,6 +66,10 @@ public class Room {
         return id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public void setId(Long id) {
         this.id = id;
     }
@@ -91,19 +114,22 @@ public class Room {
         this.costPerNight = costPerNight;
     }
 
-    public Reservation getReservation() {
-        return reservation;
-    }
-
-    public void setReservation(Reservation reservation) {
-        if (reservation != null) {
-            this.reservation = reservation;
-            reservation.setRoom(this);
-        }
+    /**
+     * Use {@link #addReservation} to make changes.
+     *
+     * @return The unmodifiable set of {@code Reservation}s.
+     */
+    public Set<Reservation> getReservations() {
+        return Collections.unmodifiableSet(reservations);
     }
 
-    public boolean isReserved() {
-        return reservation != null;
+    /**
+     * Adds the {@code Reservation} to this {@code Room} and sets the bidirectional relationship
+     * of the {@code Reservation}.
+     */
+    public void addReservation(Reservation reservation) {
+        reservations.add(reservation);
+        reservation.setRoom(this);
     }
 
     @Override
@@ -4,6 +4,8 @@ import com.demo.util.Utils;
 
 import javax.persistence.*;
 import javax.validation.Valid;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import java.util.Objects;
@@ -26,18 +28,36 @@ public class Address {
     @Column(nullable = false)
     private String suburb;
 
+    /**
+     * Upper cased copy of {@code suburb} maintained by {@link #setSuburb} so searches can compare with plain equality
+     * and use the location indexes declared on {@code Hotel} rather than wrapping the column in {@code upper()}.
+     */
+    @Column(name = "search_suburb", nullable = false)
+    private String searchSuburb;
+
     @Column(nullable = false)
     @Embedded
     @Valid
     private Postcode postcode;
 
+    /**
+     * WGS84 degrees, optional. Hotels without both are left out of radius searches, see {@code HotelGeoIndex}.
+     */
+    @DecimalMin(value = "-90", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90", message = "Latitude must be between -90 and 90")
+    private Double latitude;
+
+    @DecimalMin(value = "-180", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180", message = "Longitude must be between -180 and 180")
+    private Double longitude;
+
     public Address(String business, String streetLine1, String streetLine2, State state,
                    String suburb, Postcode postcode) {
         this.business = business;
         this.streetLine1 = streetLine1;
         this.streetLine2 = streetLine2;
         this.state = state;
-        this.suburb = suburb;
+        setSuburb(suburb);
         this.postcode = postcode;
     }
 
@@ -82,6 +102,18 @@ public class Address {
 
     public void setSuburb(String suburb) {
         this.suburb = suburb;
+        this.searchSuburb = normalize(suburb);
+    }
+
+    public String getSearchSuburb() {
+        return searchSuburb;
+    }
+
+    /**
+     * The normalized form search terms must be converted to before being compared against {@code searchSuburb}.
+     */
+    public static String normalize(String value) {
+        return value == null ? null : value.trim().toUpperCase();
     }
 
     public Postcode getPostcode() {
@@ -92,6 +124,22 @@ public class Address {
         this.postcode = postcode;
     }
 
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -102,12 +150,14 @@ public class Address {
                 Objects.equals(streetLine2, address.streetLine2) &&
                 state == address.state &&
                 Objects.equals(suburb, address.suburb) &&
-                Objects.equals(postcode, address.postcode);
+                Objects.equals(postcode, address.postcode) &&
+                Objects.equals(latitude, address.latitude) &&
+                Objects.equals(longitude, address.longitude);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(business, streetLine1, streetLine2, state, suburb, postcode);
+        return Objects.hash(business, streetLine1, streetLine2, state, suburb, postcode, latitude, longitude);
     }
 
     @Override
@@ -119,6 +169,8 @@ public class Address {
                 ", state=" + state +
                 ", suburb='" + suburb + '\'' +
                 ", postcode=" + postcode +
+                ", latitude=" + latitude +
+                ", longitude=" + longitude +
                 '}';
     }
 }
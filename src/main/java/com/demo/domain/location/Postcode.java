@@ -8,7 +8,7 @@ import java.util.Objects;
 
 @Embeddable
 public class Postcode {
-    @Column(nullable = false)
+    @Column(name = "postcode", nullable = false)
     @Pattern(regexp = "[0-9]{4}", message = "Postcode must be 4 digits")
     @NotNull(message = "required")
     private String value;
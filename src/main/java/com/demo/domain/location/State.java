@@ -1,5 +1,17 @@
 package com.demo.domain.location;
 
+import java.util.Arrays;
+import java.util.Optional;
+
 public enum State {
     SA, WA, NT, TAS, NSW, VIC, ACT, QLD;
+
+    /**
+     * @return The state with this short name ignoring case and surrounding spaces, empty if there is none.
+     */
+    public static Optional<State> parse(String value) {
+        return Arrays.stream(values())
+                .filter(s -> s.name().equalsIgnoreCase(value.trim()))
+                .findFirst();
+    }
 }
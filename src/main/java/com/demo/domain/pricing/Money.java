@@ -0,0 +1,49 @@
+package com.demo.domain.pricing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between {@code BigDecimal} dollar amounts and {@code long} cents.
+ *
+ * <p>Every rounding in the pricing engine goes through this class and uses {@link RoundingMode#HALF_UP}.</p>
+ */
+public final class Money {
+    public static final int SCALE = 2;
+    public static final long BASIS_POINTS = 10_000;
+
+    private Money() {
+    }
+
+    /**
+     * @return The amount in cents, fractions of a cent are rounded half up. {@code null} is treated as zero.
+     */
+    public static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * @return The cents as a dollar amount with a scale of 2.
+     */
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * Calculates a percentage of an amount without leaving integer arithmetic. Eg 10% is 1000 basis points.
+     *
+     * @return {@code cents * basisPoints / 10000} rounded half up.
+     */
+    public static long percentOf(long cents, long basisPoints) {
+        long product = Math.multiplyExact(cents, basisPoints);
+        long result = product / BASIS_POINTS;
+        long remainder = Math.abs(product % BASIS_POINTS);
+        if (remainder * 2 >= BASIS_POINTS) {
+            result += Long.signum(product);
+        }
+        return result;
+    }
+}
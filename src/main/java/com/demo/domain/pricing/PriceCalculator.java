@@ -0,0 +1,114 @@
+package com.demo.domain.pricing;
+
+import com.demo.domain.*;
+
+import java.util.Collection;
+
+/**
+ * Prices a {@code Reservation} in cents using only {@code long} arithmetic.
+ *
+ * <p>Rounding rules:</p>
+ * <ul>
+ *     <li>Per night prices and fees are rounded half up to the cent before anything else.</li>
+ *     <li>Each extra line is {@code per night cents * nights}, no rounding is needed.</li>
+ *     <li>The child discount is rounded half up per food extra, the child pays the line total minus the
+ *     discount.</li>
+ *     <li>Tax is rounded half up once on the total excluding tax.</li>
+ * </ul>
+ *
+ * <p>Arithmetic overflow throws an {@code ArithmeticException} rather than producing a wrong price.</p>
+ */
+public final class PriceCalculator {
+    public static final long TAX_BASIS_POINTS = Math.round(Reservation.TAX_AMOUNT * Money.BASIS_POINTS);
+    public static final long CHILD_DISCOUNT_BASIS_POINTS =
+            Math.round(MealPlan.CHILD_DISCOUNT_PERCENT * Money.BASIS_POINTS);
+
+    private PriceCalculator() {
+    }
+
+    /**
+     * Prices the room, late checkout fee, general extras and meal plans in a single pass.
+     */
+    public static Quote quote(Reservation reservation) {
+        long nights = reservation.getDates().totalNights();
+        long roomCents = roomCents(reservation, nights);
+        long lateCheckoutFeeCents = lateCheckoutFeeCents(reservation);
+        long generalExtrasCents = extrasCents(reservation.getGeneralExtras(), nights);
+        long mealPlansCents = mealPlansCents(reservation.getMealPlans(), nights);
+        return quote(nights, roomCents, lateCheckoutFeeCents, generalExtrasCents, mealPlansCents);
+    }
+
+    /**
+     * Totals the parts and applies tax.
+     */
+    static Quote quote(long nights, long roomCents, long lateCheckoutFeeCents, long generalExtrasCents,
+                       long mealPlansCents) {
+        long totalExcludingTax = Math.addExact(Math.addExact(roomCents, lateCheckoutFeeCents),
+                Math.addExact(generalExtrasCents, mealPlansCents));
+        long taxCents = Money.percentOf(totalExcludingTax, TAX_BASIS_POINTS);
+
+        return new Quote(nights, roomCents, lateCheckoutFeeCents, generalExtrasCents, mealPlansCents, taxCents);
+    }
+
+    public static long roomCents(Reservation reservation, long nights) {
+        Room room = reservation.getRoom();
+        return room == null ? 0 : Math.multiplyExact(Money.toCents(room.getCostPerNight()), nights);
+    }
+
+    /**
+     * @return The fee actually charged, zero without a room or when late checkout was not selected.
+     */
+    public static long lateCheckoutFeeCents(Reservation reservation) {
+        if (reservation.getRoom() == null || !reservation.getDates().isLateCheckout()) {
+            return 0;
+        }
+        return Money.toCents(reservation.getLateCheckoutFee());
+    }
+
+    public static long extraCents(Extra extra, long nights) {
+        return Math.multiplyExact(extra.getPerNightCents(), nights);
+    }
+
+    public static long extrasCents(Collection<Extra> extras, long nights) {
+        long total = 0;
+        if (extras != null) {
+            for (Extra extra : extras) {
+                total = Math.addExact(total, extraCents(extra, nights));
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return The food extra cost for the given nights with the child discount applied when {@code child}.
+     */
+    public static long foodExtraCents(Extra foodExtra, long nights, boolean child) {
+        long total = extraCents(foodExtra, nights);
+        if (child) {
+            return total - Money.percentOf(total, CHILD_DISCOUNT_BASIS_POINTS);
+        }
+        return total;
+    }
+
+    public static long mealPlanCents(MealPlan mealPlan, long nights) {
+        if (mealPlan.getFoodExtras() == null) {
+            return 0;
+        }
+        boolean child = mealPlan.getGuest() != null && mealPlan.getGuest().isChild();
+        long total = 0;
+        for (Extra foodExtra : mealPlan.getFoodExtras()) {
+            total = Math.addExact(total, foodExtraCents(foodExtra, nights, child));
+        }
+        return total;
+    }
+
+    public static long mealPlansCents(Collection<MealPlan> mealPlans, long nights) {
+        long total = 0;
+        if (mealPlans != null) {
+            for (MealPlan mealPlan : mealPlans) {
+                total = Math.addExact(total, mealPlanCents(mealPlan, nights));
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,130 @@
+package com.demo.domain.pricing;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Immutable price breakdown of a {@code Reservation} at the time it was quoted. All amounts are held in cents, the
+ * {@code BigDecimal} getters are for display and are created on demand.
+ */
+public final class Quote {
+    public static final Quote EMPTY = new Quote(0, 0, 0, 0, 0, 0);
+
+    private final long nights;
+    private final long roomCents;
+    private final long lateCheckoutFeeCents;
+    private final long generalExtrasCents;
+    private final long mealPlansCents;
+    private final long taxCents;
+
+    Quote(long nights, long roomCents, long lateCheckoutFeeCents, long generalExtrasCents, long mealPlansCents,
+          long taxCents) {
+        this.nights = nights;
+        this.roomCents = roomCents;
+        this.lateCheckoutFeeCents = lateCheckoutFeeCents;
+        this.generalExtrasCents = generalExtrasCents;
+        this.mealPlansCents = mealPlansCents;
+        this.taxCents = taxCents;
+    }
+
+    public long getNights() {
+        return nights;
+    }
+
+    public long getRoomCents() {
+        return roomCents;
+    }
+
+    /**
+     * @return The late checkout fee actually charged, zero when late checkout was not selected or is waived.
+     */
+    public long getLateCheckoutFeeCents() {
+        return lateCheckoutFeeCents;
+    }
+
+    public long getGeneralExtrasCents() {
+        return generalExtrasCents;
+    }
+
+    public long getMealPlansCents() {
+        return mealPlansCents;
+    }
+
+    public long getRoomWithLateCheckoutFeeCents() {
+        return roomCents + lateCheckoutFeeCents;
+    }
+
+    public long getTotalExcludingTaxCents() {
+        return getRoomWithLateCheckoutFeeCents() + generalExtrasCents + mealPlansCents;
+    }
+
+    public long getTaxCents() {
+        return taxCents;
+    }
+
+    public long getTotalIncludingTaxCents() {
+        return getTotalExcludingTaxCents() + taxCents;
+    }
+
+    public BigDecimal getRoomCost() {
+        return Money.toDecimal(roomCents);
+    }
+
+    public BigDecimal getLateCheckoutFee() {
+        return Money.toDecimal(lateCheckoutFeeCents);
+    }
+
+    public BigDecimal getRoomCostWithLateCheckoutFee() {
+        return Money.toDecimal(getRoomWithLateCheckoutFeeCents());
+    }
+
+    public BigDecimal getGeneralExtrasCost() {
+        return Money.toDecimal(generalExtrasCents);
+    }
+
+    public BigDecimal getMealPlansCost() {
+        return Money.toDecimal(mealPlansCents);
+    }
+
+    public BigDecimal getTotalExcludingTax() {
+        return Money.toDecimal(getTotalExcludingTaxCents());
+    }
+
+    public BigDecimal getTax() {
+        return Money.toDecimal(taxCents);
+    }
+
+    public BigDecimal getTotalIncludingTax() {
+        return Money.toDecimal(getTotalIncludingTaxCents());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Quote quote = (Quote) o;
+        return nights == quote.nights &&
+                roomCents == quote.roomCents &&
+                lateCheckoutFeeCents == quote.lateCheckoutFeeCents &&
+                generalExtrasCents == quote.generalExtrasCents &&
+                mealPlansCents == quote.mealPlansCents &&
+                taxCents == quote.taxCents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(nights, roomCents, lateCheckoutFeeCents, generalExtrasCents, mealPlansCents, taxCents);
+    }
+
+    @Override
+    public String toString() {
+        return "Quote{" +
+                "nights=" + nights +
+                ", roomCents=" + roomCents +
+                ", lateCheckoutFeeCents=" + lateCheckoutFeeCents +
+                ", generalExtrasCents=" + generalExtrasCents +
+                ", mealPlansCents=" + mealPlansCents +
+                ", taxCents=" + taxCents +
+                '}';
+    }
+}
@@ -0,0 +1,225 @@
+package com.demo.domain.pricing;
+
+import com.demo.domain.Extra;
+import com.demo.domain.Guest;
+import com.demo.domain.MealPlan;
+import com.demo.domain.Reservation;
+import com.demo.domain.Room;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Keeps the {@code Quote} of a reservation that is edited one item at a time, such as ticking one extra or meal on
+ * the extras and meals pages.
+ *
+ * <p>Every line item is priced once and then changed by a delta: {@link #generalExtraToggled} and
+ * {@link #foodExtraToggled} price only the extra whose checkbox was clicked and move the total by the difference.
+ * A meal plan whose guest became a child, or stopped being one, is priced again on its own. Everything is priced
+ * again only when the room or the dates change. A page post that binds a whole selection again is reported with
+ * {@link #generalExtrasChanged} or {@link #mealPlansChanged}, only that line is priced again.</p>
+ *
+ * <p>Extras are matched by id and each is priced when it is selected, a later change to its price is not seen until
+ * its line is priced again. Otherwise the quote is equal to {@link PriceCalculator#quote(Reservation)}.</p>
+ */
+public final class QuoteTracker {
+
+    // What the room and late checkout fee depend on, every line is priced per night.
+    private Room room;
+    private Long roomId;
+    private LocalDate checkInDate;
+    private LocalDate checkOutDate;
+    private boolean lateCheckout;
+
+    private boolean priced;
+    private long nights;
+    private long roomCents;
+    private long lateCheckoutFeeCents;
+
+    private final Lines generalExtras = new Lines();
+    private boolean generalExtrasStale = true;
+
+    private final List<MealPlanLines> mealPlans = new ArrayList<>();
+    private long mealPlansCents;
+    private boolean mealPlansStale = true;
+
+    private Quote quote;
+
+    /**
+     * @return The current quote, only what changed since the last call is priced.
+     */
+    public Quote quote(Reservation reservation) {
+        if (!priced || !sameBasis(reservation)) {
+            priceBasis(reservation);
+        }
+        if (generalExtrasStale) {
+            generalExtras.price(reservation.getGeneralExtras(), nights);
+            generalExtrasStale = false;
+            quote = null;
+        }
+        if (mealPlansStale) {
+            priceMealPlans(reservation.getMealPlans());
+            mealPlansStale = false;
+            quote = null;
+        }
+        if (quote == null) {
+            quote = PriceCalculator.quote(nights, roomCents, lateCheckoutFeeCents, generalExtras.cents,
+                    mealPlansCents);
+        }
+        return quote;
+    }
+
+    /**
+     * Prices the general extra with the given id whether it was ticked or unticked, after the selection was bound.
+     */
+    public Quote generalExtraToggled(Reservation reservation, long extraId) {
+        if (priced && sameBasis(reservation) && !generalExtrasStale) {
+            generalExtras.toggle(reservation.getGeneralExtras(), extraId, nights);
+            quote = null;
+        }
+        return quote(reservation);
+    }
+
+    /**
+     * Prices the food extra with the given id of one meal plan whether it was ticked or unticked, after the meal
+     * plans were bound.
+     *
+     * @param mealPlanIndex The index of the meal plan in {@code Reservation.getMealPlans()}.
+     */
+    public Quote foodExtraToggled(Reservation reservation, int mealPlanIndex, long extraId) {
+        List<MealPlan> current = reservation.getMealPlans();
+        if (priced && sameBasis(reservation) && !mealPlansStale && current != null
+                && current.size() == mealPlans.size() && mealPlanIndex >= 0 && mealPlanIndex < current.size()
+                && mealPlans.get(mealPlanIndex).plan == current.get(mealPlanIndex)) {
+            MealPlanLines lines = mealPlans.get(mealPlanIndex);
+            long before = lines.cents;
+            if (lines.child != isChild(lines.plan.getGuest())) {
+                lines.price(nights);
+            } else {
+                lines.toggle(lines.plan.getFoodExtras(), extraId, nights);
+            }
+            mealPlansCents = Math.addExact(mealPlansCents, lines.cents - before);
+            quote = null;
+        } else {
+            mealPlansStale = true;
+        }
+        return quote(reservation);
+    }
+
+    /**
+     * The general extras were replaced as a whole, they are priced again by the next quote.
+     */
+    public void generalExtrasChanged() {
+        generalExtrasStale = true;
+    }
+
+    /**
+     * The meal plans were created again or replaced as a whole, they are priced again by the next quote.
+     */
+    public void mealPlansChanged() {
+        mealPlansStale = true;
+    }
+
+    private boolean sameBasis(Reservation reservation) {
+        Room current = reservation.getRoom();
+        boolean sameRoom = roomId != null
+                ? current != null && roomId.equals(current.getId())
+                : current == room;
+        return sameRoom &&
+                lateCheckout == reservation.getDates().isLateCheckout() &&
+                Objects.equals(checkInDate, reservation.getDates().getCheckInDate()) &&
+                Objects.equals(checkOutDate, reservation.getDates().getCheckOutDate());
+    }
+
+    private void priceBasis(Reservation reservation) {
+        room = reservation.getRoom();
+        roomId = room == null ? null : room.getId();
+        checkInDate = reservation.getDates().getCheckInDate();
+        checkOutDate = reservation.getDates().getCheckOutDate();
+        lateCheckout = reservation.getDates().isLateCheckout();
+
+        nights = reservation.getDates().totalNights();
+        roomCents = PriceCalculator.roomCents(reservation, nights);
+        lateCheckoutFeeCents = PriceCalculator.lateCheckoutFeeCents(reservation);
+        priced = true;
+        generalExtrasStale = true;
+        mealPlansStale = true;
+    }
+
+    private void priceMealPlans(List<MealPlan> current) {
+        mealPlans.clear();
+        mealPlansCents = 0;
+        if (current != null) {
+            for (MealPlan plan : current) {
+                MealPlanLines lines = new MealPlanLines(plan);
+                lines.price(nights);
+                mealPlans.add(lines);
+                mealPlansCents = Math.addExact(mealPlansCents, lines.cents);
+            }
+        }
+    }
+
+    private static boolean isChild(Guest guest) {
+        return guest != null && guest.isChild();
+    }
+
+    /**
+     * The priced extras of one selection by extra id, and their total.
+     */
+    private static class Lines {
+        private final Map<Long, Long> extras = new HashMap<>();
+        long cents;
+
+        long price(Extra extra, long nights) {
+            return PriceCalculator.extraCents(extra, nights);
+        }
+
+        void price(Collection<Extra> selected, long nights) {
+            extras.clear();
+            cents = 0;
+            if (selected != null) {
+                for (Extra extra : selected) {
+                    long extraCents = price(extra, nights);
+                    extras.merge(extra.getId(), extraCents, Math::addExact);
+                    cents = Math.addExact(cents, extraCents);
+                }
+            }
+        }
+
+        /**
+         * Only the extra with the given id is priced, the rest of the selection is just compared by id.
+         */
+        void toggle(Collection<Extra> selected, long extraId, long nights) {
+            long now = 0;
+            if (selected != null) {
+                for (Extra extra : selected) {
+                    Long id = extra.getId();
+                    if (id != null && id == extraId) {
+                        now = Math.addExact(now, price(extra, nights));
+                    }
+                }
+            }
+            Long before = now == 0 ? extras.remove(extraId) : extras.put(extraId, now);
+            cents = Math.addExact(cents, now - (before == null ? 0 : before));
+        }
+    }
+
+    private static final class MealPlanLines extends Lines {
+        private final MealPlan plan;
+        private boolean child;
+
+        MealPlanLines(MealPlan plan) {
+            this.plan = plan;
+        }
+
+        @Override
+        long price(Extra extra, long nights) {
+            return PriceCalculator.foodExtraCents(extra, nights, child);
+        }
+
+        void price(long nights) {
+            child = isChild(plan.getGuest());
+            price(plan.getFoodExtras(), nights);
+        }
+    }
+}
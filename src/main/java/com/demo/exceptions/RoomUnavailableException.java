@@ -0,0 +1,14 @@
+package com.demo.exceptions;
+
+/**
+ * The nights being booked overlap a reservation that has already been committed for the same room.
+ */
+public class RoomUnavailableException extends RuntimeException {
+
+    public RoomUnavailableException() {
+    }
+
+    public RoomUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,44 @@
+package com.demo.facet;
+
+/**
+ * Hotel search filters shown with the number of hotels each value would match. {@code Stars} is a hotel attribute,
+ * the others match a hotel with at least one room having the value.
+ */
+public enum Facet {
+    Stars("stars", "Stars"),
+    Type("roomType", "Room type"),
+    Beds("beds", "Beds"),
+    Price("price", "Price per night");
+
+    private final String param;
+    private final String label;
+
+    Facet(String param, String label) {
+        this.param = param;
+        this.label = label;
+    }
+
+    /**
+     * @return The request parameter selecting values of this facet.
+     */
+    public String getParam() {
+        return param;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String valueLabel(Object value) {
+        switch (this) {
+            case Stars:
+                return value + ((Integer) value == 1 ? " star" : " stars");
+            case Beds:
+                return value + ((Integer) value == 1 ? " bed" : " beds");
+            case Price:
+                return ((PriceBand) value).getLabel();
+            default:
+                return value.toString();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.demo.facet;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * How many hotels each facet value would match, see {@link FacetIndex#counts}.
+ */
+public final class FacetCounts {
+
+    public static final FacetCounts EMPTY = new FacetCounts(new EnumMap<>(Facet.class), 0);
+
+    private final Map<Facet, Map<Object, Integer>> counts;
+    private final int total;
+
+    public FacetCounts(Map<Facet, Map<Object, Integer>> counts, int total) {
+        this.counts = counts;
+        this.total = total;
+    }
+
+    /**
+     * @return The count of every value the facet has in the catalogue, in the values' natural order.
+     */
+    public Map<Object, Integer> get(Facet facet) {
+        return Collections.unmodifiableMap(counts.getOrDefault(facet, Map.of()));
+    }
+
+    /**
+     * @return Hotels matching the search with every chosen facet value applied.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "FacetCounts{" +
+                "counts=" + counts +
+                ", total=" + total +
+                '}';
+    }
+}
@@ -0,0 +1,106 @@
+package com.demo.facet;
+
+import com.demo.domain.RoomType;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * The facet values chosen for a hotel search. Values of one facet are alternatives, a hotel must match one of the
+ * chosen values of every facet that has any.
+ */
+public final class FacetFilter {
+
+    public static final FacetFilter NONE = new FacetFilter(new EnumMap<>(Facet.class));
+
+    private final Map<Facet, Set<Object>> selected;
+
+    private FacetFilter(Map<Facet, Set<Object>> selected) {
+        this.selected = selected;
+    }
+
+    /**
+     * Any of the arguments may be {@code null} or empty.
+     */
+    public static FacetFilter of(Collection<Integer> stars, Collection<RoomType> roomTypes, Collection<Integer> beds,
+                                 Collection<PriceBand> prices) {
+        Map<Facet, Set<Object>> selected = new EnumMap<>(Facet.class);
+        put(selected, Facet.Stars, stars);
+        put(selected, Facet.Type, roomTypes);
+        put(selected, Facet.Beds, beds);
+        put(selected, Facet.Price, prices);
+        return selected.isEmpty() ? NONE : new FacetFilter(selected);
+    }
+
+    private static void put(Map<Facet, Set<Object>> selected, Facet facet, Collection<?> values) {
+        if (values != null && !values.isEmpty()) {
+            selected.put(facet, Collections.unmodifiableSet(new TreeSet<>(values)));
+        }
+    }
+
+    public boolean isEmpty() {
+        return selected.isEmpty();
+    }
+
+    /**
+     * @return The chosen values in their natural order, empty when the facet is not filtered on.
+     */
+    public Set<Object> get(Facet facet) {
+        return selected.getOrDefault(facet, Set.of());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Set<T> get(Facet facet, Class<T> type) {
+        return (Set<T>) get(facet);
+    }
+
+    public Set<Integer> getStars() {
+        return get(Facet.Stars, Integer.class);
+    }
+
+    public Set<RoomType> getRoomTypes() {
+        return get(Facet.Type, RoomType.class);
+    }
+
+    public Set<Integer> getBeds() {
+        return get(Facet.Beds, Integer.class);
+    }
+
+    public Set<PriceBand> getPrices() {
+        return get(Facet.Price, PriceBand.class);
+    }
+
+    public boolean isSelected(Facet facet, Object value) {
+        return get(facet).contains(value);
+    }
+
+    /**
+     * @return The request parameter values of {@code facet} after adding {@code value}, or removing it when it is
+     * already chosen.
+     */
+    public List<String> toggledParamValues(Facet facet, Object value) {
+        Set<Object> values = new TreeSet<>(get(facet));
+        if (!values.remove(value)) {
+            values.add(value);
+        }
+        return values.stream().map(Object::toString).collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FacetFilter that = (FacetFilter) o;
+        return Objects.equals(selected, that.selected);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(selected);
+    }
+
+    @Override
+    public String toString() {
+        return "FacetFilter" + selected;
+    }
+}
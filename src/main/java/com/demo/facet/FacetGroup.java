@@ -0,0 +1,61 @@
+package com.demo.facet;
+
+import java.util.List;
+
+/**
+ * The values of one facet as shown beside the search results.
+ */
+public class FacetGroup {
+    private final Facet facet;
+    private final List<Option> options;
+
+    public FacetGroup(Facet facet, List<Option> options) {
+        this.facet = facet;
+        this.options = options;
+    }
+
+    public Facet getFacet() {
+        return facet;
+    }
+
+    public String getLabel() {
+        return facet.getLabel();
+    }
+
+    public List<Option> getOptions() {
+        return options;
+    }
+
+    public static class Option {
+        private final String label;
+        private final int count;
+        private final boolean selected;
+        private final String url;
+
+        /**
+         * @param url Search with this value chosen, or no longer chosen when it is {@code selected}.
+         */
+        public Option(String label, int count, boolean selected, String url) {
+            this.label = label;
+            this.count = count;
+            this.selected = selected;
+            this.url = url;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public boolean isSelected() {
+            return selected;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+    }
+}
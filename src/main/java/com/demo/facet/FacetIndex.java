@@ -0,0 +1,185 @@
+package com.demo.facet;
+
+import com.demo.domain.location.Address;
+import com.demo.domain.location.State;
+import com.demo.persistance.HotelRepository;
+import com.demo.persistance.RoomRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In memory inverted index counting the hotels behind each facet value of a search, so the counts shown beside the
+ * results need no {@code group by} queries.
+ *
+ * <p>Every hotel gets a dense ordinal and each facet value, state, suburb and postcode keeps a bitmap of the
+ * ordinals of the hotels having it. The count of a value is the size of the intersection of its bitmap with the
+ * location and with the values chosen for the other facets. Choosing a value therefore narrows the counts of every
+ * other facet while its own facet keeps showing what each alternative would match.</p>
+ *
+ * <p>The bitmaps are built once the application is ready and imported hotels and rooms are added to them as each
+ * catalogue chunk commits. Facet values are catalogue attributes, booking a room does not change them.</p>
+ */
+@Component
+public class FacetIndex {
+
+    private final HotelRepository hotelRepository;
+    private final RoomRepository roomRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock.
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Map<Facet, Map<Object, BitSet>> facets = new EnumMap<>(Facet.class);
+    private final Map<State, BitSet> states = new EnumMap<>(State.class);
+    private final Map<String, BitSet> suburbs = new HashMap<>();
+    private final Map<String, BitSet> postcodes = new HashMap<>();
+    private final BitSet all = new BitSet();
+
+    public FacetIndex(HotelRepository hotelRepository, RoomRepository roomRepository) {
+        this.hotelRepository = hotelRepository;
+        this.roomRepository = roomRepository;
+        for (Facet facet : Facet.values()) {
+            facets.put(facet, new HashMap<>());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<HotelFacetRow> hotels = hotelRepository.findAllFacetRows();
+        List<RoomFacetRow> rooms = roomRepository.findAllFacetRows();
+
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            facets.values().forEach(Map::clear);
+            states.clear();
+            suburbs.clear();
+            postcodes.clear();
+            all.clear();
+            addAll(hotels, rooms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds hotels and rooms that were just created.
+     */
+    public void add(Collection<HotelFacetRow> hotels, Collection<RoomFacetRow> rooms) {
+        lock.writeLock().lock();
+        try {
+            addAll(hotels, rooms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addAll(Collection<HotelFacetRow> hotels, Collection<RoomFacetRow> rooms) {
+        for (HotelFacetRow hotel : hotels) {
+            int ordinal = ordinal(hotel.getHotelId());
+            all.set(ordinal);
+            set(facets.get(Facet.Stars), hotel.getStars(), ordinal);
+            set(states, hotel.getState(), ordinal);
+            set(suburbs, hotel.getSearchSuburb(), ordinal);
+            set(postcodes, hotel.getPostcode(), ordinal);
+        }
+        for (RoomFacetRow room : rooms) {
+            int ordinal = ordinal(room.getHotelId());
+            set(facets.get(Facet.Type), room.getRoomType(), ordinal);
+            set(facets.get(Facet.Beds), room.getBeds(), ordinal);
+            set(facets.get(Facet.Price), PriceBand.of(room.getCostPerNight()), ordinal);
+        }
+    }
+
+    private int ordinal(Long hotelId) {
+        return ordinals.computeIfAbsent(hotelId, id -> ordinals.size());
+    }
+
+    private static <K> void set(Map<K, BitSet> bitmaps, K key, int ordinal) {
+        bitmaps.computeIfAbsent(key, k -> new BitSet()).set(ordinal);
+    }
+
+    /**
+     * Location arguments are matched the same way as {@code HotelPredicates.byLocation}.
+     *
+     * @param hotelIds Only count these hotels, such as those found by a radius search. {@code null} for no
+     *                 restriction.
+     */
+    public FacetCounts counts(String state, String suburb, String postcode, Collection<Long> hotelIds,
+                              FacetFilter filter) {
+        lock.readLock().lock();
+        try {
+            BitSet base = location(state, suburb, postcode);
+            if (hotelIds != null) {
+                base.and(ordinalsOf(hotelIds));
+            }
+
+            Map<Facet, BitSet> chosen = new EnumMap<>(Facet.class);
+            for (Facet facet : Facet.values()) {
+                Set<Object> values = filter.get(facet);
+                if (!values.isEmpty()) {
+                    BitSet union = new BitSet();
+                    values.forEach(value -> union.or(facets.get(facet).getOrDefault(value, new BitSet())));
+                    chosen.put(facet, union);
+                }
+            }
+
+            Map<Facet, Map<Object, Integer>> counts = new EnumMap<>(Facet.class);
+            for (Facet facet : Facet.values()) {
+                BitSet others = (BitSet) base.clone();
+                chosen.forEach((other, union) -> {
+                    if (other != facet) {
+                        others.and(union);
+                    }
+                });
+                Map<Object, Integer> valueCounts = new TreeMap<>();
+                facets.get(facet).forEach((value, hotels) -> valueCounts.put(value, intersectionSize(others, hotels)));
+                counts.put(facet, valueCounts);
+            }
+
+            BitSet matching = (BitSet) base.clone();
+            chosen.values().forEach(matching::and);
+            return new FacetCounts(counts, matching.cardinality());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet location(String state, String suburb, String postcode) {
+        BitSet matching = (BitSet) all.clone();
+        if (StringUtils.hasText(state)) {
+            BitSet inState = State.parse(state).map(states::get).orElse(null);
+            matching.and(inState == null ? new BitSet() : inState);
+        }
+        if (StringUtils.hasText(suburb)) {
+            matching.and(suburbs.getOrDefault(Address.normalize(suburb), new BitSet()));
+        }
+        if (StringUtils.hasText(postcode)) {
+            matching.and(postcodes.getOrDefault(postcode.trim(), new BitSet()));
+        }
+        return matching;
+    }
+
+    private BitSet ordinalsOf(Collection<Long> hotelIds) {
+        BitSet selected = new BitSet();
+        for (Long hotelId : hotelIds) {
+            Integer ordinal = ordinals.get(hotelId);
+            if (ordinal != null) {
+                selected.set(ordinal);
+            }
+        }
+        return selected;
+    }
+
+    private static int intersectionSize(BitSet left, BitSet right) {
+        BitSet intersection = (BitSet) left.clone();
+        intersection.and(right);
+        return intersection.cardinality();
+    }
+}
@@ -0,0 +1,48 @@
+package com.demo.facet;
+
+import com.demo.domain.Hotel;
+import com.demo.domain.location.State;
+
+/**
+ * Projection of the hotel attributes the {@code FacetIndex} filters and counts on.
+ */
+public class HotelFacetRow {
+    private final Long hotelId;
+    private final int stars;
+    private final State state;
+    private final String searchSuburb;
+    private final String postcode;
+
+    public HotelFacetRow(Long hotelId, int stars, State state, String searchSuburb, String postcode) {
+        this.hotelId = hotelId;
+        this.stars = stars;
+        this.state = state;
+        this.searchSuburb = searchSuburb;
+        this.postcode = postcode;
+    }
+
+    public static HotelFacetRow of(Hotel hotel) {
+        return new HotelFacetRow(hotel.getId(), hotel.getStars(), hotel.getAddress().getState(),
+                hotel.getAddress().getSearchSuburb(), hotel.getAddress().getPostcode().getValue());
+    }
+
+    public Long getHotelId() {
+        return hotelId;
+    }
+
+    public int getStars() {
+        return stars;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getSearchSuburb() {
+        return searchSuburb;
+    }
+
+    public String getPostcode() {
+        return postcode;
+    }
+}
@@ -0,0 +1,51 @@
+package com.demo.facet;
+
+import java.math.BigDecimal;
+
+/**
+ * Ranges of {@code Room.costPerNight} a hotel search can be narrowed to. Each band includes its lower bound and
+ * excludes its upper bound.
+ */
+public enum PriceBand {
+    Under100(null, 100, "Under $100"),
+    From100To200(100, 200, "$100 - $200"),
+    From200To300(200, 300, "$200 - $300"),
+    From300(300, null, "$300 and over");
+
+    private final BigDecimal min;
+    private final BigDecimal max;
+    private final String label;
+
+    PriceBand(Integer min, Integer max, String label) {
+        this.min = min == null ? null : BigDecimal.valueOf(min);
+        this.max = max == null ? null : BigDecimal.valueOf(max);
+        this.label = label;
+    }
+
+    public static PriceBand of(BigDecimal costPerNight) {
+        for (PriceBand band : values()) {
+            if (band.max == null || costPerNight.compareTo(band.max) < 0) {
+                return band;
+            }
+        }
+        throw new IllegalStateException("The last band has no upper bound");
+    }
+
+    /**
+     * @return {@code null} for the lowest band.
+     */
+    public BigDecimal getMin() {
+        return min;
+    }
+
+    /**
+     * @return {@code null} for the highest band.
+     */
+    public BigDecimal getMax() {
+        return max;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
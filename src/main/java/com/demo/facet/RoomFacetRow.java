@@ -0,0 +1,43 @@
+package com.demo.facet;
+
+import com.demo.domain.Room;
+import com.demo.domain.RoomType;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of the room attributes the {@code FacetIndex} counts hotels by.
+ */
+public class RoomFacetRow {
+    private final Long hotelId;
+    private final RoomType roomType;
+    private final int beds;
+    private final BigDecimal costPerNight;
+
+    public RoomFacetRow(Long hotelId, RoomType roomType, int beds, BigDecimal costPerNight) {
+        this.hotelId = hotelId;
+        this.roomType = roomType;
+        this.beds = beds;
+        this.costPerNight = costPerNight;
+    }
+
+    public static RoomFacetRow of(Long hotelId, Room room) {
+        return new RoomFacetRow(hotelId, room.getRoomType(), room.getBeds(), room.getCostPerNight());
+    }
+
+    public Long getHotelId() {
+        return hotelId;
+    }
+
+    public RoomType getRoomType() {
+        return roomType;
+    }
+
+    public int getBeds() {
+        return beds;
+    }
+
+    public BigDecimal getCostPerNight() {
+        return costPerNight;
+    }
+}
@@ -0,0 +1,30 @@
+package com.demo.geo;
+
+/**
+ * A hotel found by a {@code HotelGeoIndex} search and how far it is from the searched point.
+ */
+public final class GeoHit {
+    private final long hotelId;
+    private final double distanceKm;
+
+    public GeoHit(long hotelId, double distanceKm) {
+        this.hotelId = hotelId;
+        this.distanceKm = distanceKm;
+    }
+
+    public long getHotelId() {
+        return hotelId;
+    }
+
+    public double getDistanceKm() {
+        return distanceKm;
+    }
+
+    @Override
+    public String toString() {
+        return "GeoHit{" +
+                "hotelId=" + hotelId +
+                ", distanceKm=" + distanceKm +
+                '}';
+    }
+}
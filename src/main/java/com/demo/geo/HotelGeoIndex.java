@@ -0,0 +1,190 @@
+package com.demo.geo;
+
+import com.demo.persistance.HotelRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In memory uniform grid of hotel coordinates answering radius and nearest hotel searches without scanning every
+ * hotel.
+ *
+ * <p>The globe is cut into square cells of {@code hotel.geo.cell-size-km} along a meridian. A search only visits the
+ * cells overlapping the bounding box of its circle and measures the great circle distance to the hotels in them, so
+ * the cost depends on how many hotels are near the point rather than how many there are. Cells narrow towards the
+ * poles, the box is widened in longitude for the latitude of its edge furthest from the equator.</p>
+ *
+ * <p>The grid is built from the database once the application is ready. Imported hotels are added by replacing the
+ * cells they fall in with copies holding them, searches never wait on an import.</p>
+ */
+@Component
+public class HotelGeoIndex {
+
+    static final double KM_PER_DEGREE = 111.32;
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final HotelRepository hotelRepository;
+    private final double cellSizeKm;
+    private final double cellDegrees;
+    private final int columns;
+
+    private volatile Map<Long, Cell> cells = new ConcurrentHashMap<>();
+
+    public HotelGeoIndex(HotelRepository hotelRepository,
+                         @Value("${hotel.geo.cell-size-km:2}") double cellSizeKm) {
+        this.hotelRepository = hotelRepository;
+        this.cellSizeKm = cellSizeKm;
+        this.cellDegrees = cellSizeKm / KM_PER_DEGREE;
+        this.columns = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        Map<Long, Cell> rebuilt = new ConcurrentHashMap<>();
+        addTo(rebuilt, hotelRepository.findAllPoints());
+        cells = rebuilt;
+    }
+
+    /**
+     * Adds hotels that were just created.
+     */
+    public synchronized void add(Collection<HotelPoint> points) {
+        addTo(cells, points);
+    }
+
+    private void addTo(Map<Long, Cell> target, Collection<HotelPoint> points) {
+        Map<Long, List<HotelPoint>> byCell = points.stream().collect(Collectors.groupingBy(
+                point -> cellKey(row(point.getLatitude()), column(point.getLongitude()))));
+        byCell.forEach((key, added) -> target.merge(key, Cell.of(added), Cell::plus));
+    }
+
+    /**
+     * @return Every hotel within {@code radiusKm} of the point, nearest first.
+     */
+    public List<GeoHit> within(double latitude, double longitude, double radiusKm) {
+        Map<Long, Cell> current = cells;
+        List<GeoHit> hits = new ArrayList<>();
+
+        double latitudeDelta = radiusKm / KM_PER_DEGREE;
+        int minRow = row(Math.max(-90, latitude - latitudeDelta));
+        int maxRow = row(Math.min(90, latitude + latitudeDelta));
+
+        double edgeLatitude = Math.min(90, Math.abs(latitude) + latitudeDelta);
+        double edgeCos = Math.cos(Math.toRadians(edgeLatitude));
+        double longitudeDelta = edgeCos < 1e-9 ? 180 : radiusKm / (KM_PER_DEGREE * edgeCos);
+        int firstColumn = (int) Math.floor((longitude - longitudeDelta + 180) / cellDegrees);
+        int columnCount = Math.min(columns,
+                (int) Math.floor((longitude + longitudeDelta + 180) / cellDegrees) - firstColumn + 1);
+
+        if ((long) (maxRow - minRow + 1) * columnCount > current.size()) {
+            // Fewer occupied cells than cells in the box, such as a large radius over a sparse catalogue.
+            current.values().forEach(cell -> cell.collect(latitude, longitude, radiusKm, hits));
+        } else {
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int i = 0; i < columnCount; i++) {
+                    Cell cell = current.get(cellKey(row, Math.floorMod(firstColumn + i, columns)));
+                    if (cell != null) {
+                        cell.collect(latitude, longitude, radiusKm, hits);
+                    }
+                }
+            }
+        }
+        hits.sort(Comparator.comparingDouble(GeoHit::getDistanceKm));
+        return hits;
+    }
+
+    /**
+     * Widens the search one doubling of the radius at a time, starting from a single cell, until enough hotels are
+     * found.
+     *
+     * @return Up to {@code count} of the hotels nearest the point no further than {@code maxRadiusKm}, nearest first.
+     */
+    public List<GeoHit> nearest(double latitude, double longitude, int count, double maxRadiusKm) {
+        double radiusKm = Math.min(cellSizeKm, maxRadiusKm);
+        while (true) {
+            List<GeoHit> hits = within(latitude, longitude, radiusKm);
+            if (hits.size() >= count || radiusKm >= maxRadiusKm) {
+                return hits.size() > count ? new ArrayList<>(hits.subList(0, count)) : hits;
+            }
+            radiusKm = Math.min(radiusKm * 2, maxRadiusKm);
+        }
+    }
+
+    public int size() {
+        return cells.values().stream().mapToInt(cell -> cell.hotelIds.length).sum();
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor((latitude + 90) / cellDegrees);
+    }
+
+    private int column(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), columns);
+    }
+
+    private long cellKey(int row, int column) {
+        return (long) row * columns + column;
+    }
+
+    static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dLatitude / 2) * Math.sin(dLatitude / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(dLongitude / 2) * Math.sin(dLongitude / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Hotels in one grid cell as parallel arrays, never modified once published.
+     */
+    private static final class Cell {
+        private final long[] hotelIds;
+        private final double[] latitudes;
+        private final double[] longitudes;
+
+        private Cell(long[] hotelIds, double[] latitudes, double[] longitudes) {
+            this.hotelIds = hotelIds;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+        }
+
+        static Cell of(List<HotelPoint> points) {
+            long[] hotelIds = new long[points.size()];
+            double[] latitudes = new double[points.size()];
+            double[] longitudes = new double[points.size()];
+            for (int i = 0; i < points.size(); i++) {
+                HotelPoint point = points.get(i);
+                hotelIds[i] = point.getHotelId();
+                latitudes[i] = point.getLatitude();
+                longitudes[i] = point.getLongitude();
+            }
+            return new Cell(hotelIds, latitudes, longitudes);
+        }
+
+        Cell plus(Cell other) {
+            int size = hotelIds.length;
+            long[] mergedIds = Arrays.copyOf(hotelIds, size + other.hotelIds.length);
+            double[] mergedLatitudes = Arrays.copyOf(latitudes, mergedIds.length);
+            double[] mergedLongitudes = Arrays.copyOf(longitudes, mergedIds.length);
+            System.arraycopy(other.hotelIds, 0, mergedIds, size, other.hotelIds.length);
+            System.arraycopy(other.latitudes, 0, mergedLatitudes, size, other.hotelIds.length);
+            System.arraycopy(other.longitudes, 0, mergedLongitudes, size, other.hotelIds.length);
+            return new Cell(mergedIds, mergedLatitudes, mergedLongitudes);
+        }
+
+        void collect(double latitude, double longitude, double radiusKm, List<GeoHit> hits) {
+            for (int i = 0; i < hotelIds.length; i++) {
+                double distanceKm = distanceKm(latitude, longitude, latitudes[i], longitudes[i]);
+                if (distanceKm <= radiusKm) {
+                    hits.add(new GeoHit(hotelIds[i], distanceKm));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.demo.geo;
+
+import com.demo.domain.Hotel;
+
+/**
+ * Projection of a hotel's coordinates used to build the {@code HotelGeoIndex}.
+ */
+public class HotelPoint {
+    private final Long hotelId;
+    private final double latitude;
+    private final double longitude;
+
+    public HotelPoint(Long hotelId, double latitude, double longitude) {
+        this.hotelId = hotelId;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    /**
+     * @return {@code null} when the hotel has no coordinates.
+     */
+    public static HotelPoint of(Hotel hotel) {
+        Double latitude = hotel.getAddress().getLatitude();
+        Double longitude = hotel.getAddress().getLongitude();
+        return latitude == null || longitude == null ? null : new HotelPoint(hotel.getId(), latitude, longitude);
+    }
+
+    public Long getHotelId() {
+        return hotelId;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    @Override
+    public String toString() {
+        return "HotelPoint{" +
+                "hotelId=" + hotelId +
+                ", latitude=" + latitude +
+                ", longitude=" + longitude +
+                '}';
+    }
+}
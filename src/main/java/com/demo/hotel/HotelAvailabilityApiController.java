@@ -0,0 +1,78 @@
+package com.demo.hotel;
+
+import com.demo.availability.AvailabilityIndex;
+import com.demo.availability.HotelAvailability;
+import com.demo.persistance.RoomRepository;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Availability of many hotels for the same stay in one call, for partners that would otherwise page through
+ * {@code /hotel/{id}/rooms} for each hotel.
+ *
+ * <p>The free rooms of every hotel come from the {@link AvailabilityIndex}, then a single grouped query counts them
+ * and finds the cheapest. No hotel or room entity is loaded.</p>
+ */
+@Controller
+public class HotelAvailabilityApiController {
+
+    static final int MAX_HOTELS = 500;
+
+    private final AvailabilityIndex availabilityIndex;
+    private final RoomRepository roomRepository;
+
+    public HotelAvailabilityApiController(AvailabilityIndex availabilityIndex, RoomRepository roomRepository) {
+        this.availabilityIndex = availabilityIndex;
+        this.roomRepository = roomRepository;
+    }
+
+    /**
+     * @param hotelIds     At most {@value #MAX_HOTELS}. Unknown hotels are answered with no available rooms.
+     * @param checkOutDate Exclusive, must be after the check in date.
+     * @param guests       Only rooms with at least this many beds are counted.
+     * @return One entry per distinct hotel id in the order requested.
+     */
+    @GetMapping(value = "/api/hotels/availability", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    @ResponseBody
+    public List<HotelAvailability> getAvailability(@RequestParam("hotelId") List<Long> hotelIds,
+                                                   @RequestParam("checkInDate")
+                                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                                           LocalDate checkInDate,
+                                                   @RequestParam("checkOutDate")
+                                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                                           LocalDate checkOutDate,
+                                                   @RequestParam(value = "guests", required = false)
+                                                           Integer guests) {
+        Set<Long> distinctIds = new LinkedHashSet<>(hotelIds);
+        if (distinctIds.size() > MAX_HOTELS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_HOTELS + " hotels");
+        }
+        if (!checkOutDate.isAfter(checkInDate)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "checkOutDate must be after checkInDate");
+        }
+        if (guests != null && guests < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "guests must be positive");
+        }
+
+        List<Long> freeRoomIds = new ArrayList<>();
+        for (Long hotelId : distinctIds) {
+            freeRoomIds.addAll(availabilityIndex.availableRooms(hotelId, checkInDate, checkOutDate));
+        }
+        Map<Long, HotelAvailability> byHotel = freeRoomIds.isEmpty()
+                ? Map.of() : roomRepository.summarizeByHotel(freeRoomIds, guests);
+
+        return distinctIds.stream()
+                .map(id -> byHotel.getOrDefault(id, HotelAvailability.none(id)))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,84 @@
+package com.demo.hotel;
+
+import com.demo.persistance.HotelColumn;
+import com.demo.persistance.HotelRepository;
+import com.demo.persistance.predicates.HotelPredicates;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.core.Tuple;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Hotel search for partners polling our inventory, the same location search as {@code /hotel/search} without the
+ * html.
+ *
+ * <p>Each hotel is written as one JSON object per line as it is read from the database cursor, nothing is collected
+ * first so a search matching every hotel needs no more memory than one matching a few.</p>
+ */
+@Controller
+public class HotelSearchApiController {
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private final HotelRepository hotelRepository;
+    private final ObjectMapper objectMapper;
+
+    public HotelSearchApiController(HotelRepository hotelRepository, ObjectMapper objectMapper) {
+        this.hotelRepository = hotelRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param fields Comma separated {@link HotelColumn} field names to include, all of them when missing. An unknown
+     *               name is a 400.
+     */
+    @GetMapping(value = "/api/hotels", produces = APPLICATION_NDJSON_VALUE)
+    public void searchHotels(@RequestParam(value = "state", required = false) String state,
+                             @RequestParam(value = "suburb", required = false) String suburb,
+                             @RequestParam(value = "postcode", required = false) String postcode,
+                             @RequestParam(value = "fields", required = false) List<String> fields,
+                             HttpServletResponse response) throws IOException {
+        List<HotelColumn> columns = fields == null || fields.isEmpty()
+                ? Arrays.asList(HotelColumn.values())
+                : fields.stream().map(HotelSearchApiController::column).distinct().collect(Collectors.toList());
+
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            hotelRepository.streamColumns(HotelPredicates.byLocation(state, suburb, postcode), columns,
+                    row -> writeLine(generator, columns, row));
+        }
+    }
+
+    private static HotelColumn column(String field) {
+        return HotelColumn.byField(field.trim())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field " + field));
+    }
+
+    private static void writeLine(JsonGenerator generator, List<HotelColumn> columns, Tuple row) {
+        try {
+            generator.writeStartObject();
+            for (int i = 0; i < columns.size(); i++) {
+                generator.writeFieldName(columns.get(i).getField());
+                generator.writeObject(row.get(i, Object.class));
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
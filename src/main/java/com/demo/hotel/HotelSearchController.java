@@ -1,51 +1,339 @@
 package com.demo.hotel;
 
+import com.demo.TimeProvider;
+import com.demo.availability.AvailabilityIndex;
+import com.demo.availability.AvailabilityVersion;
+import com.demo.catalogue.CatalogueVersion;
 import com.demo.domain.Hotel;
 import com.demo.domain.Room;
+import com.demo.domain.RoomType;
 import com.demo.exceptions.NotFoundException;
+import com.demo.facet.*;
+import com.demo.geo.GeoHit;
+import com.demo.geo.HotelGeoIndex;
 import com.demo.persistance.HotelRepository;
+import com.demo.persistance.keyset.KeysetSlice;
 import com.demo.persistance.predicates.RoomPredicates;
 import com.demo.persistance.RoomRepository;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.persistence.EntityNotFoundException;
+import javax.servlet.http.HttpServletRequest;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
 
+/**
+ * Hotel search and room availability pages. Each handler answers a conditional request straight away, otherwise it
+ * returns the queries as a task from {@link SearchExecution} which runs where {@link SearchExecutionConfiguration}
+ * decides.
+ */
 @Controller
 public class HotelSearchController {
 
     private HotelRepository hotelRepository;
     private RoomRepository roomRepository;
+    private AvailabilityIndex availabilityIndex;
+    private TimeProvider timeProvider;
+    private CatalogueVersion catalogueVersion;
+    private AvailabilityVersion availabilityVersion;
+    private HotelGeoIndex hotelGeoIndex;
+    private FacetIndex facetIndex;
+    private SearchExecution searchExecution;
+    private double defaultRadiusKm;
+    private double maxRadiusKm;
 
     public HotelSearchController(HotelRepository hotelRepository,
-                                 RoomRepository roomRepository) {
+                                 RoomRepository roomRepository,
+                                 AvailabilityIndex availabilityIndex,
+                                 TimeProvider timeProvider,
+                                 CatalogueVersion catalogueVersion,
+                                 AvailabilityVersion availabilityVersion,
+                                 HotelGeoIndex hotelGeoIndex,
+                                 FacetIndex facetIndex,
+                                 SearchExecution searchExecution,
+                                 @Value("${hotel.geo.default-radius-km:5}") double defaultRadiusKm,
+                                 @Value("${hotel.geo.max-radius-km:50}") double maxRadiusKm) {
         this.hotelRepository = hotelRepository;
         this.roomRepository = roomRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.timeProvider = timeProvider;
+        this.catalogueVersion = catalogueVersion;
+        this.availabilityVersion = availabilityVersion;
+        this.hotelGeoIndex = hotelGeoIndex;
+        this.facetIndex = facetIndex;
+        this.searchExecution = searchExecution;
+        this.defaultRadiusKm = defaultRadiusKm;
+        this.maxRadiusKm = maxRadiusKm;
     }
 
+    /**
+     * The {@code stars}, {@code roomType}, {@code beds} and {@code price} parameters of this and the other searches
+     * narrow the results to the chosen {@link Facet} values. The number of hotels behind each value comes from the
+     * {@link FacetIndex}.
+     */
     @GetMapping(value = "/hotel/search")
-    public String getHotels(@RequestParam(value = "state", required = false) String state,
-                            @RequestParam(value = "suburb", required = false) String suburb,
-                            @RequestParam(value = "postcode", required = false) String postcode,
-                            Pageable pageable, Model model) {
-        Page<Hotel> results = hotelRepository.findAllByLocation(state, suburb, postcode, pageable);
-        model.addAttribute("hotels", results == null ? Page.empty() : results);
-        return "/hotel/hotels";
+    public WebAsyncTask<String> getHotels(@RequestParam(value = "state", required = false) String state,
+                                      @RequestParam(value = "suburb", required = false) String suburb,
+                                      @RequestParam(value = "postcode", required = false) String postcode,
+                                      @RequestParam(value = "stars", required = false) List<Integer> stars,
+                                      @RequestParam(value = "roomType", required = false) List<RoomType> roomTypes,
+                                      @RequestParam(value = "beds", required = false) List<Integer> beds,
+                                      @RequestParam(value = "price", required = false) List<PriceBand> prices,
+                                      Pageable pageable, Model model, ServletWebRequest request) {
+        if (catalogueNotModified(request)) {
+            return null;
+        }
+        FacetFilter facets = FacetFilter.of(stars, roomTypes, beds, prices);
+        return searchExecution.task(() -> {
+            Page<Hotel> results = hotelRepository.findAllByLocation(state, suburb, postcode, facets, pageable);
+            model.addAttribute("hotels", results == null ? Page.empty() : results);
+            addFacetAttributes(model, facetIndex.counts(state, suburb, postcode, null, facets), facets,
+                    request.getRequest());
+            return "/hotel/hotels";
+        });
     }
 
+    /**
+     * Keyset paginated search used when a {@code cursor} parameter is present, even an empty one for the first
+     * slice. Deep pages cost the same as the first and there is no count query.
+     */
+    @GetMapping(value = "/hotel/search", params = "cursor")
+    public WebAsyncTask<String> getHotelsByCursor(@RequestParam(value = "state", required = false) String state,
+                                              @RequestParam(value = "suburb", required = false) String suburb,
+                                              @RequestParam(value = "postcode", required = false) String postcode,
+                                              @RequestParam("cursor") String cursor,
+                                              @RequestParam(value = "stars", required = false) List<Integer> stars,
+                                              @RequestParam(value = "roomType", required = false)
+                                                      List<RoomType> roomTypes,
+                                              @RequestParam(value = "beds", required = false) List<Integer> beds,
+                                              @RequestParam(value = "price", required = false) List<PriceBand> prices,
+                                              Pageable pageable, Model model, ServletWebRequest request) {
+        if (catalogueNotModified(request)) {
+            return null;
+        }
+        FacetFilter facets = FacetFilter.of(stars, roomTypes, beds, prices);
+        return searchExecution.task(() -> {
+            KeysetSlice<Hotel> results = hotelRepository.findAllByLocation(state, suburb, postcode, facets, cursor,
+                    pageable);
+            addKeysetAttributes(model, results, request.getRequest());
+            model.addAttribute("hotels", results);
+            addFacetAttributes(model, facetIndex.counts(state, suburb, postcode, null, facets), facets,
+                    request.getRequest());
+            return "/hotel/hotels";
+        });
+    }
+
+    /**
+     * Hotels around a point, nearest first, used when {@code lat} and {@code lon} parameters are present. Any of the
+     * location parameters narrow the results as they do for the location search. Results are always in distance
+     * order so the sort parameters are ignored.
+     *
+     * @param radiusKm How far from the point to look, {@code hotel.geo.default-radius-km} when missing and never more
+     *                 than {@code hotel.geo.max-radius-km}.
+     * @param nearest  Only page through this many of the nearest hotels.
+     */
+    @GetMapping(value = "/hotel/search", params = {"lat", "lon"})
+    public WebAsyncTask<String> getHotelsNear(@RequestParam(value = "state", required = false) String state,
+                                          @RequestParam(value = "suburb", required = false) String suburb,
+                                          @RequestParam(value = "postcode", required = false) String postcode,
+                                          @RequestParam("lat") double latitude,
+                                          @RequestParam("lon") double longitude,
+                                          @RequestParam(value = "radiusKm", required = false) Double radiusKm,
+                                          @RequestParam(value = "nearest", required = false) Integer nearest,
+                                          @RequestParam(value = "stars", required = false) List<Integer> stars,
+                                          @RequestParam(value = "roomType", required = false) List<RoomType> roomTypes,
+                                          @RequestParam(value = "beds", required = false) List<Integer> beds,
+                                          @RequestParam(value = "price", required = false) List<PriceBand> prices,
+                                          Pageable pageable, Model model, ServletWebRequest request) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Coordinates out of range");
+        }
+        if (radiusKm != null && radiusKm <= 0 || nearest != null && nearest < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "radiusKm and nearest must be positive");
+        }
+        double radius = radiusKm == null ? defaultRadiusKm : Math.min(radiusKm, maxRadiusKm);
+        int limit = nearest == null ? Integer.MAX_VALUE : nearest;
+        FacetFilter facets = FacetFilter.of(stars, roomTypes, beds, prices);
+
+        if (catalogueNotModified(request)) {
+            return null;
+        }
+        return searchExecution.task(() -> {
+            boolean anyFilter = StringUtils.hasText(state) || StringUtils.hasText(suburb)
+                    || StringUtils.hasText(postcode) || !facets.isEmpty();
+            // Without a filter the nearest hotels are all wanted, the index can stop widening early.
+            List<GeoHit> hits = nearest != null && !anyFilter
+                    ? hotelGeoIndex.nearest(latitude, longitude, nearest, radius)
+                    : hotelGeoIndex.within(latitude, longitude, radius);
+            List<Long> nearbyIds = hits.stream().map(GeoHit::getHotelId).collect(Collectors.toList());
+
+            model.addAttribute("hotels",
+                    hotelRepository.findAllNear(state, suburb, postcode, facets, nearbyIds, limit, pageable));
+            addFacetAttributes(model, facetIndex.counts(state, suburb, postcode, nearbyIds, facets), facets,
+                    request.getRequest());
+            return "/hotel/hotels";
+        });
+    }
+
+    /**
+     * Lists the rooms free for every night from check in until check out. When no dates are supplied the rooms
+     * free tonight are shown.
+     */
     @GetMapping(value = "/hotel/{id}/rooms")
-    public String getHotelRooms(@PathVariable("id") Long id, Pageable pageable, Model model) throws NotFoundException {
-        Hotel hotel = hotelRepository.findById(id).orElseThrow(NotFoundException::new);
-        Page<Room> availableRooms = roomRepository.findAll(RoomPredicates.availableRoom(id), pageable);
-        model.addAttribute("rooms", availableRooms);
-        model.addAttribute("hotel", hotel);
-        return "/hotel/rooms";
+    public WebAsyncTask<String> getHotelRooms(@PathVariable("id") Long id,
+                                          @RequestParam(value = "checkInDate", required = false)
+                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkInDate,
+                                          @RequestParam(value = "checkOutDate", required = false)
+                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOutDate,
+                                          Pageable pageable, Model model, ServletWebRequest request) {
+        LocalDate today = timeProvider.localDate();
+        if (availabilityNotModified(request, today)) {
+            return null;
+        }
+        return searchExecution.task(() -> {
+            Hotel hotel = hotelRepository.findById(id).orElseThrow(NotFoundException::new);
+
+            LocalDate checkIn = checkInDate == null ? today : checkInDate;
+            LocalDate checkOut = checkOutDate == null || !checkOutDate.isAfter(checkIn)
+                    ? checkIn.plusDays(1) : checkOutDate;
+
+            List<Long> availableRoomIds = availabilityIndex.availableRooms(id, checkIn, checkOut);
+            Page<Room> availableRooms = roomRepository.findAll(
+                    RoomPredicates.availableRoom(id, availableRoomIds), pageable);
+            model.addAttribute("rooms", availableRooms);
+            model.addAttribute("hotel", hotel);
+            model.addAttribute("checkInDate", checkIn);
+            model.addAttribute("checkOutDate", checkOut);
+            return "/hotel/rooms";
+        });
+    }
+
+    /**
+     * Keyset paginated form of {@link #getHotelRooms} used when a {@code cursor} parameter is present.
+     */
+    @GetMapping(value = "/hotel/{id}/rooms", params = "cursor")
+    public WebAsyncTask<String> getHotelRoomsByCursor(@PathVariable("id") Long id,
+                                                  @RequestParam(value = "checkInDate", required = false)
+                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkInDate,
+                                                  @RequestParam(value = "checkOutDate", required = false)
+                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOutDate,
+                                                  @RequestParam("cursor") String cursor,
+                                                  Pageable pageable, Model model, ServletWebRequest request) {
+        LocalDate today = timeProvider.localDate();
+        if (availabilityNotModified(request, today)) {
+            return null;
+        }
+        return searchExecution.task(() -> {
+            Hotel hotel = hotelRepository.findById(id).orElseThrow(NotFoundException::new);
+
+            LocalDate checkIn = checkInDate == null ? today : checkInDate;
+            LocalDate checkOut = checkOutDate == null || !checkOutDate.isAfter(checkIn)
+                    ? checkIn.plusDays(1) : checkOutDate;
+
+            List<Long> availableRoomIds = availabilityIndex.availableRooms(id, checkIn, checkOut);
+            KeysetSlice<Room> availableRooms = roomRepository.findSlice(
+                    RoomPredicates.availableRoom(id, availableRoomIds), cursor, pageable);
+            addKeysetAttributes(model, availableRooms, request.getRequest());
+            model.addAttribute("rooms", availableRooms);
+            model.addAttribute("hotel", hotel);
+            model.addAttribute("checkInDate", checkIn);
+            model.addAttribute("checkOutDate", checkOut);
+            return "/hotel/rooms";
+        });
+    }
+
+    /**
+     * Hotel listings only change with the catalogue, not with bookings, so the version alone is a strong
+     * {@code ETag} for any url. The
+     * check runs before any query, a matching {@code If-None-Match} is answered with {@code 304} and no rendering.
+     */
+    private boolean catalogueNotModified(ServletWebRequest request) {
+        return checkNotModified(request, "c" + catalogueVersion.get(), catalogueVersion.lastModified());
+    }
+
+    /**
+     * Room availability also changes with bookings and moves on at midnight since past nights are never free and the
+     * default stay is tonight.
+     */
+    private boolean availabilityNotModified(ServletWebRequest request, LocalDate today) {
+        long midnight = today.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long lastModified = Math.max(catalogueVersion.lastModified(), availabilityVersion.lastModified());
+        return checkNotModified(request, "c" + catalogueVersion.get() + "-a" + availabilityVersion.get() + "-" + today,
+                Math.max(lastModified, midnight));
+    }
+
+    /**
+     * {@code no-cache} lets browsers keep the page but makes them revalidate on every visit.
+     */
+    private static boolean checkNotModified(ServletWebRequest request, String etag, long lastModified) {
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        return request.checkNotModified(etag, lastModified);
+    }
+
+    /**
+     * Each value links to the same search with that value chosen or no longer chosen, back on the first page. Values
+     * matching no hotel are left out unless chosen.
+     */
+    private static void addFacetAttributes(Model model, FacetCounts counts, FacetFilter facets,
+                                           HttpServletRequest request) {
+        List<FacetGroup> groups = new ArrayList<>();
+        for (Facet facet : Facet.values()) {
+            List<FacetGroup.Option> options = new ArrayList<>();
+            counts.get(facet).forEach((value, count) -> {
+                boolean selected = facets.isSelected(facet, value);
+                if (count > 0 || selected) {
+                    options.add(new FacetGroup.Option(facet.valueLabel(value), count, selected,
+                            facetUrl(request, facet, facets.toggledParamValues(facet, value))));
+                }
+            });
+            if (!options.isEmpty()) {
+                groups.add(new FacetGroup(facet, options));
+            }
+        }
+        model.addAttribute("facets", groups);
+    }
+
+    private static String facetUrl(HttpServletRequest request, Facet facet, Collection<String> values) {
+        ServletUriComponentsBuilder builder = ServletUriComponentsBuilder.fromRequest(request);
+        builder.replaceQueryParam(facet.getParam(), values.toArray()).replaceQueryParam("page");
+        if (request.getParameter("cursor") != null) {
+            builder.replaceQueryParam("cursor", "");
+        }
+        return builder.toUriString();
+    }
+
+    /**
+     * The templates switch to a next only footer when {@code keyset} is set since a slice has no total. The request
+     * is passed in as the handler may be running off the request thread.
+     */
+    private static void addKeysetAttributes(Model model, KeysetSlice<?> slice, HttpServletRequest request) {
+        model.addAttribute("keyset", true);
+        model.addAttribute("nextUrl", slice.hasNext()
+                ? ServletUriComponentsBuilder.fromRequest(request)
+                .replaceQueryParam("cursor", slice.getNextCursor())
+                .replaceQueryParam("page")
+                .toUriString()
+                : null);
     }
 
 
@@ -55,9 +343,13 @@ public class HotelSearchController {
 
     // TODO: for testing
     @GetMapping(value = "/hotels")
-    public String getHotels(Pageable pageable, Model model) {
-        Page<Hotel> results = hotelRepository.findAll(pageable);
-        model.addAttribute("hotels", results);
-        return "/hotel/hotels";
+    public WebAsyncTask<String> getHotels(Pageable pageable, Model model, ServletWebRequest request) {
+        if (catalogueNotModified(request)) {
+            return null;
+        }
+        return searchExecution.task(() -> {
+            model.addAttribute("hotels", hotelRepository.findAll(pageable));
+            return "/hotel/hotels";
+        });
     }
 }
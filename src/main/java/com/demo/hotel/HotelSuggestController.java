@@ -0,0 +1,37 @@
+package com.demo.hotel;
+
+import com.demo.suggest.Suggestion;
+import com.demo.suggest.SuggestionIndex;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+
+/**
+ * Typeahead for the hotel search box, answered from the {@link SuggestionIndex} on every key stroke.
+ */
+@Controller
+public class HotelSuggestController {
+
+    static final int MAX_LIMIT = 20;
+
+    private final SuggestionIndex suggestionIndex;
+
+    public HotelSuggestController(SuggestionIndex suggestionIndex) {
+        this.suggestionIndex = suggestionIndex;
+    }
+
+    /**
+     * @param query Start of any word of a suburb or hotel name, or of a postcode.
+     * @param limit At most {@value #MAX_LIMIT}.
+     */
+    @GetMapping(value = "/hotel/suggest", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    @ResponseBody
+    public List<Suggestion> suggest(@RequestParam(value = "q", required = false) String query,
+                                    @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return suggestionIndex.suggest(query, Math.min(limit, MAX_LIMIT));
+    }
+}
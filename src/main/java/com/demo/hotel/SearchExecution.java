@@ -0,0 +1,25 @@
+package com.demo.hotel;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Wraps the queries of the hotel search and room availability handlers in a {@link WebAsyncTask} with the search
+ * executor and timeout, other async handlers keep the MVC defaults. See {@link SearchExecutionConfiguration}.
+ */
+public class SearchExecution {
+
+    private final AsyncTaskExecutor executor;
+    private final long timeoutMillis;
+
+    public SearchExecution(AsyncTaskExecutor executor, long timeoutMillis) {
+        this.executor = executor;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public <T> WebAsyncTask<T> task(Callable<T> callable) {
+        return new WebAsyncTask<>(timeoutMillis, executor, callable);
+    }
+}
@@ -0,0 +1,59 @@
+package com.demo.hotel;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Chooses where the hotel search and room availability handlers run their queries.
+ *
+ * <p>The handlers return a {@code WebAsyncTask} from {@link SearchExecution} once the conditional request check has
+ * passed, the executor and timeout apply to these handlers only. With {@code hotel.search.execution=container}, the
+ * default, the task is called on the servlet container thread before the handler returns. The request is still
+ * started in async mode and the page is rendered on an async dispatch, the thread is just never released. With
+ * {@code offload} it is called on a bounded {@code hotel-search-} pool and the container thread goes back to serve
+ * other requests while the database is slow, the page is rendered once the queries are done.</p>
+ *
+ * <p>A pool larger than the connection pool only moves the wait from the executor queue to
+ * {@code hikaricp.connections.pending}. Both are published as metrics, the pool under
+ * {@code hotel.search.executor}. Requests still queued after {@code hotel.search.timeout-millis} get a 503.</p>
+ */
+@Configuration
+public class SearchExecutionConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "hotel.search.execution", havingValue = "offload")
+    public ThreadPoolTaskExecutor hotelSearchExecutor(
+            @Value("${hotel.search.offload.pool-size:10}") int poolSize,
+            @Value("${hotel.search.offload.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("hotel-search-");
+        return executor;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "hotel.search.execution", havingValue = "offload")
+    public MeterBinder hotelSearchExecutorMetrics(ThreadPoolTaskExecutor hotelSearchExecutor) {
+        return registry -> new ExecutorServiceMetrics(hotelSearchExecutor.getThreadPoolExecutor(),
+                "hotel.search.executor", Tags.empty()).bindTo(registry);
+    }
+
+    @Bean
+    public SearchExecution searchExecution(ObjectProvider<ThreadPoolTaskExecutor> hotelSearchExecutor,
+                                           @Value("${hotel.search.timeout-millis:10000}") long timeoutMillis) {
+        return new SearchExecution(
+                hotelSearchExecutor.getIfAvailable(() -> new TaskExecutorAdapter(new SyncTaskExecutor())),
+                timeoutMillis);
+    }
+}
@@ -0,0 +1,212 @@
+package com.demo.journal;
+
+import com.demo.domain.CompletedPayment;
+import com.demo.domain.PaymentRequest;
+import com.demo.domain.Reservation;
+import com.demo.domain.pricing.Money;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * An entry of the {@link BookingJournal}. Events are never changed once written, a later event for the same
+ * reservation supersedes what an earlier one said.
+ */
+public final class BookingEvent {
+
+    public enum Type {
+        Booked, PaymentAccepted, PaymentDeclined
+    }
+
+    /**
+     * The encoded size of every event, the journal frames each one with its sequence number and a checksum.
+     */
+    static final int SIZE = 1 + Long.BYTES * 10;
+
+    private static final long NO_ID = 0;
+
+    private final long sequence;
+    private final Type type;
+    private final long timestampMillis;
+    private final UUID reservationId;
+    private final Long roomId;
+    private final Long hotelId;
+    private final LocalDate checkInDate;
+    private final LocalDate checkOutDate;
+    private final long totalCents;
+    private final UUID transactionId;
+
+    /**
+     * @param sequence Assigned by the journal, {@code -1} for an event that has not been appended.
+     */
+    public BookingEvent(long sequence, Type type, long timestampMillis, UUID reservationId, Long roomId,
+                        Long hotelId, LocalDate checkInDate, LocalDate checkOutDate, long totalCents,
+                        UUID transactionId) {
+        this.sequence = sequence;
+        this.type = Objects.requireNonNull(type);
+        this.timestampMillis = timestampMillis;
+        this.reservationId = Objects.requireNonNull(reservationId);
+        this.roomId = roomId;
+        this.hotelId = hotelId;
+        this.checkInDate = Objects.requireNonNull(checkInDate);
+        this.checkOutDate = Objects.requireNonNull(checkOutDate);
+        this.totalCents = totalCents;
+        this.transactionId = Objects.requireNonNull(transactionId);
+    }
+
+    /**
+     * The reservation must have been paid for.
+     */
+    public static BookingEvent booked(Reservation reservation, long timestampMillis) {
+        CompletedPayment payment = Objects.requireNonNull(reservation.getCompletedPayment(), "Not paid for");
+        return new BookingEvent(-1, Type.Booked, timestampMillis, reservation.getReservationId(),
+                reservation.getRoom().getId(),
+                reservation.getRoom().getHotel() == null ? null : reservation.getRoom().getHotel().getId(),
+                reservation.getDates().getCheckInDate(), reservation.getDates().getCheckOutDate(),
+                Money.toCents(reservation.getTotalCostIncludingTax()), payment.getTransactionId());
+    }
+
+    /**
+     * The booking of a payment request, for a booking that could not be journalled when it was made.
+     */
+    public static BookingEvent booked(PaymentRequest request, long timestampMillis) {
+        return of(Type.Booked, request, timestampMillis);
+    }
+
+    /**
+     * The gateway's answer to a payment request, a declined payment cancels the booking.
+     */
+    public static BookingEvent paymentProcessed(PaymentRequest request, long timestampMillis) {
+        Type type;
+        switch (request.getStatus()) {
+            case Accepted:
+                type = Type.PaymentAccepted;
+                break;
+            case Declined:
+                type = Type.PaymentDeclined;
+                break;
+            default:
+                throw new IllegalArgumentException("Payment not processed " + request);
+        }
+        return of(type, request, timestampMillis);
+    }
+
+    private static BookingEvent of(Type type, PaymentRequest request, long timestampMillis) {
+        return new BookingEvent(-1, type, timestampMillis, request.getReservationId(), request.getRoomId(),
+                request.getHotelId(), request.getCheckInDate(), request.getCheckOutDate(),
+                Money.toCents(request.getAmount()), request.getTransactionId());
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        buffer.put((byte) type.ordinal());
+        buffer.putLong(timestampMillis);
+        buffer.putLong(reservationId.getMostSignificantBits());
+        buffer.putLong(reservationId.getLeastSignificantBits());
+        buffer.putLong(roomId == null ? NO_ID : roomId);
+        buffer.putLong(hotelId == null ? NO_ID : hotelId);
+        buffer.putLong(checkInDate.toEpochDay());
+        buffer.putLong(checkOutDate.toEpochDay());
+        buffer.putLong(totalCents);
+        buffer.putLong(transactionId.getMostSignificantBits());
+        buffer.putLong(transactionId.getLeastSignificantBits());
+    }
+
+    static BookingEvent readFrom(long sequence, ByteBuffer buffer) {
+        Type type = Type.values()[buffer.get()];
+        long timestampMillis = buffer.getLong();
+        UUID reservationId = new UUID(buffer.getLong(), buffer.getLong());
+        long roomId = buffer.getLong();
+        long hotelId = buffer.getLong();
+        LocalDate checkInDate = LocalDate.ofEpochDay(buffer.getLong());
+        LocalDate checkOutDate = LocalDate.ofEpochDay(buffer.getLong());
+        long totalCents = buffer.getLong();
+        UUID transactionId = new UUID(buffer.getLong(), buffer.getLong());
+        return new BookingEvent(sequence, type, timestampMillis, reservationId,
+                roomId == NO_ID ? null : roomId, hotelId == NO_ID ? null : hotelId,
+                checkInDate, checkOutDate, totalCents, transactionId);
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public UUID getReservationId() {
+        return reservationId;
+    }
+
+    public Long getRoomId() {
+        return roomId;
+    }
+
+    public Long getHotelId() {
+        return hotelId;
+    }
+
+    public LocalDate getCheckInDate() {
+        return checkInDate;
+    }
+
+    public LocalDate getCheckOutDate() {
+        return checkOutDate;
+    }
+
+    public BigDecimal getTotal() {
+        return Money.toDecimal(totalCents);
+    }
+
+    public UUID getTransactionId() {
+        return transactionId;
+    }
+
+    /**
+     * Equal events say the same thing, wherever they are in the journal.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BookingEvent that = (BookingEvent) o;
+        return timestampMillis == that.timestampMillis &&
+                totalCents == that.totalCents &&
+                type == that.type &&
+                Objects.equals(reservationId, that.reservationId) &&
+                Objects.equals(roomId, that.roomId) &&
+                Objects.equals(hotelId, that.hotelId) &&
+                Objects.equals(checkInDate, that.checkInDate) &&
+                Objects.equals(checkOutDate, that.checkOutDate) &&
+                Objects.equals(transactionId, that.transactionId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, timestampMillis, reservationId, roomId, hotelId, checkInDate, checkOutDate,
+                totalCents, transactionId);
+    }
+
+    @Override
+    public String toString() {
+        return "BookingEvent{" +
+                "sequence=" + sequence +
+                ", type=" + type +
+                ", timestampMillis=" + timestampMillis +
+                ", reservationId=" + reservationId +
+                ", roomId=" + roomId +
+                ", hotelId=" + hotelId +
+                ", checkInDate=" + checkInDate +
+                ", checkOutDate=" + checkOutDate +
+                ", total=" + getTotal() +
+                ", transactionId=" + transactionId +
+                '}';
+    }
+}
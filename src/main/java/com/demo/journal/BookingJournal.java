@@ -0,0 +1,344 @@
+package com.demo.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append only record of booking events kept in memory mapped segment files, so replaying or auditing bookings and
+ * feeding other systems adds no load to the database.
+ *
+ * <p>Each segment is a file of {@code segmentSize} bytes named after the sequence number of its first event. An
+ * event is framed by its length and a CRC32 of the sequence number and the event, a zero length marks where writing
+ * stopped. When an event does not fit the segment is forced to disk and the next one started.</p>
+ *
+ * <p>{@link #append} copies the event into the mapped segment under a lock and then waits until it is on disk. The
+ * first waiter forces the segment while the others wait for it, a force covers everything written before it started,
+ * so concurrent bookings share one fsync rather than each paying for their own.</p>
+ *
+ * <p>Opening the journal scans the last segment for the end of the valid events. A torn frame left by a crash and
+ * anything after it is zeroed so it cannot be mistaken for an event later.</p>
+ *
+ * <p>Only one journal may write to a directory. It holds a lock on {@value #LOCK_FILE} in the directory until it is
+ * closed, opening a directory another process or journal holds fails rather than interleaving frames in the same
+ * segment.</p>
+ */
+public class BookingJournal implements Closeable {
+
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    static final String LOCK_FILE = "journal.lock";
+
+    /**
+     * The length and checksum before each frame body.
+     */
+    static final int FRAME_HEADER = Integer.BYTES * 2;
+
+    private static final int FRAME_BODY = Long.BYTES + BookingEvent.SIZE;
+
+    private final Path directory;
+    private final int segmentSize;
+
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ByteBuffer body = ByteBuffer.allocate(FRAME_BODY);
+    private final CRC32 crc = new CRC32();
+
+    // Guarded by writeLock.
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long nextSequence;
+
+    private final Object flushMonitor = new Object();
+
+    // Guarded by flushMonitor.
+    private long durableSequence;
+    private boolean flushing;
+
+    /**
+     * @param segmentSize Bytes preallocated for each segment file.
+     * @throws IOException Also when the directory is locked by another journal.
+     */
+    public BookingJournal(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < FRAME_HEADER + FRAME_BODY) {
+            throw new IllegalArgumentException("Segment size " + segmentSize + " cannot hold an event");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        Files.createDirectories(directory);
+        lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        try {
+            lock = lock(lockChannel, directory);
+            List<Path> segments = segments(directory);
+            if (segments.isEmpty()) {
+                openSegment(1);
+            } else {
+                recover(segments.get(segments.size() - 1));
+            }
+        } catch (IOException | RuntimeException e) {
+            // Releases the lock too.
+            lockChannel.close();
+            throw e;
+        }
+        durableSequence = nextSequence - 1;
+    }
+
+    /**
+     * Writes the event and waits until it is on disk.
+     *
+     * @return The sequence number of the event, consecutive from 1 across every segment.
+     * @throws UncheckedIOException The event could not be forced to disk, it may still be read back.
+     */
+    public long append(BookingEvent event) {
+        long sequence;
+        writeLock.lock();
+        try {
+            if (channel == null) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            if (segment.remaining() < FRAME_HEADER + FRAME_BODY) {
+                roll();
+            }
+            sequence = nextSequence;
+
+            body.clear();
+            body.putLong(sequence);
+            event.writeTo(body);
+            body.flip();
+            crc.reset();
+            crc.update(body);
+            body.rewind();
+
+            segment.putInt(FRAME_BODY);
+            segment.putInt((int) crc.getValue());
+            segment.put(body);
+            nextSequence++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(sequence);
+        return sequence;
+    }
+
+    /**
+     * @return The sequence number the next event will get.
+     */
+    public long getNextSequence() {
+        writeLock.lock();
+        try {
+            return nextSequence;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Opens a reader of this journal's directory, see {@link BookingJournalReader}.
+     */
+    public BookingJournalReader openReader(long fromSequence) throws IOException {
+        return new BookingJournalReader(directory, fromSequence);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            if (channel != null) {
+                segment.force();
+                markDurable(nextSequence - 1);
+                channel.close();
+                channel = null;
+                segment = null;
+                lock.release();
+                lockChannel.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static FileLock lock(FileChannel lockChannel, Path directory) throws IOException {
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Held by another journal in this JVM.
+            lock = null;
+        }
+        if (lock == null) {
+            throw new IOException("Journal directory " + directory.toAbsolutePath() + " is in use by another journal");
+        }
+        return lock;
+    }
+
+    private void awaitDurable(long sequence) {
+        synchronized (flushMonitor) {
+            while (durableSequence < sequence && flushing) {
+                try {
+                    flushMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new InterruptedIOException("Interrupted waiting for the journal"));
+                }
+            }
+            if (durableSequence >= sequence) {
+                return;
+            }
+            flushing = true;
+        }
+
+        long flushedTo = -1;
+        boolean forced = false;
+        try {
+            MappedByteBuffer current;
+            writeLock.lock();
+            try {
+                flushedTo = nextSequence - 1;
+                current = segment;
+            } finally {
+                writeLock.unlock();
+            }
+            if (current != null) {
+                current.force();
+            }
+            forced = true;
+        } finally {
+            synchronized (flushMonitor) {
+                if (forced && flushedTo > durableSequence) {
+                    durableSequence = flushedTo;
+                }
+                flushing = false;
+                flushMonitor.notifyAll();
+            }
+        }
+    }
+
+    private void markDurable(long sequence) {
+        synchronized (flushMonitor) {
+            if (sequence > durableSequence) {
+                durableSequence = sequence;
+                flushMonitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Every event of the current segment is forced before the next segment exists, a reader that finds the next
+     * segment has seen all there is of this one.
+     */
+    private void roll() throws IOException {
+        segment.force();
+        markDurable(nextSequence - 1);
+        channel.close();
+        openSegment(nextSequence);
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        channel = FileChannel.open(segmentPath(directory, firstSequence),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        nextSequence = firstSequence;
+    }
+
+    private void recover(Path last) throws IOException {
+        channel = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, channel.size()));
+        nextSequence = firstSequence(last);
+
+        ByteBuffer frame = segment.duplicate();
+        while (true) {
+            int start = frame.position();
+            BookingEvent event = readFrame(frame, crc);
+            if (event == null || event.getSequence() != nextSequence) {
+                segment.position(start);
+                break;
+            }
+            nextSequence++;
+        }
+
+        ByteBuffer tail = segment.duplicate();
+        boolean dirty = false;
+        while (tail.hasRemaining() && !dirty) {
+            dirty = tail.get() != 0;
+        }
+        if (dirty) {
+            tail = segment.duplicate();
+            while (tail.hasRemaining()) {
+                tail.put((byte) 0);
+            }
+            segment.force();
+        }
+    }
+
+    /**
+     * Reads the frame at the buffer's position and moves past it.
+     *
+     * @return {@code null} at the end of the events written so far, the position is then undefined.
+     */
+    static BookingEvent readFrame(ByteBuffer buffer, CRC32 crc) {
+        if (buffer.remaining() < FRAME_HEADER) {
+            return null;
+        }
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (length < FRAME_BODY || length > buffer.remaining()) {
+            return null;
+        }
+        ByteBuffer frameBody = buffer.slice();
+        frameBody.limit(length);
+        crc.reset();
+        crc.update(frameBody);
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+        frameBody.rewind();
+        long sequence = frameBody.getLong();
+        BookingEvent event = BookingEvent.readFrom(sequence, frameBody);
+        buffer.position(buffer.position() + length);
+        return event;
+    }
+
+    static Path segmentPath(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX));
+    }
+
+    static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * @return The segment files in sequence order.
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.demo.journal;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Opens the {@link BookingJournal} under {@code booking.journal.directory}, it is closed with the application
+ * context. Startup fails if another application already has the directory open.
+ */
+@Configuration
+public class BookingJournalConfiguration {
+
+    @Bean
+    public BookingJournal bookingJournal(
+            @Value("${booking.journal.directory:data/booking-journal}") String directory,
+            @Value("${booking.journal.segment-size-bytes:67108864}") int segmentSize) throws IOException {
+        return new BookingJournal(Paths.get(directory), segmentSize);
+    }
+}
@@ -0,0 +1,147 @@
+package com.demo.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Reads the {@link BookingJournal} in sequence order, either to replay it from the start or to tail it as bookings
+ * are made. Segments are mapped read only so any number of readers, in this or another process, can follow the
+ * writer without locking it.
+ *
+ * <p>Each {@link #poll} returns the events written since the previous one. An empty result means the reader has
+ * caught up, polling again later picks up where it stopped, moving on to the next segment once the writer has
+ * started it.</p>
+ */
+public class BookingJournalReader implements Closeable {
+
+    private final Path directory;
+    private final long fromSequence;
+    private final CRC32 crc = new CRC32();
+
+    private long segmentFirstSequence = -1;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long nextSequence;
+
+    /**
+     * @param fromSequence Events before this sequence number are skipped, {@code 1} to replay everything.
+     */
+    public BookingJournalReader(Path directory, long fromSequence) {
+        this.directory = directory;
+        this.fromSequence = fromSequence;
+    }
+
+    /**
+     * @return Up to {@code maxEvents} events in sequence order, empty when there is nothing new.
+     */
+    public List<BookingEvent> poll(int maxEvents) throws IOException {
+        List<BookingEvent> events = new ArrayList<>();
+        if (segment == null && !openSegment(startSegment())) {
+            return events;
+        }
+        while (events.size() < maxEvents) {
+            BookingEvent event = next();
+            if (event == null && remapIfGrown()) {
+                event = next();
+            }
+            if (event == null) {
+                // The writer forces a segment before starting the next, so once the next exists nothing more can
+                // appear in this one. Look once more in case the last events landed after the read above.
+                Path following = followingSegment();
+                if (following == null) {
+                    break;
+                }
+                event = next();
+                if (event == null) {
+                    openSegment(following);
+                    continue;
+                }
+            }
+            if (event.getSequence() >= fromSequence) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * @return The sequence number of the next event to be read.
+     */
+    public long getNextSequence() {
+        return Math.max(nextSequence, fromSequence);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            segment = null;
+        }
+    }
+
+    private BookingEvent next() {
+        int start = segment.position();
+        BookingEvent event = BookingJournal.readFrame(segment, crc);
+        if (event == null || event.getSequence() != nextSequence) {
+            segment.position(start);
+            return null;
+        }
+        nextSequence++;
+        return event;
+    }
+
+    /**
+     * @return The last segment starting at or before {@code fromSequence}, otherwise the first segment.
+     */
+    private Path startSegment() throws IOException {
+        Path start = null;
+        for (Path path : BookingJournal.segments(directory)) {
+            if (start == null || BookingJournal.firstSequence(path) <= fromSequence) {
+                start = path;
+            }
+        }
+        return start;
+    }
+
+    private Path followingSegment() throws IOException {
+        for (Path path : BookingJournal.segments(directory)) {
+            if (BookingJournal.firstSequence(path) > segmentFirstSequence) {
+                return path;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A segment found the moment the writer created it may have been mapped before the writer sized it.
+     */
+    private boolean remapIfGrown() throws IOException {
+        if (channel.size() <= segment.capacity()) {
+            return false;
+        }
+        int position = segment.position();
+        segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        segment.position(position);
+        return true;
+    }
+
+    private boolean openSegment(Path path) throws IOException {
+        if (path == null) {
+            return false;
+        }
+        close();
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        segmentFirstSequence = BookingJournal.firstSequence(path);
+        nextSequence = segmentFirstSequence;
+        return true;
+    }
+}
@@ -0,0 +1,42 @@
+package com.demo.payment;
+
+import com.demo.domain.PaymentRequest;
+import com.demo.domain.PaymentStatus;
+import com.demo.domain.PendingPayment;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * The payment vendor. Only {@link #tokenize} is called on a request thread, while the card number is at hand, charges
+ * are made later from the {@link PaymentProcessor} pool with the token it returned.
+ */
+public interface PaymentGateway {
+
+    /**
+     * Exchanges the card for the vendor's reference to it, which is kept on the {@code PaymentRequest} instead of
+     * the card number.
+     *
+     * @throws RuntimeException The vendor could not be reached or refused the card, the payment page shows an error.
+     */
+    String tokenize(PendingPayment payment);
+
+    /**
+     * Charges {@link PaymentRequest#getPaymentToken()} the request's amount.
+     *
+     * <p>The same request may be charged again after a failure or a restart, implementations pass
+     * {@link PaymentRequest#getTransactionId()} as the vendor's idempotency key so it is only taken once.</p>
+     *
+     * @return {@code Accepted} or {@code Declined}.
+     * @throws RuntimeException The vendor could not be reached or did not answer, the charge is tried again later.
+     */
+    PaymentStatus charge(PaymentRequest request);
+
+    /**
+     * Asks what became of a charge that was never answered.
+     *
+     * @return {@code Accepted} or {@code Declined}, empty if the vendor has no outcome for the transaction.
+     * @throws RuntimeException The vendor could not be reached, it is asked again later.
+     */
+    Optional<PaymentStatus> findOutcome(UUID transactionId);
+}
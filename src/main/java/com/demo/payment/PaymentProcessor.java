@@ -0,0 +1,299 @@
+package com.demo.payment;
+
+import com.demo.TimeProvider;
+import com.demo.availability.AvailabilityIndex;
+import com.demo.domain.PaymentRequest;
+import com.demo.domain.PaymentStatus;
+import com.demo.journal.BookingEvent;
+import com.demo.journal.BookingJournal;
+import com.demo.reservation.ReservationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Charges the {@code PaymentRequest}s written by {@code ReservationRepository.book} on a bounded {@code payment-}
+ * pool, so the payment page returns once the booking has committed rather than once the vendor has answered.
+ *
+ * <p>A booking is submitted straight after it commits. Requests that could not be queued, or were left pending by a
+ * failure or a restart, are picked up by {@link #dispatch} from the outbox table. The gateway is called outside any
+ * transaction, its answer is then recorded in a short one with the pending check repeated, so of two processors that
+ * raced for the same request only one records and journals the outcome.</p>
+ *
+ * <p>A declined payment cancels the booking: the reservation is deleted in the transaction that records the outcome
+ * and its nights are given back to the {@code AvailabilityIndex} after it commits. Only a {@code Declined} answer
+ * does that. After {@code payment.max-attempts} charges without an answer the card may still have been charged, the
+ * request is marked {@code Unknown} and {@link #reconcile} asks the gateway for its outcome by transaction id until
+ * there is one. A request the gateway has no outcome for stays {@code Unknown} for manual review.</p>
+ */
+@Component
+public class PaymentProcessor implements MeterBinder, DisposableBean {
+
+    private final PaymentRequestRepository paymentRequestRepository;
+    private final ReservationRepository reservationRepository;
+    private final PaymentGateway paymentGateway;
+    private final AvailabilityIndex availabilityIndex;
+    private final BookingJournal bookingJournal;
+    private final TransactionTemplate transactionTemplate;
+    private final TimeProvider timeProvider;
+    private final int maxAttempts;
+    private final int batchSize;
+
+    private final ThreadPoolExecutor executor;
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+    // One future per waiting request, removed once completed or cancelled.
+    private final Map<UUID, Set<CompletableFuture<PaymentStatus>>> waiters = new ConcurrentHashMap<>();
+
+    public PaymentProcessor(PaymentRequestRepository paymentRequestRepository,
+                            ReservationRepository reservationRepository,
+                            PaymentGateway paymentGateway,
+                            AvailabilityIndex availabilityIndex,
+                            BookingJournal bookingJournal,
+                            PlatformTransactionManager transactionManager,
+                            TimeProvider timeProvider,
+                            @Value("${payment.processor.pool-size:4}") int poolSize,
+                            @Value("${payment.processor.queue-capacity:100}") int queueCapacity,
+                            @Value("${payment.max-attempts:3}") int maxAttempts,
+                            @Value("${payment.outbox.batch-size:100}") int batchSize) {
+        this.paymentRequestRepository = paymentRequestRepository;
+        this.reservationRepository = reservationRepository;
+        this.paymentGateway = paymentGateway;
+        this.availabilityIndex = availabilityIndex;
+        this.bookingJournal = bookingJournal;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.timeProvider = timeProvider;
+        this.maxAttempts = maxAttempts;
+        this.batchSize = batchSize;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("payment-"));
+    }
+
+    /**
+     * Queues the reservation's payment to be charged. Nothing is lost when the pool is full, the request stays
+     * pending in the outbox until {@link #dispatch} gets to it.
+     */
+    public void submit(UUID reservationId) {
+        if (!inFlight.add(reservationId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    process(reservationId);
+                } catch (RuntimeException e) {
+                    // Still pending, the next dispatch tries again.
+                } finally {
+                    inFlight.remove(reservationId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(reservationId);
+        }
+    }
+
+    /**
+     * Submits the oldest pending requests that are not already queued or being charged.
+     */
+    @Scheduled(fixedDelayString = "${payment.outbox.poll-interval-millis:1000}")
+    public void dispatch() {
+        submitOldest(PaymentStatus.Pending);
+    }
+
+    /**
+     * Submits the oldest requests whose charge was never answered, to ask the gateway what became of them.
+     */
+    @Scheduled(fixedDelayString = "${payment.reconcile.interval-millis:60000}")
+    public void reconcile() {
+        submitOldest(PaymentStatus.Unknown);
+    }
+
+    private void submitOldest(PaymentStatus status) {
+        int free = executor.getQueue().remainingCapacity();
+        if (free == 0) {
+            return;
+        }
+        for (UUID reservationId : paymentRequestRepository.findReservationIdsByStatus(status,
+                PageRequest.of(0, Math.min(free, batchSize)))) {
+            submit(reservationId);
+        }
+    }
+
+    /**
+     * Marks a committed booking that could not be journalled when it was made. It is journalled from its payment
+     * request before the payment is processed, so its events stay in order.
+     *
+     * @return {@code false} if the mark could not be saved either, the booking is then not journalled.
+     */
+    public boolean journalBookingLater(UUID reservationId) {
+        try {
+            transactionTemplate.execute(status -> {
+                paymentRequestRepository.findByReservationId(reservationId).ifPresent(request -> {
+                    request.setJournalPending(true);
+                    paymentRequestRepository.save(request);
+                });
+                return null;
+            });
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return Empty if no payment was requested for the reservation.
+     */
+    public Optional<PaymentStatus> getStatus(UUID reservationId) {
+        return paymentRequestRepository.findByReservationId(reservationId).map(PaymentRequest::getStatus);
+    }
+
+    /**
+     * Every call registers a new future. A caller that stops waiting must cancel it so it is forgotten, a payment
+     * that stays {@code Unknown} is never settled to complete it.
+     *
+     * @return Completes with {@code Accepted} or {@code Declined} once the payment has been settled, straight away
+     * if it already has been.
+     */
+    public CompletableFuture<PaymentStatus> awaitOutcome(UUID reservationId) {
+        CompletableFuture<PaymentStatus> outcome = new CompletableFuture<>();
+        waiters.compute(reservationId, (id, waiting) -> {
+            Set<CompletableFuture<PaymentStatus>> added = waiting != null ? waiting : ConcurrentHashMap.newKeySet();
+            added.add(outcome);
+            return added;
+        });
+        outcome.whenComplete((status, e) -> waiters.computeIfPresent(reservationId, (id, waiting) -> {
+            waiting.remove(outcome);
+            return waiting.isEmpty() ? null : waiting;
+        }));
+        // Settled before the future was registered, nothing else would complete it.
+        getStatus(reservationId)
+                .filter(PaymentStatus::isSettled)
+                .ifPresent(status -> notifyOutcome(reservationId, status));
+        return outcome;
+    }
+
+    /**
+     * Charges a pending payment, or asks for the outcome of one that is unknown, and records the answer.
+     */
+    void process(UUID reservationId) {
+        Optional<PaymentRequest> unsettled = paymentRequestRepository.findByReservationId(reservationId)
+                .filter(request -> !request.getStatus().isSettled());
+        if (!unsettled.isPresent()) {
+            return;
+        }
+
+        PaymentRequest request = unsettled.get();
+        if (request.isJournalPending()) {
+            // A failed append leaves the payment for the next dispatch.
+            journalBooking(request);
+        }
+
+        PaymentStatus answer;
+        try {
+            answer = request.isPending()
+                    ? paymentGateway.charge(request)
+                    : paymentGateway.findOutcome(request.getTransactionId()).orElse(null);
+        } catch (RuntimeException e) {
+            answer = null;
+        }
+
+        PaymentStatus gatewayAnswer = answer;
+        PaymentRequest recorded;
+        try {
+            recorded = transactionTemplate.execute(status -> record(reservationId, gatewayAnswer));
+        } catch (OptimisticLockingFailureException e) {
+            // Another processor recorded the outcome first.
+            return;
+        }
+        if (recorded == null || !recorded.getStatus().isSettled()) {
+            return;
+        }
+
+        if (recorded.getStatus() == PaymentStatus.Declined) {
+            availabilityIndex.release(recorded.getRoomId(), recorded.getCheckInDate(), recorded.getCheckOutDate());
+        }
+        bookingJournal.append(BookingEvent.paymentProcessed(recorded, timeProvider.currentTimeMillis()));
+        notifyOutcome(reservationId, recorded.getStatus());
+    }
+
+    private void journalBooking(PaymentRequest request) {
+        bookingJournal.append(BookingEvent.booked(request, timeProvider.currentTimeMillis()));
+        transactionTemplate.execute(status -> {
+            paymentRequestRepository.findByReservationId(request.getReservationId()).ifPresent(journalled -> {
+                journalled.setJournalPending(false);
+                paymentRequestRepository.save(journalled);
+            });
+            return null;
+        });
+    }
+
+    /**
+     * @param answer {@code null} if the gateway failed to answer.
+     * @return The updated request or {@code null} if there was nothing to record.
+     */
+    private PaymentRequest record(UUID reservationId, PaymentStatus answer) {
+        PaymentRequest request = paymentRequestRepository.findByReservationId(reservationId).orElse(null);
+        if (request == null || request.getStatus().isSettled()) {
+            return null;
+        }
+        if (answer == null) {
+            if (!request.isPending()) {
+                return null;
+            }
+            if (request.failedAttempt() >= maxAttempts) {
+                request.markUnknown();
+            }
+            return paymentRequestRepository.save(request);
+        }
+        request.complete(answer, timeProvider.localDateTime());
+        if (answer == PaymentStatus.Declined) {
+            reservationRepository.findByReservationId(reservationId).ifPresent(reservationRepository::delete);
+        }
+        return paymentRequestRepository.save(request);
+    }
+
+    private void notifyOutcome(UUID reservationId, PaymentStatus status) {
+        Set<CompletableFuture<PaymentStatus>> waiting = waiters.remove(reservationId);
+        if (waiting != null) {
+            waiting.forEach(outcome -> outcome.complete(status));
+        }
+    }
+
+    /**
+     * @return The number of reservations with a request waiting for their outcome.
+     */
+    int waitingReservations() {
+        return waiters.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new ExecutorServiceMetrics(executor, "payment.executor", Tags.empty()).bindTo(registry);
+    }
+
+    /**
+     * Payments still queued are left pending and charged after the next start.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.demo.payment;
+
+import com.demo.domain.PaymentRequest;
+import com.demo.domain.PaymentStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface PaymentRequestRepository extends CrudRepository<PaymentRequest, Long> {
+
+    Optional<PaymentRequest> findByReservationId(UUID reservationId);
+
+    /**
+     * Oldest first so a backlog is worked through in the order the bookings were made.
+     */
+    @Query("select p.reservationId from PaymentRequest p where p.status = :status order by p.id")
+    List<UUID> findReservationIdsByStatus(@Param("status") PaymentStatus status, Pageable pageable);
+}
@@ -0,0 +1,67 @@
+package com.demo.payment;
+
+import com.demo.domain.PaymentStatus;
+import com.demo.exceptions.NotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Lets the completed page follow a payment the {@link PaymentProcessor} is still charging.
+ *
+ * <p>With {@code waitMillis} a payment that is not settled yet, {@code Pending} or {@code Unknown}, is long polled:
+ * the request is parked, without holding a container thread, until the outcome is recorded or the wait is over,
+ * when it answers the unchanged status and the page asks again. Each request waits on its own future, which is
+ * cancelled when the request completes, so polling an {@code Unknown} payment does not pile up waiters.</p>
+ */
+@Controller
+public class PaymentStatusController {
+
+    private final PaymentProcessor paymentProcessor;
+    private final long maxWaitMillis;
+
+    public PaymentStatusController(PaymentProcessor paymentProcessor,
+                                   @Value("${payment.status.max-wait-millis:30000}") long maxWaitMillis) {
+        this.paymentProcessor = paymentProcessor;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * @param waitMillis How long to wait for a pending payment, capped at {@code payment.status.max-wait-millis}.
+     *                   The current status is returned straight away by default.
+     */
+    @GetMapping(value = "/payment/{reservationId}/status", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public DeferredResult<Map<String, PaymentStatus>> getPaymentStatus(
+            @PathVariable("reservationId") UUID reservationId,
+            @RequestParam(value = "waitMillis", defaultValue = "0") long waitMillis) throws NotFoundException {
+        PaymentStatus status = paymentProcessor.getStatus(reservationId)
+                .orElseThrow(() -> new NotFoundException("No payment for reservation " + reservationId));
+
+        long wait = Math.min(Math.max(waitMillis, 0), maxWaitMillis);
+        DeferredResult<Map<String, PaymentStatus>> result = new DeferredResult<>(wait, body(status));
+        if (status.isSettled() || wait == 0) {
+            result.setResult(body(status));
+        } else {
+            CompletableFuture<PaymentStatus> outcome = paymentProcessor.awaitOutcome(reservationId);
+            // Stops waiting on a timeout or error as well, nothing is kept for a payment that is never settled.
+            result.onCompletion(() -> outcome.cancel(false));
+            outcome.thenAccept(status -> result.setResult(body(status)));
+        }
+        return result;
+    }
+
+    private static Map<String, PaymentStatus> body(PaymentStatus status) {
+        return Collections.singletonMap("status", status);
+    }
+}
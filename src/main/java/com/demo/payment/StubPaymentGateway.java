@@ -0,0 +1,55 @@
+package com.demo.payment;
+
+import com.demo.domain.PaymentRequest;
+import com.demo.domain.PaymentStatus;
+import com.demo.domain.PendingPayment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Stands in for a real vendor until one is configured with {@code payment.gateway}. Every card is accepted after
+ * {@code payment.gateway.stub.latency-millis} except one ending in {@value #DECLINED_LAST_4_DIGITS}, so both outcomes
+ * can be tried from the payment page. Its tokens are random and stand for nothing, it keeps no record of its cards
+ * or charges, so it has no outcome to look up.
+ */
+@Component
+@ConditionalOnProperty(name = "payment.gateway", havingValue = "stub", matchIfMissing = true)
+public class StubPaymentGateway implements PaymentGateway {
+
+    static final String DECLINED_LAST_4_DIGITS = "0000";
+
+    private final long latencyMillis;
+
+    public StubPaymentGateway(@Value("${payment.gateway.stub.latency-millis:200}") long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public String tokenize(PendingPayment payment) {
+        return "stub_" + UUID.randomUUID();
+    }
+
+    @Override
+    public PaymentStatus charge(PaymentRequest request) {
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted charging " + request.getTransactionId(), e);
+            }
+        }
+        return DECLINED_LAST_4_DIGITS.equals(request.getLast4CreditCardDigits())
+                ? PaymentStatus.Declined
+                : PaymentStatus.Accepted;
+    }
+
+    @Override
+    public Optional<PaymentStatus> findOutcome(UUID transactionId) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,44 @@
+package com.demo.persistance;
+
+import com.demo.domain.QHotel;
+import com.querydsl.core.types.Expression;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Hotel columns that can be streamed with {@link HotelRepositoryCustom#streamColumns}, each with the field name it is
+ * published under.
+ */
+public enum HotelColumn {
+    Id("id", QHotel.hotel.id),
+    Name("name", QHotel.hotel.name),
+    Stars("stars", QHotel.hotel.stars),
+    Email("email", QHotel.hotel.email),
+    Street("street", QHotel.hotel.address.streetLine1),
+    Suburb("suburb", QHotel.hotel.address.suburb),
+    State("state", QHotel.hotel.address.state),
+    Postcode("postcode", QHotel.hotel.address.postcode.value);
+
+    private final String field;
+    private final Expression<?> path;
+
+    HotelColumn(String field, Expression<?> path) {
+        this.field = field;
+        this.path = path;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public Expression<?> getPath() {
+        return path;
+    }
+
+    public static Optional<HotelColumn> byField(String field) {
+        return Arrays.stream(values())
+                .filter(column -> column.field.equals(field))
+                .findFirst();
+    }
+}
@@ -1,43 +1,155 @@
 package com.demo.persistance;
 
 import com.demo.domain.Hotel;
-import com.demo.domain.Room;
+import com.demo.domain.QHotel;
+import com.demo.facet.FacetFilter;
+import com.demo.facet.HotelFacetRow;
+import com.demo.geo.HotelPoint;
+import com.demo.persistance.keyset.KeysetSlice;
+import com.demo.persistance.predicates.HotelPredicates;
+import com.demo.suggest.HotelLocation;
+import com.querydsl.core.types.Predicate;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHint;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
-import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
-public interface HotelRepository extends PagingAndSortingRepository<Hotel, Long>, QuerydslPredicateExecutor<Hotel> {
+public interface HotelRepository extends PagingAndSortingRepository<Hotel, Long>, QuerydslPredicateExecutor<Hotel>,
+        HotelRepositoryCustom {
+
+    /**
+     * Search results are only rendered so the hotels are loaded read only, Hibernate keeps no snapshot of them and
+     * skips them when flushing.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    @QueryHints(value = @QueryHint(name = HINT_READONLY, value = "true"), forCounting = false)
+    Page<Hotel> findAll(Predicate predicate, Pageable pageable);
+
+    @Override
+    @Transactional(readOnly = true)
+    @QueryHints(value = @QueryHint(name = HINT_READONLY, value = "true"), forCounting = false)
+    Page<Hotel> findAll(Pageable pageable);
 
     /**
-     * See HotelPredicates.byLocation to see a query dsl alternative approach.
+     * Finds all hotels by state and suburb and postcode. Any argument can be null in which case it is left out of
+     * the where clause entirely.
      *
-     * Finds all hotels by state and suburb and postcode.
+     * <p>This used to be a single JPQL query using {@code coalesce(:param, upper(column))} for each optional
+     * argument. That form compares every row against itself when an argument is missing and wraps each column in
+     * {@code upper()} so no index could be used. See {@link HotelPredicates#byLocation} for how the predicate is
+     * built.</p>
      *
-     * <p>coalesce simplifies having multiple optional args.</p>
+     * <p>Read only so the page and count queries share a snapshot on the replica, see
+     * {@code ReplicaRoutingDataSource}.</p>
+     */
+    @Transactional(readOnly = true)
+    default Page<Hotel> findAllByLocation(String state, String suburb, String postcode, Pageable pageable) {
+        return findAll(HotelPredicates.byLocation(state, suburb, postcode), pageable);
+    }
+
+    /**
+     * Keyset paginated form of {@link #findAllByLocation(String, String, String, Pageable)} for deep scrolling. The
+     * page number is ignored and no count query is run.
      *
-     * <pre>
-     *     1. Example: state = null
-     *     where upper(h.address.state) = coalesce(null, upper(h.address.state))
-     *     where upper(h.address.state) = upper(h.address.state) // -> row will match itself..
+     * @param cursor The {@code nextCursor} of the previous slice or {@code null} for the first slice.
+     */
+    @Transactional(readOnly = true)
+    default KeysetSlice<Hotel> findAllByLocation(String state, String suburb, String postcode,
+                                                 String cursor, Pageable pageable) {
+        return findSlice(HotelPredicates.byLocation(state, suburb, postcode), cursor, pageable);
+    }
+
+    /**
+     * {@link #findAllByLocation(String, String, String, Pageable)} narrowed to the chosen facet values, see
+     * {@link HotelPredicates#byLocationAndFacets}.
+     */
+    @Transactional(readOnly = true)
+    default Page<Hotel> findAllByLocation(String state, String suburb, String postcode, FacetFilter facets,
+                                          Pageable pageable) {
+        return findAll(HotelPredicates.byLocationAndFacets(state, suburb, postcode, facets), pageable);
+    }
+
+    /**
+     * Keyset paginated form of {@link #findAllByLocation(String, String, String, FacetFilter, Pageable)}.
+     */
+    @Transactional(readOnly = true)
+    default KeysetSlice<Hotel> findAllByLocation(String state, String suburb, String postcode, FacetFilter facets,
+                                                 String cursor, Pageable pageable) {
+        return findSlice(HotelPredicates.byLocationAndFacets(state, suburb, postcode, facets), cursor, pageable);
+    }
+
+    /**
+     * @return The name and location of every hotel.
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.demo.suggest.HotelLocation(h.id, h.name, h.address.state, h.address.suburb, " +
+            "h.address.postcode.value) from Hotel h")
+    List<HotelLocation> findAllLocations();
+
+    /**
+     * @return The coordinates of every hotel that has them.
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.demo.geo.HotelPoint(h.id, h.address.latitude, h.address.longitude) from Hotel h " +
+            "where h.address.latitude is not null and h.address.longitude is not null")
+    List<HotelPoint> findAllPoints();
+
+    /**
+     * @return The stars and location of every hotel.
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.demo.facet.HotelFacetRow(h.id, h.stars, h.address.state, h.address.searchSuburb, " +
+            "h.address.postcode.value) from Hotel h")
+    List<HotelFacetRow> findAllFacetRows();
+
+    /**
+     * Page of the hotels among {@code nearbyIds} that are also in the location and have the chosen facet values,
+     * kept in the order of {@code nearbyIds}. The sort of {@code pageable} is ignored.
+     *
+     * <p>Only the ids are checked against the location, the hotels are then loaded for the requested page alone.</p>
      *
-     *     2. Example: state != null
-     *     where upper(h.address.state) = coalesce(VIC, upper(h.address.state))
-     *     where upper(h.address.state) = VIC // the state will now be used in the query.
-     * </pre>
-     */
-    @Query("select h from Hotel h " +
-            "where upper(h.address.state) = coalesce(upper(:state), upper(h.address.state)) " +
-            "and upper(h.address.suburb) = coalesce(upper(:suburb), upper(h.address.suburb)) " +
-            "and h.address.postcode.value = coalesce(:postcode, h.address.postcode.value)"
-    )
-    Page<Hotel> findAllByLocation(@Param("state") String state,
-                                  @Param("suburb") String suburb,
-                                  @Param("postcode") String postcode,
-                                  Pageable pageable);
+     * @param nearbyIds Found by the {@code HotelGeoIndex}, nearest first.
+     * @param limit     Most hotels to page through, the rest are left out of the total.
+     */
+    @Transactional(readOnly = true)
+    default Page<Hotel> findAllNear(String state, String suburb, String postcode, FacetFilter facets,
+                                    List<Long> nearbyIds, int limit, Pageable pageable) {
+        List<Long> matching = retainMatching(
+                HotelPredicates.byLocationAndFacets(state, suburb, postcode, facets), nearbyIds);
+        if (matching.size() > limit) {
+            matching = matching.subList(0, limit);
+        }
+
+        int from = (int) Math.min(pageable.getOffset(), matching.size());
+        List<Long> pageIds = matching.subList(from, Math.min(from + pageable.getPageSize(), matching.size()));
+        if (pageIds.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, matching.size());
+        }
+
+        Map<Long, Hotel> hotels = StreamSupport
+                .stream(findAll(QHotel.hotel.id.in(pageIds)).spliterator(), false)
+                .collect(Collectors.toMap(Hotel::getId, Function.identity()));
+        List<Hotel> content = pageIds.stream()
+                .map(hotels::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, matching.size());
+    }
 }
@@ -0,0 +1,39 @@
+package com.demo.persistance;
+
+import com.demo.domain.Hotel;
+import com.demo.persistance.keyset.KeysetSlice;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface HotelRepositoryCustom {
+
+    /**
+     * Keyset pagination alternative to {@code findAll(Predicate, Pageable)} that seeks past the cursor instead of
+     * using an offset and does not run a count query.
+     *
+     * <p>Sortable by {@code name}, {@code stars}, {@code address.suburb}, {@code address.state} and
+     * {@code address.postcode}, any other sort property falls back to the hotel id.</p>
+     *
+     * @param cursor The {@code nextCursor} of the previous slice or {@code null} for the first slice.
+     */
+    KeysetSlice<Hotel> findSlice(Predicate predicate, String cursor, Pageable pageable);
+
+    /**
+     * Passes the chosen columns of every hotel matching the predicate to {@code action} in id order, reading from a
+     * forward only cursor in a read only transaction. Rows are never loaded as entities so memory use does not grow
+     * with the number of hotels.
+     *
+     * @param columns Tuple positions follow this order.
+     */
+    void streamColumns(Predicate predicate, List<HotelColumn> columns, Consumer<Tuple> action);
+
+    /**
+     * @return The ids that are of hotels matching the predicate, in the order given. An empty predicate returns
+     * {@code ids} unchanged without a query.
+     */
+    List<Long> retainMatching(Predicate predicate, List<Long> ids);
+}
@@ -0,0 +1,96 @@
+package com.demo.persistance;
+
+import com.demo.domain.Hotel;
+import com.demo.domain.QHotel;
+import com.demo.domain.location.State;
+import com.demo.persistance.keyset.KeysetPagination;
+import com.demo.persistance.keyset.KeysetSlice;
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+public class HotelRepositoryImpl implements HotelRepositoryCustom {
+
+    private static final QHotel hotel = QHotel.hotel;
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    /**
+     * Keeps each {@code in} list well under the bind parameter limits of the databases we run on.
+     */
+    private static final int IN_BATCH_SIZE = 1000;
+
+    /**
+     * Suburb is ordered by the normalized search column since it is indexed.
+     */
+    private static final KeysetPagination<Hotel> KEYSET = new KeysetPagination<>(hotel, hotel.id, Hotel::getId)
+            .column("name", hotel.name, Hotel::getName, String::valueOf)
+            .column("stars", hotel.stars, Hotel::getStars, Integer::valueOf)
+            .column("address.suburb", hotel.address.searchSuburb, h -> h.getAddress().getSearchSuburb(), String::valueOf)
+            .column("address.state", hotel.address.state, h -> h.getAddress().getState(), State::valueOf)
+            .column("address.postcode", hotel.address.postcode.value,
+                    h -> h.getAddress().getPostcode().getValue(), String::valueOf);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetSlice<Hotel> findSlice(Predicate predicate, String cursor, Pageable pageable) {
+        return KEYSET.fetch(entityManager, predicate, cursor, pageable);
+    }
+
+    /**
+     * The Hibernate templates make {@code iterate()} scroll the results rather than list them.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamColumns(Predicate predicate, List<HotelColumn> columns, Consumer<Tuple> action) {
+        Expression<?>[] paths = columns.stream().map(HotelColumn::getPath).toArray(Expression<?>[]::new);
+        JPAQuery<Tuple> query = new JPAQueryFactory(HQLTemplates.DEFAULT, entityManager)
+                .select(paths)
+                .from(hotel)
+                .where(predicate)
+                .orderBy(hotel.id.asc());
+        query.setHint(HINT_FETCH_SIZE, STREAM_FETCH_SIZE);
+
+        try (CloseableIterator<Tuple> rows = query.iterate()) {
+            rows.forEachRemaining(action);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Long> retainMatching(Predicate predicate, List<Long> ids) {
+        if (ExpressionUtils.extract(predicate) == null || ids.isEmpty()) {
+            return ids;
+        }
+        JPAQueryFactory queryFactory = new JPAQueryFactory(entityManager);
+        Set<Long> matching = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += IN_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + IN_BATCH_SIZE, ids.size()));
+            matching.addAll(queryFactory.select(hotel.id)
+                    .from(hotel)
+                    .where(predicate, hotel.id.in(batch))
+                    .fetch());
+        }
+        return ids.stream().filter(matching::contains).collect(Collectors.toList());
+    }
+}
@@ -1,11 +1,68 @@
 package com.demo.persistance;
 
+import com.demo.availability.RoomRef;
 import com.demo.domain.Room;
+import com.demo.facet.RoomFacetRow;
+import com.querydsl.core.types.Predicate;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHint;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
-public interface RoomRepository extends PagingAndSortingRepository<Room, Long>, QuerydslPredicateExecutor<Room> {
+public interface RoomRepository extends PagingAndSortingRepository<Room, Long>, QuerydslPredicateExecutor<Room>,
+        RoomRepositoryCustom {
+
+    String ROOMS_CACHE = "rooms";
+
+    /**
+     * {@code Room.hotel} is lazy but the reservation flow keeps the room in the session and renders its hotel on
+     * later requests, so the hotel is fetched in the same select.
+     *
+     * <p>Cached so every flow for a room shares one detached copy rather than each session holding its own room and
+     * hotel. The copy is read only: it is never merged or saved, bookings reference it by id and lock the room with
+     * a bulk update, so its version may be behind. Its lazy collections are not loaded and must not be touched. The
+     * cache is bounded by {@code spring.cache.caffeine.spec} and a room is evicted once a change to it or its hotel
+     * commits, see {@code CatalogueChangeListener}.</p>
+     */
+    @Override
+    @EntityGraph(attributePaths = "hotel")
+    @Cacheable(cacheNames = ROOMS_CACHE, unless = "#result == null")
+    Optional<Room> findById(Long id);
+
+    /**
+     * Lists the available rooms of a hotel, see {@code RoomPredicates.availableRoom}. The rooms are only rendered so
+     * they are loaded read only in a read only transaction, which also sends the query to the replica.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    @QueryHints(value = @QueryHint(name = HINT_READONLY, value = "true"), forCounting = false)
+    Page<Room> findAll(Predicate predicate, Pageable pageable);
+
+    /**
+     * Used to build the {@code AvailabilityIndex}.
+     *
+     * @return Every room id paired with its hotel id.
+     */
+    @Query("select new com.demo.availability.RoomRef(r.id, r.hotel.id) from Room r")
+    List<RoomRef> findAllRoomRefs();
 
+    /**
+     * Used to build the {@code FacetIndex}.
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.demo.facet.RoomFacetRow(r.hotel.id, r.roomType, r.beds, r.costPerNight) from Room r")
+    List<RoomFacetRow> findAllFacetRows();
 }
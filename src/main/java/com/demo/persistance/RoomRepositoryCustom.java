@@ -0,0 +1,34 @@
+package com.demo.persistance;
+
+import com.demo.availability.HotelAvailability;
+import com.demo.domain.Room;
+import com.demo.persistance.keyset.KeysetSlice;
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface RoomRepositoryCustom {
+
+    /**
+     * Keyset pagination alternative to {@code findAll(Predicate, Pageable)} that seeks past the cursor instead of
+     * using an offset and does not run a count query.
+     *
+     * <p>Sortable by {@code roomNumber}, {@code roomType}, {@code beds} and {@code costPerNight}, any other sort
+     * property falls back to the room id.</p>
+     *
+     * @param cursor The {@code nextCursor} of the previous slice or {@code null} for the first slice.
+     */
+    KeysetSlice<Room> findSlice(Predicate predicate, String cursor, Pageable pageable);
+
+    /**
+     * Groups rooms by hotel, counting them and finding the lowest {@code costPerNight}, in one query per thousand
+     * room ids rather than a room query per hotel.
+     *
+     * @param roomIds The rooms to consider, usually those the {@code AvailabilityIndex} reports as free.
+     * @param minBeds Only rooms with at least this many beds are counted, {@code null} to count every room.
+     * @return Keyed by hotel id, a hotel with no room counted is missing.
+     */
+    Map<Long, HotelAvailability> summarizeByHotel(Collection<Long> roomIds, Integer minBeds);
+}
@@ -0,0 +1,66 @@
+package com.demo.persistance;
+
+import com.demo.availability.HotelAvailability;
+import com.demo.domain.QRoom;
+import com.demo.domain.Room;
+import com.demo.domain.RoomType;
+import com.demo.persistance.keyset.KeysetPagination;
+import com.demo.persistance.keyset.KeysetSlice;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.math.BigDecimal;
+import java.util.*;
+
+public class RoomRepositoryImpl implements RoomRepositoryCustom {
+
+    private static final QRoom room = QRoom.room;
+
+    private static final KeysetPagination<Room> KEYSET = new KeysetPagination<>(room, room.id, Room::getId)
+            .column("roomNumber", room.roomNumber, Room::getRoomNumber, String::valueOf)
+            .column("roomType", room.roomType, Room::getRoomType, RoomType::valueOf)
+            .column("beds", room.beds, Room::getBeds, Integer::valueOf)
+            .column("costPerNight", room.costPerNight, Room::getCostPerNight, BigDecimal::new);
+
+    /**
+     * Keeps each {@code in} list well under the bind parameter limits of the databases we run on.
+     */
+    private static final int IN_BATCH_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetSlice<Room> findSlice(Predicate predicate, String cursor, Pageable pageable) {
+        return KEYSET.fetch(entityManager, predicate, cursor, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, HotelAvailability> summarizeByHotel(Collection<Long> roomIds, Integer minBeds) {
+        JPAQueryFactory queryFactory = new JPAQueryFactory(entityManager);
+        List<Long> ids = new ArrayList<>(roomIds);
+        Map<Long, HotelAvailability> byHotel = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += IN_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + IN_BATCH_SIZE, ids.size()));
+            List<Tuple> rows = queryFactory.select(room.hotel.id, room.count(), room.costPerNight.min())
+                    .from(room)
+                    .where(room.id.in(batch), minBeds == null ? null : room.beds.goe(minBeds))
+                    .groupBy(room.hotel.id)
+                    .fetch();
+            for (Tuple row : rows) {
+                Long hotelId = row.get(0, Long.class);
+                HotelAvailability summary = new HotelAvailability(hotelId, row.get(1, Long.class).intValue(),
+                        row.get(2, BigDecimal.class));
+                byHotel.merge(hotelId, summary, HotelAvailability::merge);
+            }
+        }
+        return byHotel;
+    }
+}
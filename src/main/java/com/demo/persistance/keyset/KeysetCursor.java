@@ -0,0 +1,104 @@
+package com.demo.persistance.keyset;
+
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Opaque token identifying the last row of a keyset page. It carries the sort property and direction the page was
+ * fetched with so a cursor is only honoured while the sort stays the same.
+ *
+ * <p>The encoded form is url safe base64 of {@code property|direction|value|id}. The value may itself contain the
+ * separator so it is everything between the second and last separator.</p>
+ */
+public class KeysetCursor {
+    private static final char SEPARATOR = '|';
+
+    private final String property;
+    private final Sort.Direction direction;
+    private final String value;
+    private final long id;
+
+    public KeysetCursor(String property, Sort.Direction direction, String value, long id) {
+        this.property = property;
+        this.direction = direction;
+        this.value = value;
+        this.id = id;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = property + SEPARATOR + direction.name() + SEPARATOR + value + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return The decoded cursor or empty if the token is blank or malformed.
+     */
+    public static Optional<KeysetCursor> decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int first = raw.indexOf(SEPARATOR);
+            int second = raw.indexOf(SEPARATOR, first + 1);
+            int last = raw.lastIndexOf(SEPARATOR);
+            if (first < 0 || second < 0 || last <= second) {
+                return Optional.empty();
+            }
+            return Optional.of(new KeysetCursor(
+                    raw.substring(0, first),
+                    Sort.Direction.valueOf(raw.substring(first + 1, second)),
+                    raw.substring(second + 1, last),
+                    Long.parseLong(raw.substring(last + 1))));
+        } catch (IllegalArgumentException e) {
+            // covers bad base64, unknown direction and NumberFormatException
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        KeysetCursor that = (KeysetCursor) o;
+        return id == that.id &&
+                Objects.equals(property, that.property) &&
+                direction == that.direction &&
+                Objects.equals(value, that.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(property, direction, value, id);
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor{" +
+                "property='" + property + '\'' +
+                ", direction=" + direction +
+                ", value='" + value + '\'' +
+                ", id=" + id +
+                '}';
+    }
+}
@@ -0,0 +1,144 @@
+package com.demo.persistance.keyset;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.core.types.dsl.EntityPathBase;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+/**
+ * Fetches a {@code KeysetSlice} by seeking past the last row of the previous slice.
+ *
+ * <pre>
+ *     where (sortKey &gt; :lastValue) or (sortKey = :lastValue and id &gt; :lastId)
+ *     order by sortKey, id
+ *     limit :size + 1
+ * </pre>
+ *
+ * <p>Only the first {@code Sort.Order} of the {@code Pageable} that matches a registered column is used, the id is
+ * always appended as a tie breaker so rows sharing a sort value are neither skipped nor repeated. The page number of
+ * the {@code Pageable} is ignored. The extra row fetched decides whether there is a next slice so there is no
+ * count query.</p>
+ *
+ * <p>Slices are only used for listings so the rows are loaded read only, Hibernate keeps no snapshot of them and
+ * never dirty checks them.</p>
+ *
+ * @param <E> The entity type.
+ */
+public class KeysetPagination<E> {
+
+    private static final String ID_PROPERTY = "id";
+
+    private final EntityPathBase<E> root;
+    private final NumberPath<Long> id;
+    private final Function<E, Long> idExtractor;
+    private final Map<String, Column<E>> columns = new HashMap<>();
+
+    public KeysetPagination(EntityPathBase<E> root, NumberPath<Long> id, Function<E, Long> idExtractor) {
+        this.root = root;
+        this.id = id;
+        this.idExtractor = idExtractor;
+    }
+
+    /**
+     * Registers a sortable column.
+     *
+     * @param property  The sort property name as it appears in the {@code sort} request parameter.
+     * @param path      The column to order and seek by.
+     * @param extractor Reads the column value from the last row to build the next cursor.
+     * @param parser    Converts the cursor value back into the column type.
+     */
+    public <T extends Comparable<?>> KeysetPagination<E> column(String property,
+                                                                ComparableExpressionBase<T> path,
+                                                                Function<E, T> extractor,
+                                                                Function<String, T> parser) {
+        columns.put(property, new Column<>(path, extractor::apply, parser::apply));
+        return this;
+    }
+
+    /**
+     * @param cursorToken The token from the previous {@code KeysetSlice}. A blank, malformed token or one created
+     *                    with a different sort starts from the first row.
+     */
+    public KeysetSlice<E> fetch(EntityManager entityManager, Predicate where, String cursorToken, Pageable pageable) {
+        Optional<Sort.Order> order = pageable.getSort().stream()
+                .filter(o -> columns.containsKey(o.getProperty()))
+                .findFirst();
+        String property = order.map(Sort.Order::getProperty).orElse(ID_PROPERTY);
+        Sort.Direction direction = order.map(Sort.Order::getDirection).orElse(Sort.Direction.ASC);
+        Column<E> column = columns.get(property);
+
+        JPAQuery<E> query = new JPAQueryFactory(entityManager).selectFrom(root).where(where);
+        query.setHint(HINT_READONLY, true);
+
+        KeysetCursor.decode(cursorToken)
+                .filter(cursor -> cursor.getProperty().equals(property) && cursor.getDirection() == direction)
+                .map(cursor -> seek(column, direction, cursor))
+                .ifPresent(query::where);
+
+        if (column != null) {
+            query.orderBy(orderBy(column.path, direction));
+        }
+        query.orderBy(orderBy(id, direction));
+
+        int size = pageable.getPageSize();
+        List<E> rows = query.limit(size + 1).fetch();
+
+        if (rows.size() <= size) {
+            return new KeysetSlice<>(rows, pageable, null);
+        }
+
+        List<E> content = rows.subList(0, size);
+        E last = content.get(size - 1);
+        String value = column == null ? "" : String.valueOf(column.extractor.apply(last));
+        String nextCursor = new KeysetCursor(property, direction, value, idExtractor.apply(last)).encode();
+        return new KeysetSlice<>(content, pageable, nextCursor);
+    }
+
+    private Predicate seek(Column<E> column, Sort.Direction direction, KeysetCursor cursor) {
+        Ops comparison = direction.isAscending() ? Ops.GT : Ops.LT;
+        BooleanExpression afterId = Expressions.booleanOperation(comparison, id, Expressions.constant(cursor.getId()));
+        if (column == null) {
+            return afterId;
+        }
+
+        Expression<Object> value = Expressions.constant(column.parser.apply(cursor.getValue()));
+        return Expressions.booleanOperation(comparison, column.path, value)
+                .or(Expressions.booleanOperation(Ops.EQ, column.path, value).and(afterId));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static OrderSpecifier<?> orderBy(ComparableExpressionBase<?> path, Sort.Direction direction) {
+        return new OrderSpecifier(direction.isAscending() ? Order.ASC : Order.DESC, path);
+    }
+
+    private static class Column<E> {
+        private final ComparableExpressionBase<?> path;
+        private final Function<E, Object> extractor;
+        private final Function<String, Object> parser;
+
+        private Column(ComparableExpressionBase<?> path, Function<E, Object> extractor, Function<String, Object> parser) {
+            this.path = path;
+            this.extractor = extractor;
+            this.parser = parser;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.demo.persistance.keyset;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+
+/**
+ * A {@code Slice} fetched by seeking past the previous page rather than by offset. No count query is issued.
+ */
+public class KeysetSlice<T> extends SliceImpl<T> {
+    private final String nextCursor;
+
+    public KeysetSlice(List<T> content, Pageable pageable, String nextCursor) {
+        super(content, pageable, nextCursor != null);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return The token to fetch the following slice or {@code null} if this is the last slice.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -1,8 +1,21 @@
 package com.demo.persistance.predicates;
 
 import com.demo.domain.QHotel;
+import com.demo.domain.QRoom;
+import com.demo.domain.location.Address;
 import com.demo.domain.location.QAddress;
+import com.demo.domain.location.State;
+import com.demo.facet.FacetFilter;
+import com.demo.facet.PriceBand;
+import com.querydsl.core.types.ExpressionUtils;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.JPAExpressions;
+import org.springframework.util.StringUtils;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
 
 public final class HotelPredicates {
 
@@ -11,19 +24,73 @@ public final class HotelPredicates {
     private HotelPredicates() {
     }
 
+    /**
+     * Only the supplied location values are added to the where clause and each one is a plain equality check on an
+     * indexed column. Search terms are normalized in java rather than wrapping the columns in {@code upper()}, which
+     * would stop the database using the indexes declared on {@code Hotel}.
+     *
+     * <p>Blank values are treated as not supplied. A state that is not a valid {@code State} short name matches
+     * nothing.</p>
+     */
     public static Predicate byLocation(String state, String suburb, String postcode) {
+        return location(new WhereClauseBuilder(), state, suburb, postcode);
+    }
+
+    /**
+     * {@link #byLocation} narrowed to the chosen facet values. Each room facet is its own {@code exists} on the
+     * rooms, so a hotel matches with one room of a chosen type and another with a chosen number of beds. This is how
+     * {@code FacetIndex} counts.
+     */
+    public static Predicate byLocationAndFacets(String state, String suburb, String postcode, FacetFilter facets) {
+        WhereClauseBuilder where = location(new WhereClauseBuilder(), state, suburb, postcode);
+        if (facets.isEmpty()) {
+            return where;
+        }
+        QRoom typeRoom = new QRoom("typeRoom");
+        QRoom bedsRoom = new QRoom("bedsRoom");
+        QRoom priceRoom = new QRoom("priceRoom");
+        return where
+                .andNullable(nullIfEmpty(facets.getStars()), () -> hotel.stars.in(facets.getStars()))
+                .andNullable(nullIfEmpty(facets.getRoomTypes()),
+                        () -> hasRoom(typeRoom, typeRoom.roomType.in(facets.getRoomTypes())))
+                .andNullable(nullIfEmpty(facets.getBeds()),
+                        () -> hasRoom(bedsRoom, bedsRoom.beds.in(facets.getBeds())))
+                .andNullable(nullIfEmpty(facets.getPrices()), () -> hasRoom(priceRoom, ExpressionUtils.anyOf(
+                        facets.getPrices().stream()
+                                .map(band -> inBand(priceRoom, band))
+                                .collect(Collectors.toList()))));
+    }
+
+    private static WhereClauseBuilder location(WhereClauseBuilder where, String state, String suburb,
+                                               String postcode) {
         QAddress address = hotel.address;
 
-        /*
-         * This is the same as doing a coalesce except coalesce cannot be used like you think it could be.
-         *
-         * if arg to coalesce is null, an exception is thrown. coalesce will only return its arg if the left hand side
-         * 'this' instance is null so its the wrong way round for what we want to do.
-         * address.state.stringValue().coalesce(state)
-         */
-        return new WhereClauseBuilder()
-                .andNullable(state, () -> address.state.stringValue().equalsIgnoreCase(state))
-                .andNullable(suburb, () -> address.suburb.equalsIgnoreCase(suburb))
-                .andNullable(postcode, () -> address.postcode.value.eq(postcode));
+        String stateTerm = StringUtils.hasText(state) ? state : null;
+        String suburbTerm = StringUtils.hasText(suburb) ? Address.normalize(suburb) : null;
+        String postcodeTerm = StringUtils.hasText(postcode) ? postcode.trim() : null;
+
+        return where
+                .andNullable(stateTerm, () -> State.parse(stateTerm)
+                        .map(address.state::eq)
+                        .orElseGet(Expressions.FALSE::isTrue))
+                .andNullable(suburbTerm, () -> address.searchSuburb.eq(suburbTerm))
+                .andNullable(postcodeTerm, () -> address.postcode.value.eq(postcodeTerm));
+    }
+
+    private static BooleanExpression hasRoom(QRoom room, Predicate condition) {
+        return JPAExpressions.selectOne()
+                .from(room)
+                .where(room.hotel.eq(hotel), condition)
+                .exists();
+    }
+
+    private static Predicate inBand(QRoom room, PriceBand band) {
+        return ExpressionUtils.allOf(
+                band.getMin() == null ? null : room.costPerNight.goe(band.getMin()),
+                band.getMax() == null ? null : room.costPerNight.lt(band.getMax()));
+    }
+
+    private static <T extends Collection<?>> T nullIfEmpty(T values) {
+        return values.isEmpty() ? null : values;
     }
 }
@@ -3,6 +3,8 @@ package com.demo.persistance.predicates;
 import com.demo.domain.QRoom;
 import com.querydsl.core.types.Predicate;
 
+import java.util.Collection;
+
 public final class RoomPredicates {
 
     private static final QRoom room = QRoom.room;
@@ -12,15 +14,17 @@ public final class RoomPredicates {
 
     /**
      * Gets all the available rooms in the hotel identified by the supplied {@code hotelId}.
-     * An available room means it has no {@code Reservation} assigned to it.
+     * Which rooms are free for the requested nights is decided by the {@code AvailabilityIndex}, this predicate
+     * simply restricts the page to those room ids so sorting and paging still happen in the database.
      *
      * <p>The reason the query is done through the {@code Room} and not {@code Hotel} is to get a {@code Page} as
      * there could be many rooms. {@code Hotel} will get ALL the {@code Room}s unpaged.</p>
      *
-     * @param hotelId The hotel id to get available rooms for.
+     * @param hotelId          The hotel id to get available rooms for.
+     * @param availableRoomIds The rooms free for the requested nights. An empty collection matches nothing.
      * @return The {@code Predicate}.
      */
-    public static Predicate availableRoom(Long hotelId) {
-        return room.hotel.id.eq(hotelId).and(room.reservation.isNull());
+    public static Predicate availableRoom(Long hotelId, Collection<Long> availableRoomIds) {
+        return room.hotel.id.eq(hotelId).and(room.id.in(availableRoomIds));
     }
 }
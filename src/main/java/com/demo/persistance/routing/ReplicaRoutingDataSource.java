@@ -0,0 +1,31 @@
+package com.demo.persistance.routing;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends connections for read only transactions to the replica and everything else, including work outside a
+ * transaction such as schema creation, to the primary.
+ *
+ * <p>The transaction is only known to be read only once it has begun, after the JPA provider may already have asked
+ * for a connection, so this must sit behind a {@code LazyConnectionDataSourceProxy}.</p>
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target {
+        Primary, Replica
+    }
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(Target.Primary, primary, Target.Replica, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Target.Replica : Target.Primary;
+    }
+}
@@ -0,0 +1,39 @@
+package com.demo.reservation;
+
+import com.demo.domain.Extra;
+
+import java.beans.PropertyEditorSupport;
+
+/**
+ * Binds the extra ids submitted by the extras and meals checkboxes using the {@code ExtrasService} catalogue rather
+ * than the default repository backed conversion which would run a query per id.
+ *
+ * <p>{@link #getAsText()} renders the id so thymeleaf can tell which checkboxes are already selected.</p>
+ */
+public class ExtraEditor extends PropertyEditorSupport {
+
+    private final ExtrasService extrasService;
+
+    public ExtraEditor(ExtrasService extrasService) {
+        this.extrasService = extrasService;
+    }
+
+    @Override
+    public void setAsText(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            setValue(null);
+            return;
+        }
+        try {
+            setValue(extrasService.getExtraById(Long.valueOf(text.trim())).orElse(null));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid extra id: " + text, e);
+        }
+    }
+
+    @Override
+    public String getAsText() {
+        Extra extra = (Extra) getValue();
+        return extra == null || extra.getId() == null ? "" : extra.getId().toString();
+    }
+}
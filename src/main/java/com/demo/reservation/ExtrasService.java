@@ -1,37 +1,182 @@
 package com.demo.reservation;
 
 import com.demo.domain.Extra;
-import com.demo.domain.MealPlan;
-import com.demo.domain.Reservation;
-import com.demo.domain.RoomType;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Serves the {@code Extra} catalogue from an in memory snapshot so the reservation flow does not query the database
+ * when rendering or binding extras.
+ *
+ * <p>The catalogue is small and rarely changes so the whole table is loaded into an immutable snapshot which is
+ * replaced atomically whenever extras are saved through this service. Readers always see either the old or the new
+ * catalogue, never a partially built one. Extras saved directly through the {@code ExtraRepository} are not seen
+ * until {@link #reload()} is called.</p>
+ *
+ * <p>The cached extras are shared between sessions and must be treated as read only.</p>
+ */
 @Service
 public class ExtrasService {
 
     private ExtraRepository extraRepository;
 
+    private volatile Catalogue catalogue;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
     public ExtrasService(ExtraRepository extraRepository) {
         this.extraRepository = extraRepository;
     }
 
+    /**
+     * Loads every extra and atomically replaces the current snapshot.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        catalogue = new Catalogue(extraRepository.findAll());
+    }
+
+    public Extra save(Extra extra) {
+        Extra saved = extraRepository.save(extra);
+        reload();
+        return saved;
+    }
+
+    /**
+     * Saves the extras then reloads the snapshot once rather than after each extra.
+     */
+    public List<Extra> saveAll(Iterable<Extra> extras) {
+        List<Extra> saved = new ArrayList<>();
+        extraRepository.saveAll(extras).forEach(saved::add);
+        reload();
+        return saved;
+    }
+
     public List<Extra> getGeneralExtras(Extra.Type type) {
-        return extraRepository.findAllByTypeAndCategory(type, Extra.Category.General);
+        return getExtras(type, Extra.Category.General);
     }
 
     public List<Extra> getFoodExtras(Extra.Type type) {
-        return extraRepository.findAllByTypeAndCategory(type, Extra.Category.Food);
+        return getExtras(type, Extra.Category.Food);
+    }
+
+    /**
+     * @return An unmodifiable list of extras in id order.
+     */
+    public List<Extra> getExtras(Extra.Type type, Extra.Category category) {
+        hits.increment();
+        return currentCatalogue().get(type, category);
     }
 
+    /**
+     * Extras missing from the snapshot, such as ones saved directly through the repository, are looked up in the
+     * database.
+     *
+     * @return The extras in the same order as {@code ids}, unknown ids are left out.
+     */
     public List<Extra> getExtrasById(List<Long> ids) {
-        List<Extra> target = new ArrayList<>();
-        extraRepository.findAllById(ids).forEach(target::add);
+        Catalogue current = currentCatalogue();
+        List<Extra> target = new ArrayList<>(ids.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            Extra extra = current.byId.get(id);
+            if (extra == null) {
+                missing.add(id);
+            } else {
+                target.add(extra);
+            }
+        }
+        hits.add(ids.size() - missing.size());
+
+        if (!missing.isEmpty()) {
+            misses.add(missing.size());
+            extraRepository.findAllById(missing).forEach(target::add);
+        }
         return target;
     }
+
+    public Optional<Extra> getExtraById(Long id) {
+        Extra extra = currentCatalogue().byId.get(id);
+        if (extra != null) {
+            hits.increment();
+            return Optional.of(extra);
+        }
+        misses.increment();
+        return extraRepository.findById(id);
+    }
+
+    /**
+     * @return The number of lookups answered by the snapshot.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of lookups that had to go to the database, including loading the snapshot the first time.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * The snapshot is normally loaded once the application is ready but is loaded on first use when that event
+     * never fires, such as in sliced tests.
+     */
+    private Catalogue currentCatalogue() {
+        Catalogue current = catalogue;
+        if (current == null) {
+            synchronized (this) {
+                current = catalogue;
+                if (current == null) {
+                    misses.increment();
+                    current = new Catalogue(extraRepository.findAll());
+                    catalogue = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Immutable view of every extra grouped by type and category plus an index by id.
+     */
+    private static class Catalogue {
+        private final EnumMap<Extra.Type, EnumMap<Extra.Category, List<Extra>>> byTypeAndCategory =
+                new EnumMap<>(Extra.Type.class);
+        private final Map<Long, Extra> byId = new HashMap<>();
+
+        private Catalogue(Iterable<Extra> extras) {
+            Map<Extra.Type, Map<Extra.Category, List<Extra>>> grouped = new EnumMap<>(Extra.Type.class);
+            for (Extra extra : extras) {
+                byId.put(extra.getId(), extra);
+                grouped.computeIfAbsent(extra.getType(), type -> new EnumMap<>(Extra.Category.class))
+                        .computeIfAbsent(extra.getCategory(), category -> new ArrayList<>())
+                        .add(extra);
+            }
+
+            for (Extra.Type type : Extra.Type.values()) {
+                EnumMap<Extra.Category, List<Extra>> categories = new EnumMap<>(Extra.Category.class);
+                for (Extra.Category category : Extra.Category.values()) {
+                    List<Extra> list = new ArrayList<>(grouped.getOrDefault(type, Map.of())
+                            .getOrDefault(category, List.of()));
+                    list.sort(Comparator.comparing(Extra::getId));
+                    categories.put(category, Collections.unmodifiableList(list));
+                }
+                byTypeAndCategory.put(type, categories);
+            }
+        }
+
+        private List<Extra> get(Extra.Type type, Extra.Category category) {
+            if (type == null || category == null) {
+                return List.of();
+            }
+            return byTypeAndCategory.get(type).get(category);
+        }
+    }
 }
@@ -1,9 +1,31 @@
 package com.demo.reservation;
 
+import com.demo.availability.BookedNights;
 import com.demo.domain.Reservation;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
 @Repository
-public interface ReservationRepository extends CrudRepository<Reservation, Long> {
+public interface ReservationRepository extends CrudRepository<Reservation, Long>, ReservationRepositoryCustom {
+
+    /**
+     * Used to build the {@code AvailabilityIndex}. Reservations that have already checked out are excluded since
+     * they no longer occupy any nights.
+     *
+     * @param from Typically today.
+     * @return The booked nights of every reservation checking out after {@code from}.
+     */
+    @Query("select new com.demo.availability.BookedNights(r.room.id, r.dates.checkInDate, r.dates.checkOutDate) " +
+            "from Reservation r " +
+            "where r.room is not null and r.dates.checkOutDate > :from")
+    List<BookedNights> findAllBookedNightsFrom(@Param("from") LocalDate from);
+
+    Optional<Reservation> findByReservationId(UUID reservationId);
 }
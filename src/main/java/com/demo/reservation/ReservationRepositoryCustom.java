@@ -0,0 +1,21 @@
+package com.demo.reservation;
+
+import com.demo.domain.Reservation;
+
+public interface ReservationRepositoryCustom {
+
+    /**
+     * Saves a new reservation only if none of its nights are booked by a committed reservation for the same room.
+     *
+     * <p>The room version is bumped in the same transaction, which locks the room row until commit. Bookings for the
+     * same room take turns so of two that overlap in time only one can commit, bookings of other nights all succeed.
+     * Bookings for different rooms never contend.</p>
+     *
+     * <p>A pending {@code PaymentRequest} for the reservation's card details is written in the same transaction, the
+     * {@code PaymentProcessor} charges it once the booking has committed.</p>
+     *
+     * @throws com.demo.exceptions.RoomUnavailableException If the nights are already booked.
+     * @throws org.springframework.dao.ConcurrencyFailureException If the room row lock could not be taken in time.
+     */
+    Reservation book(Reservation reservation);
+}
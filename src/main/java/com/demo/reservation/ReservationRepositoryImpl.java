@@ -0,0 +1,53 @@
+package com.demo.reservation;
+
+import com.demo.domain.PaymentRequest;
+import com.demo.domain.Reservation;
+import com.demo.exceptions.RoomUnavailableException;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+
+public class ReservationRepositoryImpl implements ReservationRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public Reservation book(Reservation reservation) {
+        Long roomId = reservation.getRoom().getId();
+        LocalDate checkIn = reservation.getDates().getCheckInDate();
+        LocalDate checkOut = reservation.getDates().getCheckOutDate();
+
+        /*
+         * Bumping the version takes the room row lock until commit, it is not compared. A concurrent booking of the
+         * same room waits here and then sees this one's reservation in the overlap check below, so bookings of the
+         * same room are serialised but only overlapping nights are rejected.
+         */
+        int updated = entityManager.createQuery("update Room r set r.version = r.version + 1 where r.id = :roomId")
+                .setParameter("roomId", roomId)
+                .executeUpdate();
+        if (updated == 0) {
+            throw new RoomUnavailableException("Room " + roomId + " no longer exists");
+        }
+
+        Long overlapping = entityManager.createQuery(
+                "select count(r) from Reservation r " +
+                        "where r.room.id = :roomId and r.dates.checkInDate < :checkOut and r.dates.checkOutDate > :checkIn",
+                Long.class)
+                .setParameter("roomId", roomId)
+                .setParameter("checkIn", checkIn)
+                .setParameter("checkOut", checkOut)
+                .getSingleResult();
+        if (overlapping > 0) {
+            throw new RoomUnavailableException("Room " + roomId + " is already booked between " + checkIn +
+                    " and " + checkOut);
+        }
+
+        entityManager.persist(reservation);
+        entityManager.persist(new PaymentRequest(reservation, reservation.getCreatedTime()));
+        return reservation;
+    }
+}
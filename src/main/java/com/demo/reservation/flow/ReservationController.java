@@ -1,44 +1,79 @@
 package com.demo.reservation.flow;
 
 import com.demo.TimeProvider;
+import com.demo.availability.AvailabilityIndex;
+import com.demo.availability.RoomHolds;
 import com.demo.domain.*;
+import com.demo.domain.pricing.Quote;
 import com.demo.exceptions.NotFoundException;
+import com.demo.exceptions.RoomUnavailableException;
+import com.demo.journal.BookingEvent;
+import com.demo.journal.BookingJournal;
+import com.demo.payment.PaymentGateway;
+import com.demo.payment.PaymentProcessor;
 import com.demo.persistance.RoomRepository;
-import com.demo.reservation.ExtraRepository;
+import com.demo.reservation.ExtraEditor;
+import com.demo.reservation.ExtrasService;
+import com.demo.reservation.ReservationRepository;
 import com.demo.reservation.flow.forms.ReservationFlow;
 import com.demo.reservation.testcheckboxes.Drink;
 import com.demo.reservation.testcheckboxes.EnumDrink;
 import com.demo.reservation.testcheckboxes.Person;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.Errors;
 import org.springframework.validation.FieldError;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.support.SessionStatus;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import javax.validation.Valid;
+import java.text.NumberFormat;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.*;
 
 @Controller
 @SessionAttributes("reservationFlow")
 public class ReservationController {
 
+    private static final Logger log = LoggerFactory.getLogger(ReservationController.class);
+
     private RoomRepository roomRepository;
-    private ExtraRepository extraRepository;
+    private ExtrasService extrasService;
+    private ReservationRepository reservationRepository;
+    private AvailabilityIndex availabilityIndex;
+    private RoomHolds roomHolds;
     private TimeProvider timeProvider;
+    private BookingJournal bookingJournal;
+    private PaymentProcessor paymentProcessor;
+    private PaymentGateway paymentGateway;
 
     public ReservationController(RoomRepository roomRepository,
-                                 ExtraRepository extraRepository,
-                                 TimeProvider timeProvider) {
+                                 ExtrasService extrasService,
+                                 ReservationRepository reservationRepository,
+                                 AvailabilityIndex availabilityIndex,
+                                 RoomHolds roomHolds,
+                                 TimeProvider timeProvider,
+                                 BookingJournal bookingJournal,
+                                 PaymentProcessor paymentProcessor,
+                                 PaymentGateway paymentGateway) {
         this.roomRepository = roomRepository;
-        this.extraRepository = extraRepository;
+        this.extrasService = extrasService;
+        this.reservationRepository = reservationRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.roomHolds = roomHolds;
         this.timeProvider = timeProvider;
+        this.bookingJournal = bookingJournal;
+        this.paymentProcessor = paymentProcessor;
+        this.paymentGateway = paymentGateway;
     }
 
     /**
@@ -51,16 +86,58 @@ public class ReservationController {
      */
     @ModelAttribute("reservationFlow")
     public ReservationFlow getReservationFlow() {
-        return new ReservationFlow();
+        return new ReservationFlow(timeProvider.currentTimeMillis());
+    }
+
+    /**
+     * The session attributes are in the model before any {@code @ModelAttribute} method runs. A flow restored from a
+     * persisted or replicated session only knows its room and extra ids, they are resolved through the room cache and
+     * the extras snapshot before the flow is bound. The flow starts over if its room has gone.
+     */
+    @ModelAttribute
+    public void rehydrateReservationFlow(Model model) {
+        Object flow = model.asMap().get("reservationFlow");
+        if (flow instanceof ReservationFlow && ((ReservationFlow) flow).isRehydrationRequired()) {
+            if (!((ReservationFlow) flow).rehydrate(roomRepository::findById, extrasService::getExtraById)) {
+                model.addAttribute("reservationFlow", new ReservationFlow(timeProvider.currentTimeMillis()));
+            }
+        }
+    }
+
+    /**
+     * Every request of the flow keeps the nights held for it. A hold that already expired is not taken again here,
+     * the payment books the nights if they are still free.
+     */
+    @ModelAttribute
+    public void renewRoomHold(Model model) {
+        Object flow = model.asMap().get("reservationFlow");
+        if (flow instanceof ReservationFlow) {
+            roomHolds.renew(((ReservationFlow) flow).getHoldId());
+        }
+    }
+
+    /**
+     * Submitted extra ids are resolved from the cached catalogue.
+     */
+    @InitBinder
+    public void initBinder(WebDataBinder binder) {
+        binder.registerCustomEditor(Extra.class, new ExtraEditor(extrasService));
     }
 
     // Flow step 1
 
     /**
      * Entry point to begin the reservation flow.
+     *
+     * <p>The optional dates are the nights the room was searched for on the rooms page and only pre fill the form
+     * when no dates have been chosen yet.</p>
      */
     @GetMapping("/reservation")
     public String getDateForm(@RequestParam(value = "roomId") Long roomId,
+                              @RequestParam(value = "checkInDate", required = false)
+                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkInDate,
+                              @RequestParam(value = "checkOutDate", required = false)
+                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOutDate,
                               @ModelAttribute("reservationFlow") ReservationFlow reservationFlow)
             throws NotFoundException {
         reservationFlow.enterStep(ReservationFlow.Step.Dates);
@@ -70,7 +147,14 @@ public class ReservationController {
             throw new NotFoundException();
         }
 
-        maybeRoom.get().setReservation(reservationFlow.getReservation());
+        // The room only gains the reservation once paid for, see postPayment.
+        reservationFlow.getReservation().setRoom(maybeRoom.get());
+
+        ReservationDates dates = reservationFlow.getReservation().getDates();
+        if (dates.getCheckInDate() == null && dates.getCheckOutDate() == null) {
+            dates.setCheckInDate(checkInDate);
+            dates.setCheckOutDate(checkOutDate);
+        }
 
         return "reservation/dates";
     }
@@ -102,13 +186,30 @@ public class ReservationController {
             return "reservation/dates";
         }
 
+        // Coming back to change the dates gives up the nights held for the previous ones.
+        roomHolds.release(reservationFlow.getHoldId());
+        reservationFlow.setHoldId(null);
+
+        Reservation reservation = reservationFlow.getReservation();
+        Optional<UUID> holdId = roomHolds.hold(reservation.getRoom().getId(),
+                reservation.getDates().getCheckInDate(), reservation.getDates().getCheckOutDate());
+        if (!holdId.isPresent()) {
+            bindingResult.rejectValue("reservation.dates", "unavailable",
+                    "The room is not available for these dates");
+            return "reservation/dates";
+        }
+        reservationFlow.setHoldId(holdId.get());
+
         reservationFlow.completeStep(ReservationFlow.Step.Dates);
         redirectAttributes.addFlashAttribute("reservationFlow", reservationFlow);
         return "redirect:/reservation/guests";
     }
 
     @PostMapping(value = "/reservation/dates", params = "cancel")
-    public String cancelDates(SessionStatus sessionStatus) {
+    public String cancelDates(
+            @ModelAttribute(name = "reservationFlow", binding = false) ReservationFlow reservationFlow,
+            SessionStatus sessionStatus) {
+        roomHolds.release(reservationFlow.getHoldId());
         sessionStatus.setComplete();
         return "redirect:/";
     }
@@ -208,10 +309,10 @@ public class ReservationController {
 
     @GetMapping("/reservation/extras")
     public String getGeneralExtrasForm(@ModelAttribute("reservationFlow") ReservationFlow reservationFlow, Model model) {
-        reservationFlow.setActive(ReservationFlow.Step.Extras);
+        reservationFlow.setActive(ReservationFlow.Step.Extras, timeProvider.currentTimeMillis());
 
-        List<Extra> generalExtras = extraRepository.findAllByTypeAndCategory(
-                reservationFlow.getReservation().getExtraPricingType(), Extra.Category.General
+        List<Extra> generalExtras = extrasService.getGeneralExtras(
+                reservationFlow.getReservation().getExtraPricingType()
         );
         model.addAttribute("extras", generalExtras);
         return "reservation/extras";
@@ -220,7 +321,8 @@ public class ReservationController {
     @PostMapping(value = "/reservation/extras", params = "back")
     public String fromGeneralExtrasBackToGuests(@ModelAttribute("reservationFlow") ReservationFlow reservationFlow,
                                                 RedirectAttributes ra) {
-        reservationFlow.setActive(ReservationFlow.Step.Guests);
+        reservationFlow.setActive(ReservationFlow.Step.Guests, timeProvider.currentTimeMillis());
+        reservationFlow.generalExtrasChanged();
         ra.addFlashAttribute("reservationFlow", reservationFlow);
         return "redirect:/reservation/guests";
     }
@@ -228,16 +330,42 @@ public class ReservationController {
     @PostMapping(value = "/reservation/extras")
     public String submitGeneralExtras(@ModelAttribute("reservationFlow") ReservationFlow reservationFlow,
                                       RedirectAttributes ra) {
-        reservationFlow.setActive(ReservationFlow.Step.Extras);
+        reservationFlow.setActive(ReservationFlow.Step.Extras, timeProvider.currentTimeMillis());
+        reservationFlow.generalExtrasChanged();
 
         ra.addFlashAttribute("reservationFlow", reservationFlow);
         reservationFlow.completeStep(ReservationFlow.Step.Extras);
         return "redirect:/reservation/meals";
     }
 
-    @PostMapping(value = "/reservation/extras", params = "add")
-    public String submitGeneralExtrasAjax(@ModelAttribute("reservationFlow") ReservationFlow reservationFlow) {
-        return "reservation/fragments :: quickSummary";
+    @PostMapping(value = "/reservation/extras", params = "add", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public Map<String, String> submitGeneralExtrasAjax(
+            @ModelAttribute("reservationFlow") ReservationFlow reservationFlow,
+            @RequestParam(value = "toggled", required = false) Long toggled, Locale locale) {
+        if (toggled == null) {
+            reservationFlow.generalExtrasChanged();
+        }
+        Quote quote = toggled == null ? reservationFlow.getQuote() : reservationFlow.generalExtraToggled(toggled);
+        return quickSummaryAmounts(reservationFlow, quote, locale);
+    }
+
+    /**
+     * The amounts of the {@code quickSummary} fragment that ticking an extra or meal can change, keyed by cell id.
+     * A {@code null} amount means its row is hidden.
+     */
+    private Map<String, String> quickSummaryAmounts(ReservationFlow reservationFlow, Quote quote, Locale locale) {
+        NumberFormat currency = NumberFormat.getCurrencyInstance(locale);
+
+        Map<String, String> amounts = new LinkedHashMap<>();
+        amounts.put("quoteGeneralExtras", reservationFlow.getReservation().getGeneralExtras().isEmpty()
+                ? null : currency.format(quote.getGeneralExtrasCost()));
+        amounts.put("quoteMealPlans", quote.getMealPlansCents() == 0
+                ? null : currency.format(quote.getMealPlansCost()));
+        amounts.put("quoteTotalExcludingTax", currency.format(quote.getTotalExcludingTax()));
+        amounts.put("quoteTax", currency.format(quote.getTax()));
+        amounts.put("quoteTotalIncludingTax", currency.format(quote.getTotalIncludingTax()));
+        return amounts;
     }
 
 
@@ -246,7 +374,8 @@ public class ReservationController {
     @PostMapping(value = "/reservation/meals", params = "back")
     public String fromMealPlansBackToGeneralExtras(@ModelAttribute("reservationFlow") ReservationFlow reservationFlow,
                                                    RedirectAttributes ra) {
-        reservationFlow.setActive(ReservationFlow.Step.Meals);
+        reservationFlow.setActive(ReservationFlow.Step.Meals, timeProvider.currentTimeMillis());
+        reservationFlow.mealPlansChanged();
         ra.addFlashAttribute("reservationFlow", reservationFlow);
         return "redirect:/reservation/extras";
     }
@@ -254,31 +383,42 @@ public class ReservationController {
     @GetMapping("/reservation/meals")
     public String getMealPlans(@ModelAttribute("reservationFlow") ReservationFlow reservationFlow,
                                Model model) {
-        reservationFlow.setActive(ReservationFlow.Step.Meals);
+        reservationFlow.setActive(ReservationFlow.Step.Meals, timeProvider.currentTimeMillis());
 
         reservationFlow.getReservation().createMealPlans();
+        reservationFlow.mealPlansChanged();
         createMealPlanModel(reservationFlow, model);
         return "reservation/meals";
     }
 
     private void createMealPlanModel(ReservationFlow reservationFlow, Model model) {
-        List<Extra> foodExtras = extraRepository.findAllByTypeAndCategory(
-                reservationFlow.getReservation().getExtraPricingType(),
-                Extra.Category.Food
+        List<Extra> foodExtras = extrasService.getFoodExtras(
+                reservationFlow.getReservation().getExtraPricingType()
         );
         model.addAttribute("foodExtras", foodExtras);
         model.addAttribute("dietaryRequirements", DietaryRequirement.values());
     }
 
-    @PostMapping(value = "/reservation/meals", params = "add")
-    public String postMealPlansAjax(@ModelAttribute("reservationFlow") ReservationFlow reservationFlow) {
-        return "reservation/fragments :: quickSummary";
+    @PostMapping(value = "/reservation/meals", params = "add", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public Map<String, String> postMealPlansAjax(@ModelAttribute("reservationFlow") ReservationFlow reservationFlow,
+                                                 @RequestParam(value = "mealPlan", required = false) Integer mealPlan,
+                                                 @RequestParam(value = "toggled", required = false) Long toggled,
+                                                 Locale locale) {
+        if (mealPlan == null || toggled == null) {
+            reservationFlow.mealPlansChanged();
+        }
+        Quote quote = mealPlan == null || toggled == null
+                ? reservationFlow.getQuote()
+                : reservationFlow.foodExtraToggled(mealPlan, toggled);
+        return quickSummaryAmounts(reservationFlow, quote, locale);
     }
 
     @PostMapping("/reservation/meals")
     public String postMealPlans(@ModelAttribute("reservationFlow") ReservationFlow reservationFlow,
                                 Errors errors, Model model, RedirectAttributes ra) {
-        reservationFlow.setActive(ReservationFlow.Step.Meals);
+        reservationFlow.setActive(ReservationFlow.Step.Meals, timeProvider.currentTimeMillis());
+        reservationFlow.mealPlansChanged();
 
         Reservation reservation = reservationFlow.getReservation();
         for (int i = 0; i < reservation.getMealPlans().size(); i++) {
@@ -303,14 +443,14 @@ public class ReservationController {
 
     @GetMapping("/reservation/review")
     public String getReview(@ModelAttribute("reservationFlow") ReservationFlow reservationFlow) {
-        reservationFlow.setActive(ReservationFlow.Step.Review);
+        reservationFlow.setActive(ReservationFlow.Step.Review, timeProvider.currentTimeMillis());
         return "reservation/review";
     }
 
     @PostMapping(value = "/reservation/review", params = "back")
     public String fromReviewBackToMealPlans(@ModelAttribute("reservationFlow") ReservationFlow reservationFlow,
                                             RedirectAttributes ra) {
-        reservationFlow.setActive(ReservationFlow.Step.Review);
+        reservationFlow.setActive(ReservationFlow.Step.Review, timeProvider.currentTimeMillis());
         ra.addFlashAttribute("reservationFlow", reservationFlow);
         return "redirect:/reservation/meals";
     }
@@ -318,7 +458,7 @@ public class ReservationController {
     @PostMapping("/reservation/review")
     public String postReview(@ModelAttribute("reservationFlow") ReservationFlow reservationFlow,
                              RedirectAttributes ra) {
-        reservationFlow.setActive(ReservationFlow.Step.Review);
+        reservationFlow.setActive(ReservationFlow.Step.Review, timeProvider.currentTimeMillis());
 
         ra.addFlashAttribute("reservationFlow", reservationFlow);
         reservationFlow.completeStep(ReservationFlow.Step.Review);
@@ -331,7 +471,7 @@ public class ReservationController {
     @GetMapping("/reservation/payment")
     public String getPayment(@ModelAttribute("reservationFlow") ReservationFlow reservationFlow,
                              Model model) {
-        reservationFlow.setActive(ReservationFlow.Step.Payment);
+        reservationFlow.setActive(ReservationFlow.Step.Payment, timeProvider.currentTimeMillis());
         model.addAttribute("pendingPayment", new PendingPayment(LocalDateTime.now()));
         return "reservation/payment";
     }
@@ -339,13 +479,16 @@ public class ReservationController {
     @PostMapping(value = "/reservation/payment", params = "back")
     public String fromPaymentBackToReview(@ModelAttribute("reservationFlow") ReservationFlow reservationFlow,
                                           RedirectAttributes ra) {
-        reservationFlow.setActive(ReservationFlow.Step.Payment);
+        reservationFlow.setActive(ReservationFlow.Step.Payment, timeProvider.currentTimeMillis());
         ra.addFlashAttribute("reservationFlow", reservationFlow);
         return "redirect:/reservation/review";
     }
 
     @PostMapping(value = "/reservation/payment", params = "cancel")
-    public String cancelPayment(SessionStatus sessionStatus) {
+    public String cancelPayment(
+            @ModelAttribute(name = "reservationFlow", binding = false) ReservationFlow reservationFlow,
+            SessionStatus sessionStatus) {
+        roomHolds.release(reservationFlow.getHoldId());
         sessionStatus.setComplete();
         return "redirect:/";
     }
@@ -354,32 +497,83 @@ public class ReservationController {
     public String postPayment(@ModelAttribute("reservationFlow") ReservationFlow reservationFlow,
                               @Valid @ModelAttribute("pendingPayment") PendingPayment pendingPayment,
                               BindingResult bindingResult, SessionStatus sessionStatus) {
-        reservationFlow.setActive(ReservationFlow.Step.Payment);
+        reservationFlow.setActive(ReservationFlow.Step.Payment, timeProvider.currentTimeMillis());
 
         if (bindingResult.hasErrors()) {
             return "reservation/payment";
         }
 
+        // Only the gateway's token is kept, the card is charged through it once the booking has committed.
+        String paymentToken;
+        try {
+            paymentToken = paymentGateway.tokenize(pendingPayment);
+        } catch (RuntimeException e) {
+            log.warn("Card could not be tokenized", e);
+            bindingResult.reject("paymentUnavailable", "The card could not be verified, please try again");
+            return "reservation/payment";
+        }
+
         Reservation reservation = reservationFlow.getReservation();
-        // Simulate making a valid payment
-        reservation.setCompletedPayment(pendingPayment.toCompletedPayment());
+        ReservationDates dates = reservation.getDates();
+
+        // The nights held since the dates step become the booking. If the hold expired another session may have
+        // booked the same nights since.
+        boolean booked = roomHolds.book(reservationFlow.getHoldId(), reservation.getRoom().getId(),
+                dates.getCheckInDate(), dates.getCheckOutDate());
+        reservationFlow.setHoldId(null);
+        if (!booked) {
+            bindingResult.reject("unavailable", "The room is no longer available for these dates");
+            return "reservation/payment";
+        }
+
+        // The card is charged once the booking has committed, see PaymentProcessor.
+        reservation.setCompletedPayment(pendingPayment.toCompletedPayment(paymentToken));
 
         /*
-         * The new reservation is saved through the Room since the room owns the reservation in the
-         * bi directional 1 to 1 mapping. This is to allow easier querying to identity rooms that
-         * have reservations.
+         * The index claim only guards this instance, the database has the final say. The reservation owns the
+         * many to one relationship to the room so it is booked directly and the detached session room is untouched.
          */
-        roomRepository.save(reservation.getRoom());
+        try {
+            reservationRepository.book(reservation);
+        } catch (RoomUnavailableException | ConcurrencyFailureException e) {
+            availabilityIndex.release(reservation.getRoom().getId(), dates.getCheckInDate(), dates.getCheckOutDate());
+            reservation.setCompletedPayment(null);
+            bindingResult.reject("unavailable", "The room is no longer available for these dates");
+            return "reservation/payment";
+        } catch (RuntimeException e) {
+            availabilityIndex.release(reservation.getRoom().getId(), dates.getCheckInDate(), dates.getCheckOutDate());
+            throw e;
+        }
+
+        // Only committed bookings are journalled, the append returns once the event is on disk. The booking stands
+        // whether or not the append works, a failed one is journalled later from the booking's payment request.
+        try {
+            bookingJournal.append(BookingEvent.booked(reservation, timeProvider.currentTimeMillis()));
+        } catch (RuntimeException e) {
+            boolean marked = paymentProcessor.journalBookingLater(reservation.getReservationId());
+            log.warn("Booking {} could not be journalled, {}", reservation.getReservationId(),
+                    marked ? "it is journalled before its payment" : "it will not be journalled", e);
+        }
+        paymentProcessor.submit(reservation.getReservationId());
         sessionStatus.setComplete();
 
         reservationFlow.completeStep(ReservationFlow.Step.Payment);
-        return "redirect:/reservation/completed";
+        return "redirect:/reservation/completed?reservationId=" + reservation.getReservationId();
     }
 
     // End flow
 
+    /**
+     * The payment may still be with the gateway, the page then polls {@code /payment/{reservationId}/status}.
+     */
     @GetMapping("/reservation/completed")
-    public String getFlowCompleted() {
+    public String getFlowCompleted(@RequestParam(value = "reservationId", required = false) UUID reservationId,
+                                   Model model) {
+        if (reservationId != null) {
+            model.addAttribute("reservationId", reservationId);
+            paymentProcessor.getStatus(reservationId)
+                    .ifPresent(status -> model.addAttribute("paymentStatus", status));
+        }
         return "reservation/completed";
     }
 
@@ -1,17 +1,31 @@
 package com.demo.reservation.flow.forms;
 
+import com.demo.domain.Extra;
 import com.demo.domain.Reservation;
+import com.demo.domain.Room;
+import com.demo.domain.pricing.Quote;
+import com.demo.domain.pricing.QuoteTracker;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.time.Duration;
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * Stores the {@code Reservation} and the current flow {@code Step}. {@code Step} manipulation functions are dumb and
  * rely on controller logic to keep the flow step in sync.
  *
  * <p>There cannot be an incrementing counter given page refreshes must not advance flow steps.</p>
+ *
+ * <p>The serialized form only carries the room and extra ids, see {@code ReservationState}. A flow read back from a
+ * persisted or replicated session must be {@link #rehydrate rehydrated} before its reservation is used.</p>
  */
-public class ReservationFlow {
+public class ReservationFlow implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     public enum Step {
         Dates(0),
@@ -47,42 +61,135 @@ public class ReservationFlow {
         }
     }
 
+    private static final List<StepDescription> STEP_DESCRIPTIONS = List.of(
+            new StepDescription(0, "Dates", "Choose your reservation dates"),
+            new StepDescription(1, "Guests", "Provide guest details"),
+            new StepDescription(2, "Extras", "Select optional extras"),
+            new StepDescription(3, "Meals", "Choose optional meal plans"),
+            new StepDescription(4, "Review", "Verify your reservation"),
+            new StepDescription(5, "Payment", "Provide payment details"));
+
     @Valid
-    private Reservation reservation = new Reservation();
+    private transient Reservation reservation = new Reservation();
+
+    // Only set between deserialization and rehydrate.
+    private transient ReservationState restoredState;
 
-    private List<StepDescription> stepDescriptions = new ArrayList<>();
+    // Rebuilt from the reservation after deserialization, pricing everything once.
+    private transient QuoteTracker quoteTracker;
 
-    private Set<Step> completedSteps = new HashSet<>();
+    private EnumSet<Step> completedSteps = EnumSet.noneOf(Step.class);
 
     private Step activeStep = Step.Dates;
 
-    public ReservationFlow() {
-        stepDescriptions.add(new StepDescription(0, "Dates", "Choose your reservation dates"));
-        stepDescriptions.add(new StepDescription(1, "Guests", "Provide guest details"));
-        stepDescriptions.add(new StepDescription(2, "Extras", "Select optional extras"));
-        stepDescriptions.add(new StepDescription(3, "Meals", "Choose optional meal plans"));
-        stepDescriptions.add(new StepDescription(4, "Review", "Verify your reservation"));
-        stepDescriptions.add(new StepDescription(5, "Payment", "Provide payment details"));
+    // Epoch millis rather than an Instant so the session copy stays small.
+    private long activeStepSince;
+
+    // The RoomHolds hold on the nights chosen in the dates step, kept across session serialization.
+    private UUID holdId;
+
+    /**
+     * @param nowMillis When the flow starts in the dates step, from {@code TimeProvider.currentTimeMillis()}.
+     */
+    public ReservationFlow(long nowMillis) {
+        this.activeStepSince = nowMillis;
     }
 
+    /**
+     * @throws IllegalStateException If the flow was deserialized and has not been rehydrated.
+     */
     public Reservation getReservation() {
+        if (restoredState != null) {
+            throw new IllegalStateException("ReservationFlow must be rehydrated after deserialization");
+        }
         return reservation;
     }
 
     public void setReservation(Reservation reservation) {
         this.reservation = reservation;
+        this.quoteTracker = null;
+    }
+
+    /**
+     * Prices only what changed since the last quote, the toggle methods report the single item that did.
+     *
+     * @return The same amounts as {@code getReservation().getQuote()}.
+     */
+    public Quote getQuote() {
+        return quoteTracker().quote(getReservation());
+    }
+
+    /**
+     * @param extraId The general extra that was ticked or unticked, the selection must already be bound.
+     */
+    public Quote generalExtraToggled(long extraId) {
+        return quoteTracker().generalExtraToggled(getReservation(), extraId);
+    }
+
+    /**
+     * @param mealPlanIndex The meal plan whose food extra was ticked or unticked, the plans must already be bound.
+     */
+    public Quote foodExtraToggled(int mealPlanIndex, long extraId) {
+        return quoteTracker().foodExtraToggled(getReservation(), mealPlanIndex, extraId);
+    }
+
+    /**
+     * Call after the whole general extras selection was bound, such as by a page post.
+     */
+    public void generalExtrasChanged() {
+        quoteTracker().generalExtrasChanged();
+    }
+
+    /**
+     * Call after the meal plans were created again or bound as a whole.
+     */
+    public void mealPlansChanged() {
+        quoteTracker().mealPlansChanged();
+    }
+
+    private QuoteTracker quoteTracker() {
+        if (quoteTracker == null) {
+            quoteTracker = new QuoteTracker();
+        }
+        return quoteTracker;
     }
 
-    public void setActive(Step step) {
-        activeStep = step;
+    /**
+     * Refreshing the page of the active step does not reset the time spent in it.
+     *
+     * @param nowMillis When the step is entered, from {@code TimeProvider.currentTimeMillis()}.
+     */
+    public void setActive(Step step, long nowMillis) {
+        if (step != activeStep) {
+            activeStep = step;
+            activeStepSince = nowMillis;
+        }
+    }
+
+    /**
+     * @return {@code null} until the dates step is completed.
+     */
+    public UUID getHoldId() {
+        return holdId;
+    }
+
+    public void setHoldId(UUID holdId) {
+        this.holdId = holdId;
     }
 
     public Step getActiveStep() {
         return activeStep;
     }
 
+    /**
+     * @return How long before {@code nowMillis} the active step was entered, used for the time in step metrics.
+     */
+    public Duration getTimeInActiveStep(long nowMillis) {
+        return Duration.ofMillis(Math.max(0, nowMillis - activeStepSince));
+    }
+
     public StepDescription getActiveStepDescription() {
-        return stepDescriptions.get(activeStep.flowStep);
+        return STEP_DESCRIPTIONS.get(activeStep.flowStep);
     }
 
     public void completeStep(Step step) {
@@ -106,14 +213,53 @@ public class ReservationFlow {
         incompleteStep(step);
     }
 
+    /**
+     * @return The same unmodifiable list for every flow.
+     */
     public List<StepDescription> getStepDescriptions() {
-        return stepDescriptions;
+        return STEP_DESCRIPTIONS;
+    }
+
+    public boolean isRehydrationRequired() {
+        return restoredState != null;
+    }
+
+    /**
+     * Rebuilds the reservation of a deserialized flow from the ids it was written with. Extras that no longer exist
+     * are dropped.
+     *
+     * @param rooms  Looks up a room with its hotel.
+     * @param extras Looks up an extra.
+     * @return {@code false} if the room no longer exists, the flow is unusable and should be restarted.
+     */
+    public boolean rehydrate(Function<Long, Optional<Room>> rooms, Function<Long, Optional<Extra>> extras) {
+        if (restoredState == null) {
+            return true;
+        }
+        Optional<Reservation> restored = restoredState.toReservation(rooms, extras);
+        if (!restored.isPresent()) {
+            return false;
+        }
+        reservation = restored.get();
+        restoredState = null;
+        quoteTracker = null;
+        return true;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeObject(restoredState != null ? restoredState : new ReservationState(reservation));
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        restoredState = (ReservationState) in.readObject();
     }
 
     public static class StepDescription {
-        private int flowStep;
-        private String title;
-        private String description;
+        private final int flowStep;
+        private final String title;
+        private final String description;
 
         public StepDescription(int flowStep, String title, String description) {
             this.flowStep = flowStep;
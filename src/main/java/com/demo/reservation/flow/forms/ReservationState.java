@@ -0,0 +1,101 @@
+package com.demo.reservation.flow.forms;
+
+import com.demo.domain.*;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * The serialized form of the {@code Reservation} held by a {@code ReservationFlow}.
+ *
+ * <p>Rooms and extras are catalogue entities shared by every session so only their ids are written, a room would
+ * otherwise drag its hotel along with it. Everything the user entered is written as plain values. The payment is
+ * not part of the flow state since it is only attached when the reservation is booked.</p>
+ */
+class ReservationState implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final UUID reservationId;
+    private final Long roomId;
+    private final ReservationDates dates;
+    private final ArrayList<Guest> guests;
+    private final long[] generalExtraIds;
+    private final ArrayList<MealPlanState> mealPlans = new ArrayList<>();
+
+    ReservationState(Reservation reservation) {
+        this.reservationId = reservation.getReservationId();
+        this.roomId = reservation.getRoom() == null ? null : reservation.getRoom().getId();
+        this.dates = reservation.getDates();
+        this.guests = new ArrayList<>(reservation.getGuests());
+        this.generalExtraIds = ids(reservation.getGeneralExtras());
+        for (MealPlan mealPlan : reservation.getMealPlans()) {
+            mealPlans.add(new MealPlanState(mealPlan));
+        }
+    }
+
+    /**
+     * @return Empty if the room no longer exists.
+     */
+    Optional<Reservation> toReservation(Function<Long, Optional<Room>> rooms,
+                                        Function<Long, Optional<Extra>> extras) {
+        Reservation reservation = new Reservation();
+        reservation.setReservationId(reservationId);
+        reservation.setDates(dates);
+
+        if (roomId != null) {
+            Optional<Room> room = rooms.apply(roomId);
+            if (!room.isPresent()) {
+                return Optional.empty();
+            }
+            reservation.setRoom(room.get());
+        }
+
+        // Guests are only ever added once the room is known so addGuest can check the beds.
+        guests.forEach(reservation::addGuest);
+        reservation.setGeneralExtras(resolve(generalExtraIds, extras, new HashSet<>()));
+
+        List<MealPlan> restoredMealPlans = new ArrayList<>();
+        for (MealPlanState mealPlan : mealPlans) {
+            restoredMealPlans.add(new MealPlan(mealPlan.guest, reservation,
+                    resolve(mealPlan.foodExtraIds, extras, new ArrayList<>()),
+                    new ArrayList<>(mealPlan.dietaryRequirements)));
+        }
+        reservation.setMealPlans(restoredMealPlans);
+        return Optional.of(reservation);
+    }
+
+    private static long[] ids(Collection<Extra> extras) {
+        if (extras == null) {
+            return new long[0];
+        }
+        return extras.stream().mapToLong(Extra::getId).toArray();
+    }
+
+    private static <C extends Collection<Extra>> C resolve(long[] ids, Function<Long, Optional<Extra>> extras,
+                                                           C target) {
+        for (long id : ids) {
+            extras.apply(id).ifPresent(target::add);
+        }
+        return target;
+    }
+
+    /**
+     * Guests are shared with the reservation guests, serialization keeps them as the same instances.
+     */
+    private static class MealPlanState implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Guest guest;
+        private final long[] foodExtraIds;
+        private final ArrayList<DietaryRequirement> dietaryRequirements;
+
+        MealPlanState(MealPlan mealPlan) {
+            this.guest = mealPlan.getGuest();
+            this.foodExtraIds = ids(mealPlan.getFoodExtras());
+            this.dietaryRequirements = mealPlan.getDietaryRequirements() == null
+                    ? new ArrayList<>()
+                    : new ArrayList<>(mealPlan.getDietaryRequirements());
+        }
+    }
+}
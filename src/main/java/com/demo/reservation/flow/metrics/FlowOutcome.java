@@ -0,0 +1,52 @@
+package com.demo.reservation.flow.metrics;
+
+/**
+ * What a single reservation flow request did, used as the {@code outcome} tag.
+ */
+public enum FlowOutcome {
+    /**
+     * A step page was rendered.
+     */
+    View("view"),
+
+    /**
+     * The step was changed without leaving it, such as adding a guest or refreshing the quick summary.
+     */
+    Update("update"),
+
+    /**
+     * The submitted form was rejected and the step page rendered again.
+     */
+    ValidationError("validation_error"),
+
+    Back("back"),
+
+    Cancel("cancel"),
+
+    /**
+     * The step was completed and the flow moved on.
+     */
+    Complete("complete"),
+
+    /**
+     * The handler or render threw an exception.
+     */
+    Error("error");
+
+    private final String tag;
+
+    FlowOutcome(String tag) {
+        this.tag = tag;
+    }
+
+    public String tag() {
+        return tag;
+    }
+
+    /**
+     * @return {@code true} if the user is leaving the active step.
+     */
+    public boolean leavesStep() {
+        return this == Back || this == Cancel || this == Complete;
+    }
+}
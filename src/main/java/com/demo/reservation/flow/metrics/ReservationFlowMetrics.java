@@ -0,0 +1,65 @@
+package com.demo.reservation.flow.metrics;
+
+import com.demo.reservation.flow.forms.ReservationFlow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for the reservation flow funnel.
+ *
+ * <ul>
+ *     <li>{@code reservation.flow.request} - handler and render time of every flow request tagged by
+ *     {@code step}, {@code handler} and {@code outcome}. The count per step and outcome is the funnel.</li>
+ *     <li>{@code reservation.flow.step.duration} - time the user spent in a step before leaving it, tagged by
+ *     {@code step} and the {@code outcome} that left it (complete, back or cancel).</li>
+ *     <li>{@code reservation.flow.abandoned} - sessions that expired part way through the flow tagged by the
+ *     {@code step} they were left on.</li>
+ * </ul>
+ */
+public class ReservationFlowMetrics {
+    public static final String REQUEST = "reservation.flow.request";
+    public static final String STEP_DURATION = "reservation.flow.step.duration";
+    public static final String ABANDONED = "reservation.flow.abandoned";
+
+    /**
+     * Step tag for requests outside of a flow such as the completed page.
+     */
+    public static final String NO_STEP = "none";
+
+    private final MeterRegistry registry;
+
+    public ReservationFlowMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void recordRequest(String step, String handler, FlowOutcome outcome, long elapsedNanos) {
+        Timer.builder(REQUEST)
+                .description("Reservation flow handler and render time")
+                .tags("step", step, "handler", handler, "outcome", outcome.tag())
+                .register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param outcome One of the outcomes that leaves a step.
+     */
+    public void recordStepLeft(ReservationFlow.Step step, Duration timeInStep, FlowOutcome outcome) {
+        Timer.builder(STEP_DURATION)
+                .description("Time spent in a reservation flow step")
+                .tags("step", step.name(), "outcome", outcome.tag())
+                .register(registry)
+                .record(timeInStep);
+    }
+
+    public void recordAbandoned(ReservationFlow flow) {
+        Counter.builder(ABANDONED)
+                .description("Sessions that expired part way through the reservation flow")
+                .tags("step", flow.getActiveStep().name())
+                .register(registry)
+                .increment();
+    }
+}
@@ -0,0 +1,66 @@
+package com.demo.reservation.flow.metrics;
+
+import com.demo.TimeProvider;
+import com.demo.reservation.flow.forms.ReservationFlow;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.http.HttpSessionEvent;
+import javax.servlet.http.HttpSessionListener;
+
+/**
+ * Registers the reservation flow metrics against {@code /reservation/**}.
+ *
+ * <p>Sliced web tests have no {@code MeterRegistry} so the global registry is used instead, which discards
+ * everything unless a registry has been added to it. Those without a {@code TimeProvider} get the system clock.</p>
+ */
+@Configuration
+public class ReservationFlowMetricsConfiguration implements WebMvcConfigurer {
+
+    private final ReservationFlowMetrics metrics;
+    private final ObjectProvider<TimeProvider> timeProvider;
+
+    public ReservationFlowMetricsConfiguration(ObjectProvider<MeterRegistry> meterRegistry,
+                                               ObjectProvider<TimeProvider> timeProvider) {
+        this.metrics = new ReservationFlowMetrics(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+        this.timeProvider = timeProvider;
+    }
+
+    @Bean
+    public ReservationFlowMetrics reservationFlowMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReservationFlowMetricsInterceptor(metrics,
+                timeProvider.getIfAvailable(TimeProvider::new)))
+                .addPathPatterns("/reservation", "/reservation/**");
+    }
+
+    /**
+     * A session that expires while still holding a flow was abandoned, completing or cancelling the flow removes it
+     * from the session.
+     */
+    @Bean
+    public HttpSessionListener reservationFlowAbandonmentListener() {
+        return new HttpSessionListener() {
+            @Override
+            public void sessionCreated(HttpSessionEvent event) {
+            }
+
+            @Override
+            public void sessionDestroyed(HttpSessionEvent event) {
+                Object flow = event.getSession().getAttribute(ReservationFlowMetricsInterceptor.FLOW_SESSION_ATTRIBUTE);
+                if (flow instanceof ReservationFlow) {
+                    metrics.recordAbandoned((ReservationFlow) flow);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,117 @@
+package com.demo.reservation.flow.metrics;
+
+import com.demo.TimeProvider;
+import com.demo.reservation.flow.forms.ReservationFlow;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.time.Duration;
+
+/**
+ * Times each reservation flow request from before the handler until the view has been rendered and works out the
+ * outcome from the request parameters, the view and the model.
+ *
+ * <p>The active step and the time spent in it are read from the flow before the handler runs. That is the step
+ * whose page was submitted, the handler may move the flow to another step or clear it from the session.</p>
+ */
+public class ReservationFlowMetricsInterceptor extends HandlerInterceptorAdapter {
+    public static final String FLOW_SESSION_ATTRIBUTE = "reservationFlow";
+
+    private static final String START = ReservationFlowMetricsInterceptor.class.getName() + ".start";
+    private static final String STEP = ReservationFlowMetricsInterceptor.class.getName() + ".step";
+    private static final String TIME_IN_STEP = ReservationFlowMetricsInterceptor.class.getName() + ".timeInStep";
+    private static final String OUTCOME = ReservationFlowMetricsInterceptor.class.getName() + ".outcome";
+
+    private final ReservationFlowMetrics metrics;
+    private final TimeProvider timeProvider;
+
+    public ReservationFlowMetricsInterceptor(ReservationFlowMetrics metrics, TimeProvider timeProvider) {
+        this.metrics = metrics;
+        this.timeProvider = timeProvider;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(START, System.nanoTime());
+        ReservationFlow flow = sessionFlow(request);
+        if (flow != null) {
+            request.setAttribute(STEP, flow.getActiveStep());
+            request.setAttribute(TIME_IN_STEP, flow.getTimeInActiveStep(timeProvider.currentTimeMillis()));
+        }
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        request.setAttribute(OUTCOME, outcome(request, modelAndView));
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Long start = (Long) request.getAttribute(START);
+        if (start == null || !(handler instanceof HandlerMethod)) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        FlowOutcome outcome = (FlowOutcome) request.getAttribute(OUTCOME);
+        if (ex != null || outcome == null) {
+            outcome = FlowOutcome.Error;
+        }
+
+        ReservationFlow.Step submittedStep = (ReservationFlow.Step) request.getAttribute(STEP);
+        ReservationFlow.Step step = submittedStep;
+        if (!outcome.leavesStep()) {
+            // The first request creates the flow and GET requests move it to the step being shown.
+            ReservationFlow flow = sessionFlow(request);
+            if (flow != null) {
+                step = flow.getActiveStep();
+            }
+        }
+
+        metrics.recordRequest(step == null ? ReservationFlowMetrics.NO_STEP : step.name(),
+                ((HandlerMethod) handler).getMethod().getName(), outcome, elapsed);
+        if (submittedStep != null && outcome.leavesStep()) {
+            metrics.recordStepLeft(submittedStep, (Duration) request.getAttribute(TIME_IN_STEP), outcome);
+        }
+    }
+
+    private static FlowOutcome outcome(HttpServletRequest request, ModelAndView modelAndView) {
+        if (request.getParameter("back") != null) {
+            return FlowOutcome.Back;
+        }
+        if (request.getParameter("cancel") != null) {
+            return FlowOutcome.Cancel;
+        }
+        if (modelAndView == null) {
+            return FlowOutcome.Update;
+        }
+
+        String viewName = modelAndView.getViewName();
+        if (viewName != null && viewName.startsWith("redirect:")) {
+            return FlowOutcome.Complete;
+        }
+        boolean hasErrors = modelAndView.getModel().values().stream()
+                .anyMatch(value -> value instanceof BindingResult && ((BindingResult) value).hasErrors());
+        if (hasErrors) {
+            return FlowOutcome.ValidationError;
+        }
+        return "GET".equals(request.getMethod()) ? FlowOutcome.View : FlowOutcome.Update;
+    }
+
+    private static ReservationFlow sessionFlow(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session == null) {
+            return null;
+        }
+        Object flow = session.getAttribute(FLOW_SESSION_ATTRIBUTE);
+        return flow instanceof ReservationFlow ? (ReservationFlow) flow : null;
+    }
+}
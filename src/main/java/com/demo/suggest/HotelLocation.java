@@ -0,0 +1,59 @@
+package com.demo.suggest;
+
+import com.demo.domain.Hotel;
+import com.demo.domain.location.State;
+
+/**
+ * Lightweight projection used to build the {@code SuggestionIndex} without loading full {@code Hotel} entities.
+ */
+public class HotelLocation {
+    private final Long hotelId;
+    private final String name;
+    private final State state;
+    private final String suburb;
+    private final String postcode;
+
+    public HotelLocation(Long hotelId, String name, State state, String suburb, String postcode) {
+        this.hotelId = hotelId;
+        this.name = name;
+        this.state = state;
+        this.suburb = suburb;
+        this.postcode = postcode;
+    }
+
+    public static HotelLocation of(Hotel hotel) {
+        return new HotelLocation(hotel.getId(), hotel.getName(), hotel.getAddress().getState(),
+                hotel.getAddress().getSuburb(), hotel.getAddress().getPostcode().getValue());
+    }
+
+    public Long getHotelId() {
+        return hotelId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getSuburb() {
+        return suburb;
+    }
+
+    public String getPostcode() {
+        return postcode;
+    }
+
+    @Override
+    public String toString() {
+        return "HotelLocation{" +
+                "hotelId=" + hotelId +
+                ", name='" + name + '\'' +
+                ", state=" + state +
+                ", suburb='" + suburb + '\'' +
+                ", postcode='" + postcode + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,111 @@
+package com.demo.suggest;
+
+import com.demo.domain.location.State;
+
+import java.util.Objects;
+
+/**
+ * Something the hotel search box can complete to. A {@code Suburb} or {@code Postcode} fills the search with its
+ * location, a {@code Hotel} goes straight to the hotel.
+ */
+public final class Suggestion {
+
+    public enum Type {
+        Suburb, Postcode, Hotel
+    }
+
+    private final Type type;
+    private final String label;
+    private final String description;
+    private final State state;
+    private final String suburb;
+    private final String postcode;
+    private final Long hotelId;
+
+    private Suggestion(Type type, String label, String description, State state, String suburb, String postcode,
+                       Long hotelId) {
+        this.type = type;
+        this.label = label;
+        this.description = description;
+        this.state = state;
+        this.suburb = suburb;
+        this.postcode = postcode;
+        this.hotelId = hotelId;
+    }
+
+    public static Suggestion suburb(HotelLocation location) {
+        return new Suggestion(Type.Suburb, location.getSuburb(), location.getState().name(),
+                location.getState(), location.getSuburb(), null, null);
+    }
+
+    public static Suggestion postcode(HotelLocation location) {
+        return new Suggestion(Type.Postcode, location.getPostcode(), location.getState().name(),
+                location.getState(), null, location.getPostcode(), null);
+    }
+
+    public static Suggestion hotel(HotelLocation location) {
+        return new Suggestion(Type.Hotel, location.getName(),
+                location.getSuburb() + ", " + location.getState().name(),
+                null, null, null, location.getHotelId());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @return The search parameters of a location, {@code null} for a hotel.
+     */
+    public State getState() {
+        return state;
+    }
+
+    public String getSuburb() {
+        return suburb;
+    }
+
+    public String getPostcode() {
+        return postcode;
+    }
+
+    /**
+     * @return {@code null} unless this is a {@code Hotel}.
+     */
+    public Long getHotelId() {
+        return hotelId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Suggestion that = (Suggestion) o;
+        return type == that.type &&
+                state == that.state &&
+                Objects.equals(suburb, that.suburb) &&
+                Objects.equals(postcode, that.postcode) &&
+                Objects.equals(hotelId, that.hotelId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, state, suburb, postcode, hotelId);
+    }
+
+    @Override
+    public String toString() {
+        return "Suggestion{" +
+                "type=" + type +
+                ", label='" + label + '\'' +
+                ", description='" + description + '\'' +
+                '}';
+    }
+}
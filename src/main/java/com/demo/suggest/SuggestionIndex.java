@@ -0,0 +1,194 @@
+package com.demo.suggest;
+
+import com.demo.persistance.HotelRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * In memory index completing what is typed in the hotel search box to suburbs, postcodes and hotel names without
+ * querying the database.
+ *
+ * <p>Every word of a suburb or hotel name is a key so {@code wav} finds Glen Waverley. Keys are upper cased with
+ * anything other than letters and digits treated as a space. They are kept in one sorted array, a lookup is a binary
+ * search for the first key starting with the query followed by a scan while keys still do.</p>
+ *
+ * <p>The index is built from the database once the application is ready. Imported hotels are added by merging their
+ * keys into a new array which then replaces the current one, lookups never wait on an import.</p>
+ */
+@Component
+public class SuggestionIndex {
+
+    private final HotelRepository hotelRepository;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public SuggestionIndex(HotelRepository hotelRepository) {
+        this.hotelRepository = hotelRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        snapshot = Snapshot.EMPTY.with(hotelRepository.findAllLocations());
+    }
+
+    /**
+     * Adds the suburb, postcode and name of hotels that were just created.
+     */
+    public synchronized void add(Collection<HotelLocation> locations) {
+        if (!locations.isEmpty()) {
+            snapshot = snapshot.with(locations);
+        }
+    }
+
+    /**
+     * @return Up to {@code limit} suggestions with a word starting with {@code query}, in key order. Empty for a
+     * blank query.
+     */
+    public List<Suggestion> suggest(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        Snapshot current = snapshot;
+        Set<Suggestion> found = new LinkedHashSet<>();
+        for (int i = current.lowerBound(prefix); i < current.keys.length && found.size() < limit; i++) {
+            if (!current.keys[i].startsWith(prefix)) {
+                break;
+            }
+            found.add(current.suggestions[i]);
+        }
+        return new ArrayList<>(found);
+    }
+
+    public int size() {
+        return snapshot.known.size();
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                normalized.append(Character.toUpperCase(c));
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * @return The key starting at every word of {@code text}.
+     */
+    private static List<String> wordKeys(String text) {
+        String normalized = normalize(text);
+        List<String> keys = new ArrayList<>();
+        if (!normalized.isEmpty()) {
+            keys.add(normalized);
+        }
+        for (int i = normalized.indexOf(' '); i != -1; i = normalized.indexOf(' ', i + 1)) {
+            keys.add(normalized.substring(i + 1));
+        }
+        return keys;
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final String key;
+        private final Suggestion suggestion;
+
+        Entry(String key, Suggestion suggestion) {
+            this.key = key;
+            this.suggestion = suggestion;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return key.compareTo(other.key);
+        }
+    }
+
+    /**
+     * An immutable generation of the index.
+     */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new String[0], new Suggestion[0], Set.of());
+
+        private final String[] keys;
+        private final Suggestion[] suggestions;
+        private final Set<Suggestion> known;
+
+        Snapshot(String[] keys, Suggestion[] suggestions, Set<Suggestion> known) {
+            this.keys = keys;
+            this.suggestions = suggestions;
+            this.known = known;
+        }
+
+        Snapshot with(Collection<HotelLocation> locations) {
+            Set<Suggestion> nextKnown = new HashSet<>(known);
+            List<Entry> added = new ArrayList<>();
+            for (HotelLocation location : locations) {
+                addEntries(Suggestion.suburb(location), wordKeys(location.getSuburb()), nextKnown, added);
+                addEntries(Suggestion.postcode(location), wordKeys(location.getPostcode()), nextKnown, added);
+                addEntries(Suggestion.hotel(location), wordKeys(location.getName()), nextKnown, added);
+            }
+            if (added.isEmpty()) {
+                return this;
+            }
+            Collections.sort(added);
+
+            int size = keys.length + added.size();
+            String[] nextKeys = new String[size];
+            Suggestion[] nextSuggestions = new Suggestion[size];
+            int existing = 0;
+            int fresh = 0;
+            for (int i = 0; i < size; i++) {
+                if (fresh == added.size()
+                        || existing < keys.length && keys[existing].compareTo(added.get(fresh).key) <= 0) {
+                    nextKeys[i] = keys[existing];
+                    nextSuggestions[i] = suggestions[existing++];
+                } else {
+                    Entry entry = added.get(fresh++);
+                    nextKeys[i] = entry.key;
+                    nextSuggestions[i] = entry.suggestion;
+                }
+            }
+            return new Snapshot(nextKeys, nextSuggestions, nextKnown);
+        }
+
+        private static void addEntries(Suggestion suggestion, List<String> keys, Set<Suggestion> known,
+                                       List<Entry> added) {
+            if (known.add(suggestion)) {
+                keys.forEach(key -> added.add(new Entry(key, suggestion)));
+            }
+        }
+
+        /**
+         * @return The index of the first key not less than {@code prefix}.
+         */
+        int lowerBound(String prefix) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.demo.util;
+
+import com.demo.domain.Hotel;
+import com.demo.reservation.flow.forms.ReservationFlow;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring5.expression.ThymeleafEvaluationContext;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Renders fragments whose output only depends on one entity (or a small amount of flow state) and keeps the html.
+ * Templates insert the result with {@code th:utext}, for example {@code ${@fragmentCache.hotelRow(hotel)}}.
+ *
+ * <p>Each entry is keyed by the fragment and entity id and remembers the version it was rendered from, a newer
+ * version replaces it. There is at most one entry per hotel so the cache is bounded by the catalogue.</p>
+ *
+ * <p>Links are rendered once and shown to every visitor, so they must not depend on the session. This holds because
+ * {@code server.servlet.session.tracking-modes} is {@code cookie}, the response never rewrites a link with a
+ * {@code ;jsessionid}.</p>
+ *
+ * <p>Storing follows {@code spring.thymeleaf.cache}, in development every call renders the fragment so template
+ * edits show straight away.</p>
+ */
+public class FragmentCache {
+    private final Supplier<ITemplateEngine> templateEngine;
+    private final ApplicationContext applicationContext;
+    private final boolean enabled;
+
+    private final Map<List<Object>, Rendered> cache = new ConcurrentHashMap<>();
+
+    public FragmentCache(Supplier<ITemplateEngine> templateEngine, ApplicationContext applicationContext, boolean enabled) {
+        this.templateEngine = templateEngine;
+        this.applicationContext = applicationContext;
+        this.enabled = enabled;
+    }
+
+    /**
+     * A row of the hotel search results, {@code hotel/fragments :: hotelRow}.
+     */
+    public String hotelRow(Hotel hotel) {
+        return render("hotel/fragments", "hotelRow", Arrays.asList("hotelRow", hotel.getId()), hotel.getVersion(),
+                () -> Map.of("hotel", hotel));
+    }
+
+    /**
+     * The hotel details shown above its rooms, {@code hotel/fragments :: hotelSummary}.
+     */
+    public String hotelSummary(Hotel hotel) {
+        return render("hotel/fragments", "hotelSummary", Arrays.asList("hotelSummary", hotel.getId()),
+                hotel.getVersion(), () -> Map.of("hotel", hotel));
+    }
+
+    /**
+     * The step header of the reservation flow. It only depends on which step is active and which are completed, so
+     * there are at most 6 * 64 variants and the version is unused.
+     */
+    public String reservationFlowSteps(ReservationFlow reservationFlow) {
+        int completed = 0;
+        for (ReservationFlow.Step step : ReservationFlow.Step.values()) {
+            if (reservationFlow.isCompleted(step)) {
+                completed |= 1 << step.ordinal();
+            }
+        }
+        return render("reservation/fragments", "reservationFlowSteps",
+                Arrays.asList("reservationFlowSteps", reservationFlow.getActiveStep(), completed), null,
+                () -> Map.of("reservationFlow", reservationFlow));
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private String render(String template, String fragment, List<Object> key, Long version,
+                          Supplier<Map<String, Object>> variables) {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        Locale locale = RequestContextUtils.getLocale(attributes.getRequest());
+
+        List<Object> localizedKey = new ArrayList<>(key);
+        localizedKey.add(locale);
+
+        if (enabled) {
+            Rendered rendered = cache.get(localizedKey);
+            if (rendered != null && Objects.equals(rendered.version, version)) {
+                return rendered.html;
+            }
+        }
+
+        String html = process(template, fragment, attributes, locale, variables.get());
+        if (enabled) {
+            cache.put(localizedKey, new Rendered(version, html));
+        }
+        return html;
+    }
+
+    /**
+     * Processes the fragment the way {@code ThymeleafView} processes a page so links, messages and conversions
+     * behave the same.
+     */
+    private String process(String template, String fragment, ServletRequestAttributes attributes, Locale locale,
+                           Map<String, Object> variables) {
+        HttpServletRequest request = attributes.getRequest();
+        Map<String, Object> contextVariables = new HashMap<>(variables);
+        ConversionService conversionService =
+                (ConversionService) request.getAttribute(ConversionService.class.getName());
+        contextVariables.put(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME,
+                new ThymeleafEvaluationContext(applicationContext, conversionService));
+
+        WebContext context = new WebContext(request, attributes.getResponse(), request.getServletContext(),
+                locale, contextVariables);
+        return templateEngine.get().process(template, Set.of(fragment), context);
+    }
+
+    private static class Rendered {
+        private final Long version;
+        private final String html;
+
+        Rendered(Long version, String html) {
+            this.version = version;
+            this.html = html;
+        }
+    }
+}
@@ -54,4 +54,21 @@ function enhancedAjaxHandler(dimmerMessage, f) {
             showDimmer(dimmerMessage);
         }
     }, MAX_SERVER_RESPONSE_TIME_MS);
-}
\ No newline at end of file
+}
+
+/**
+ * Applies the amounts returned when an extra or meal is ticked to the quick summary.
+ *
+ * @param amounts Formatted amounts keyed by cell id, null hides the row of that cell.
+ */
+function updateQuoteAmounts(amounts) {
+    $.each(amounts, function (id, amount) {
+        var cell = $('#' + id);
+        if (amount === null) {
+            cell.closest('tr').hide();
+        } else {
+            cell.text(amount);
+            cell.closest('tr').show();
+        }
+    });
+}
@@ -0,0 +1,93 @@
+package com.demo.availability;
+
+import com.demo.TimeProvider;
+import com.demo.persistance.RoomRepository;
+import com.demo.reservation.ReservationRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AvailabilityIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2018, 3, 10);
+
+    private TimeProvider timeProvider;
+    private AvailabilityIndex index;
+
+    @Before
+    public void setup() {
+        RoomRepository roomRepository = mock(RoomRepository.class);
+        ReservationRepository reservationRepository = mock(ReservationRepository.class);
+        timeProvider = mock(TimeProvider.class);
+        when(timeProvider.localDate()).thenReturn(TODAY);
+
+        when(roomRepository.findAllRoomRefs()).thenReturn(List.of(
+                new RoomRef(1L, 10L), new RoomRef(2L, 10L), new RoomRef(3L, 20L)));
+        when(reservationRepository.findAllBookedNightsFrom(any(LocalDate.class))).thenReturn(List.of(
+                new BookedNights(1L, TODAY.minusDays(2), TODAY.plusDays(2)),
+                new BookedNights(2L, TODAY.plusDays(5), TODAY.plusDays(8))));
+
+        index = new AvailabilityIndex(roomRepository, reservationRepository, timeProvider, new AvailabilityVersion(),
+                365);
+        index.rebuild();
+    }
+
+    @Test
+    public void availableRooms_ExcludesBookedRooms() {
+        assertThat(index.availableRooms(10L, TODAY, TODAY.plusDays(1))).containsExactly(2L);
+        assertThat(index.availableRooms(10L, TODAY.plusDays(2), TODAY.plusDays(5))).containsExactly(1L, 2L);
+        assertThat(index.availableRooms(10L, TODAY.plusDays(1), TODAY.plusDays(6))).isEmpty();
+        assertThat(index.availableRooms(20L, TODAY, TODAY.plusDays(30))).containsExactly(3L);
+    }
+
+    @Test
+    public void availableRooms_UnknownHotel() {
+        assertThat(index.availableRooms(99L, TODAY, TODAY.plusDays(1))).isEmpty();
+    }
+
+    /**
+     * Nights in the past or beyond the horizon can not be booked.
+     */
+    @Test
+    public void isAvailable_OutsideHorizon() {
+        assertThat(index.isAvailable(3L, TODAY.minusDays(1), TODAY.plusDays(1))).isFalse();
+        assertThat(index.isAvailable(3L, TODAY.plusDays(360), TODAY.plusDays(366))).isFalse();
+        assertThat(index.isAvailable(3L, TODAY.plusDays(360), TODAY.plusDays(365))).isTrue();
+    }
+
+    @Test
+    public void claim_SecondClaimForSameNightsFails() {
+        assertThat(index.claim(3L, TODAY.plusDays(1), TODAY.plusDays(3))).isTrue();
+        assertThat(index.claim(3L, TODAY.plusDays(2), TODAY.plusDays(4))).isFalse();
+        assertThat(index.isAvailable(3L, TODAY.plusDays(3), TODAY.plusDays(4))).isTrue();
+
+        index.release(3L, TODAY.plusDays(1), TODAY.plusDays(3));
+        assertThat(index.claim(3L, TODAY.plusDays(2), TODAY.plusDays(4))).isTrue();
+    }
+
+    @Test
+    public void registerRoom_NewRoomIsFree() {
+        index.registerRoom(20L, 4L);
+        assertThat(index.availableRooms(20L, TODAY, TODAY.plusDays(1))).containsExactly(3L, 4L);
+    }
+
+    /**
+     * Moving past a whole word of nights rolls every calendar while keeping existing bookings.
+     */
+    @Test
+    public void rollsForwardAsDaysPass() {
+        index.claim(3L, TODAY.plusDays(100), TODAY.plusDays(102));
+        LocalDate later = TODAY.plusDays(80);
+        when(timeProvider.localDate()).thenReturn(later);
+
+        assertThat(index.isAvailable(3L, TODAY.plusDays(100), TODAY.plusDays(101))).isFalse();
+        assertThat(index.isAvailable(3L, later.plusDays(300), later.plusDays(365))).isTrue();
+    }
+}
@@ -0,0 +1,132 @@
+package com.demo.availability;
+
+import com.demo.TimeProvider;
+import com.demo.persistance.RoomRepository;
+import com.demo.reservation.ReservationRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RoomHoldsTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2018, 3, 10);
+    private static final long TTL_MILLIS = 15 * 60_000;
+
+    private TimeProvider timeProvider;
+    private AvailabilityIndex index;
+    private RoomHolds holds;
+    private long now = 1_000_000;
+
+    @Before
+    public void setup() {
+        RoomRepository roomRepository = mock(RoomRepository.class);
+        ReservationRepository reservationRepository = mock(ReservationRepository.class);
+        timeProvider = mock(TimeProvider.class);
+        when(timeProvider.localDate()).thenReturn(TODAY);
+        when(timeProvider.currentTimeMillis()).thenAnswer(invocation -> now);
+
+        when(roomRepository.findAllRoomRefs()).thenReturn(List.of(new RoomRef(1L, 10L), new RoomRef(2L, 10L)));
+        when(reservationRepository.findAllBookedNightsFrom(any(LocalDate.class))).thenReturn(List.of());
+
+        index = new AvailabilityIndex(roomRepository, reservationRepository, timeProvider, new AvailabilityVersion(),
+                365);
+        index.rebuild();
+        holds = new RoomHolds(index, timeProvider, 15);
+    }
+
+    @Test
+    public void hold_NightsUnavailableToOthers() {
+        Optional<UUID> holdId = holds.hold(1L, TODAY.plusDays(1), TODAY.plusDays(4));
+
+        assertThat(holdId).isPresent();
+        assertThat(index.availableRooms(10L, TODAY.plusDays(3), TODAY.plusDays(5))).containsExactly(2L);
+        assertThat(holds.hold(1L, TODAY.plusDays(3), TODAY.plusDays(5))).isEmpty();
+        assertThat(holds.hold(1L, TODAY.plusDays(4), TODAY.plusDays(5))).isPresent();
+    }
+
+    @Test
+    public void release_NightsAvailableAgain() {
+        UUID holdId = holds.hold(1L, TODAY.plusDays(1), TODAY.plusDays(4)).get();
+
+        holds.release(holdId);
+        holds.release(holdId);
+
+        assertThat(index.isAvailable(1L, TODAY.plusDays(1), TODAY.plusDays(4))).isTrue();
+        assertThat(holds.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void expireHolds_OnlyPastTheirTimeToLive() {
+        UUID first = holds.hold(1L, TODAY.plusDays(1), TODAY.plusDays(4)).get();
+        now += 60_000;
+        holds.hold(2L, TODAY.plusDays(1), TODAY.plusDays(4));
+
+        now += TTL_MILLIS - 60_000;
+        assertThat(holds.expireHolds()).isEqualTo(1);
+
+        assertThat(holds.renew(first)).isFalse();
+        assertThat(index.availableRooms(10L, TODAY.plusDays(1), TODAY.plusDays(4))).containsExactly(1L);
+        assertThat(holds.size()).isEqualTo(1);
+    }
+
+    /**
+     * Each step of the flow renews the hold so an active flow keeps its nights however long it takes.
+     */
+    @Test
+    public void renew_ExtendsTimeToLive() {
+        UUID holdId = holds.hold(1L, TODAY.plusDays(1), TODAY.plusDays(4)).get();
+
+        for (int step = 0; step < 5; step++) {
+            now += TTL_MILLIS - 1;
+            assertThat(holds.renew(holdId)).isTrue();
+            assertThat(holds.expireHolds()).isEqualTo(0);
+        }
+
+        now += TTL_MILLIS;
+        assertThat(holds.expireHolds()).isEqualTo(1);
+        assertThat(index.isAvailable(1L, TODAY.plusDays(1), TODAY.plusDays(4))).isTrue();
+    }
+
+    @Test
+    public void book_HeldNightsStayClaimed() {
+        UUID holdId = holds.hold(1L, TODAY.plusDays(1), TODAY.plusDays(4)).get();
+
+        assertThat(holds.book(holdId, 1L, TODAY.plusDays(1), TODAY.plusDays(4))).isTrue();
+
+        now += 2 * TTL_MILLIS;
+        assertThat(holds.expireHolds()).isEqualTo(0);
+        assertThat(index.isAvailable(1L, TODAY.plusDays(1), TODAY.plusDays(4))).isFalse();
+    }
+
+    /**
+     * Once the hold has expired the nights are booked only if nobody else took them in the meantime.
+     */
+    @Test
+    public void book_ExpiredHold_ClaimsFreeNights() {
+        UUID holdId = holds.hold(1L, TODAY.plusDays(1), TODAY.plusDays(4)).get();
+        now += TTL_MILLIS;
+        holds.expireHolds();
+
+        assertThat(holds.book(holdId, 1L, TODAY.plusDays(1), TODAY.plusDays(4))).isTrue();
+        assertThat(holds.book(null, 1L, TODAY.plusDays(2), TODAY.plusDays(3))).isFalse();
+    }
+
+    @Test
+    public void book_HoldForOtherDates_Released() {
+        UUID holdId = holds.hold(1L, TODAY.plusDays(1), TODAY.plusDays(4)).get();
+
+        assertThat(holds.book(holdId, 1L, TODAY.plusDays(10), TODAY.plusDays(12))).isTrue();
+
+        assertThat(index.isAvailable(1L, TODAY.plusDays(1), TODAY.plusDays(4))).isTrue();
+        assertThat(holds.size()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,91 @@
+package com.demo.availability;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RoomNightCalendarTest {
+
+    private static final long BASE = 17_000;
+
+    @Test
+    public void isFree_EmptyCalendar() {
+        RoomNightCalendar calendar = new RoomNightCalendar(BASE, 365);
+        assertThat(calendar.isFree(BASE, BASE + 1)).isTrue();
+        assertThat(calendar.isFree(BASE, BASE + 365)).isTrue();
+    }
+
+    /**
+     * Ranges that are empty, start before the calendar or end after it are never free.
+     */
+    @Test
+    public void isFree_OutOfRange() {
+        RoomNightCalendar calendar = new RoomNightCalendar(BASE, 365);
+        assertThat(calendar.isFree(BASE, BASE)).isFalse();
+        assertThat(calendar.isFree(BASE - 1, BASE + 2)).isFalse();
+        assertThat(calendar.isFree(BASE, calendar.getEndEpochDay() + 1)).isFalse();
+    }
+
+    /**
+     * The check out night is exclusive so back to back stays do not overlap.
+     */
+    @Test
+    public void claim_BackToBackStays() {
+        RoomNightCalendar calendar = new RoomNightCalendar(BASE, 365);
+        assertThat(calendar.claim(BASE + 3, BASE + 6)).isTrue();
+
+        assertThat(calendar.isFree(BASE, BASE + 3)).isTrue();
+        assertThat(calendar.isFree(BASE + 6, BASE + 10)).isTrue();
+        assertThat(calendar.isFree(BASE + 5, BASE + 7)).isFalse();
+        assertThat(calendar.claim(BASE + 5, BASE + 7)).isFalse();
+
+        // the failed claim must not have marked any nights
+        assertThat(calendar.isFree(BASE + 6, BASE + 7)).isTrue();
+    }
+
+    /**
+     * Exercises the first, middle and last word masks.
+     */
+    @Test
+    public void claim_SpansWords() {
+        RoomNightCalendar calendar = new RoomNightCalendar(BASE, 365);
+        assertThat(calendar.claim(BASE + 150, BASE + 151)).isTrue();
+
+        assertThat(calendar.isFree(BASE + 60, BASE + 150)).isTrue();
+        assertThat(calendar.isFree(BASE + 151, BASE + 300)).isTrue();
+        assertThat(calendar.isFree(BASE + 10, BASE + 300)).isFalse();
+        assertThat(calendar.isFree(BASE + 63, BASE + 65)).isTrue();
+
+        assertThat(calendar.claim(BASE + 63, BASE + 129)).isTrue();
+        assertThat(calendar.isFree(BASE + 62, BASE + 63)).isTrue();
+        assertThat(calendar.isFree(BASE + 128, BASE + 129)).isFalse();
+        assertThat(calendar.isFree(BASE + 129, BASE + 150)).isTrue();
+    }
+
+    @Test
+    public void release_FreesNights() {
+        RoomNightCalendar calendar = new RoomNightCalendar(BASE, 365);
+        calendar.claim(BASE + 10, BASE + 80);
+        calendar.release(BASE + 10, BASE + 80);
+        assertThat(calendar.isFree(BASE, BASE + 365)).isTrue();
+    }
+
+    /**
+     * Rolling drops whole words and keeps bookings at the same absolute nights.
+     */
+    @Test
+    public void rollTo_KeepsAbsoluteNights() {
+        RoomNightCalendar calendar = new RoomNightCalendar(BASE, 365);
+        calendar.claim(BASE + 100, BASE + 102);
+        long end = calendar.getEndEpochDay();
+
+        calendar.rollTo(BASE + 63);
+        assertThat(calendar.getBaseEpochDay()).isEqualTo(BASE);
+
+        calendar.rollTo(BASE + 70);
+        assertThat(calendar.getBaseEpochDay()).isEqualTo(BASE + 64);
+        assertThat(calendar.getEndEpochDay()).isEqualTo(end + 64);
+        assertThat(calendar.isFree(BASE + 100, BASE + 102)).isFalse();
+        assertThat(calendar.isFree(BASE + 102, BASE + 400)).isTrue();
+    }
+}
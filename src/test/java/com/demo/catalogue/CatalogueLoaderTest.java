@@ -0,0 +1,179 @@
+package com.demo.catalogue;
+
+import com.demo.availability.AvailabilityIndex;
+import com.demo.facet.FacetIndex;
+import com.demo.geo.HotelGeoIndex;
+import com.demo.geo.HotelPoint;
+import com.demo.persistance.HotelRepository;
+import com.demo.persistance.RoomRepository;
+import com.demo.reservation.ExtraRepository;
+import com.demo.reservation.ExtrasService;
+import com.demo.suggest.HotelLocation;
+import com.demo.suggest.SuggestionIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.io.StringReader;
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(CatalogueLoader.class)
+@TestPropertySource(properties = {
+        "catalogue.import.chunk-size=4",
+        "catalogue.import.batch-size=3"
+})
+public class CatalogueLoaderTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        public ObjectMapper objectMapper() {
+            return Jackson2ObjectMapperBuilder.json().build();
+        }
+
+        @Bean
+        public LocalValidatorFactoryBean validator() {
+            return new LocalValidatorFactoryBean();
+        }
+    }
+
+    @Autowired
+    private CatalogueLoader catalogueLoader;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private ExtraRepository extraRepository;
+
+    @MockBean
+    private ExtrasService extrasService;
+
+    @MockBean
+    private AvailabilityIndex availabilityIndex;
+
+    @MockBean
+    private SuggestionIndex suggestionIndex;
+
+    @MockBean
+    private HotelGeoIndex hotelGeoIndex;
+
+    @MockBean
+    private FacetIndex facetIndex;
+
+    @Test
+    public void load_DemoCatalogue() throws Exception {
+        ImportReport report = catalogueLoader.load(new ClassPathResource("catalogue/demo-catalogue.jsonl"), false);
+
+        assertThat(report.hasErrors()).isFalse();
+        assertThat(report.getHotels()).isEqualTo(6);
+        assertThat(report.getRooms()).isEqualTo(24);
+        assertThat(report.getExtras()).isEqualTo(13);
+        // 19 lines in chunks of 4
+        assertThat(report.getChunks()).isEqualTo(5);
+
+        assertThat(hotelRepository.count()).isEqualTo(6);
+        assertThat(roomRepository.count()).isEqualTo(24);
+        assertThat(extraRepository.count()).isEqualTo(13);
+        assertThat(hotelRepository.findAllByLocation("VIC", "carlton", null, PageRequest.of(0, 5)))
+                .extracting(hotel -> hotel.getRooms().size()).containsExactly(4);
+
+        verify(availabilityIndex, times(24)).registerRoom(anyLong(), anyLong());
+        verify(extrasService, times(1)).reload();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<HotelLocation>> suggested = ArgumentCaptor.forClass(Collection.class);
+        verify(suggestionIndex, atLeastOnce()).add(suggested.capture());
+        assertThat(suggested.getAllValues().stream().flatMap(Collection::stream).map(HotelLocation::getSuburb))
+                .contains("Carlton").hasSize(6);
+
+        assertThat(hotelRepository.findAllPoints()).hasSize(6);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<HotelPoint>> points = ArgumentCaptor.forClass(Collection.class);
+        verify(hotelGeoIndex, atLeastOnce()).add(points.capture());
+        assertThat(points.getAllValues().stream().mapToInt(Collection::size).sum()).isEqualTo(6);
+
+        assertThat(hotelRepository.findAllFacetRows()).hasSize(6);
+        verify(facetIndex, atLeastOnce()).add(anyCollection(), anyCollection());
+    }
+
+    /**
+     * A dry run reports every invalid line using the address bean validation constraints and writes nothing.
+     */
+    @Test
+    public void load_DryRun_ReportsInvalidLines() throws Exception {
+        String catalogue = String.join("\n",
+                "{\"type\":\"extra\",\"description\":\"Foxtel\",\"perNightPrice\":1.20,\"pricing\":\"Basic\",\"category\":\"General\"}",
+                hotel("A1", "3000", "1 kent street"),
+                hotel("B1", "30", "1 kent street"),
+                "",
+                hotel("C1", "3000", ""),
+                "{\"type\":\"hotel\",",
+                "{\"type\":\"spaceship\"}");
+
+        ImportReport report = catalogueLoader.load(new StringReader(catalogue), true);
+
+        assertThat(report.isDryRun()).isTrue();
+        assertThat(report.getLines()).isEqualTo(6);
+        assertThat(report.getHotels()).isEqualTo(1);
+        assertThat(report.getRooms()).isEqualTo(1);
+        assertThat(report.getExtras()).isEqualTo(1);
+        assertThat(report.getErrorCount()).isEqualTo(4);
+        assertThat(report.getErrors()).anyMatch(e -> e.startsWith("line 3: address.postcode.value: Postcode must be 4 digits"));
+        assertThat(report.getErrors()).anyMatch(e -> e.startsWith("line 5: address.streetLine1: required"));
+        assertThat(report.getErrors()).anyMatch(e -> e.startsWith("line 6: "));
+        assertThat(report.getErrors()).anyMatch(e -> e.startsWith("line 7: "));
+
+        assertThat(hotelRepository.count()).isEqualTo(0);
+        assertThat(extraRepository.count()).isEqualTo(0);
+        verifyZeroInteractions(availabilityIndex, extrasService);
+    }
+
+    /**
+     * Invalid lines are skipped while the rest of the file is still imported.
+     */
+    @Test
+    public void load_SkipsInvalidLines() throws Exception {
+        String catalogue = String.join("\n",
+                hotel("A1", "3000", "1 kent street"),
+                hotel("B1", "VIC", "1 kent street"),
+                hotel("C1", "3053", "2 smith street"));
+
+        ImportReport report = catalogueLoader.load(new StringReader(catalogue), false);
+
+        assertThat(report.getErrorCount()).isEqualTo(1);
+        assertThat(report.getHotels()).isEqualTo(2);
+        assertThat(roomRepository.count()).isEqualTo(2);
+        verify(extrasService, never()).reload();
+    }
+
+    private static String hotel(String roomNumber, String postcode, String street) {
+        return "{\"type\":\"hotel\",\"name\":\"Hotel " + roomNumber + "\",\"email\":\"hotel@hotel.com\",\"stars\":3," +
+                "\"address\":{\"streetLine1\":\"" + street + "\",\"state\":\"VIC\",\"suburb\":\"Carlton\"," +
+                "\"postcode\":\"" + postcode + "\"}," +
+                "\"rooms\":[{\"roomNumber\":\"" + roomNumber + "\",\"roomType\":\"Economy\",\"beds\":2,\"costPerNight\":50.00}]}";
+    }
+}
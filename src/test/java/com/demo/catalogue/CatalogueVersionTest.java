@@ -0,0 +1,70 @@
+package com.demo.catalogue;
+
+import com.demo.domain.Hotel;
+import com.demo.domain.Room;
+import com.demo.domain.RoomType;
+import com.demo.domain.location.Address;
+import com.demo.domain.location.Postcode;
+import com.demo.domain.location.State;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(CatalogueVersion.class)
+public class CatalogueVersionTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CatalogueVersion catalogueVersion;
+
+    private Room room;
+
+    @Before
+    public void setup() {
+        Hotel hotel = new Hotel("Hotel Royal",
+                new Address("Hotel Royal", "33 kent street", null,
+                        State.VIC, "Melbourne", new Postcode("3000")),
+                4, "royal@hotel.com");
+        room = new Room("A", RoomType.Luxury, 2, BigDecimal.valueOf(63.3));
+        hotel.addRoom(room);
+        entityManager.persistAndFlush(hotel);
+        catalogueVersion.increment();
+    }
+
+    /**
+     * The version comes from the stored catalogue, a change that wrote nothing hands out the same tag.
+     */
+    @Test
+    public void get_NothingWritten_SameVersion() {
+        long version = catalogueVersion.get();
+
+        catalogueVersion.increment();
+
+        assertThat(catalogueVersion.get()).isEqualTo(version);
+    }
+
+    @Test
+    public void get_RoomUpdated_NewVersionOnceIncremented() {
+        long version = catalogueVersion.get();
+
+        room.setCostPerNight(BigDecimal.valueOf(70));
+        entityManager.flush();
+        assertThat(catalogueVersion.get()).isEqualTo(version);
+
+        catalogueVersion.increment();
+        assertThat(catalogueVersion.get()).isNotEqualTo(version);
+    }
+}
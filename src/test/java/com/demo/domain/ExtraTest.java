@@ -21,6 +21,6 @@ public class ExtraTest {
         Extra extra = new Extra("a", perNightPrice, Extra.Type.Basic, Extra.Category.General);
 
         assertThat(extra.getTotalPrice(totalNights))
-                .isEqualTo(perNightPrice.multiply(BigDecimal.valueOf(totalNights)));
+                .isEqualByComparingTo(perNightPrice.multiply(BigDecimal.valueOf(totalNights)));
     }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.demo.domain;
 import org.junit.Test;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Set;
@@ -126,7 +127,7 @@ public class MealPlanTest {
 
         MealPlan mealPlan = new MealPlan(guest, reservation, List.of(), List.of());
 
-        assertThat(mealPlan.getTotalMealPlanCost()).isEqualTo(BigDecimal.ZERO);
+        assertThat(mealPlan.getTotalMealPlanCost()).isEqualByComparingTo(BigDecimal.ZERO);
     }
 
     /**
@@ -156,7 +157,7 @@ public class MealPlanTest {
                 .add(lunchPerNight.multiply(totalNights))
                 .add(dinnerPerNight.multiply(totalNights));
 
-        assertThat(mealPlan.getTotalMealPlanCost()).isEqualTo(foodExtrasTotal);
+        assertThat(mealPlan.getTotalMealPlanCost()).isEqualByComparingTo(foodExtrasTotal);
     }
 
     /**
@@ -181,25 +182,28 @@ public class MealPlanTest {
                 new Extra("Dinner", dinnerPerNight, Extra.Type.Basic, Extra.Category.Food)
         );
 
-        // apply discount to breakfast for the total night duration
+        // apply discount to breakfast for the total night duration, each discount is rounded to the cent
         BigDecimal breakFastDiscount = breakfastPerNight.multiply(totalNights)
-                .multiply(BigDecimal.valueOf(MealPlan.CHILD_DISCOUNT_PERCENT));
+                .multiply(BigDecimal.valueOf(MealPlan.CHILD_DISCOUNT_PERCENT))
+                .setScale(2, RoundingMode.HALF_UP);
         BigDecimal breakFastTotal = breakfastPerNight.multiply(totalNights).subtract(breakFastDiscount);
 
         // apply discount to lunch for the total night duration
         BigDecimal lunchPerNightDiscount = lunchPerNight.multiply(totalNights)
-                .multiply(BigDecimal.valueOf(MealPlan.CHILD_DISCOUNT_PERCENT));
+                .multiply(BigDecimal.valueOf(MealPlan.CHILD_DISCOUNT_PERCENT))
+                .setScale(2, RoundingMode.HALF_UP);
         BigDecimal lunchTotal = lunchPerNight.multiply(totalNights).subtract(lunchPerNightDiscount);
 
         // apply discount to dinner for the total night duration
         BigDecimal dinnerPerNightDiscount = dinnerPerNight.multiply(totalNights)
-                .multiply(BigDecimal.valueOf(MealPlan.CHILD_DISCOUNT_PERCENT));
+                .multiply(BigDecimal.valueOf(MealPlan.CHILD_DISCOUNT_PERCENT))
+                .setScale(2, RoundingMode.HALF_UP);
         BigDecimal dinnerTotal = dinnerPerNight.multiply(totalNights).subtract(dinnerPerNightDiscount);
 
         MealPlan mealPlan = new MealPlan(guest, reservation, foodExtras, List.of());
 
         BigDecimal foodExtrasTotal = breakFastTotal.add(lunchTotal).add(dinnerTotal);
-        assertThat(mealPlan.getTotalMealPlanCost()).isEqualTo(foodExtrasTotal);
+        assertThat(mealPlan.getTotalMealPlanCost()).isEqualByComparingTo(foodExtrasTotal);
     }
 
     @Test
@@ -235,7 +239,7 @@ public class MealPlanTest {
         BigDecimal expectedExtraCost = breakfastPerNight.multiply(totalNights);
         Extra extra = new Extra("Breakfast", breakfastPerNight, Extra.Type.Basic, Extra.Category.Food);
 
-        assertThat(mealPlan.calculateExtraCost(extra)).isEqualTo(expectedExtraCost);
+        assertThat(mealPlan.calculateExtraCost(extra)).isEqualByComparingTo(expectedExtraCost);
     }
 
     @Test
@@ -253,12 +257,13 @@ public class MealPlanTest {
         MealPlan mealPlan = new MealPlan(guest, reservation, List.of(), List.of());
 
         BigDecimal discount = breakfastPerNight.multiply(totalNights)
-                .multiply(BigDecimal.valueOf(MealPlan.CHILD_DISCOUNT_PERCENT));
+                .multiply(BigDecimal.valueOf(MealPlan.CHILD_DISCOUNT_PERCENT))
+                .setScale(2, RoundingMode.HALF_UP);
         BigDecimal expectedTotal = breakfastPerNight.multiply(totalNights).subtract(discount);
 
         Extra extra = new Extra("Breakfast", breakfastPerNight, Extra.Type.Basic, Extra.Category.Food);
 
-        assertThat(mealPlan.calculateExtraCost(extra)).isEqualTo(expectedTotal);
+        assertThat(mealPlan.calculateExtraCost(extra)).isEqualByComparingTo(expectedTotal);
     }
 
     /**
@@ -3,6 +3,7 @@ package com.demo.domain;
 import com.demo.domain.location.Address;
 import com.demo.domain.location.Postcode;
 import com.demo.domain.location.State;
+import com.demo.domain.pricing.Quote;
 import org.junit.Test;
 
 import java.math.BigDecimal;
@@ -12,7 +13,6 @@ import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.*;
-import static org.mockito.Mockito.*;
 
 public class ReservationTest {
 
@@ -224,7 +224,7 @@ public class ReservationTest {
         // enable late checkout
         reservation.getDates().setLateCheckout(true);
 
-        assertThat(reservation.getChargeableLateCheckoutFee()).isEqualTo(lateCheckoutFee);
+        assertThat(reservation.getChargeableLateCheckoutFee()).isEqualByComparingTo(lateCheckoutFee);
     }
 
     /**
@@ -242,7 +242,7 @@ public class ReservationTest {
         // no late checkout = $0.00
         reservation.getDates().setLateCheckout(false);
 
-        assertThat(reservation.getChargeableLateCheckoutFee()).isEqualTo(BigDecimal.ZERO);
+        assertThat(reservation.getChargeableLateCheckoutFee()).isEqualByComparingTo(BigDecimal.ZERO);
     }
 
     /**
@@ -261,7 +261,7 @@ public class ReservationTest {
         reservation.setRoom(room);
         reservation.getDates().setLateCheckout(true);
 
-        assertThat(reservation.getLateCheckoutFee()).isEqualTo(BigDecimal.ZERO);
+        assertThat(reservation.getLateCheckoutFee()).isEqualByComparingTo(BigDecimal.ZERO);
     }
 
     /**
@@ -280,7 +280,7 @@ public class ReservationTest {
         reservation.setRoom(room);
         reservation.getDates().setLateCheckout(true);
 
-        assertThat(reservation.getLateCheckoutFee()).isEqualTo(BigDecimal.ZERO);
+        assertThat(reservation.getLateCheckoutFee()).isEqualByComparingTo(BigDecimal.ZERO);
     }
 
     /**
@@ -298,7 +298,7 @@ public class ReservationTest {
         reservation.setRoom(room);
         reservation.getDates().setLateCheckout(true);
 
-        assertThat(reservation.getLateCheckoutFee()).isEqualTo(lateCheckoutFee);
+        assertThat(reservation.getLateCheckoutFee()).isEqualByComparingTo(lateCheckoutFee);
     }
 
     /**
@@ -316,7 +316,7 @@ public class ReservationTest {
         reservation.setRoom(room);
         reservation.getDates().setLateCheckout(true);
 
-        assertThat(reservation.getLateCheckoutFee()).isEqualTo(lateCheckoutFee);
+        assertThat(reservation.getLateCheckoutFee()).isEqualByComparingTo(lateCheckoutFee);
     }
 
     /**
@@ -339,7 +339,7 @@ public class ReservationTest {
         reservation.getDates().setCheckInDate(LocalDate.of(2018, 1, 1));
         reservation.getDates().setCheckOutDate(LocalDate.of(2018, 1, 1));
 
-        assertThat(reservation.getTotalRoomCost()).isEqualTo(BigDecimal.ZERO);
+        assertThat(reservation.getTotalRoomCost()).isEqualByComparingTo(BigDecimal.ZERO);
     }
 
     /**
@@ -363,7 +363,7 @@ public class ReservationTest {
         // expected cost for 3 nights, note how no late fee is considered for this calculation.
         BigDecimal expectedCost = costPerNight.multiply(BigDecimal.valueOf(3));
 
-        assertThat(reservation.getTotalRoomCost()).isEqualTo(expectedCost);
+        assertThat(reservation.getTotalRoomCost()).isEqualByComparingTo(expectedCost);
     }
 
     /**
@@ -389,7 +389,7 @@ public class ReservationTest {
         // expected cost for 3 nights
         BigDecimal expectedCost = costPerNight.multiply(BigDecimal.valueOf(3));
 
-        assertThat(reservation.getTotalRoomCostWithLateCheckoutFee()).isEqualTo(expectedCost);
+        assertThat(reservation.getTotalRoomCostWithLateCheckoutFee()).isEqualByComparingTo(expectedCost);
     }
 
     /**
@@ -416,7 +416,7 @@ public class ReservationTest {
         // expected cost for 3 nights + late fee
         BigDecimal expectedCost = costPerNight.multiply(BigDecimal.valueOf(3)).add(lateCheckoutFee);
 
-        assertThat(reservation.getTotalRoomCostWithLateCheckoutFee()).isEqualTo(expectedCost);
+        assertThat(reservation.getTotalRoomCostWithLateCheckoutFee()).isEqualByComparingTo(expectedCost);
     }
 
     /**
@@ -431,7 +431,7 @@ public class ReservationTest {
         reservation.getDates().setCheckInDate(LocalDate.of(2018, 1, 1));
         reservation.getDates().setCheckOutDate(LocalDate.of(2018, 1, 4));
 
-        assertThat(reservation.getTotalGeneralExtrasCost()).isEqualTo(BigDecimal.ZERO);
+        assertThat(reservation.getTotalGeneralExtrasCost()).isEqualByComparingTo(BigDecimal.ZERO);
     }
 
     /**
@@ -458,7 +458,7 @@ public class ReservationTest {
         BigDecimal expectedSum = BigDecimal.valueOf(1.20).multiply(nights)
                 .add(BigDecimal.valueOf(3.80).multiply(nights));
 
-        assertThat(reservation.getTotalGeneralExtrasCost()).isEqualTo(expectedSum);
+        assertThat(reservation.getTotalGeneralExtrasCost()).isEqualByComparingTo(expectedSum);
     }
 
     /**
@@ -467,7 +467,7 @@ public class ReservationTest {
     @Test
     public void getTotalMealPlansCost_NoMealPlans() {
         Reservation reservation = new Reservation();
-        assertThat(reservation.getTotalMealPlansCost()).isEqualTo(BigDecimal.ZERO);
+        assertThat(reservation.getTotalMealPlansCost()).isEqualByComparingTo(BigDecimal.ZERO);
     }
 
     /**
@@ -510,75 +510,92 @@ public class ReservationTest {
 
         reservation.setMealPlans(List.of(mealPlan1, mealPlan2));
 
-        assertThat(reservation.getTotalMealPlansCost()).isEqualTo(expectedCost);
+        assertThat(reservation.getTotalMealPlansCost()).isEqualByComparingTo(expectedCost);
     }
 
     /**
-     * Ensure that the total cost is calculated by including all the correct sub totals.
+     * Reservation with an economy room, late checkout, one general extra and a child meal plan for 3 nights.
      */
-    @Test
-    public void getTotalCostExcludingTax() {
-        Reservation reservation = mock(Reservation.class);
+    private Reservation createPricedReservation() {
+        Room room = createRoom();
+        room.setCostPerNight(new BigDecimal("23.80"));
+        room.getHotel().setLateCheckoutFee(new BigDecimal("20.50"));
 
-        // mock the sub totals
-        when(reservation.getTotalRoomCostWithLateCheckoutFee()).thenReturn(BigDecimal.valueOf(5));
-        when(reservation.getTotalGeneralExtrasCost()).thenReturn(BigDecimal.valueOf(6));
-        when(reservation.getTotalMealPlansCost()).thenReturn(BigDecimal.valueOf(7));
+        Reservation reservation = new Reservation();
+        reservation.setRoom(room);
+        reservation.getDates().setCheckInDate(LocalDate.of(2018, 1, 1));
+        reservation.getDates().setCheckOutDate(LocalDate.of(2018, 1, 4));
+        reservation.getDates().setLateCheckout(true);
+        reservation.setGeneralExtras(Set.of(
+                new Extra("foxtel", new BigDecimal("1.20"), Extra.Type.Basic, Extra.Category.General)));
 
-        // then call the real method
-        when(reservation.getTotalCostExcludingTax()).thenCallRealMethod();
+        List<Extra> foodExtras = List.of(
+                new Extra("Lunch", new BigDecimal("4.12"), Extra.Type.Basic, Extra.Category.Food));
+        reservation.setMealPlans(List.of(
+                new MealPlan(new Guest("sally", "smith", true), reservation, foodExtras, List.of())));
+        return reservation;
+    }
 
-        // then hope the real method sums everything up correctly
-        assertThat(reservation.getTotalCostExcludingTax()).isEqualTo(BigDecimal.valueOf(18));
+    /**
+     * Ensure that the total cost is calculated by including all the correct sub totals.
+     */
+    @Test
+    public void getTotalCostExcludingTax() {
+        Reservation reservation = createPricedReservation();
 
-        // by actually calling the correct methods!
-        verify(reservation, times(1)).getTotalRoomCostWithLateCheckoutFee();
-        verify(reservation, times(1)).getTotalGeneralExtrasCost();
-        verify(reservation, times(1)).getTotalMealPlansCost();
+        // room 71.40 + late fee 20.50 + extras 3.60 + child lunch (12.36 - 7.42 discount) 4.94
+        assertThat(reservation.getTotalCostExcludingTax()).isEqualByComparingTo("100.44");
+        assertThat(reservation.getTotalCostExcludingTax()).isEqualByComparingTo(
+                reservation.getTotalRoomCostWithLateCheckoutFee()
+                        .add(reservation.getTotalGeneralExtrasCost())
+                        .add(reservation.getTotalMealPlansCost()));
     }
 
     /**
-     * Make sure that the correct tax is calculated from the total cost excluding tax.
+     * Make sure that the correct tax is calculated from the total cost excluding tax and rounded half up to the cent.
      */
     @Test
     public void getTaxableAmount() {
-        Reservation reservation = mock(Reservation.class);
-        // the method under test should not be mocked.
-        when(reservation.getTaxableAmount()).thenCallRealMethod();
-
-        // mock the total cost without tax
-        BigDecimal total = BigDecimal.valueOf(100);
-        when(reservation.getTotalCostExcludingTax()).thenReturn(total);
+        Reservation reservation = createPricedReservation();
 
-        // then apply the tax
-        BigDecimal taxableAmount = total.multiply(BigDecimal.valueOf(Reservation.TAX_AMOUNT));
-        assertThat(reservation.getTaxableAmount()).isEqualTo(taxableAmount);
+        // 10% of 100.44 = 10.044
+        assertThat(reservation.getTaxableAmount()).isEqualByComparingTo("10.04");
 
-        // and make sure getTaxableAmount calls the correct method to base the tax amount off.
-        verify(reservation, times(1)).getTotalCostExcludingTax();
+        // 10% of 100.45 = 10.045 rounds up
+        reservation.getRoom().getHotel().setLateCheckoutFee(new BigDecimal("20.51"));
+        assertThat(reservation.getTaxableAmount()).isEqualByComparingTo("10.05");
     }
 
     @Test
     public void getTotalCostIncludingTax() {
-        Reservation reservation = mock(Reservation.class);
-        // the method under test should not be mocked.
-        when(reservation.getTotalCostIncludingTax()).thenCallRealMethod();
+        Reservation reservation = createPricedReservation();
 
-        // the total cost without tax
-        BigDecimal totalExcludingTax = BigDecimal.valueOf(121.60);
-        when(reservation.getTotalCostExcludingTax()).thenReturn(totalExcludingTax);
+        // should equal the total cost excluding tax + the taxable amount
+        assertThat(reservation.getTotalCostIncludingTax()).isEqualByComparingTo("110.48");
+        assertThat(reservation.getTotalCostIncludingTax()).isEqualByComparingTo(
+                reservation.getTotalCostExcludingTax().add(reservation.getTaxableAmount()));
+    }
+
+    /**
+     * Every total is available from a single quote and matches the individual getters.
+     */
+    @Test
+    public void getQuote_MatchesSubTotals() {
+        Reservation reservation = createPricedReservation();
 
-        // + the taxable amount derived from getTotalCostExcludingTax
-        BigDecimal taxableAmount = BigDecimal.valueOf(20.60);
-        when(reservation.getTaxableAmount()).thenReturn(taxableAmount);
+        Quote quote = reservation.getQuote();
 
-        // should equal the total cost including tax!
-        assertThat(reservation.getTotalCostIncludingTax())
-                .isEqualTo(totalExcludingTax.add(taxableAmount));
+        assertThat(quote.getNights()).isEqualTo(3);
+        assertThat(quote.getRoomCents()).isEqualTo(7140);
+        assertThat(quote.getLateCheckoutFeeCents()).isEqualTo(2050);
+        assertThat(quote.getGeneralExtrasCents()).isEqualTo(360);
+        assertThat(quote.getMealPlansCents()).isEqualTo(494);
+        assertThat(quote.getTaxCents()).isEqualTo(1004);
+        assertThat(quote.getTotalIncludingTaxCents()).isEqualTo(11048);
 
-        // with the method under test calling the correct sub total methods to calculate the result
-        verify(reservation, times(1)).getTotalCostExcludingTax();
-        verify(reservation, times(1)).getTaxableAmount();
+        assertThat(quote.getRoomCost()).isEqualTo(reservation.getTotalRoomCost());
+        assertThat(quote.getTotalIncludingTax()).isEqualTo(reservation.getTotalCostIncludingTax());
+        assertThat(quote.getTotalIncludingTax()).isEqualTo(new BigDecimal("110.48"));
     }
 
 
@@ -0,0 +1,47 @@
+package com.demo.domain.pricing;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class MoneyTest {
+
+    @Test
+    public void toCents_RoundsHalfUp() {
+        assertThat(Money.toCents(new BigDecimal("23.8"))).isEqualTo(2380);
+        assertThat(Money.toCents(new BigDecimal("1.005"))).isEqualTo(101);
+        assertThat(Money.toCents(new BigDecimal("1.004"))).isEqualTo(100);
+        assertThat(Money.toCents(BigDecimal.valueOf(63.3))).isEqualTo(6330);
+    }
+
+    @Test
+    public void toCents_NullIsZero() {
+        assertThat(Money.toCents(null)).isEqualTo(0);
+    }
+
+    @Test
+    public void toDecimal_ScaleOfTwo() {
+        assertThat(Money.toDecimal(7140)).isEqualTo(new BigDecimal("71.40"));
+        assertThat(Money.toDecimal(0)).isEqualTo(new BigDecimal("0.00"));
+    }
+
+    /**
+     * Halves are rounded away from zero in both directions.
+     */
+    @Test
+    public void percentOf_RoundsHalfUp() {
+        assertThat(Money.percentOf(10044, 1000)).isEqualTo(1004);
+        assertThat(Money.percentOf(10045, 1000)).isEqualTo(1005);
+        assertThat(Money.percentOf(1236, 6000)).isEqualTo(742);
+        assertThat(Money.percentOf(-10045, 1000)).isEqualTo(-1005);
+        assertThat(Money.percentOf(0, 1000)).isEqualTo(0);
+    }
+
+    @Test
+    public void percentOf_Overflow_ThrowsException() {
+        assertThatExceptionOfType(ArithmeticException.class)
+                .isThrownBy(() -> Money.percentOf(Long.MAX_VALUE, 1000));
+    }
+}
@@ -0,0 +1,182 @@
+package com.demo.domain.pricing;
+
+import com.demo.domain.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QuoteTrackerTest {
+
+    private Reservation reservation;
+    private Guest child;
+    private Extra foxtel;
+    private Extra parking;
+    private Extra breakfast;
+    private Extra dinner;
+
+    private QuoteTracker tracker;
+
+    @Before
+    public void setup() {
+        reservation = new Reservation();
+        Room room = new Room("A1", RoomType.Business, 4, new BigDecimal("129.95"));
+        room.setId(1L);
+        reservation.setRoom(room);
+        LocalDate checkIn = LocalDate.of(2018, 6, 1);
+        reservation.setDates(new ReservationDates(checkIn, checkIn.plusDays(4), LocalTime.of(14, 0), true, true));
+        reservation.addGuest(new Guest("John", "Smith", false));
+        child = new Guest("Jane", "Smith", true);
+        reservation.addGuest(child);
+
+        foxtel = extra(1L, "Foxtel", "4.50", Extra.Category.General);
+        parking = extra(2L, "Parking", "10.00", Extra.Category.General);
+        breakfast = extra(3L, "Breakfast", "12.00", Extra.Category.Food);
+        dinner = extra(4L, "Dinner", "29.95", Extra.Category.Food);
+
+        reservation.setGeneralExtras(new HashSet<>());
+        reservation.createMealPlans();
+        reservation.getMealPlans().forEach(plan -> plan.setFoodExtras(new ArrayList<>()));
+
+        tracker = new QuoteTracker();
+    }
+
+    private static Extra extra(long id, String description, String perNightPrice, Extra.Category category) {
+        Extra extra = new Extra(description, new BigDecimal(perNightPrice), Extra.Type.Premium, category);
+        extra.setId(id);
+        return extra;
+    }
+
+    @Test
+    public void quote_NoExtras_RoomAndLateCheckoutOnly() {
+        Quote quote = tracker.quote(reservation);
+
+        assertThat(quote).isEqualTo(PriceCalculator.quote(reservation));
+        assertThat(quote.getGeneralExtrasCents()).isEqualTo(0);
+        assertThat(quote.getMealPlansCents()).isEqualTo(0);
+    }
+
+    @Test
+    public void generalExtraToggled_SameAsFullQuote() {
+        tracker.quote(reservation);
+
+        reservation.getGeneralExtras().add(foxtel);
+        assertThat(tracker.generalExtraToggled(reservation, 1L)).isEqualTo(reservation.getQuote());
+
+        reservation.getGeneralExtras().add(parking);
+        assertThat(tracker.generalExtraToggled(reservation, 2L)).isEqualTo(reservation.getQuote());
+
+        reservation.getGeneralExtras().remove(foxtel);
+        assertThat(tracker.generalExtraToggled(reservation, 1L)).isEqualTo(reservation.getQuote());
+
+        reservation.getGeneralExtras().remove(parking);
+        Quote quote = tracker.generalExtraToggled(reservation, 2L);
+        assertThat(quote).isEqualTo(reservation.getQuote());
+        assertThat(quote.getGeneralExtrasCents()).isEqualTo(0);
+    }
+
+    /**
+     * Each page post binds new extra instances and the same toggle can be posted twice, extras are matched by id.
+     */
+    @Test
+    public void generalExtraToggled_BoundAgainAndRepeated_SameAsFullQuote() {
+        tracker.quote(reservation);
+
+        reservation.setGeneralExtras(new HashSet<>(List.of(foxtel)));
+        tracker.generalExtraToggled(reservation, 1L);
+
+        reservation.setGeneralExtras(new HashSet<>(List.of(extra(1L, "Foxtel", "4.50", Extra.Category.General))));
+        assertThat(tracker.generalExtraToggled(reservation, 1L)).isEqualTo(reservation.getQuote());
+    }
+
+    /**
+     * Only the toggled extra is priced, an extra changed without being reported keeps its old price.
+     */
+    @Test
+    public void generalExtraToggled_OnlyToggledExtraPriced() {
+        reservation.getGeneralExtras().add(foxtel);
+        Quote before = tracker.quote(reservation);
+
+        reservation.setGeneralExtras(new HashSet<>(List.of(
+                extra(1L, "Foxtel", "100.00", Extra.Category.General), parking)));
+        Quote quote = tracker.generalExtraToggled(reservation, 2L);
+
+        assertThat(quote.getGeneralExtrasCents())
+                .isEqualTo(before.getGeneralExtrasCents() + PriceCalculator.extraCents(parking, 4));
+
+        tracker.generalExtrasChanged();
+        assertThat(tracker.quote(reservation)).isEqualTo(reservation.getQuote());
+    }
+
+    @Test
+    public void foodExtraToggled_SameAsFullQuote() {
+        List<MealPlan> mealPlans = reservation.getMealPlans();
+        tracker.quote(reservation);
+
+        mealPlans.get(0).getFoodExtras().add(breakfast);
+        assertThat(tracker.foodExtraToggled(reservation, 0, 3L)).isEqualTo(reservation.getQuote());
+
+        mealPlans.get(1).getFoodExtras().add(breakfast);
+        assertThat(tracker.foodExtraToggled(reservation, 1, 3L)).isEqualTo(reservation.getQuote());
+
+        mealPlans.get(1).getFoodExtras().add(dinner);
+        assertThat(tracker.foodExtraToggled(reservation, 1, 4L)).isEqualTo(reservation.getQuote());
+
+        mealPlans.get(0).getFoodExtras().remove(breakfast);
+        assertThat(tracker.foodExtraToggled(reservation, 0, 3L)).isEqualTo(reservation.getQuote());
+    }
+
+    /**
+     * Children get a discount on meals so the plan of a guest who became a child is priced again.
+     */
+    @Test
+    public void foodExtraToggled_GuestChanged_PlanPricedAgain() {
+        reservation.getMealPlans().forEach(plan -> plan.getFoodExtras().add(breakfast));
+        tracker.quote(reservation);
+
+        child.setChild(false);
+        int index = reservation.getMealPlans().indexOf(reservation.getMealPlans().stream()
+                .filter(plan -> plan.getGuest() == child).findFirst().get());
+        reservation.getMealPlans().get(index).getFoodExtras().add(dinner);
+
+        assertThat(tracker.foodExtraToggled(reservation, index, 4L)).isEqualTo(reservation.getQuote());
+    }
+
+    @Test
+    public void mealPlansChanged_CreatedAgain_SameAsFullQuote() {
+        reservation.getMealPlans().forEach(plan -> plan.getFoodExtras().add(breakfast));
+        tracker.quote(reservation);
+
+        reservation.addGuest(new Guest("Jim", "Smith", true));
+        reservation.createMealPlans();
+        reservation.getMealPlans().forEach(plan -> plan.setFoodExtras(new ArrayList<>(List.of(dinner))));
+
+        // A stale index is priced again as a whole rather than applied to another plan.
+        assertThat(tracker.foodExtraToggled(reservation, 0, 4L)).isEqualTo(reservation.getQuote());
+
+        tracker.mealPlansChanged();
+        assertThat(tracker.quote(reservation)).isEqualTo(reservation.getQuote());
+    }
+
+    @Test
+    public void quote_DatesChanged_EverythingPricedAgain() {
+        reservation.getGeneralExtras().add(foxtel);
+        reservation.getMealPlans().forEach(plan -> plan.getFoodExtras().add(breakfast));
+        Quote fourNights = tracker.quote(reservation);
+
+        reservation.getDates().setCheckOutDate(reservation.getDates().getCheckOutDate().plusDays(2));
+        assertThat(tracker.quote(reservation)).isEqualTo(reservation.getQuote());
+        assertThat(tracker.quote(reservation).getTotalIncludingTaxCents())
+                .isGreaterThan(fourNights.getTotalIncludingTaxCents());
+
+        reservation.getDates().setLateCheckout(false);
+        assertThat(tracker.quote(reservation)).isEqualTo(reservation.getQuote());
+    }
+}
@@ -0,0 +1,93 @@
+package com.demo.facet;
+
+import com.demo.domain.RoomType;
+import com.demo.domain.location.State;
+import com.demo.persistance.HotelRepository;
+import com.demo.persistance.RoomRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FacetIndexTest {
+
+    private FacetIndex index;
+
+    @Before
+    public void setup() {
+        HotelRepository hotelRepository = mock(HotelRepository.class);
+        RoomRepository roomRepository = mock(RoomRepository.class);
+        when(hotelRepository.findAllFacetRows()).thenReturn(List.of(
+                new HotelFacetRow(1L, 4, State.VIC, "MELBOURNE", "3000"),
+                new HotelFacetRow(2L, 5, State.VIC, "MELBOURNE", "3000"),
+                new HotelFacetRow(3L, 4, State.VIC, "CARLTON", "3053"),
+                new HotelFacetRow(4L, 3, State.NSW, "SYDNEY", "2000")));
+        when(roomRepository.findAllFacetRows()).thenReturn(List.of(
+                new RoomFacetRow(1L, RoomType.Luxury, 1, BigDecimal.valueOf(250)),
+                new RoomFacetRow(1L, RoomType.Economy, 3, BigDecimal.valueOf(80)),
+                new RoomFacetRow(2L, RoomType.Economy, 1, BigDecimal.valueOf(100)),
+                new RoomFacetRow(3L, RoomType.Balcony, 2, BigDecimal.valueOf(150)),
+                new RoomFacetRow(4L, RoomType.Luxury, 2, BigDecimal.valueOf(320))));
+        index = new FacetIndex(hotelRepository, roomRepository);
+        index.rebuild();
+    }
+
+    @Test
+    public void counts_NoFilter() {
+        FacetCounts counts = index.counts(null, null, null, null, FacetFilter.NONE);
+
+        assertThat(counts.getTotal()).isEqualTo(4);
+        assertThat(counts.get(Facet.Stars)).containsExactly(entry(3, 1), entry(4, 2), entry(5, 1));
+        assertThat(counts.get(Facet.Type)).contains(entry(RoomType.Luxury, 2), entry(RoomType.Economy, 2));
+        assertThat(counts.get(Facet.Price)).containsExactly(entry(PriceBand.Under100, 1),
+                entry(PriceBand.From100To200, 2), entry(PriceBand.From200To300, 1), entry(PriceBand.From300, 1));
+    }
+
+    @Test
+    public void counts_ByLocation() {
+        assertThat(index.counts("vic", null, null, null, FacetFilter.NONE).getTotal()).isEqualTo(3);
+        assertThat(index.counts("VIC", " melbourne ", null, null, FacetFilter.NONE).getTotal()).isEqualTo(2);
+        assertThat(index.counts(null, null, "3053", null, FacetFilter.NONE).getTotal()).isEqualTo(1);
+        assertThat(index.counts("XYZ", null, null, null, FacetFilter.NONE).getTotal()).isEqualTo(0);
+    }
+
+    /**
+     * A chosen value narrows the other facets but its own facet still counts the alternatives.
+     */
+    @Test
+    public void counts_ChosenValues() {
+        FacetFilter filter = FacetFilter.of(List.of(4), List.of(RoomType.Luxury), null, null);
+        FacetCounts counts = index.counts("VIC", null, null, null, filter);
+
+        assertThat(counts.getTotal()).isEqualTo(1);
+        assertThat(counts.get(Facet.Stars)).contains(entry(4, 1), entry(5, 0));
+        assertThat(counts.get(Facet.Type)).contains(entry(RoomType.Luxury, 1), entry(RoomType.Economy, 1),
+                entry(RoomType.Balcony, 1));
+        assertThat(counts.get(Facet.Beds)).contains(entry(1, 1), entry(2, 0), entry(3, 1));
+    }
+
+    @Test
+    public void counts_RestrictedToHotelIds() {
+        FacetCounts counts = index.counts(null, null, null, List.of(2L, 4L, 99L), FacetFilter.NONE);
+
+        assertThat(counts.getTotal()).isEqualTo(2);
+        assertThat(counts.get(Facet.Stars)).contains(entry(3, 1), entry(4, 0), entry(5, 1));
+    }
+
+    @Test
+    public void add_NewHotelCounted() {
+        index.add(List.of(new HotelFacetRow(5L, 5, State.VIC, "CARLTON", "3053")),
+                List.of(new RoomFacetRow(5L, RoomType.Luxury, 2, BigDecimal.valueOf(400))));
+
+        FacetCounts counts = index.counts("VIC", "Carlton", null, null,
+                FacetFilter.of(null, null, null, List.of(PriceBand.From300)));
+        assertThat(counts.getTotal()).isEqualTo(1);
+        assertThat(counts.get(Facet.Stars)).contains(entry(4, 0), entry(5, 1));
+    }
+}
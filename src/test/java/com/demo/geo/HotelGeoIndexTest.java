@@ -0,0 +1,107 @@
+package com.demo.geo;
+
+import com.demo.persistance.HotelRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HotelGeoIndexTest {
+
+    private static final double MELBOURNE_LATITUDE = -37.8136;
+    private static final double MELBOURNE_LONGITUDE = 144.9631;
+
+    private HotelRepository hotelRepository;
+    private HotelGeoIndex index;
+
+    @Before
+    public void setup() {
+        hotelRepository = mock(HotelRepository.class);
+        when(hotelRepository.findAllPoints()).thenReturn(List.of(
+                // Carlton, about 1.5 km north of the centre.
+                new HotelPoint(1L, -37.8000, 144.9670),
+                // Docklands, about 1.5 km west.
+                new HotelPoint(2L, -37.8150, 144.9460),
+                // Glen Waverley, about 19 km east.
+                new HotelPoint(3L, -37.8780, 145.1640),
+                // Sydney.
+                new HotelPoint(4L, -33.8688, 151.2093)));
+        index = new HotelGeoIndex(hotelRepository, 2);
+        index.rebuild();
+    }
+
+    private static List<Long> ids(List<GeoHit> hits) {
+        return hits.stream().map(GeoHit::getHotelId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void distanceKm_MelbourneToSydney() {
+        assertThat(HotelGeoIndex.distanceKm(MELBOURNE_LATITUDE, MELBOURNE_LONGITUDE, -33.8688, 151.2093))
+                .isCloseTo(714, within(2.0));
+    }
+
+    @Test
+    public void within_RadiusNearestFirst() {
+        List<GeoHit> hits = index.within(-37.8010, 144.9660, 5);
+
+        assertThat(ids(hits)).containsExactly(1L, 2L);
+        assertThat(hits.get(0).getDistanceKm()).isLessThan(0.2);
+        assertThat(ids(index.within(MELBOURNE_LATITUDE, MELBOURNE_LONGITUDE, 25))).containsOnly(1L, 2L, 3L);
+        assertThat(ids(index.within(MELBOURNE_LATITUDE, MELBOURNE_LONGITUDE, 1000))).hasSize(4);
+        assertThat(index.within(0, 0, 50)).isEmpty();
+    }
+
+    @Test
+    public void nearest_WidensUntilEnoughFound() {
+        assertThat(ids(index.nearest(MELBOURNE_LATITUDE, MELBOURNE_LONGITUDE, 3, 50))).containsExactly(2L, 1L, 3L);
+        assertThat(ids(index.nearest(MELBOURNE_LATITUDE, MELBOURNE_LONGITUDE, 10, 50))).hasSize(3);
+        assertThat(ids(index.nearest(MELBOURNE_LATITUDE, MELBOURNE_LONGITUDE, 1, 50))).hasSize(1);
+    }
+
+    /**
+     * Cells either side of the antimeridian are neighbours.
+     */
+    @Test
+    public void within_AcrossAntimeridian() {
+        index.add(List.of(new HotelPoint(5L, -16.5, 179.99), new HotelPoint(6L, -16.5, -179.99)));
+
+        assertThat(ids(index.within(-16.5, 179.995, 5))).containsOnly(5L, 6L);
+    }
+
+    /**
+     * Every hotel the grid returns is one a full scan would, and none are missed.
+     */
+    @Test
+    public void within_MatchesFullScan() {
+        Random random = new Random(42);
+        List<HotelPoint> points = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++) {
+            points.add(new HotelPoint(id, -39 + random.nextDouble() * 4, 143 + random.nextDouble() * 4));
+        }
+        when(hotelRepository.findAllPoints()).thenReturn(points);
+        index.rebuild();
+
+        for (int search = 0; search < 20; search++) {
+            double latitude = -38.5 + random.nextDouble() * 3;
+            double longitude = 143.5 + random.nextDouble() * 3;
+            double radiusKm = 1 + random.nextDouble() * 20;
+            List<Long> expected = points.stream()
+                    .filter(point -> HotelGeoIndex.distanceKm(latitude, longitude,
+                            point.getLatitude(), point.getLongitude()) <= radiusKm)
+                    .map(HotelPoint::getHotelId)
+                    .collect(Collectors.toList());
+
+            assertThat(ids(index.within(latitude, longitude, radiusKm))).containsOnlyElementsOf(expected)
+                    .hasSameSizeAs(expected);
+        }
+        assertThat(index.size()).isEqualTo(5000);
+    }
+}
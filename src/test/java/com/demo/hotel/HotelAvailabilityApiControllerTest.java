@@ -0,0 +1,117 @@
+package com.demo.hotel;
+
+import com.demo.availability.AvailabilityIndex;
+import com.demo.availability.HotelAvailability;
+import com.demo.persistance.RoomRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(HotelAvailabilityApiController.class)
+@ActiveProfiles("test")
+public class HotelAvailabilityApiControllerTest {
+
+    private static final LocalDate CHECK_IN = LocalDate.of(2018, 6, 1);
+    private static final LocalDate CHECK_OUT = LocalDate.of(2018, 6, 4);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AvailabilityIndex availabilityIndex;
+
+    @MockBean
+    private RoomRepository roomRepository;
+
+    /**
+     * Every hotel is answered in request order from one summary of the free rooms of all of them.
+     */
+    @Test
+    public void getAvailability_ManyHotels() throws Exception {
+        when(availabilityIndex.availableRooms(1L, CHECK_IN, CHECK_OUT)).thenReturn(List.of(10L, 11L));
+        when(availabilityIndex.availableRooms(2L, CHECK_IN, CHECK_OUT)).thenReturn(List.of());
+        when(availabilityIndex.availableRooms(3L, CHECK_IN, CHECK_OUT)).thenReturn(List.of(30L));
+        when(roomRepository.summarizeByHotel(List.of(10L, 11L, 30L), 2)).thenReturn(Map.of(
+                3L, new HotelAvailability(3L, 1, BigDecimal.valueOf(120)),
+                1L, new HotelAvailability(1L, 2, BigDecimal.valueOf(65.5))));
+
+        mockMvc.perform(get("/api/hotels/availability")
+                .param("hotelId", "3", "1", "2", "3")
+                .param("checkInDate", "2018-06-01")
+                .param("checkOutDate", "2018-06-04")
+                .param("guests", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].hotelId").value(3))
+                .andExpect(jsonPath("$[0].availableRooms").value(1))
+                .andExpect(jsonPath("$[0].cheapestRate").value(120))
+                .andExpect(jsonPath("$[1].hotelId").value(1))
+                .andExpect(jsonPath("$[1].availableRooms").value(2))
+                .andExpect(jsonPath("$[1].cheapestRate").value(65.5))
+                .andExpect(jsonPath("$[2].hotelId").value(2))
+                .andExpect(jsonPath("$[2].availableRooms").value(0))
+                .andExpect(jsonPath("$[2].cheapestRate").value(nullValue()));
+
+        verify(roomRepository, times(1)).summarizeByHotel(anyCollection(), any());
+    }
+
+    @Test
+    public void getAvailability_NothingFree_NoQuery() throws Exception {
+        when(availabilityIndex.availableRooms(anyLong(), any(), any())).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/hotels/availability")
+                .param("hotelId", "1")
+                .param("checkInDate", "2018-06-01")
+                .param("checkOutDate", "2018-06-04"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].availableRooms").value(0));
+
+        verifyZeroInteractions(roomRepository);
+    }
+
+    @Test
+    public void getAvailability_InvalidDates_BadRequest() throws Exception {
+        mockMvc.perform(get("/api/hotels/availability")
+                .param("hotelId", "1")
+                .param("checkInDate", "2018-06-04")
+                .param("checkOutDate", "2018-06-04"))
+                .andExpect(status().isBadRequest());
+
+        verifyZeroInteractions(availabilityIndex, roomRepository);
+    }
+
+    @Test
+    public void getAvailability_TooManyHotels_BadRequest() throws Exception {
+        String[] hotelIds = new String[HotelAvailabilityApiController.MAX_HOTELS + 1];
+        for (int i = 0; i < hotelIds.length; i++) {
+            hotelIds[i] = String.valueOf(i + 1);
+        }
+
+        mockMvc.perform(get("/api/hotels/availability")
+                .param("hotelId", hotelIds)
+                .param("checkInDate", "2018-06-01")
+                .param("checkOutDate", "2018-06-04"))
+                .andExpect(status().isBadRequest());
+
+        verifyZeroInteractions(availabilityIndex, roomRepository);
+    }
+}
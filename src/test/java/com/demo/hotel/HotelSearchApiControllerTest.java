@@ -0,0 +1,90 @@
+package com.demo.hotel;
+
+import com.demo.domain.location.State;
+import com.demo.persistance.HotelColumn;
+import com.demo.persistance.HotelRepository;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Projections;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(HotelSearchApiController.class)
+@ActiveProfiles("test")
+public class HotelSearchApiControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private HotelRepository hotelRepository;
+
+    private static Tuple tuple(List<HotelColumn> columns, Object... values) {
+        Expression<?>[] paths = columns.stream().map(HotelColumn::getPath).toArray(Expression<?>[]::new);
+        return Projections.tuple(paths).newInstance(values);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void streams(List<HotelColumn> columns, Tuple... rows) {
+        doAnswer(invocation -> {
+            Consumer<Tuple> action = invocation.getArgument(2);
+            for (Tuple row : rows) {
+                action.accept(row);
+            }
+            return null;
+        }).when(hotelRepository).streamColumns(any(), eq(columns), any(Consumer.class));
+    }
+
+    /**
+     * Only the requested fields are written, in the order requested, one hotel per line.
+     */
+    @Test
+    public void searchHotels_Fields_OneObjectPerLine() throws Exception {
+        List<HotelColumn> columns = List.of(HotelColumn.Name, HotelColumn.Id);
+        streams(columns, tuple(columns, "Hotel Royal", 1L), tuple(columns, "Hotel Summer", 2L));
+
+        mockMvc.perform(get("/api/hotels").param("state", "VIC").param("fields", "name,id"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                .andExpect(content().string(
+                        "{\"name\":\"Hotel Royal\",\"id\":1}\n{\"name\":\"Hotel Summer\",\"id\":2}\n"));
+    }
+
+    @Test
+    public void searchHotels_NoFields_AllColumns() throws Exception {
+        List<HotelColumn> columns = List.of(HotelColumn.values());
+        streams(columns, tuple(columns, 1L, "Hotel Royal", 4, "royal@hotel.com", "33 kent street", "Melbourne",
+                State.VIC, "3000"));
+
+        mockMvc.perform(get("/api/hotels"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"id\":1,\"name\":\"Hotel Royal\",\"stars\":4," +
+                        "\"email\":\"royal@hotel.com\",\"street\":\"33 kent street\",\"suburb\":\"Melbourne\"," +
+                        "\"state\":\"VIC\",\"postcode\":\"3000\"}\n"));
+    }
+
+    @Test
+    public void searchHotels_UnknownField_BadRequest() throws Exception {
+        mockMvc.perform(get("/api/hotels").param("fields", "name,rooms"))
+                .andExpect(status().isBadRequest());
+
+        verifyZeroInteractions(hotelRepository);
+    }
+}
@@ -1,40 +1,65 @@
 package com.demo.hotel;
 
+import com.demo.TimeProvider;
+import com.demo.availability.AvailabilityIndex;
+import com.demo.availability.AvailabilityVersion;
+import com.demo.catalogue.CatalogueVersion;
 import com.demo.domain.Hotel;
 import com.demo.domain.Room;
+import com.demo.domain.RoomType;
 import com.demo.domain.location.Address;
 import com.demo.domain.location.Postcode;
 import com.demo.domain.location.State;
+import com.demo.facet.*;
+import com.demo.geo.GeoHit;
+import com.demo.geo.HotelGeoIndex;
 import com.demo.persistance.HotelRepository;
+import com.demo.persistance.keyset.KeysetSlice;
 import com.demo.persistance.predicates.RoomPredicates;
 import com.demo.persistance.RoomRepository;
+import com.querydsl.core.types.Predicate;
 import org.hamcrest.FeatureMatcher;
 import org.hamcrest.Matchers;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.*;
 import org.springframework.data.web.config.EnableSpringDataWebSupport;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
+import java.time.LocalDate;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 import static com.demo.TestHelpers.mappedAssertion;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @RunWith(SpringRunner.class)
 @WebMvcTest(HotelSearchController.class)
+@Import(SearchExecutionConfiguration.class)
+@TestPropertySource(properties = "hotel.search.timeout-millis=2500")
 @EnableSpringDataWebSupport
 @ActiveProfiles("test")
 public class HotelSearchControllerTest {
@@ -48,6 +73,54 @@ public class HotelSearchControllerTest {
     @MockBean
     private RoomRepository roomRepository;
 
+    @MockBean
+    private AvailabilityIndex availabilityIndex;
+
+    @MockBean
+    private TimeProvider timeProvider;
+
+    @MockBean
+    private CatalogueVersion catalogueVersion;
+
+    @MockBean
+    private AvailabilityVersion availabilityVersion;
+
+    @MockBean
+    private HotelGeoIndex hotelGeoIndex;
+
+    @MockBean
+    private FacetIndex facetIndex;
+
+    @Before
+    public void setup() {
+        when(timeProvider.localDate()).thenReturn(LocalDate.now());
+        when(catalogueVersion.get()).thenReturn(5L);
+        when(availabilityVersion.get()).thenReturn(8L);
+        when(facetIndex.counts(any(), any(), any(), any(), any())).thenReturn(FacetCounts.EMPTY);
+    }
+
+    /**
+     * The handlers return a {@code WebAsyncTask}, the view is only resolved on the async dispatch.
+     */
+    private ResultActions performAsync(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult result = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
+    /**
+     * The search timeout is set on each search request rather than as the default of every async request.
+     */
+    @Test
+    public void getHotels_SearchTimeout() throws Exception {
+        MvcResult result = mockMvc.perform(get("/hotel/search"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(2500L);
+    }
+
     /**
      * No search results should be returned when no location query parameters are provided.
      */
@@ -56,13 +129,13 @@ public class HotelSearchControllerTest {
         FeatureMatcher<Page<Hotel>, Long> hasExpectedPageResult =
                 mappedAssertion(Page::getTotalElements, Matchers.is(0L));
 
-        mockMvc.perform(get("/hotel/search"))
+        performAsync(get("/hotel/search"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("/hotel/hotels"))
                 .andExpect(model().attribute("hotels", hasExpectedPageResult));
 
         verify(hotelRepository, times(1))
-                .findAllByLocation(isNull(), isNull(), isNull(), any(Pageable.class));
+                .findAllByLocation(isNull(), isNull(), isNull(), eq(FacetFilter.NONE), any(Pageable.class));
     }
 
     /**
@@ -73,21 +146,22 @@ public class HotelSearchControllerTest {
         List<Hotel> hotels = List.of();
         PageImpl<Hotel> results = new PageImpl<>(hotels, PageRequest.of(0, 20), hotels.size());
 
-        when(hotelRepository.findAllByLocation(eq("WA"), isNull(), eq("4000"), any(Pageable.class)))
+        when(hotelRepository.findAllByLocation(eq("WA"), isNull(), eq("4000"), eq(FacetFilter.NONE),
+                any(Pageable.class)))
                 .thenReturn(results);
 
         // sanity check to ensure the returned hotels from repository appears in the page content.
         FeatureMatcher<Page<Hotel>, List<Hotel>> hasExpectedPageResult =
                 mappedAssertion(Slice::getContent, Matchers.is(hotels));
 
-        mockMvc.perform(get("/hotel/search?state=WA&postcode=4000"))
+        performAsync(get("/hotel/search?state=WA&postcode=4000"))
                 .andExpect(status().isOk())
                 .andDo(print())
                 .andExpect(view().name("/hotel/hotels"))
                 .andExpect(model().attribute("hotels", hasExpectedPageResult));
 
         verify(hotelRepository, times(1))
-                .findAllByLocation(eq("WA"), isNull(), eq("4000"), any(Pageable.class));
+                .findAllByLocation(eq("WA"), isNull(), eq("4000"), eq(FacetFilter.NONE), any(Pageable.class));
     }
 
     /**
@@ -102,20 +176,21 @@ public class HotelSearchControllerTest {
         // Calling findAllByLocation will return the only hotel given the state matches.
         List<Hotel> hotels = List.of(hotel);
         PageImpl<Hotel> results = new PageImpl<>(hotels, PageRequest.of(0, 20), hotels.size());
-        when(hotelRepository.findAllByLocation(eq("VIC"), isNull(), isNull(), any(Pageable.class)))
+        when(hotelRepository.findAllByLocation(eq("VIC"), isNull(), isNull(), eq(FacetFilter.NONE),
+                any(Pageable.class)))
                 .thenReturn(results);
 
         // sanity check to ensure the matched hotel appears in the page content.
         FeatureMatcher<Page<Hotel>, List<Hotel>> hasExpectedPageResult =
                 mappedAssertion(Slice::getContent, Matchers.is(hotels));
 
-        mockMvc.perform(get("/hotel/search?state=VIC"))
+        performAsync(get("/hotel/search?state=VIC"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("/hotel/hotels"))
                 .andExpect(model().attribute("hotels", hasExpectedPageResult));
 
         verify(hotelRepository, times(1))
-                .findAllByLocation(eq("VIC"), isNull(), isNull(), any(Pageable.class));
+                .findAllByLocation(eq("VIC"), isNull(), isNull(), eq(FacetFilter.NONE), any(Pageable.class));
     }
 
     /**
@@ -130,7 +205,7 @@ public class HotelSearchControllerTest {
     @Test
     public void getAvailableHotelRooms_HotelIdNotFound_Throws404() throws Exception {
         long hotelId = 4;
-        mockMvc.perform(get(String.format("/hotel/%d/rooms", hotelId)))
+        performAsync(get(String.format("/hotel/%d/rooms", hotelId)))
                 .andExpect(status().isNotFound());
     }
 
@@ -148,21 +223,246 @@ public class HotelSearchControllerTest {
         Hotel hotel = new Hotel("Xavier Hotel", address, 4, "xavier@hotel.com");
         hotel.setId(3L);
 
+        LocalDate today = LocalDate.now();
+        when(timeProvider.localDate()).thenReturn(today);
+        List<Long> availableRoomIds = List.of(7L);
+        when(availabilityIndex.availableRooms(hotel.getId(), today, today.plusDays(1))).thenReturn(availableRoomIds);
+
         // Rather than recreate a new hotel room, setting total elements to 1 will achieve the same thing for testing.
         PageImpl<Room> page = new PageImpl<>(List.of(), PageRequest.of(0, 20), 1);
-        when(roomRepository.findAll(RoomPredicates.availableRoom(hotel.getId()), PageRequest.of(0, 20))).thenReturn(page);
+        when(roomRepository.findAll(RoomPredicates.availableRoom(hotel.getId(), availableRoomIds), PageRequest.of(0, 20)))
+                .thenReturn(page);
 
         when(hotelRepository.findById(hotel.getId())).thenReturn(Optional.of(hotel));
 
-        mockMvc.perform(get(String.format("/hotel/%d/rooms", hotel.getId())))
+        performAsync(get(String.format("/hotel/%d/rooms", hotel.getId())))
                 .andExpect(status().isOk())
                 .andExpect(view().name("/hotel/rooms"))
                 .andExpect(model().attribute("hotel", Matchers.isA(Hotel.class)))
-                .andExpect(model().attribute("rooms", hasExpectedPageResult));
+                .andExpect(model().attribute("rooms", hasExpectedPageResult))
+                .andExpect(model().attribute("checkInDate", today))
+                .andExpect(model().attribute("checkOutDate", today.plusDays(1)));
 
         verify(roomRepository, times(1))
-                .findAll(eq(RoomPredicates.availableRoom(hotel.getId())), any(Pageable.class));
+                .findAll(eq(RoomPredicates.availableRoom(hotel.getId(), availableRoomIds)), any(Pageable.class));
 
         verify(hotelRepository, times(1)).findById(eq(hotel.getId()));
     }
-}
\ No newline at end of file
+
+    /**
+     * The requested stay is used to ask the availability index which rooms are free.
+     */
+    @Test
+    public void getAvailableHotelRooms_WithDates_UsesRequestedNights() throws Exception {
+        Address address = new Address("Xavier Hotel", "100 smith road", "",
+                State.QLD, "Brisbane", new Postcode("4000"));
+        Hotel hotel = new Hotel("Xavier Hotel", address, 4, "xavier@hotel.com");
+        hotel.setId(3L);
+
+        LocalDate checkIn = LocalDate.now().plusDays(10);
+        LocalDate checkOut = checkIn.plusDays(4);
+        when(availabilityIndex.availableRooms(hotel.getId(), checkIn, checkOut)).thenReturn(List.of());
+        when(roomRepository.findAll(eq(RoomPredicates.availableRoom(hotel.getId(), List.of())), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(), PageRequest.of(0, 20), 0));
+        when(hotelRepository.findById(hotel.getId())).thenReturn(Optional.of(hotel));
+
+        performAsync(get(String.format("/hotel/%d/rooms", hotel.getId()))
+                .param("checkInDate", checkIn.toString())
+                .param("checkOutDate", checkOut.toString()))
+                .andExpect(status().isOk())
+                .andExpect(view().name("/hotel/rooms"));
+
+        verify(availabilityIndex, times(1)).availableRooms(hotel.getId(), checkIn, checkOut);
+    }
+
+    /**
+     * A cursor parameter switches to keyset pagination, the next link carries the next cursor.
+     */
+    @Test
+    public void getHotels_Cursor_UsesKeysetSlice() throws Exception {
+        Hotel hotel = new Hotel("Hotel Royal", new Address("Hotel Royal", "33 kent street", null,
+                State.VIC, "Melbourne", new Postcode("3000")),
+                5, "royal@hotel.com");
+        hotel.setId(1L);
+
+        KeysetSlice<Hotel> results = new KeysetSlice<>(List.of(hotel), PageRequest.of(0, 20), "next");
+        when(hotelRepository.findAllByLocation(eq("VIC"), isNull(), isNull(), eq(FacetFilter.NONE), eq(""),
+                any(Pageable.class)))
+                .thenReturn(results);
+
+        performAsync(get("/hotel/search?state=VIC&cursor="))
+                .andExpect(status().isOk())
+                .andExpect(view().name("/hotel/hotels"))
+                .andExpect(model().attribute("hotels", results))
+                .andExpect(model().attribute("keyset", true))
+                .andExpect(model().attribute("nextUrl", Matchers.endsWith("/hotel/search?state=VIC&cursor=next")));
+
+        verify(hotelRepository, never())
+                .findAllByLocation(any(), any(), any(), any(FacetFilter.class), any(Pageable.class));
+    }
+
+    @Test
+    public void getAvailableHotelRooms_Cursor_UsesKeysetSlice() throws Exception {
+        Address address = new Address("Xavier Hotel", "100 smith road", "",
+                State.QLD, "Brisbane", new Postcode("4000"));
+        Hotel hotel = new Hotel("Xavier Hotel", address, 4, "xavier@hotel.com");
+        hotel.setId(3L);
+
+        LocalDate today = LocalDate.now();
+        when(timeProvider.localDate()).thenReturn(today);
+        List<Long> availableRoomIds = List.of(7L);
+        when(availabilityIndex.availableRooms(hotel.getId(), today, today.plusDays(1))).thenReturn(availableRoomIds);
+        when(hotelRepository.findById(hotel.getId())).thenReturn(Optional.of(hotel));
+
+        KeysetSlice<Room> slice = new KeysetSlice<>(List.of(), PageRequest.of(0, 20), null);
+        when(roomRepository.findSlice(eq(RoomPredicates.availableRoom(hotel.getId(), availableRoomIds)),
+                eq("abc"), any(Pageable.class))).thenReturn(slice);
+
+        performAsync(get(String.format("/hotel/%d/rooms", hotel.getId())).param("cursor", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("/hotel/rooms"))
+                .andExpect(model().attribute("rooms", slice))
+                .andExpect(model().attribute("keyset", true))
+                .andExpect(model().attribute("nextUrl", Matchers.nullValue()));
+
+        verify(roomRepository, never()).findAll(any(Predicate.class), any(Pageable.class));
+    }
+
+    /**
+     * A client holding the page for the current catalogue version is answered without querying or rendering.
+     */
+    @Test
+    public void getHotels_CurrentETag_NotModified() throws Exception {
+        mockMvc.perform(get("/hotel/search?state=VIC").header(HttpHeaders.IF_NONE_MATCH, "\"c5\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"c5\""));
+
+        verifyZeroInteractions(hotelRepository);
+    }
+
+    @Test
+    public void getHotels_StaleETag_RenderedWithNewETag() throws Exception {
+        when(hotelRepository.findAllByLocation(eq("VIC"), isNull(), isNull(), eq(FacetFilter.NONE),
+                any(Pageable.class)))
+                .thenReturn(Page.empty());
+
+        performAsync(get("/hotel/search?state=VIC").header(HttpHeaders.IF_NONE_MATCH, "\"c4\""))
+                .andExpect(status().isOk())
+                .andExpect(view().name("/hotel/hotels"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"c5\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+    }
+
+    /**
+     * Availability tags include today so yesterday's page is rendered again even if nothing was booked.
+     */
+    @Test
+    public void getAvailableHotelRooms_CurrentETag_NotModified() throws Exception {
+        LocalDate today = LocalDate.of(2018, 3, 10);
+        when(timeProvider.localDate()).thenReturn(today);
+
+        mockMvc.perform(get("/hotel/3/rooms").header(HttpHeaders.IF_NONE_MATCH, "\"c5-a8-2018-03-10\""))
+                .andExpect(status().isNotModified());
+
+        verifyZeroInteractions(hotelRepository, roomRepository, availabilityIndex);
+
+        when(timeProvider.localDate()).thenReturn(today.plusDays(1));
+
+        performAsync(get("/hotel/3/rooms").header(HttpHeaders.IF_NONE_MATCH, "\"c5-a8-2018-03-10\""))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * A booking changes the availability tag of room pages, search pages keep theirs.
+     */
+    @Test
+    public void getAvailableHotelRooms_NightsClaimed_RenderedAgain() throws Exception {
+        LocalDate today = LocalDate.of(2018, 3, 10);
+        when(timeProvider.localDate()).thenReturn(today);
+        when(availabilityVersion.get()).thenReturn(9L);
+
+        mockMvc.perform(get("/hotel/search?state=VIC").header(HttpHeaders.IF_NONE_MATCH, "\"c5\""))
+                .andExpect(status().isNotModified());
+
+        performAsync(get("/hotel/3/rooms").header(HttpHeaders.IF_NONE_MATCH, "\"c5-a8-2018-03-10\""))
+                .andExpect(status().isNotFound())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"c5-a9-2018-03-10\""));
+    }
+
+    /**
+     * The hotels around the point are found by the index and passed on nearest first with the location filter.
+     */
+    @Test
+    public void getHotelsNear_RadiusAndState() throws Exception {
+        when(hotelGeoIndex.within(-37.81, 144.96, 3.0)).thenReturn(List.of(new GeoHit(7L, 0.4), new GeoHit(2L, 2.1)));
+        Page<Hotel> results = new PageImpl<>(List.of(), PageRequest.of(0, 20), 0);
+        when(hotelRepository.findAllNear(eq("VIC"), isNull(), isNull(), eq(FacetFilter.NONE), eq(List.of(7L, 2L)),
+                eq(Integer.MAX_VALUE), any(Pageable.class))).thenReturn(results);
+
+        performAsync(get("/hotel/search?lat=-37.81&lon=144.96&radiusKm=3&state=VIC"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("/hotel/hotels"))
+                .andExpect(model().attribute("hotels", results));
+
+        verify(hotelRepository, never())
+                .findAllByLocation(any(), any(), any(), any(FacetFilter.class), any(Pageable.class));
+    }
+
+    /**
+     * Without a location filter the nearest hotels come straight from the index, the radius is capped.
+     */
+    @Test
+    public void getHotelsNear_Nearest_RadiusCapped() throws Exception {
+        when(hotelGeoIndex.nearest(-37.81, 144.96, 3, 50.0)).thenReturn(List.of(new GeoHit(7L, 12.0)));
+        when(hotelRepository.findAllNear(isNull(), isNull(), isNull(), eq(FacetFilter.NONE), eq(List.of(7L)), eq(3),
+                any(Pageable.class)))
+                .thenReturn(Page.empty());
+
+        performAsync(get("/hotel/search?lat=-37.81&lon=144.96&nearest=3&radiusKm=500"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("/hotel/hotels"));
+
+        verify(hotelGeoIndex).nearest(-37.81, 144.96, 3, 50.0);
+    }
+
+    @Test
+    public void getHotelsNear_InvalidCoordinates_BadRequest() throws Exception {
+        mockMvc.perform(get("/hotel/search?lat=-97.81&lon=144.96"))
+                .andExpect(status().isBadRequest());
+
+        verifyZeroInteractions(hotelGeoIndex, hotelRepository);
+    }
+
+    /**
+     * Chosen facet values narrow the search and each shown value links to the search with it toggled.
+     */
+    @Test
+    public void getHotels_Facets_FilterAndToggleLinks() throws Exception {
+        FacetFilter facets = FacetFilter.of(List.of(5, 4), List.of(RoomType.Luxury), null, null);
+        when(hotelRepository.findAllByLocation(eq("VIC"), isNull(), isNull(), eq(facets), any(Pageable.class)))
+                .thenReturn(Page.empty());
+        Map<Facet, Map<Object, Integer>> counts = new EnumMap<>(Facet.class);
+        counts.put(Facet.Stars, new TreeMap<>(Map.of(3, 0, 4, 2, 5, 1)));
+        counts.put(Facet.Type, new TreeMap<>(Map.of(RoomType.Economy, 3, RoomType.Luxury, 3)));
+        when(facetIndex.counts(eq("VIC"), isNull(), isNull(), isNull(), eq(facets)))
+                .thenReturn(new FacetCounts(counts, 3));
+
+        MvcResult result = performAsync(get("/hotel/search?state=VIC&stars=5&stars=4&roomType=Luxury&page=1"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("/hotel/hotels"))
+                .andReturn();
+
+        @SuppressWarnings("unchecked")
+        List<FacetGroup> groups = (List<FacetGroup>) result.getModelAndView().getModel().get("facets");
+        assertThat(groups).extracting(FacetGroup::getFacet).containsExactly(Facet.Stars, Facet.Type);
+
+        List<FacetGroup.Option> stars = groups.get(0).getOptions();
+        assertThat(stars).extracting(FacetGroup.Option::getLabel).containsExactly("4 stars", "5 stars");
+        assertThat(stars.get(1).isSelected()).isTrue();
+        assertThat(stars.get(1).getUrl()).endsWith("/hotel/search?state=VIC&roomType=Luxury&stars=4");
+
+        FacetGroup.Option economy = groups.get(1).getOptions().get(0);
+        assertThat(economy.isSelected()).isFalse();
+        assertThat(economy.getUrl()).contains("roomType=Economy&roomType=Luxury").doesNotContain("page=");
+    }
+}
@@ -0,0 +1,64 @@
+package com.demo.hotel;
+
+import com.demo.domain.location.State;
+import com.demo.suggest.HotelLocation;
+import com.demo.suggest.Suggestion;
+import com.demo.suggest.SuggestionIndex;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(HotelSuggestController.class)
+@ActiveProfiles("test")
+public class HotelSuggestControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SuggestionIndex suggestionIndex;
+
+    @Test
+    public void suggest_Json() throws Exception {
+        HotelLocation location = new HotelLocation(7L, "Hotel Royal", State.VIC, "Glen Waverley", "3150");
+        when(suggestionIndex.suggest("glen", 10))
+                .thenReturn(List.of(Suggestion.suburb(location), Suggestion.hotel(location)));
+
+        mockMvc.perform(get("/hotel/suggest").param("q", "glen"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].type").value("Suburb"))
+                .andExpect(jsonPath("$[0].label").value("Glen Waverley"))
+                .andExpect(jsonPath("$[0].state").value("VIC"))
+                .andExpect(jsonPath("$[0].suburb").value("Glen Waverley"))
+                .andExpect(jsonPath("$[1].type").value("Hotel"))
+                .andExpect(jsonPath("$[1].description").value("Glen Waverley, VIC"))
+                .andExpect(jsonPath("$[1].hotelId").value(7));
+    }
+
+    @Test
+    public void suggest_LimitCapped() throws Exception {
+        when(suggestionIndex.suggest("3", HotelSuggestController.MAX_LIMIT)).thenReturn(List.of());
+
+        mockMvc.perform(get("/hotel/suggest").param("q", "3").param("limit", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        verify(suggestionIndex).suggest("3", HotelSuggestController.MAX_LIMIT);
+    }
+}
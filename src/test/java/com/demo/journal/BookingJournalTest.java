@@ -0,0 +1,209 @@
+package com.demo.journal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BookingJournalTest {
+
+    private static final int FRAME = BookingJournal.FRAME_HEADER + Long.BYTES + BookingEvent.SIZE;
+
+    /**
+     * Room for two events per segment.
+     */
+    private static final int SMALL_SEGMENT = FRAME * 2;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+    private BookingJournal journal;
+
+    @Before
+    public void setup() throws IOException {
+        directory = folder.getRoot().toPath().resolve("journal");
+        journal = new BookingJournal(directory, 1 << 16);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        journal.close();
+    }
+
+    private static BookingEvent event(long roomId) {
+        LocalDate checkIn = LocalDate.of(2018, 6, 1).plusDays(roomId);
+        return new BookingEvent(-1, BookingEvent.Type.Booked, 1_527_000_000_000L + roomId, UUID.randomUUID(),
+                roomId, 7L, checkIn, checkIn.plusDays(2), 12_345, UUID.randomUUID());
+    }
+
+    private static List<Long> sequences(List<BookingEvent> events) {
+        return events.stream().map(BookingEvent::getSequence).collect(Collectors.toList());
+    }
+
+    @Test
+    public void append_ReplayedInOrder() throws IOException {
+        List<BookingEvent> appended = List.of(event(1), event(2), event(3));
+        for (BookingEvent event : appended) {
+            journal.append(event);
+        }
+
+        try (BookingJournalReader reader = journal.openReader(1)) {
+            List<BookingEvent> replayed = reader.poll(10);
+
+            assertThat(replayed).containsExactlyElementsOf(appended);
+            assertThat(sequences(replayed)).containsExactly(1L, 2L, 3L);
+            assertThat(replayed.get(0).getTotal()).isEqualByComparingTo("123.45");
+            assertThat(reader.poll(10)).isEmpty();
+        }
+    }
+
+    @Test
+    public void poll_TailsNewEvents() throws IOException {
+        journal.append(event(1));
+
+        try (BookingJournalReader reader = journal.openReader(1)) {
+            assertThat(sequences(reader.poll(10))).containsExactly(1L);
+            assertThat(reader.poll(10)).isEmpty();
+
+            journal.append(event(2));
+            journal.append(event(3));
+            journal.append(event(4));
+
+            assertThat(sequences(reader.poll(2))).containsExactly(2L, 3L);
+            assertThat(sequences(reader.poll(10))).containsExactly(4L);
+            assertThat(reader.getNextSequence()).isEqualTo(5);
+        }
+    }
+
+    @Test
+    public void append_RollsOverSegments() throws IOException {
+        journal.close();
+        journal = new BookingJournal(folder.getRoot().toPath().resolve("small"), SMALL_SEGMENT);
+
+        try (BookingJournalReader reader = journal.openReader(1)) {
+            for (int i = 1; i <= 5; i++) {
+                journal.append(event(i));
+                if (i == 3) {
+                    assertThat(sequences(reader.poll(10))).containsExactly(1L, 2L, 3L);
+                }
+            }
+            assertThat(sequences(reader.poll(10))).containsExactly(4L, 5L);
+        }
+
+        assertThat(BookingJournal.segments(folder.getRoot().toPath().resolve("small")))
+                .extracting(path -> path.getFileName().toString())
+                .containsExactly("00000000000000000001.journal", "00000000000000000003.journal",
+                        "00000000000000000005.journal");
+        try (BookingJournalReader reader = journal.openReader(4)) {
+            assertThat(sequences(reader.poll(10))).containsExactly(4L, 5L);
+        }
+    }
+
+    @Test
+    public void reopen_ContinuesSequence() throws IOException {
+        journal.append(event(1));
+        journal.append(event(2));
+        journal.close();
+
+        journal = new BookingJournal(directory, 1 << 16);
+        assertThat(journal.getNextSequence()).isEqualTo(3);
+        assertThat(journal.append(event(3))).isEqualTo(3);
+
+        try (BookingJournalReader reader = journal.openReader(1)) {
+            assertThat(sequences(reader.poll(10))).containsExactly(1L, 2L, 3L);
+        }
+    }
+
+    /**
+     * A second writer would append to the same segment, it fails until the first journal is closed.
+     */
+    @Test
+    public void open_DirectoryInUse_Fails() throws IOException {
+        journal.append(event(1));
+
+        assertThatThrownBy(() -> new BookingJournal(directory, 1 << 16))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("in use");
+        assertThat(journal.append(event(2))).isEqualTo(2);
+
+        journal.close();
+        journal = new BookingJournal(directory, 1 << 16);
+        assertThat(journal.getNextSequence()).isEqualTo(3);
+    }
+
+    /**
+     * A frame whose checksum does not match was never acknowledged, it is overwritten by the next append.
+     */
+    @Test
+    public void reopen_TornFrameDiscarded() throws IOException {
+        BookingEvent first = event(1);
+        journal.append(first);
+        journal.append(event(2));
+        journal.append(event(3));
+        journal.close();
+
+        Path segment = BookingJournal.segmentPath(directory, 1);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), FRAME + BookingJournal.FRAME_HEADER + 20);
+        }
+
+        journal = new BookingJournal(directory, 1 << 16);
+        assertThat(journal.getNextSequence()).isEqualTo(2);
+        BookingEvent replacement = event(9);
+        journal.append(replacement);
+
+        try (BookingJournalReader reader = journal.openReader(1)) {
+            assertThat(reader.poll(10)).containsExactly(first, replacement);
+        }
+    }
+
+    /**
+     * Concurrent appenders each get their own sequence number and every event is read back.
+     */
+    @Test
+    public void append_Concurrent() throws Exception {
+        int threads = 8;
+        int perThread = 250;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    List<Long> assigned = new ArrayList<>();
+                    for (int i = 0; i < perThread; i++) {
+                        assigned.add(journal.append(event(i + 1)));
+                    }
+                    return assigned;
+                }));
+            }
+            Set<Long> assigned = new TreeSet<>();
+            for (Future<List<Long>> future : futures) {
+                assigned.addAll(future.get(30, TimeUnit.SECONDS));
+            }
+            assertThat(assigned).containsExactlyElementsOf(
+                    LongStream.rangeClosed(1, threads * perThread).boxed().collect(Collectors.toList()));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        try (BookingJournalReader reader = journal.openReader(1)) {
+            assertThat(reader.poll(Integer.MAX_VALUE)).hasSize(threads * perThread);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.demo.payment;
+
+import com.demo.TimeProvider;
+import com.demo.availability.AvailabilityIndex;
+import com.demo.domain.*;
+import com.demo.journal.BookingEvent;
+import com.demo.journal.BookingJournal;
+import com.demo.reservation.ReservationRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class PaymentProcessorTest {
+
+    private static final LocalDate CHECK_IN = LocalDate.of(2018, 3, 10);
+    private static final LocalDateTime NOW = LocalDateTime.of(2018, 3, 1, 12, 0);
+
+    private PaymentRequestRepository paymentRequestRepository;
+    private ReservationRepository reservationRepository;
+    private PaymentGateway paymentGateway;
+    private AvailabilityIndex availabilityIndex;
+    private BookingJournal bookingJournal;
+    private PaymentProcessor processor;
+
+    private Reservation reservation;
+    private PaymentRequest request;
+
+    @Before
+    public void setup() {
+        paymentRequestRepository = mock(PaymentRequestRepository.class);
+        reservationRepository = mock(ReservationRepository.class);
+        paymentGateway = mock(PaymentGateway.class);
+        availabilityIndex = mock(AvailabilityIndex.class);
+        bookingJournal = mock(BookingJournal.class);
+        TimeProvider timeProvider = mock(TimeProvider.class);
+        when(timeProvider.localDateTime()).thenReturn(NOW);
+
+        Room room = new Room("A", RoomType.Luxury, 2, BigDecimal.valueOf(63.3));
+        room.setId(2L);
+        reservation = new Reservation();
+        reservation.setRoom(room);
+        reservation.setDates(new ReservationDates(CHECK_IN, CHECK_IN.plusDays(2), LocalTime.of(10, 0), false, true));
+        reservation.setCompletedPayment(new CompletedPayment("tok_1234", PendingPayment.CreditCardType.Visa,
+                "3455", "344", YearMonth.of(2019, 1)));
+        request = new PaymentRequest(reservation, NOW);
+
+        when(paymentRequestRepository.findByReservationId(reservation.getReservationId()))
+                .thenReturn(Optional.of(request));
+        when(paymentRequestRepository.save(any(PaymentRequest.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(reservationRepository.findByReservationId(reservation.getReservationId()))
+                .thenReturn(Optional.of(reservation));
+
+        processor = new PaymentProcessor(paymentRequestRepository, reservationRepository, paymentGateway,
+                availabilityIndex, bookingJournal, mock(PlatformTransactionManager.class), timeProvider,
+                2, 10, 3, 100);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        processor.destroy();
+    }
+
+    private BookingEvent journalled() {
+        ArgumentCaptor<BookingEvent> event = ArgumentCaptor.forClass(BookingEvent.class);
+        verify(bookingJournal).append(event.capture());
+        return event.getValue();
+    }
+
+    @Test
+    public void process_Accepted_Recorded() throws Exception {
+        when(paymentGateway.charge(request)).thenReturn(PaymentStatus.Accepted);
+        CompletableFuture<PaymentStatus> outcome = processor.awaitOutcome(reservation.getReservationId());
+
+        processor.process(reservation.getReservationId());
+
+        assertThat(request.getStatus()).isEqualTo(PaymentStatus.Accepted);
+        assertThat(request.getProcessedTime()).isEqualTo(NOW);
+        verify(paymentRequestRepository).save(request);
+        verify(reservationRepository, never()).delete(any(Reservation.class));
+        verifyZeroInteractions(availabilityIndex);
+        assertThat(journalled().getType()).isEqualTo(BookingEvent.Type.PaymentAccepted);
+        assertThat(outcome.get(1, TimeUnit.SECONDS)).isEqualTo(PaymentStatus.Accepted);
+    }
+
+    /**
+     * The booking is cancelled and its nights can be booked again.
+     */
+    @Test
+    public void process_Declined_ReservationCancelled() {
+        when(paymentGateway.charge(request)).thenReturn(PaymentStatus.Declined);
+
+        processor.process(reservation.getReservationId());
+
+        assertThat(request.getStatus()).isEqualTo(PaymentStatus.Declined);
+        verify(reservationRepository).delete(reservation);
+        verify(availabilityIndex).release(2L, CHECK_IN, CHECK_IN.plusDays(2));
+        BookingEvent event = journalled();
+        assertThat(event.getType()).isEqualTo(BookingEvent.Type.PaymentDeclined);
+        assertThat(event.getTransactionId()).isEqualTo(request.getTransactionId());
+    }
+
+    /**
+     * The card may have been charged by a call that was never answered, the booking is kept and no more charges are
+     * made once the outcome is unknown.
+     */
+    @Test
+    public void process_GatewayFails_UnknownAfterMaxAttempts() {
+        when(paymentGateway.charge(request)).thenThrow(new IllegalStateException("Vendor unavailable"));
+
+        processor.process(reservation.getReservationId());
+        processor.process(reservation.getReservationId());
+
+        assertThat(request.isPending()).isTrue();
+        assertThat(request.getAttempts()).isEqualTo(2);
+
+        processor.process(reservation.getReservationId());
+        processor.process(reservation.getReservationId());
+
+        assertThat(request.getStatus()).isEqualTo(PaymentStatus.Unknown);
+        verify(paymentGateway, times(3)).charge(request);
+        verify(paymentGateway).findOutcome(request.getTransactionId());
+        verify(reservationRepository, never()).delete(any(Reservation.class));
+        verifyZeroInteractions(bookingJournal, availabilityIndex);
+    }
+
+    @Test
+    public void process_Unknown_DeclinedByTransactionId() {
+        request.markUnknown();
+        when(paymentGateway.findOutcome(request.getTransactionId())).thenReturn(Optional.of(PaymentStatus.Declined));
+
+        processor.process(reservation.getReservationId());
+
+        assertThat(request.getStatus()).isEqualTo(PaymentStatus.Declined);
+        verify(paymentGateway, never()).charge(any(PaymentRequest.class));
+        verify(reservationRepository).delete(reservation);
+        verify(availabilityIndex).release(2L, CHECK_IN, CHECK_IN.plusDays(2));
+        assertThat(journalled().getType()).isEqualTo(BookingEvent.Type.PaymentDeclined);
+    }
+
+    @Test
+    public void process_Unknown_NoOutcomeYet_Kept() {
+        request.markUnknown();
+        when(paymentGateway.findOutcome(request.getTransactionId())).thenReturn(Optional.empty());
+
+        processor.process(reservation.getReservationId());
+
+        assertThat(request.getStatus()).isEqualTo(PaymentStatus.Unknown);
+        verify(paymentRequestRepository, never()).save(any(PaymentRequest.class));
+        verifyZeroInteractions(bookingJournal, availabilityIndex);
+    }
+
+    /**
+     * A booking that could not be journalled when it was made is journalled before its payment outcome.
+     */
+    @Test
+    public void process_JournalPending_BookingJournalledFirst() {
+        request.setJournalPending(true);
+        when(paymentGateway.charge(request)).thenReturn(PaymentStatus.Accepted);
+
+        processor.process(reservation.getReservationId());
+
+        ArgumentCaptor<BookingEvent> events = ArgumentCaptor.forClass(BookingEvent.class);
+        verify(bookingJournal, times(2)).append(events.capture());
+        assertThat(events.getAllValues()).extracting(BookingEvent::getType)
+                .containsExactly(BookingEvent.Type.Booked, BookingEvent.Type.PaymentAccepted);
+        assertThat(request.isJournalPending()).isFalse();
+    }
+
+    /**
+     * While the journal is still failing the payment waits, its outcome cannot be journalled ahead of the booking.
+     */
+    @Test
+    public void process_JournalStillFailing_NotCharged() {
+        request.setJournalPending(true);
+        when(bookingJournal.append(any(BookingEvent.class)))
+                .thenThrow(new UncheckedIOException(new IOException("No space left on device")));
+
+        assertThatThrownBy(() -> processor.process(reservation.getReservationId()))
+                .isInstanceOf(UncheckedIOException.class);
+
+        assertThat(request.isJournalPending()).isTrue();
+        assertThat(request.isPending()).isTrue();
+        verifyZeroInteractions(paymentGateway);
+    }
+
+    @Test
+    public void journalBookingLater_Marked() {
+        assertThat(processor.journalBookingLater(reservation.getReservationId())).isTrue();
+
+        assertThat(request.isJournalPending()).isTrue();
+        verify(paymentRequestRepository).save(request);
+    }
+
+    @Test
+    public void process_AlreadyProcessed_NotChargedAgain() {
+        request.complete(PaymentStatus.Accepted, NOW);
+
+        processor.process(reservation.getReservationId());
+
+        verifyZeroInteractions(paymentGateway, bookingJournal);
+        verify(paymentRequestRepository, never()).save(any(PaymentRequest.class));
+    }
+
+    @Test
+    public void awaitOutcome_AlreadyProcessed_Completed() {
+        request.complete(PaymentStatus.Declined, NOW);
+
+        assertThat(processor.awaitOutcome(reservation.getReservationId()))
+                .isCompletedWithValue(PaymentStatus.Declined);
+        assertThat(processor.waitingReservations()).isEqualTo(0);
+    }
+
+    /**
+     * The completed page keeps polling an unknown payment, each poll that times out is forgotten.
+     */
+    @Test
+    public void awaitOutcome_Cancelled_Forgotten() {
+        request.markUnknown();
+
+        for (int i = 0; i < 3; i++) {
+            CompletableFuture<PaymentStatus> outcome = processor.awaitOutcome(reservation.getReservationId());
+            assertThat(processor.waitingReservations()).isEqualTo(1);
+            outcome.cancel(false);
+        }
+
+        assertThat(processor.waitingReservations()).isEqualTo(0);
+    }
+
+    @Test
+    public void process_Accepted_EveryWaiterCompleted() {
+        when(paymentGateway.charge(request)).thenReturn(PaymentStatus.Accepted);
+        CompletableFuture<PaymentStatus> first = processor.awaitOutcome(reservation.getReservationId());
+        CompletableFuture<PaymentStatus> second = processor.awaitOutcome(reservation.getReservationId());
+
+        processor.process(reservation.getReservationId());
+
+        assertThat(first).isCompletedWithValue(PaymentStatus.Accepted);
+        assertThat(second).isCompletedWithValue(PaymentStatus.Accepted);
+        assertThat(processor.waitingReservations()).isEqualTo(0);
+    }
+
+    @Test
+    public void submit_ChargedOnPool() throws Exception {
+        when(paymentGateway.charge(request)).thenReturn(PaymentStatus.Accepted);
+        CompletableFuture<PaymentStatus> outcome = processor.awaitOutcome(reservation.getReservationId());
+
+        processor.submit(reservation.getReservationId());
+
+        assertThat(outcome.get(5, TimeUnit.SECONDS)).isEqualTo(PaymentStatus.Accepted);
+        verify(paymentGateway, times(1)).charge(request);
+    }
+
+    @Test
+    public void dispatch_SubmitsPending() throws Exception {
+        UUID other = UUID.randomUUID();
+        when(paymentRequestRepository.findReservationIdsByStatus(eq(PaymentStatus.Pending), any()))
+                .thenReturn(List.of(reservation.getReservationId(), other));
+        when(paymentGateway.charge(request)).thenReturn(PaymentStatus.Accepted);
+        CompletableFuture<PaymentStatus> outcome = processor.awaitOutcome(reservation.getReservationId());
+
+        processor.dispatch();
+
+        assertThat(outcome.get(5, TimeUnit.SECONDS)).isEqualTo(PaymentStatus.Accepted);
+        verify(paymentRequestRepository, timeout(5000)).findByReservationId(other);
+    }
+}
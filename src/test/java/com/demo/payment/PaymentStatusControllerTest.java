@@ -0,0 +1,93 @@
+package com.demo.payment;
+
+import com.demo.domain.PaymentStatus;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(PaymentStatusController.class)
+@ActiveProfiles("test")
+public class PaymentStatusControllerTest {
+
+    private static final UUID RESERVATION_ID = UUID.fromString("6f1c2f5e-3a52-4d1f-9d2c-0f3b7a1e9c11");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private PaymentProcessor paymentProcessor;
+
+    @Test
+    public void getPaymentStatus_Processed() throws Exception {
+        when(paymentProcessor.getStatus(RESERVATION_ID)).thenReturn(Optional.of(PaymentStatus.Accepted));
+
+        MvcResult result = mockMvc.perform(get("/payment/{reservationId}/status", RESERVATION_ID)
+                .param("waitMillis", "30000"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("Accepted"));
+        verify(paymentProcessor, never()).awaitOutcome(any());
+    }
+
+    /**
+     * A pending payment is answered once the processor records its outcome.
+     */
+    @Test
+    public void getPaymentStatus_Pending_WaitsForOutcome() throws Exception {
+        CompletableFuture<PaymentStatus> outcome = new CompletableFuture<>();
+        when(paymentProcessor.getStatus(RESERVATION_ID)).thenReturn(Optional.of(PaymentStatus.Pending));
+        when(paymentProcessor.awaitOutcome(RESERVATION_ID)).thenReturn(outcome);
+
+        MvcResult result = mockMvc.perform(get("/payment/{reservationId}/status", RESERVATION_ID)
+                .param("waitMillis", "30000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        outcome.complete(PaymentStatus.Declined);
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("Declined"));
+    }
+
+    /**
+     * Without a wait the current status is returned straight away.
+     */
+    @Test
+    public void getPaymentStatus_Pending_NoWait() throws Exception {
+        when(paymentProcessor.getStatus(RESERVATION_ID)).thenReturn(Optional.of(PaymentStatus.Pending));
+
+        MvcResult result = mockMvc.perform(get("/payment/{reservationId}/status", RESERVATION_ID))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("Pending"));
+        verify(paymentProcessor, never()).awaitOutcome(any());
+    }
+
+    @Test
+    public void getPaymentStatus_Unknown_NotFound() throws Exception {
+        when(paymentProcessor.getStatus(RESERVATION_ID)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/payment/{reservationId}/status", RESERVATION_ID))
+                .andExpect(status().isNotFound());
+    }
+}
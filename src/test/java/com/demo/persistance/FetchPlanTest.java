@@ -0,0 +1,181 @@
+package com.demo.persistance;
+
+import com.demo.domain.*;
+import com.demo.domain.location.Address;
+import com.demo.domain.location.Postcode;
+import com.demo.domain.location.State;
+import com.demo.persistance.predicates.RoomPredicates;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the SQL statements issued to load each listing screen. The count must not change with the page size, a
+ * growing count means an association is being loaded per row.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class FetchPlanTest {
+
+    private static final int HOTELS = 30;
+    private static final int ROOMS_PER_HOTEL = 30;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    private Statistics statistics;
+
+    private Long firstHotelId;
+    private List<Long> firstHotelRoomIds = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        for (int h = 0; h < HOTELS; h++) {
+            Hotel hotel = new Hotel("Hotel " + h,
+                    new Address("Hotel " + h, h + " kent street", null,
+                            State.VIC, "Melbourne", new Postcode("3000")),
+                    4, "hotel" + h + "@hotel.com");
+            for (int r = 0; r < ROOMS_PER_HOTEL; r++) {
+                Room room = new Room(h + "-" + r, RoomType.Economy, 2, BigDecimal.valueOf(45.40));
+                hotel.addRoom(room);
+
+                // every room has a paid reservation which must not be loaded by the listings
+                Reservation reservation = new Reservation();
+                reservation.setDates(new ReservationDates(LocalDate.of(2018, 1, 1), LocalDate.of(2018, 1, 3),
+                        LocalTime.of(10, 0), false, true));
+                reservation.setCreatedTime(LocalDate.of(2018, 1, 1).atStartOfDay());
+                room.addReservation(reservation);
+            }
+            entityManager.persist(hotel);
+            if (h == 0) {
+                firstHotelId = hotel.getId();
+                hotel.getRooms().forEach(room -> firstHotelRoomIds.add(room.getId()));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * @return The number of statements prepared while running {@code screen} against an empty persistence context.
+     */
+    private long statementsFor(Supplier<List<?>> screen) {
+        entityManager.clear();
+        statistics.clear();
+        screen.get();
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Reads every property the {@code hotels} template renders.
+     */
+    private List<?> renderHotels(Page<Hotel> hotels) {
+        return hotels.getContent().stream()
+                .map(hotel -> hotel.getName() + hotel.getStars() + hotel.getAddress().getSuburb()
+                        + hotel.getAddress().getState() + hotel.getAddress().getPostcode().getValue())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Reads every property the {@code rooms} template renders, the hotel comes from the separate lookup.
+     */
+    private List<?> renderRooms(int pageSize) {
+        Hotel hotel = hotelRepository.findById(firstHotelId).get();
+        Page<Room> rooms = roomRepository.findAll(
+                RoomPredicates.availableRoom(firstHotelId, firstHotelRoomIds), PageRequest.of(0, pageSize));
+        List<Object> rendered = new ArrayList<>();
+        rendered.add(hotel.getName() + hotel.getAddress().getSuburb());
+        rooms.forEach(room -> rendered.add(room.getRoomNumber() + room.getRoomType() + room.getBeds()
+                + room.getCostPerNight()));
+        return rendered;
+    }
+
+    @Test
+    public void hotels_ConstantStatementsPerPage() {
+        long small = statementsFor(() -> renderHotels(hotelRepository.findAll(PageRequest.of(0, 5))));
+        long large = statementsFor(() -> renderHotels(hotelRepository.findAll(PageRequest.of(0, 20))));
+
+        // page + count
+        assertThat(small).isEqualTo(2);
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    public void hotelSearch_ConstantStatementsPerPage() {
+        long small = statementsFor(() -> renderHotels(
+                hotelRepository.findAllByLocation("VIC", "melbourne", null, PageRequest.of(0, 5))));
+        long large = statementsFor(() -> renderHotels(
+                hotelRepository.findAllByLocation("VIC", "melbourne", null, PageRequest.of(0, 20))));
+
+        assertThat(small).isEqualTo(2);
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    public void hotelSearch_Keyset_SingleStatement() {
+        long statements = statementsFor(() -> hotelRepository
+                .findAllByLocation("VIC", "melbourne", null, null, PageRequest.of(0, 20)).getContent());
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    public void hotelRooms_ConstantStatementsPerPage() {
+        long small = statementsFor(() -> renderRooms(5));
+        long large = statementsFor(() -> renderRooms(20));
+
+        // hotel + page + count
+        assertThat(small).isEqualTo(3);
+        assertThat(large).isEqualTo(small);
+    }
+
+    /**
+     * The reservation flow renders the hotel of a detached room so it must be loaded with the room.
+     */
+    @Test
+    public void findRoomById_HotelFetchedInSameStatement() {
+        Long roomId = firstHotelRoomIds.get(0);
+
+        entityManager.clear();
+        statistics.clear();
+        Room room = roomRepository.findById(roomId).get();
+        entityManager.clear();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(Hibernate.isInitialized(room.getHotel())).isTrue();
+        assertThat(room.getHotel().getId()).isEqualTo(firstHotelId);
+    }
+}
@@ -1,11 +1,17 @@
 package com.demo.persistance;
 
 import com.demo.domain.Hotel;
+import com.demo.domain.Room;
+import com.demo.domain.RoomType;
 import com.demo.domain.location.Address;
 import com.demo.domain.location.Postcode;
 import com.demo.domain.location.State;
+import com.demo.facet.FacetFilter;
+import com.demo.facet.PriceBand;
+import com.demo.persistance.keyset.KeysetSlice;
 import com.demo.persistance.predicates.HotelPredicates;
 import org.hamcrest.Matchers;
+import org.hibernate.Session;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,8 +19,10 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -420,4 +428,191 @@ public class HotelRepositoryTest {
         assertThat(pageToHotelNames(pageResult), Matchers.containsInAnyOrder("Hotel EastNight"));
     }
 
-}
\ No newline at end of file
+    /**
+     * Blank search fields are submitted by the search form when left empty and must not restrict the results.
+     */
+    @Test
+    public void findAllLocation_BlankValues_Ignored() {
+        entityManager.persist(new Hotel("Hotel Royal",
+                new Address("Hotel Royal", "33 kent street", null,
+                        State.VIC, "Melbourne", new Postcode("3000")),
+                4, "royal@hotel.com"));
+
+        entityManager.persist(new Hotel("Hotel Ryde",
+                new Address("Hotel Ryde", "11A ryde avenue", null,
+                        State.NSW, "North Ryde", new Postcode("2800")),
+                4, "ryde@hotel.com"));
+
+        Page<Hotel> pageResult = hotelRepository.findAllByLocation("", " ", null,
+                PageRequest.of(0, 20));
+
+        assertThat(pageResult.getTotalElements(), Matchers.is(2L));
+
+        // surrounding whitespace is ignored
+        pageResult = hotelRepository.findAllByLocation(" vic ", " melbourne ", null,
+                PageRequest.of(0, 20));
+
+        assertThat(pageResult.getTotalElements(), Matchers.is(1L));
+        assertThat(pageToHotelNames(pageResult), Matchers.containsInAnyOrder("Hotel Royal"));
+    }
+
+    private void persistStarredHotels() {
+        int[] stars = {3, 5, 4, 5, 3, 5, 1};
+        for (int i = 0; i < stars.length; i++) {
+            entityManager.persist(new Hotel("Hotel " + i,
+                    new Address("Hotel " + i, i + " kent street", null,
+                            State.VIC, "Melbourne", new Postcode("3000")),
+                    stars[i], "hotel" + i + "@hotel.com"));
+        }
+    }
+
+    /**
+     * Following the cursor visits every hotel exactly once in sort order, hotels with the same rating are ordered by
+     * id so none are skipped or repeated across slices.
+     */
+    @Test
+    public void findAllLocation_Keyset_WalksAllSlices() {
+        persistStarredHotels();
+
+        PageRequest pageable = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "stars"));
+        List<String> names = new ArrayList<>();
+        List<Integer> stars = new ArrayList<>();
+        String cursor = null;
+        int slices = 0;
+        do {
+            KeysetSlice<Hotel> slice = hotelRepository.findAllByLocation("VIC", null, null, cursor, pageable);
+            slice.forEach(hotel -> {
+                names.add(hotel.getName());
+                stars.add(hotel.getStars());
+            });
+            cursor = slice.getNextCursor();
+            slices++;
+        } while (cursor != null);
+
+        assertThat(slices, Matchers.is(4));
+        assertThat(stars, Matchers.contains(5, 5, 5, 4, 3, 3, 1));
+        assertThat(names, Matchers.contains(
+                "Hotel 5", "Hotel 3", "Hotel 1", "Hotel 2", "Hotel 4", "Hotel 0", "Hotel 6"));
+    }
+
+    /**
+     * The last slice is detected from the extra row fetched rather than a count.
+     */
+    @Test
+    public void findAllLocation_Keyset_ExactlyFullSlice_HasNoNext() {
+        persistStarredHotels();
+
+        KeysetSlice<Hotel> slice = hotelRepository.findAllByLocation(null, null, null, null, PageRequest.of(0, 7));
+
+        assertThat(slice.getNumberOfElements(), Matchers.is(7));
+        assertFalse(slice.hasNext());
+        assertNull(slice.getNextCursor());
+    }
+
+    /**
+     * A cursor created for a different sort is ignored and the first slice returned.
+     */
+    @Test
+    public void findAllLocation_Keyset_CursorForDifferentSort_RestartsFromFirst() {
+        persistStarredHotels();
+
+        KeysetSlice<Hotel> byName = hotelRepository.findAllByLocation(null, null, null, null,
+                PageRequest.of(0, 2, Sort.by("name")));
+        assertTrue(byName.hasNext());
+
+        PageRequest byStars = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "stars"));
+        KeysetSlice<Hotel> slice = hotelRepository.findAllByLocation(null, null, null, byName.getNextCursor(), byStars);
+        KeysetSlice<Hotel> first = hotelRepository.findAllByLocation(null, null, null, null, byStars);
+
+        assertThat(slice.getContent(), Matchers.is(first.getContent()));
+    }
+
+    /**
+     * Streaming reads scalar columns in id order, the hotels never enter the persistence context.
+     */
+    @Test
+    public void streamColumns_ByState_SelectedColumnsInIdOrder() {
+        persistStarredHotels();
+        entityManager.persist(new Hotel("Hotel Ryde",
+                new Address("Hotel Ryde", "11A ryde avenue", null,
+                        State.NSW, "North Ryde", new Postcode("2800")),
+                4, "ryde@hotel.com"));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<String> rows = new ArrayList<>();
+        hotelRepository.streamColumns(HotelPredicates.byLocation("VIC", null, null),
+                List.of(HotelColumn.Name, HotelColumn.Stars),
+                row -> rows.add(row.get(0, String.class) + ":" + row.get(1, Integer.class)));
+
+        assertThat(rows, Matchers.contains(
+                "Hotel 0:3", "Hotel 1:5", "Hotel 2:4", "Hotel 3:5", "Hotel 4:3", "Hotel 5:5", "Hotel 6:1"));
+        Session session = entityManager.getEntityManager().unwrap(Session.class);
+        assertThat(session.getStatistics().getEntityCount(), Matchers.is(0));
+    }
+
+    /**
+     * Hotels found near a point keep their distance order through the location filter and paging.
+     */
+    @Test
+    public void findAllNear_ByState_DistanceOrderPaged() {
+        List<Long> ids = new ArrayList<>();
+        for (String[] hotel : new String[][]{{"Hotel Far", "VIC"}, {"Hotel Ryde", "NSW"}, {"Hotel Near", "VIC"},
+                {"Hotel Middle", "VIC"}}) {
+            Address address = new Address(hotel[0], "1 kent street", null,
+                    State.valueOf(hotel[1]), "Melbourne", new Postcode("3000"));
+            address.setLatitude(-37.81);
+            address.setLongitude(144.96);
+            ids.add(entityManager.persistAndGetId(new Hotel(hotel[0], address, 4, "hotel@hotel.com"), Long.class));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Long> nearestFirst = List.of(ids.get(2), ids.get(1), ids.get(3), ids.get(0));
+        Page<Hotel> first = hotelRepository.findAllNear("VIC", null, null, FacetFilter.NONE, nearestFirst, 10,
+                PageRequest.of(0, 2));
+        Page<Hotel> second = hotelRepository.findAllNear("VIC", null, null, FacetFilter.NONE, nearestFirst, 10,
+                PageRequest.of(1, 2));
+        Page<Hotel> limited = hotelRepository.findAllNear(null, null, null, FacetFilter.NONE, nearestFirst, 2,
+                PageRequest.of(0, 5));
+
+        assertThat(first.getTotalElements(), Matchers.is(3L));
+        assertThat(pageToHotelNames(first), Matchers.contains("Hotel Near", "Hotel Middle"));
+        assertThat(pageToHotelNames(second), Matchers.contains("Hotel Far"));
+        assertThat(pageToHotelNames(limited), Matchers.contains("Hotel Near", "Hotel Ryde"));
+        assertThat(limited.getTotalElements(), Matchers.is(2L));
+    }
+
+    /**
+     * Room facets each need some room with a chosen value, not necessarily the same room.
+     */
+    @Test
+    public void findAllByLocation_Facets() {
+        Hotel royal = new Hotel("Hotel Royal", new Address("Hotel Royal", "33 kent street", null,
+                State.VIC, "Melbourne", new Postcode("3000")), 4, "royal@hotel.com");
+        royal.addRoom(new Room("R1", RoomType.Luxury, 1, BigDecimal.valueOf(250)));
+        royal.addRoom(new Room("R2", RoomType.Economy, 3, BigDecimal.valueOf(80)));
+        entityManager.persist(royal);
+
+        Hotel summer = new Hotel("Hotel Summer", new Address("Hotel Summer", "133 kennedy avenue", null,
+                State.VIC, "Melbourne", new Postcode("3000")), 5, "summer@hotel.com");
+        summer.addRoom(new Room("S1", RoomType.Economy, 1, BigDecimal.valueOf(100)));
+        entityManager.persist(summer);
+        entityManager.flush();
+        entityManager.clear();
+
+        PageRequest pageable = PageRequest.of(0, 20, Sort.by("name"));
+        assertThat(pageToHotelNames(hotelRepository.findAllByLocation("VIC", null, null,
+                FacetFilter.of(null, List.of(RoomType.Luxury), List.of(3), null), pageable)),
+                Matchers.contains("Hotel Royal"));
+        assertThat(pageToHotelNames(hotelRepository.findAllByLocation("VIC", null, null,
+                FacetFilter.of(null, null, null, List.of(PriceBand.From100To200)), pageable)),
+                Matchers.contains("Hotel Summer"));
+        assertThat(pageToHotelNames(hotelRepository.findAllByLocation(null, null, null,
+                FacetFilter.of(List.of(4, 5), null, List.of(1), List.of(PriceBand.Under100, PriceBand.From200To300)),
+                pageable)), Matchers.contains("Hotel Royal"));
+        assertThat(hotelRepository.findAllByLocation(null, null, null,
+                FacetFilter.of(List.of(5), List.of(RoomType.Luxury), null, null), pageable).getTotalElements(),
+                Matchers.is(0L));
+    }
+}
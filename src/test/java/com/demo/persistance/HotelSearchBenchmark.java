@@ -0,0 +1,137 @@
+package com.demo.persistance;
+
+import com.demo.domain.Hotel;
+import com.demo.domain.location.Address;
+import com.demo.domain.location.Postcode;
+import com.demo.domain.location.State;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the original {@code coalesce/upper} JPQL location search against the indexed predicate path used by
+ * {@link HotelRepository#findAllByLocation}.
+ *
+ * <p>Not part of the normal test run since the name does not end in Test. Run explicitly with</p>
+ * <pre>
+ *     mvn test -Dtest=HotelSearchBenchmark -Dbenchmark.hotels=100000
+ * </pre>
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.jdbc.batch_size=500",
+        "spring.jpa.properties.hibernate.order_inserts=true"
+})
+public class HotelSearchBenchmark {
+
+    /**
+     * The query {@code findAllByLocation} used before the normalized search columns were introduced.
+     */
+    private static final String LEGACY_QUERY = "select h from Hotel h " +
+            "where upper(h.address.state) = coalesce(upper(:state), upper(h.address.state)) " +
+            "and upper(h.address.suburb) = coalesce(upper(:suburb), upper(h.address.suburb)) " +
+            "and h.address.postcode.value = coalesce(:postcode, h.address.postcode.value)";
+
+    private static final String LEGACY_COUNT_QUERY = LEGACY_QUERY.replace("select h from", "select count(h) from");
+
+    private static final int SUBURBS = 2000;
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    private void insertHotels(int total) {
+        State[] states = State.values();
+        for (int i = 0; i < total; i++) {
+            int suburb = i % SUBURBS;
+            String name = "Hotel " + i;
+            entityManager.persist(new Hotel(name,
+                    new Address(name, i + " main street", null, states[suburb % states.length],
+                            "Suburb " + suburb, new Postcode(String.valueOf(1000 + suburb))),
+                    1 + i % 5, "hotel" + i + "@hotel.com"));
+
+            if (i % 500 == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private long legacyCount(String state, String suburb, String postcode) {
+        EntityManager em = entityManager.getEntityManager();
+        em.createQuery(LEGACY_QUERY, Hotel.class)
+                .setParameter("state", state)
+                .setParameter("suburb", suburb)
+                .setParameter("postcode", postcode)
+                .setMaxResults(20)
+                .getResultList();
+        return em.createQuery(LEGACY_COUNT_QUERY, Long.class)
+                .setParameter("state", state)
+                .setParameter("suburb", suburb)
+                .setParameter("postcode", postcode)
+                .getSingleResult();
+    }
+
+    private long indexedCount(String state, String suburb, String postcode) {
+        Page<Hotel> page = hotelRepository.findAllByLocation(state, suburb, postcode, PageRequest.of(0, 20));
+        return page.getTotalElements();
+    }
+
+    private double averageMicros(Supplier<Long> search) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            search.get();
+            entityManager.clear();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            search.get();
+            entityManager.clear();
+        }
+        return (System.nanoTime() - start) / 1000.0 / MEASURED_ITERATIONS;
+    }
+
+    @Test
+    public void compareLocationSearch() {
+        int total = Integer.getInteger("benchmark.hotels", 100_000);
+        insertHotels(total);
+
+        List<String[]> searches = List.of(
+                new String[]{"VIC", null, null},
+                new String[]{null, "suburb 42", null},
+                new String[]{"nsw", "Suburb 1", null},
+                new String[]{null, null, "1042"},
+                new String[]{"VIC", "suburb 42", "1042"}
+        );
+
+        System.out.printf("Location search over %d hotels (avg us per page + count)%n", total);
+        System.out.printf("%-30s %12s %12s %8s%n", "state/suburb/postcode", "legacy", "indexed", "matches");
+        for (String[] s : searches) {
+            long legacyMatches = legacyCount(s[0], s[1], s[2]);
+            long indexedMatches = indexedCount(s[0], s[1], s[2]);
+            assertThat(indexedMatches).isEqualTo(legacyMatches);
+
+            double legacy = averageMicros(() -> legacyCount(s[0], s[1], s[2]));
+            double indexed = averageMicros(() -> indexedCount(s[0], s[1], s[2]));
+            System.out.printf("%-30s %12.1f %12.1f %8d%n", s[0] + "/" + s[1] + "/" + s[2], legacy, indexed, indexedMatches);
+        }
+    }
+}
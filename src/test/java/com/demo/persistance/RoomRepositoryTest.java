@@ -1,9 +1,12 @@
 package com.demo.persistance;
 
+import com.demo.availability.HotelAvailability;
+import com.demo.availability.RoomRef;
 import com.demo.domain.*;
 import com.demo.domain.location.Address;
 import com.demo.domain.location.Postcode;
 import com.demo.domain.location.State;
+import com.demo.persistance.keyset.KeysetSlice;
 import com.demo.persistance.predicates.RoomPredicates;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -12,12 +15,12 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.LocalTime;
-import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -31,105 +34,176 @@ public class RoomRepositoryTest {
     @Autowired
     private RoomRepository roomRepository;
 
+    private Hotel createHotel() {
+        return new Hotel("Hotel Royal",
+                new Address("Hotel Royal", "33 kent street", null,
+                        State.VIC, "Melbourne", new Postcode("3000")),
+                4, "royal@hotel.com");
+    }
+
     /**
      * A room cannot be available if the hotel cannot be found by its hotel id.
      */
     @Test
     public void availableRoom_HotelNotFound() {
-        Long hotelId = entityManager.persistAndGetId(new Hotel("Hotel Royal",
-                new Address("Hotel Royal", "33 kent street", null,
-                        State.VIC, "Melbourne", new Postcode("3000")),
-                4, "royal@hotel.com"), Long.class);
+        Hotel hotel = createHotel();
+        Room roomA = new Room("A", RoomType.Luxury, 2, BigDecimal.valueOf(63.3));
+        hotel.addRoom(roomA);
+
+        Long hotelId = entityManager.persistAndGetId(hotel, Long.class);
         Long nextMissingHotelId = hotelId + 1;
 
         PageRequest page = PageRequest.of(0, 20);
-        Page<Room> rooms = roomRepository.findAll(RoomPredicates.availableRoom(nextMissingHotelId), page);
+        Page<Room> rooms = roomRepository.findAll(
+                RoomPredicates.availableRoom(nextMissingHotelId, List.of(roomA.getId())), page);
         assertThat(rooms.getTotalElements()).isEqualTo(0);
     }
 
     /**
-     * When a hotel has many rooms but only 1 room is free (no reservation assigned) it should be the only room returned.
+     * Only the rooms the availability index reports as free are returned.
      */
     @Test
-    public void availableRoom_AtLeastOneFree() {
-        Hotel hotel = new Hotel("Hotel Royal",
-                new Address("Hotel Royal", "33 kent street", null,
-                        State.VIC, "Melbourne", new Postcode("3000")),
-                4, "royal@hotel.com");
-
-        // This room is free since the reservation is null by default.
+    public void availableRoom_OnlySuppliedRoomIds() {
+        Hotel hotel = createHotel();
         Room roomA = new Room("A", RoomType.Luxury, 2, BigDecimal.valueOf(63.3));
-        hotel.addRoom(roomA);
-
         Room roomB = new Room("B", RoomType.Economy, 4, BigDecimal.valueOf(45.4));
-        // boiler plate to create a valid reservation...
-        Reservation reservation = new Reservation();
-        ReservationDates reservationDates = new ReservationDates();
-        reservationDates.setCheckInDate(LocalDate.now());
-        reservationDates.setCheckOutDate(LocalDate.now().plusDays(3));
-        reservationDates.setEstimatedCheckInTime(LocalTime.of(10, 0));
-        reservationDates.setPolicyAcknowledged(true);
-        reservation.setCompletedPayment(new CompletedPayment(PendingPayment.CreditCardType.MasterCard,
-                "3455", "344", YearMonth.of(2018, 1)));
-        reservation.setDates(reservationDates);
-
-        roomB.setReservation(reservation);
+        hotel.addRoom(roomA);
         hotel.addRoom(roomB);
 
         Long hotelId = entityManager.persistAndGetId(hotel, Long.class);
         PageRequest page = PageRequest.of(0, 20);
-        Page<Room> availableRooms = roomRepository.findAll(RoomPredicates.availableRoom(hotelId), page);
+        Page<Room> availableRooms = roomRepository.findAll(
+                RoomPredicates.availableRoom(hotelId, List.of(roomA.getId())), page);
 
-        // The only free hotel is returned.
         assertThat(availableRooms.getTotalElements()).isEqualTo(1);
         assertThat(availableRooms.getContent().get(0).getRoomNumber()).isEqualTo("A");
     }
 
     /**
-     * When a hotel has no free rooms, an empty list should be returned. Note: Both rooms have a non null reservation.
+     * A room id belonging to a different hotel must not leak into the results.
      */
     @Test
-    public void availableRoom_NoneFree() {
-        Hotel hotel = new Hotel("Hotel Royal",
-                new Address("Hotel Royal", "33 kent street", null,
-                        State.VIC, "Melbourne", new Postcode("3000")),
-                4, "royal@hotel.com");
-
-        // boiler plate to create a valid reservation...
+    public void availableRoom_IgnoresRoomsFromOtherHotels() {
+        Hotel hotel = createHotel();
         Room roomA = new Room("A", RoomType.Luxury, 2, BigDecimal.valueOf(63.3));
-        Reservation reservationA = new Reservation();
-        ReservationDates reservationDatesA = new ReservationDates();
-        reservationDatesA.setCheckInDate(LocalDate.now());
-        reservationDatesA.setCheckOutDate(LocalDate.now().plusDays(3));
-        reservationDatesA.setEstimatedCheckInTime(LocalTime.of(10, 0));
-        reservationDatesA.setPolicyAcknowledged(true);
-        reservationA.setDates(reservationDatesA);
-        reservationA.setCompletedPayment(new CompletedPayment(PendingPayment.CreditCardType.MasterCard,
-                "3455", "344", YearMonth.of(2018, 1)));
-        roomA.setReservation(reservationA);
-
-        // boiler plate to create a valid reservation...
+        hotel.addRoom(roomA);
+
+        Hotel otherHotel = new Hotel("Hotel Summer",
+                new Address("Hotel Summer", "133 kennedy avenue", null,
+                        State.VIC, "Summer West", new Postcode("3500")),
+                4, "summer@hotel.com");
         Room roomB = new Room("B", RoomType.Economy, 4, BigDecimal.valueOf(45.4));
-        Reservation reservationB = new Reservation();
-        ReservationDates reservationDatesB = new ReservationDates();
-        reservationDatesB.setCheckInDate(LocalDate.now());
-        reservationDatesB.setCheckOutDate(LocalDate.now().plusDays(3));
-        reservationDatesB.setEstimatedCheckInTime(LocalTime.of(10, 0));
-        reservationDatesB.setPolicyAcknowledged(true);
-        reservationB.setDates(reservationDatesB);
-        reservationB.setCompletedPayment(new CompletedPayment(PendingPayment.CreditCardType.MasterCard,
-                "3455", "344", YearMonth.of(2018, 1)));
-        roomB.setReservation(reservationB);
+        otherHotel.addRoom(roomB);
 
-        hotel.addRoom(roomA);
-        hotel.addRoom(roomB);
+        Long hotelId = entityManager.persistAndGetId(hotel, Long.class);
+        entityManager.persist(otherHotel);
+
+        Page<Room> availableRooms = roomRepository.findAll(
+                RoomPredicates.availableRoom(hotelId, List.of(roomA.getId(), roomB.getId())), PageRequest.of(0, 20));
+
+        assertThat(availableRooms.getContent()).extracting(Room::getRoomNumber).containsOnly("A");
+    }
+
+    /**
+     * When no rooms are free, an empty page should be returned.
+     */
+    @Test
+    public void availableRoom_NoneFree() {
+        Hotel hotel = createHotel();
+        hotel.addRoom(new Room("A", RoomType.Luxury, 2, BigDecimal.valueOf(63.3)));
+        hotel.addRoom(new Room("B", RoomType.Economy, 4, BigDecimal.valueOf(45.4)));
 
         Long id = entityManager.persistAndGetId(hotel, Long.class);
         PageRequest page = PageRequest.of(0, 20);
-        Page<Room> availableRooms = roomRepository.findAll(RoomPredicates.availableRoom(id), page);
+        Page<Room> availableRooms = roomRepository.findAll(RoomPredicates.availableRoom(id, List.of()), page);
 
         // no rooms are free
         assertThat(availableRooms.getTotalElements()).isEqualTo(0);
         assertThat(availableRooms.getContent()).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void findAllRoomRefs() {
+        Hotel hotel = createHotel();
+        Room roomA = new Room("A", RoomType.Luxury, 2, BigDecimal.valueOf(63.3));
+        Room roomB = new Room("B", RoomType.Economy, 4, BigDecimal.valueOf(45.4));
+        hotel.addRoom(roomA);
+        hotel.addRoom(roomB);
+        Long hotelId = entityManager.persistAndGetId(hotel, Long.class);
+
+        List<RoomRef> refs = roomRepository.findAllRoomRefs();
+
+        assertThat(refs).extracting(RoomRef::getRoomId).containsOnly(roomA.getId(), roomB.getId());
+        assertThat(refs).extracting(RoomRef::getHotelId).containsOnly(hotelId);
+    }
+
+    /**
+     * Keyset slices over the available rooms follow the requested sort with the room id as the tie breaker.
+     */
+    @Test
+    public void availableRoom_Keyset_WalksAllSlices() {
+        Hotel hotel = createHotel();
+        Room roomA = new Room("A", RoomType.Luxury, 2, BigDecimal.valueOf(63.30));
+        Room roomB = new Room("B", RoomType.Economy, 4, BigDecimal.valueOf(45.40));
+        Room roomC = new Room("C", RoomType.Business, 2, BigDecimal.valueOf(63.30));
+        Room roomD = new Room("D", RoomType.Economy, 1, BigDecimal.valueOf(99.00));
+        hotel.addRoom(roomA);
+        hotel.addRoom(roomB);
+        hotel.addRoom(roomC);
+        hotel.addRoom(roomD);
+        Long hotelId = entityManager.persistAndGetId(hotel, Long.class);
+
+        // room D is booked
+        List<Long> available = List.of(roomA.getId(), roomB.getId(), roomC.getId());
+        PageRequest pageable = PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "costPerNight"));
+
+        KeysetSlice<Room> first = roomRepository.findSlice(RoomPredicates.availableRoom(hotelId, available), null, pageable);
+        KeysetSlice<Room> second = roomRepository.findSlice(
+                RoomPredicates.availableRoom(hotelId, available), first.getNextCursor(), pageable);
+        KeysetSlice<Room> third = roomRepository.findSlice(
+                RoomPredicates.availableRoom(hotelId, available), second.getNextCursor(), pageable);
+
+        // A and C cost the same so the higher id comes first when descending
+        Room tieFirst = roomA.getId() > roomC.getId() ? roomA : roomC;
+        Room tieSecond = tieFirst == roomA ? roomC : roomA;
+        assertThat(first.getContent()).containsExactly(tieFirst);
+        assertThat(second.getContent()).containsExactly(tieSecond);
+        assertThat(third.getContent()).containsExactly(roomB);
+        assertThat(third.hasNext()).isFalse();
+    }
+
+    /**
+     * Only the supplied rooms with enough beds are counted, grouped by their hotel.
+     */
+    @Test
+    public void summarizeByHotel_CountAndCheapest() {
+        Hotel royal = createHotel();
+        Room roomA = new Room("A", RoomType.Luxury, 2, BigDecimal.valueOf(163.30));
+        Room roomB = new Room("B", RoomType.Economy, 4, BigDecimal.valueOf(45.40));
+        Room roomC = new Room("C", RoomType.Economy, 1, BigDecimal.valueOf(20.00));
+        Room roomD = new Room("D", RoomType.Business, 3, BigDecimal.valueOf(99.00));
+        royal.addRoom(roomA);
+        royal.addRoom(roomB);
+        royal.addRoom(roomC);
+        royal.addRoom(roomD);
+        Long royalId = entityManager.persistAndGetId(royal, Long.class);
+
+        Hotel summer = new Hotel("Hotel Summer", new Address("Hotel Summer", "133 kennedy avenue", null,
+                State.VIC, "Melbourne", new Postcode("3000")), 5, "summer@hotel.com");
+        Room roomE = new Room("E", RoomType.Luxury, 2, BigDecimal.valueOf(250.00));
+        summer.addRoom(roomE);
+        Long summerId = entityManager.persistAndGetId(summer, Long.class);
+
+        // room D is booked
+        Map<Long, HotelAvailability> byHotel = roomRepository.summarizeByHotel(
+                List.of(roomA.getId(), roomB.getId(), roomC.getId(), roomE.getId()), 2);
+
+        assertThat(byHotel).containsOnlyKeys(royalId, summerId);
+        assertThat(byHotel.get(royalId).getAvailableRooms()).isEqualTo(2);
+        assertThat(byHotel.get(royalId).getCheapestRate()).isEqualByComparingTo("45.40");
+        assertThat(byHotel.get(summerId).getAvailableRooms()).isEqualTo(1);
+        assertThat(roomRepository.summarizeByHotel(List.of(roomC.getId()), 2)).isEmpty();
+        assertThat(roomRepository.summarizeByHotel(List.of(roomC.getId()), null).get(royalId).getAvailableRooms())
+                .isEqualTo(1);
+    }
+}
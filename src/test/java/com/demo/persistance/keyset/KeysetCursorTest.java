@@ -0,0 +1,54 @@
+package com.demo.persistance.keyset;
+
+import org.junit.Test;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KeysetCursorTest {
+
+    @Test
+    public void encode_Decode_RoundTrip() {
+        KeysetCursor cursor = new KeysetCursor("address.suburb", Sort.Direction.DESC, "NORTH RYDE", 42);
+
+        assertThat(KeysetCursor.decode(cursor.encode())).contains(cursor);
+    }
+
+    /**
+     * Sort values are user data so they may contain the separator.
+     */
+    @Test
+    public void encode_Decode_ValueContainsSeparator() {
+        KeysetCursor cursor = new KeysetCursor("name", Sort.Direction.ASC, "Bed | Breakfast", 7);
+
+        assertThat(KeysetCursor.decode(cursor.encode())).contains(cursor);
+    }
+
+    @Test
+    public void encode_IsUrlSafe() {
+        String token = new KeysetCursor("name", Sort.Direction.ASC, "??>>~~", Long.MAX_VALUE).encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    public void decode_BlankOrNull_Empty() {
+        assertThat(KeysetCursor.decode(null)).isEmpty();
+        assertThat(KeysetCursor.decode("")).isEmpty();
+    }
+
+    @Test
+    public void decode_Malformed_Empty() {
+        assertThat(KeysetCursor.decode("not base64!")).isEmpty();
+        assertThat(KeysetCursor.decode(encodeRaw("name|ASC"))).isEmpty();
+        assertThat(KeysetCursor.decode(encodeRaw("name|SIDEWAYS|a|1"))).isEmpty();
+        assertThat(KeysetCursor.decode(encodeRaw("name|ASC|a|one"))).isEmpty();
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,64 @@
+package com.demo.persistance.routing;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two in memory H2 databases stand in for the primary and the replica, each knows its own name.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists node (name varchar(20))");
+        jdbcTemplate.update("delete from node");
+        jdbcTemplate.update("insert into node values (?)", name);
+        return dataSource;
+    }
+
+    @Before
+    public void setup() {
+        ReplicaRoutingDataSource routingDataSource =
+                new ReplicaRoutingDataSource(database("routing-primary"), database("routing-replica"));
+        routingDataSource.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    @Test
+    public void readOnlyTransaction_UsesReplica() {
+        transactionTemplate.setReadOnly(true);
+
+        assertThat(transactionTemplate.execute(status -> node())).isEqualTo("routing-replica");
+    }
+
+    @Test
+    public void readWriteTransaction_UsesPrimary() {
+        assertThat(transactionTemplate.execute(status -> node())).isEqualTo("routing-primary");
+    }
+
+    @Test
+    public void noTransaction_UsesPrimary() {
+        assertThat(node()).isEqualTo("routing-primary");
+    }
+}
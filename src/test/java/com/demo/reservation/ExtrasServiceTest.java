@@ -0,0 +1,126 @@
+package com.demo.reservation;
+
+import com.demo.domain.Extra;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+public class ExtrasServiceTest {
+
+    private ExtraRepository extraRepository;
+    private ExtrasService extrasService;
+
+    private static Extra extra(long id, String description, Extra.Type type, Extra.Category category) {
+        Extra extra = new Extra(description, BigDecimal.ONE, type, category);
+        extra.setId(id);
+        return extra;
+    }
+
+    @Before
+    public void setup() {
+        extraRepository = mock(ExtraRepository.class);
+        when(extraRepository.findAll()).thenReturn(List.of(
+                extra(3, "Laundry", Extra.Type.Basic, Extra.Category.General),
+                extra(1, "Foxtel", Extra.Type.Basic, Extra.Category.General),
+                extra(2, "Breakfast", Extra.Type.Basic, Extra.Category.Food),
+                extra(4, "Massage", Extra.Type.Premium, Extra.Category.General)));
+
+        extrasService = new ExtrasService(extraRepository);
+        extrasService.reload();
+    }
+
+    @Test
+    public void getExtras_GroupedByTypeAndCategory_NoQueries() {
+        assertThat(extrasService.getGeneralExtras(Extra.Type.Basic))
+                .extracting(Extra::getId).containsExactly(1L, 3L);
+        assertThat(extrasService.getFoodExtras(Extra.Type.Basic))
+                .extracting(Extra::getId).containsExactly(2L);
+        assertThat(extrasService.getGeneralExtras(Extra.Type.Premium))
+                .extracting(Extra::getId).containsExactly(4L);
+        assertThat(extrasService.getFoodExtras(Extra.Type.Premium)).isEmpty();
+
+        verify(extraRepository, times(1)).findAll();
+        verifyNoMoreInteractions(extraRepository);
+        assertThat(extrasService.getHitCount()).isEqualTo(4);
+        assertThat(extrasService.getMissCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void getExtrasById_Cached_NoQueries() {
+        assertThat(extrasService.getExtrasById(List.of(4L, 2L)))
+                .extracting(Extra::getId).containsExactly(4L, 2L);
+        assertThat(extrasService.getExtraById(3L)).hasValueSatisfying(e -> assertThat(e.getDescription()).isEqualTo("Laundry"));
+
+        verify(extraRepository, never()).findAllById(anyIterable());
+        verify(extraRepository, never()).findById(any());
+        assertThat(extrasService.getHitCount()).isEqualTo(3);
+    }
+
+    /**
+     * Ids not in the snapshot fall back to the database and count as misses.
+     */
+    @Test
+    public void getExtrasById_Unknown_QueriesMissingOnly() {
+        Extra dinner = extra(9, "Dinner", Extra.Type.Basic, Extra.Category.Food);
+        when(extraRepository.findAllById(List.of(9L))).thenReturn(List.of(dinner));
+
+        assertThat(extrasService.getExtrasById(List.of(1L, 9L)))
+                .extracting(Extra::getId).containsExactly(1L, 9L);
+
+        verify(extraRepository, times(1)).findAllById(List.of(9L));
+        assertThat(extrasService.getHitCount()).isEqualTo(1);
+        assertThat(extrasService.getMissCount()).isEqualTo(1);
+    }
+
+    /**
+     * Saving through the service replaces the snapshot so the new extra is served without further queries.
+     */
+    @Test
+    public void save_ReplacesSnapshot() {
+        Extra dinner = extra(9, "Dinner", Extra.Type.Basic, Extra.Category.Food);
+        List<Extra> before = extrasService.getFoodExtras(Extra.Type.Basic);
+
+        when(extraRepository.save(dinner)).thenReturn(dinner);
+        when(extraRepository.findAll()).thenReturn(List.of(
+                extra(2, "Breakfast", Extra.Type.Basic, Extra.Category.Food), dinner));
+        extrasService.save(dinner);
+
+        assertThat(before).extracting(Extra::getId).containsExactly(2L);
+        assertThat(extrasService.getFoodExtras(Extra.Type.Basic)).extracting(Extra::getId).containsExactly(2L, 9L);
+        assertThat(extrasService.getExtraById(9L)).contains(dinner);
+        verify(extraRepository, never()).findById(any());
+    }
+
+    /**
+     * The snapshot is loaded on first use when the application ready event has not fired.
+     */
+    @Test
+    public void getExtras_NotLoaded_LoadsOnce() {
+        ExtrasService lazy = new ExtrasService(extraRepository);
+        reset(extraRepository);
+        when(extraRepository.findAll()).thenReturn(List.of(extra(1, "Foxtel", Extra.Type.Basic, Extra.Category.General)));
+
+        lazy.getGeneralExtras(Extra.Type.Basic);
+        lazy.getGeneralExtras(Extra.Type.Basic);
+
+        verify(extraRepository, times(1)).findAll();
+        assertThat(lazy.getMissCount()).isEqualTo(1);
+        assertThat(lazy.getHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void getCachedList_Unmodifiable() {
+        List<Extra> extras = extrasService.getGeneralExtras(Extra.Type.Basic);
+
+        assertThatThrownBy(extras::clear).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(extrasService.getGeneralExtras(Extra.Type.Basic)).hasSize(2);
+    }
+}
@@ -0,0 +1,213 @@
+package com.demo.reservation;
+
+import com.demo.availability.BookedNights;
+import com.demo.domain.*;
+import com.demo.domain.location.Address;
+import com.demo.domain.location.Postcode;
+import com.demo.domain.location.State;
+import com.demo.exceptions.RoomUnavailableException;
+import com.demo.payment.PaymentRequestRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class ReservationRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private PaymentRequestRepository paymentRequestRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Reservation createReservation(LocalDate checkIn, LocalDate checkOut) {
+        Reservation reservation = new Reservation();
+        reservation.setDates(new ReservationDates(checkIn, checkOut, LocalTime.of(10, 0), false, true));
+        reservation.setCompletedPayment(new CompletedPayment("tok_1234", PendingPayment.CreditCardType.MasterCard,
+                "3455", "344", YearMonth.of(2018, 1)));
+        return reservation;
+    }
+
+    private Room persistRoom() {
+        Hotel hotel = new Hotel("Hotel Royal",
+                new Address("Hotel Royal", "33 kent street", null,
+                        State.VIC, "Melbourne", new Postcode("3000")),
+                4, "royal@hotel.com");
+        Room room = new Room("A", RoomType.Luxury, 2, BigDecimal.valueOf(63.3));
+        hotel.addRoom(room);
+        entityManager.persistAndFlush(hotel);
+        return room;
+    }
+
+    private Reservation createReservation(Room room, LocalDate checkIn, LocalDate checkOut) {
+        Reservation reservation = createReservation(checkIn, checkOut);
+        reservation.setRoom(room);
+        return reservation;
+    }
+
+    private long roomVersion(Room room) {
+        return entityManager.getEntityManager()
+                .createQuery("select r.version from Room r where r.id = :roomId", Long.class)
+                .setParameter("roomId", room.getId())
+                .getSingleResult();
+    }
+
+    /**
+     * Reservations that checked out on or before the supplied date no longer occupy nights and are excluded.
+     */
+    @Test
+    public void findAllBookedNightsFrom_ExcludesCheckedOut() {
+        LocalDate today = LocalDate.of(2018, 3, 10);
+
+        Hotel hotel = new Hotel("Hotel Royal",
+                new Address("Hotel Royal", "33 kent street", null,
+                        State.VIC, "Melbourne", new Postcode("3000")),
+                4, "royal@hotel.com");
+        Room room = new Room("A", RoomType.Luxury, 2, BigDecimal.valueOf(63.3));
+        hotel.addRoom(room);
+
+        room.addReservation(createReservation(today.minusDays(5), today));
+        room.addReservation(createReservation(today.minusDays(1), today.plusDays(2)));
+        room.addReservation(createReservation(today.plusDays(7), today.plusDays(9)));
+        entityManager.persist(hotel);
+
+        List<BookedNights> booked = reservationRepository.findAllBookedNightsFrom(today);
+
+        assertThat(booked).extracting(BookedNights::getRoomId).containsOnly(room.getId());
+        assertThat(booked).extracting(BookedNights::getCheckInDate)
+                .containsExactlyInAnyOrder(today.minusDays(1), today.plusDays(7));
+    }
+
+    @Test
+    public void book_FreeNights_SavedAndRoomVersionBumped() {
+        LocalDate today = LocalDate.of(2018, 3, 10);
+        Room room = persistRoom();
+        long version = roomVersion(room);
+
+        Reservation booked = reservationRepository.book(createReservation(room, today, today.plusDays(2)));
+
+        assertThat(booked.getId()).isNotNull();
+        assertThat(roomVersion(room)).isEqualTo(version + 1);
+    }
+
+    @Test
+    public void book_OverlappingNights_Rejected() {
+        LocalDate today = LocalDate.of(2018, 3, 10);
+        Room room = persistRoom();
+        reservationRepository.book(createReservation(room, today, today.plusDays(3)));
+
+        assertThatThrownBy(() -> reservationRepository.book(createReservation(room, today.plusDays(2), today.plusDays(4))))
+                .isInstanceOf(RoomUnavailableException.class);
+        assertThat(reservationRepository.count()).isEqualTo(1);
+    }
+
+    /**
+     * Checking in on the day the previous guest checks out does not overlap.
+     */
+    @Test
+    public void book_AdjacentNights_Saved() {
+        LocalDate today = LocalDate.of(2018, 3, 10);
+        Room room = persistRoom();
+        reservationRepository.book(createReservation(room, today, today.plusDays(3)));
+        reservationRepository.book(createReservation(room, today.minusDays(2), today));
+        reservationRepository.book(createReservation(room, today.plusDays(3), today.plusDays(5)));
+
+        assertThat(reservationRepository.count()).isEqualTo(3);
+    }
+
+    /**
+     * The payment is only requested by the booking that commits, the processor picks it up from the outbox.
+     */
+    @Test
+    public void book_PaymentRequestWritten() {
+        LocalDate today = LocalDate.of(2018, 3, 10);
+        Room room = persistRoom();
+        Reservation booked = reservationRepository.book(createReservation(room, today, today.plusDays(2)));
+        assertThatThrownBy(() -> reservationRepository.book(createReservation(room, today, today.plusDays(1))))
+                .isInstanceOf(RoomUnavailableException.class);
+
+        PaymentRequest request = paymentRequestRepository.findByReservationId(booked.getReservationId()).get();
+
+        assertThat(paymentRequestRepository.count()).isEqualTo(1);
+        assertThat(request.getStatus()).isEqualTo(PaymentStatus.Pending);
+        assertThat(request.getRoomId()).isEqualTo(room.getId());
+        assertThat(request.getHotelId()).isEqualTo(room.getHotel().getId());
+        assertThat(request.getAmount()).isEqualByComparingTo(booked.getTotalCostIncludingTax());
+        assertThat(request.getTransactionId()).isEqualTo(booked.getCompletedPayment().getTransactionId());
+        assertThat(request.getLast4CreditCardDigits()).isEqualTo("3455");
+        assertThat(paymentRequestRepository.findReservationIdsByStatus(PaymentStatus.Pending,
+                PageRequest.of(0, 10)))
+                .containsExactly(booked.getReservationId());
+    }
+
+    /**
+     * The second booking waits for the first to commit rather than failing on the room version, the nights do not
+     * overlap so both are saved. Runs outside the test transaction so each booking commits on its own.
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void book_ConcurrentDisjointNights_BothSaved() throws Exception {
+        LocalDate today = LocalDate.of(2018, 3, 10);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Room room = transaction.execute(status -> persistRoom());
+        Reservation first = createReservation(room, today, today.plusDays(2));
+        Reservation second = createReservation(room, today.plusDays(5), today.plusDays(7));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch firstBooked = new CountDownLatch(1);
+            Future<?> firstCommitted = executor.submit(() -> transaction.execute(status -> {
+                reservationRepository.book(first);
+                firstBooked.countDown();
+                // Hold the room row lock while the second booking starts.
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }));
+            assertThat(firstBooked.await(5, TimeUnit.SECONDS)).isTrue();
+
+            reservationRepository.book(second);
+            firstCommitted.get(5, TimeUnit.SECONDS);
+
+            assertThat(reservationRepository.findAllBookedNightsFrom(today))
+                    .extracting(BookedNights::getCheckInDate)
+                    .containsExactlyInAnyOrder(today, today.plusDays(5));
+        } finally {
+            executor.shutdownNow();
+            transaction.execute(status -> {
+                paymentRequestRepository.deleteAll();
+                reservationRepository.deleteAll(List.of(first, second));
+                entityManager.remove(entityManager.find(Hotel.class, room.getHotel().getId()));
+                return null;
+            });
+        }
+    }
+}
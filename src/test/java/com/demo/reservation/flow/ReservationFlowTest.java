@@ -1,21 +1,31 @@
 package com.demo.reservation.flow;
 
+import com.demo.domain.*;
 import com.demo.reservation.flow.forms.ReservationFlow;
+import com.demo.reservation.flow.helpers.FlowStages;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.*;
+
 import static org.assertj.core.api.Assertions.*;
 
 public class ReservationFlowTest {
 
     @Test
     public void beginsAtFlowStep0() {
-        ReservationFlow flow = new ReservationFlow();
+        ReservationFlow flow = new ReservationFlow(0);
         assertThat(flow.getActiveStep()).isEqualTo(ReservationFlow.Step.Dates);
     }
 
     @Test
     public void hasCorrectFlowSequence() {
-        ReservationFlow flow = new ReservationFlow();
+        ReservationFlow flow = new ReservationFlow(0);
         assertThat(flow.getStepDescriptions().size()).isEqualTo(6);
         assertThat(flow.getStepDescriptions().get(0).getTitle()).isEqualTo("Dates");
         assertThat(flow.getStepDescriptions().get(1).getTitle()).isEqualTo("Guests");
@@ -25,16 +35,21 @@ public class ReservationFlowTest {
         assertThat(flow.getStepDescriptions().get(5).getTitle()).isEqualTo("Payment");
     }
 
+    @Test
+    public void stepDescriptionsAreShared() {
+        assertThat(new ReservationFlow(0).getStepDescriptions()).isSameAs(new ReservationFlow(0).getStepDescriptions());
+    }
+
     @Test
     public void transition() {
-        ReservationFlow flow = new ReservationFlow();
+        ReservationFlow flow = new ReservationFlow(0);
         assertThat(flow.isActive(ReservationFlow.Step.Dates)).isTrue();
 
         flow.completeStep(ReservationFlow.Step.Dates);
         assertThat(flow.isCompleted(ReservationFlow.Step.Dates)).isTrue();
         assertThat(flow.isActive(ReservationFlow.Step.Dates)).isTrue();
 
-        flow.setActive(ReservationFlow.Step.Guests);
+        flow.setActive(ReservationFlow.Step.Guests, 0);
         assertThat(flow.isActive(ReservationFlow.Step.Guests)).isTrue();
         assertThat(flow.isCompleted(ReservationFlow.Step.Guests)).isFalse();
         flow.completeStep(ReservationFlow.Step.Guests);
@@ -46,6 +61,21 @@ public class ReservationFlowTest {
         assertThat(flow.isCompleted(ReservationFlow.Step.Guests)).isFalse();
     }
 
+    /**
+     * Showing the active step again keeps its start, entering another step restarts the clock.
+     */
+    @Test
+    public void timeInActiveStep() {
+        ReservationFlow flow = new ReservationFlow(1_000);
+        assertThat(flow.getTimeInActiveStep(4_000)).isEqualTo(Duration.ofSeconds(3));
+
+        flow.setActive(ReservationFlow.Step.Dates, 5_000);
+        assertThat(flow.getTimeInActiveStep(6_000)).isEqualTo(Duration.ofSeconds(5));
+
+        flow.setActive(ReservationFlow.Step.Guests, 7_000);
+        assertThat(flow.getTimeInActiveStep(9_500)).isEqualTo(Duration.ofMillis(2_500));
+    }
+
     @Test
     public void activeStepFormatting() {
         ReservationFlow.StepDescription description =
@@ -55,4 +85,86 @@ public class ReservationFlowTest {
         assertThat(description.getFlowStepWithTitle()).isEqualTo("1. a");
         assertThat(description.getFlowStepWithDescription()).isEqualTo("1. test a");
     }
-}
\ No newline at end of file
+
+    private static byte[] serialize(ReservationFlow flow) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(flow);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ReservationFlow deserialize(byte[] bytes) throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (ReservationFlow) in.readObject();
+        }
+    }
+
+    /**
+     * The room and extras are written as ids and resolved back to the shared catalogue instances.
+     */
+    @Test
+    public void serialization_RehydratesRoomAndExtrasById() throws Exception {
+        Room room = FlowStages.createRoom();
+        Extra foxtel = new Extra("foxtel", BigDecimal.valueOf(4.5), Extra.Type.Premium, Extra.Category.General);
+        foxtel.setId(10L);
+        Extra breakfast = new Extra("breakfast", BigDecimal.valueOf(12), Extra.Type.Premium, Extra.Category.Food);
+        breakfast.setId(11L);
+        Map<Long, Extra> extras = Map.of(10L, foxtel, 11L, breakfast);
+
+        ReservationFlow flow = FlowStages.guestCompletedFlow();
+        flow.getReservation().setRoom(room);
+        flow.getReservation().setGeneralExtras(new HashSet<>(Set.of(foxtel)));
+        flow.getReservation().createMealPlans();
+        flow.getReservation().getMealPlans().get(0).setFoodExtras(new ArrayList<>(List.of(breakfast)));
+        flow.completeStep(ReservationFlow.Step.Dates);
+        flow.setActive(ReservationFlow.Step.Guests, 0);
+
+        ReservationFlow restored = deserialize(serialize(flow));
+        assertThat(restored.isRehydrationRequired()).isTrue();
+        assertThatThrownBy(restored::getReservation).isInstanceOf(IllegalStateException.class);
+
+        assertThat(restored.rehydrate(id -> id.equals(room.getId()) ? Optional.of(room) : Optional.empty(),
+                id -> Optional.ofNullable(extras.get(id)))).isTrue();
+        assertThat(restored.isRehydrationRequired()).isFalse();
+        assertThat(restored.isActive(ReservationFlow.Step.Guests)).isTrue();
+        assertThat(restored.isCompleted(ReservationFlow.Step.Dates)).isTrue();
+
+        Reservation reservation = restored.getReservation();
+        assertThat(reservation).isEqualTo(flow.getReservation());
+        assertThat(reservation.getRoom()).isSameAs(room);
+        assertThat(reservation.getDates().getCheckInDate()).isEqualTo(flow.getReservation().getDates().getCheckInDate());
+        assertThat(reservation.getGuests()).containsExactlyElementsOf(flow.getReservation().getGuests());
+        assertThat(reservation.getGeneralExtras()).containsExactly(foxtel);
+
+        MealPlan mealPlan = reservation.getMealPlans().get(0);
+        assertThat(mealPlan.getGuest()).isSameAs(reservation.getGuests().iterator().next());
+        assertThat(mealPlan.getReservation()).isSameAs(reservation);
+        assertThat(mealPlan.getFoodExtras()).hasSize(1);
+        assertThat(mealPlan.getFoodExtras().get(0)).isSameAs(breakfast);
+    }
+
+    @Test
+    public void serialization_RoomGone_RehydrateFails() throws Exception {
+        ReservationFlow restored = deserialize(serialize(FlowStages.guestCompletedFlow()));
+
+        assertThat(restored.rehydrate(id -> Optional.empty(), id -> Optional.empty())).isFalse();
+        assertThat(restored.isRehydrationRequired()).isTrue();
+    }
+
+    /**
+     * The session used to carry the room's hotel, the serialized flow is now the same size whatever the hotel holds.
+     */
+    @Test
+    public void serialization_SizeIndependentOfHotel() throws Exception {
+        ReservationFlow small = FlowStages.guestCompletedFlow();
+
+        ReservationFlow large = FlowStages.guestCompletedFlow();
+        Hotel hotel = large.getReservation().getRoom().getHotel();
+        for (int i = 0; i < 200; i++) {
+            hotel.addRoom(new Room("R" + i, RoomType.Business, 2, BigDecimal.valueOf(100)));
+        }
+
+        assertThat(serialize(large).length).isEqualTo(serialize(small).length);
+    }
+}
@@ -1,11 +1,16 @@
 package com.demo.reservation.flow.controller;
 
 import com.demo.TimeProvider;
-import com.demo.domain.Reservation;
+import com.demo.availability.AvailabilityIndex;
+import com.demo.availability.RoomHolds;
 import com.demo.domain.ReservationDates;
 import com.demo.domain.Room;
+import com.demo.journal.BookingJournal;
+import com.demo.payment.PaymentGateway;
+import com.demo.payment.PaymentProcessor;
 import com.demo.persistance.RoomRepository;
-import com.demo.reservation.ExtraRepository;
+import com.demo.reservation.ExtrasService;
+import com.demo.reservation.ReservationRepository;
 import com.demo.reservation.flow.ReservationController;
 import com.demo.reservation.flow.forms.ReservationFlow;
 import com.demo.reservation.flow.helpers.FlowMatchers;
@@ -26,10 +31,12 @@ import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import static com.demo.reservation.flow.helpers.FlowMatchers.modelHasActiveFlowStep;
 import static com.demo.reservation.flow.helpers.FlowMatchers.modelHasIncompleteFlowStep;
 import static com.demo.reservation.flow.helpers.FlowStages.pendingDateFlow;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -47,11 +54,29 @@ public class DateFlowTest {
     private RoomRepository roomRepository;
 
     @MockBean
-    private ExtraRepository extraRepository;
+    private ExtrasService extrasService;
+
+    @MockBean
+    private ReservationRepository reservationRepository;
+
+    @MockBean
+    private AvailabilityIndex availabilityIndex;
+
+    @MockBean
+    private RoomHolds roomHolds;
 
     @MockBean
     private TimeProvider timeProvider;
 
+    @MockBean
+    private BookingJournal bookingJournal;
+
+    @MockBean
+    private PaymentProcessor paymentProcessor;
+
+    @MockBean
+    private PaymentGateway paymentGateway;
+
     /**
      * Creates form params to simulate POST.
      * <p>
@@ -193,11 +218,32 @@ public class DateFlowTest {
                 .andExpect(model().attribute("reservationFlow",
                         Matchers.hasProperty("reservation", Matchers.allOf(
                                 Matchers.hasProperty("room", Matchers.is(room)),
-                                Matchers.hasProperty("room", Matchers.hasProperty("reservation", Matchers.notNullValue(Reservation.class))),
                                 Matchers.hasProperty("dates", Matchers.notNullValue())
                         ))));
     }
 
+    /**
+     * Dates searched for on the rooms page pre fill the date form.
+     */
+    @Test
+    public void getDateForm_WithSearchedDates_PrefillsDates() throws Exception {
+        Room room = FlowStages.createRoom();
+        when(roomRepository.findById(anyLong())).thenReturn(Optional.of(room));
+
+        LocalDate checkIn = LocalDate.now().plusDays(2);
+        LocalDate checkOut = checkIn.plusDays(3);
+
+        mockMvc.perform(get("/reservation?roomId=5")
+                .param("checkInDate", checkIn.format(DateTimeFormatter.ISO_DATE))
+                .param("checkOutDate", checkOut.format(DateTimeFormatter.ISO_DATE)))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("reservationFlow",
+                        Matchers.hasProperty("reservation", Matchers.hasProperty("dates", Matchers.allOf(
+                                Matchers.hasProperty("checkInDate", Matchers.is(checkIn)),
+                                Matchers.hasProperty("checkOutDate", Matchers.is(checkOut))
+                        )))));
+    }
+
     // Flow step 1 - POST date form
 
     /**
@@ -215,7 +261,7 @@ public class DateFlowTest {
         ReservationFlow reservationFlow = pendingDateFlow();
         // Setting to non date step to ensure date end points update to correct step since date is the default step
         // which can be misleading.
-        reservationFlow.setActive(ReservationFlow.Step.Extras);
+        reservationFlow.setActive(ReservationFlow.Step.Extras, 0);
         reservationFlow.completeStep(ReservationFlow.Step.Dates);
 
         when(roomRepository.findById(anyLong())).thenReturn(Optional.of(reservationFlow.getReservation().getRoom()));
@@ -239,7 +285,7 @@ public class DateFlowTest {
         ReservationFlow reservationFlow = pendingDateFlow();
         // Setting to non date step to ensure date end points update to correct step since date is the default step
         // which can be misleading.
-        reservationFlow.setActive(ReservationFlow.Step.Extras);
+        reservationFlow.setActive(ReservationFlow.Step.Extras, 0);
         reservationFlow.completeStep(ReservationFlow.Step.Dates);
 
         when(roomRepository.findById(anyLong())).thenReturn(Optional.of(reservationFlow.getReservation().getRoom()));
@@ -261,7 +307,7 @@ public class DateFlowTest {
         ReservationFlow reservationFlow = pendingDateFlow();
         // Setting to non date step to ensure date end points update to correct step since date is the default step
         // which can be misleading.
-        reservationFlow.setActive(ReservationFlow.Step.Extras);
+        reservationFlow.setActive(ReservationFlow.Step.Extras, 0);
         reservationFlow.completeStep(ReservationFlow.Step.Dates);
 
         when(roomRepository.findById(anyLong())).thenReturn(Optional.of(reservationFlow.getReservation().getRoom()));
@@ -283,7 +329,7 @@ public class DateFlowTest {
         ReservationFlow reservationFlow = pendingDateFlow();
         // Setting to non date step to ensure date end points update to correct step since date is the default step
         // which can be misleading.
-        reservationFlow.setActive(ReservationFlow.Step.Extras);
+        reservationFlow.setActive(ReservationFlow.Step.Extras, 0);
         reservationFlow.completeStep(ReservationFlow.Step.Dates);
 
         when(roomRepository.findById(anyLong())).thenReturn(Optional.of(reservationFlow.getReservation().getRoom()));
@@ -310,21 +356,65 @@ public class DateFlowTest {
         ReservationFlow reservationFlow = pendingDateFlow();
         // Setting to non date step to ensure date end points update to correct step since date is the default step
         // which can be misleading.
-        reservationFlow.setActive(ReservationFlow.Step.Extras);
+        reservationFlow.setActive(ReservationFlow.Step.Extras, 0);
         reservationFlow.completeStep(ReservationFlow.Step.Dates);
 
         when(roomRepository.findById(anyLong())).thenReturn(Optional.of(reservationFlow.getReservation().getRoom()));
         when(timeProvider.localDate()).thenReturn(LocalDate.now());
+        UUID holdId = UUID.randomUUID();
+        when(roomHolds.hold(anyLong(), any(LocalDate.class), any(LocalDate.class))).thenReturn(Optional.of(holdId));
 
         mockMvc.perform(post("/reservation/dates")
                 .sessionAttr("reservationFlow", reservationFlow)
                 .params(validParams(timeProvider)))
                 .andExpect(view().name("redirect:/reservation/guests"))
                 .andExpect(flash().attributeExists("reservationFlow"))
+                .andExpect(flash().attribute("reservationFlow", Matchers.hasProperty("holdId", Matchers.is(holdId))))
                 .andExpect(FlowMatchers.flashHasActiveFlowStep(ReservationFlow.Step.Dates))
                 .andExpect(FlowMatchers.flashHasCompletedFlowStep(ReservationFlow.Step.Dates));
     }
 
+    /**
+     * Changing the dates gives up the nights held for the previous ones before holding the new ones.
+     */
+    @Test
+    public void postDateForm_DatesChanged_PreviousHoldReleased() throws Exception {
+        ReservationFlow reservationFlow = pendingDateFlow();
+        UUID previousHoldId = UUID.randomUUID();
+        reservationFlow.setHoldId(previousHoldId);
+
+        when(timeProvider.localDate()).thenReturn(LocalDate.now());
+        when(roomHolds.hold(anyLong(), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(Optional.of(UUID.randomUUID()));
+
+        mockMvc.perform(post("/reservation/dates")
+                .sessionAttr("reservationFlow", reservationFlow)
+                .params(validParams(timeProvider)))
+                .andExpect(view().name("redirect:/reservation/guests"));
+
+        verify(roomHolds, times(1)).release(previousHoldId);
+    }
+
+    /**
+     * Valid dates are rejected when another booking already holds any of the nights.
+     */
+    @Test
+    public void postDateForm_RoomUnavailable_RejectsDates() throws Exception {
+        ReservationFlow reservationFlow = pendingDateFlow();
+
+        when(timeProvider.localDate()).thenReturn(LocalDate.now());
+        when(roomHolds.hold(anyLong(), any(LocalDate.class), any(LocalDate.class))).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/reservation/dates")
+                .sessionAttr("reservationFlow", reservationFlow)
+                .params(validParams(timeProvider)))
+                .andExpect(view().name("reservation/dates"))
+                .andExpect(model().errorCount(1))
+                .andExpect(model().attributeHasFieldErrorCode("reservationFlow", "reservation.dates", "unavailable"))
+                .andExpect(modelHasActiveFlowStep(ReservationFlow.Step.Dates))
+                .andExpect(modelHasIncompleteFlowStep(ReservationFlow.Step.Dates));
+    }
+
     // Ajax dynamic room price fragment
 
     @Test
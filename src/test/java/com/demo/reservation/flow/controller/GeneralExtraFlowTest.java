@@ -1,9 +1,15 @@
 package com.demo.reservation.flow.controller;
 
 import com.demo.TimeProvider;
+import com.demo.availability.AvailabilityIndex;
+import com.demo.availability.RoomHolds;
 import com.demo.domain.Extra;
+import com.demo.journal.BookingJournal;
+import com.demo.payment.PaymentGateway;
+import com.demo.payment.PaymentProcessor;
 import com.demo.persistance.RoomRepository;
-import com.demo.reservation.ExtraRepository;
+import com.demo.reservation.ExtrasService;
+import com.demo.reservation.ReservationRepository;
 import com.demo.reservation.flow.ReservationController;
 import com.demo.reservation.flow.forms.ReservationFlow;
 import com.demo.reservation.flow.helpers.FlowMatchers;
@@ -38,11 +44,29 @@ public class GeneralExtraFlowTest {
     private RoomRepository roomRepository;
 
     @MockBean
-    private ExtraRepository extraRepository;
+    private ExtrasService extrasService;
+
+    @MockBean
+    private ReservationRepository reservationRepository;
+
+    @MockBean
+    private AvailabilityIndex availabilityIndex;
+
+    @MockBean
+    private RoomHolds roomHolds;
 
     @MockBean
     private TimeProvider timeProvider;
 
+    @MockBean
+    private BookingJournal bookingJournal;
+
+    @MockBean
+    private PaymentProcessor paymentProcessor;
+
+    @MockBean
+    private PaymentGateway paymentGateway;
+
     // Flow step 3 - extras
 
     /**
@@ -57,7 +81,7 @@ public class GeneralExtraFlowTest {
         List<Extra> generalExtras = List.of(
                 new Extra("foxtel", BigDecimal.valueOf(3.94), Extra.Type.Premium, Extra.Category.General)
         );
-        when(extraRepository.findAllByTypeAndCategory(any(Extra.Type.class), eq(Extra.Category.General)))
+        when(extrasService.getGeneralExtras(any(Extra.Type.class)))
                 .thenReturn(generalExtras);
 
         mockMvc.perform(get("/reservation/extras")
@@ -68,9 +92,8 @@ public class GeneralExtraFlowTest {
                 .andExpect(modelHasActiveFlowStep(ReservationFlow.Step.Extras))
                 .andExpect(FlowMatchers.modelHasIncompleteFlowStep(ReservationFlow.Step.Extras));
 
-        verify(extraRepository, times(1))
-                .findAllByTypeAndCategory(any(Extra.Type.class), eq(Extra.Category.General));
-        verifyNoMoreInteractions(extraRepository);
+        verify(extrasService, times(1)).getGeneralExtras(any(Extra.Type.class));
+        verifyNoMoreInteractions(extrasService);
     }
 
     /**
@@ -1,9 +1,15 @@
 package com.demo.reservation.flow.controller;
 
 import com.demo.TimeProvider;
+import com.demo.availability.AvailabilityIndex;
+import com.demo.availability.RoomHolds;
 import com.demo.domain.Guest;
+import com.demo.journal.BookingJournal;
+import com.demo.payment.PaymentGateway;
+import com.demo.payment.PaymentProcessor;
 import com.demo.persistance.RoomRepository;
-import com.demo.reservation.ExtraRepository;
+import com.demo.reservation.ExtrasService;
+import com.demo.reservation.ReservationRepository;
 import com.demo.reservation.flow.ReservationController;
 import com.demo.reservation.flow.forms.ReservationFlow;
 import com.demo.reservation.flow.helpers.FlowMatchers;
@@ -41,11 +47,29 @@ public class GuestFlowTest {
     private RoomRepository roomRepository;
 
     @MockBean
-    private ExtraRepository extraRepository;
+    private ExtrasService extrasService;
+
+    @MockBean
+    private ReservationRepository reservationRepository;
+
+    @MockBean
+    private AvailabilityIndex availabilityIndex;
+
+    @MockBean
+    private RoomHolds roomHolds;
 
     @MockBean
     private TimeProvider timeProvider;
 
+    @MockBean
+    private BookingJournal bookingJournal;
+
+    @MockBean
+    private PaymentProcessor paymentProcessor;
+
+    @MockBean
+    private PaymentGateway paymentGateway;
+
     // Flow step 2 - guests
 
     /**
@@ -1,9 +1,15 @@
 package com.demo.reservation.flow.controller;
 
 import com.demo.TimeProvider;
+import com.demo.availability.AvailabilityIndex;
+import com.demo.availability.RoomHolds;
 import com.demo.domain.*;
+import com.demo.journal.BookingJournal;
+import com.demo.payment.PaymentGateway;
+import com.demo.payment.PaymentProcessor;
 import com.demo.persistance.RoomRepository;
-import com.demo.reservation.ExtraRepository;
+import com.demo.reservation.ExtrasService;
+import com.demo.reservation.ReservationRepository;
 import com.demo.reservation.flow.ReservationController;
 import com.demo.reservation.flow.forms.ReservationFlow;
 import com.demo.reservation.flow.helpers.FlowMatchers;
@@ -43,11 +49,29 @@ public class MealPlanFlowTest {
     private RoomRepository roomRepository;
 
     @MockBean
-    private ExtraRepository extraRepository;
+    private ExtrasService extrasService;
+
+    @MockBean
+    private ReservationRepository reservationRepository;
+
+    @MockBean
+    private AvailabilityIndex availabilityIndex;
+
+    @MockBean
+    private RoomHolds roomHolds;
 
     @MockBean
     private TimeProvider timeProvider;
 
+    @MockBean
+    private BookingJournal bookingJournal;
+
+    @MockBean
+    private PaymentProcessor paymentProcessor;
+
+    @MockBean
+    private PaymentGateway paymentGateway;
+
     // Flow step 4 - meal plans
 
     /**
@@ -98,7 +122,7 @@ public class MealPlanFlowTest {
         reservationFlow.setReservation(reservationSpy);
 
         // So we can verify the correct call to get the food extras occurs.
-        when(extraRepository.findAllByTypeAndCategory(any(Extra.Type.class), eq(Extra.Category.Food)))
+        when(extrasService.getFoodExtras(any(Extra.Type.class)))
                 .thenReturn(foodExtras);
 
         ResultMatcher expectedMealPlansCreated = model().attribute("reservationFlow",
@@ -116,9 +140,8 @@ public class MealPlanFlowTest {
                 .andExpect(FlowMatchers.modelHasActiveFlowStep(ReservationFlow.Step.Meals))
                 .andExpect(FlowMatchers.modelHasIncompleteFlowStep(ReservationFlow.Step.Meals));
 
-        verify(extraRepository, times(1))
-                .findAllByTypeAndCategory(any(Extra.Type.class), eq(Extra.Category.Food));
-        verifyNoMoreInteractions(extraRepository);
+        verify(extrasService, times(1)).getFoodExtras(any(Extra.Type.class));
+        verifyNoMoreInteractions(extrasService);
 
         verify(reservationSpy, times(1)).createMealPlans();
     }
@@ -204,7 +227,7 @@ public class MealPlanFlowTest {
         );
 
         // So we can verify the correct call to get the food extras occurs.
-        when(extraRepository.findAllByTypeAndCategory(any(Extra.Type.class), eq(Extra.Category.Food)))
+        when(extrasService.getFoodExtras(any(Extra.Type.class)))
                 .thenReturn(foodExtras);
 
         mockMvc.perform(post("/reservation/meals")
@@ -218,8 +241,7 @@ public class MealPlanFlowTest {
                 .andExpect(FlowMatchers.modelHasActiveFlowStep(ReservationFlow.Step.Meals))
                 .andExpect(FlowMatchers.modelHasIncompleteFlowStep(ReservationFlow.Step.Meals));
 
-        verify(extraRepository, times(1))
-                .findAllByTypeAndCategory(any(Extra.Type.class), eq(Extra.Category.Food));
-        verifyNoMoreInteractions(extraRepository);
+        verify(extrasService, times(1)).getFoodExtras(any(Extra.Type.class));
+        verifyNoMoreInteractions(extrasService);
     }
 }
@@ -2,10 +2,19 @@ package com.demo.reservation.flow.controller;
 
 import com.demo.reservation.flow.TestContextConfiguration;
 import com.demo.TimeProvider;
+import com.demo.availability.AvailabilityIndex;
+import com.demo.availability.RoomHolds;
+import com.demo.GlobalErrorMatchers;
 import com.demo.domain.PendingPayment;
-import com.demo.domain.Room;
+import com.demo.domain.Reservation;
+import com.demo.exceptions.RoomUnavailableException;
+import com.demo.journal.BookingEvent;
+import com.demo.journal.BookingJournal;
+import com.demo.payment.PaymentGateway;
+import com.demo.payment.PaymentProcessor;
 import com.demo.persistance.RoomRepository;
-import com.demo.reservation.ExtraRepository;
+import com.demo.reservation.ExtrasService;
+import com.demo.reservation.ReservationRepository;
 import com.demo.reservation.flow.ReservationController;
 import com.demo.reservation.flow.forms.ReservationFlow;
 import com.demo.reservation.flow.helpers.FlowMatchers;
@@ -13,6 +22,7 @@ import com.demo.reservation.flow.helpers.FlowStages;
 import org.hamcrest.Matchers;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -20,15 +30,24 @@ import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Month;
 import java.time.format.DateTimeFormatter;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
@@ -48,11 +67,29 @@ public class PaymentFlowTest {
     private RoomRepository roomRepository;
 
     @MockBean
-    private ExtraRepository extraRepository;
+    private ExtrasService extrasService;
+
+    @MockBean
+    private ReservationRepository reservationRepository;
+
+    @MockBean
+    private AvailabilityIndex availabilityIndex;
+
+    @MockBean
+    private RoomHolds roomHolds;
 
     @MockBean
     private TimeProvider timeProvider;
 
+    @MockBean
+    private BookingJournal bookingJournal;
+
+    @MockBean
+    private PaymentProcessor paymentProcessor;
+
+    @MockBean
+    private PaymentGateway paymentGateway;
+
     // Flow step 6 - payment
 
     /**
@@ -383,6 +420,9 @@ public class PaymentFlowTest {
     @Test
     public void postPayment_Valid() throws Exception {
         ReservationFlow reservationFlow = FlowStages.reviewCompletedFlow();
+        Reservation reservation = reservationFlow.getReservation();
+        when(roomHolds.book(any(), anyLong(), any(LocalDate.class), any(LocalDate.class))).thenReturn(true);
+        when(paymentGateway.tokenize(any(PendingPayment.class))).thenReturn("tok_1234");
 
         mockMvc.perform(post("/reservation/payment")
                 .sessionAttr("reservationFlow", reservationFlow)
@@ -393,11 +433,136 @@ public class PaymentFlowTest {
                 .param("cardHolderName", "john smith")
                 .param("cardExpiryYear", "2018")
                 .param("cardExpiryMonth", Month.DECEMBER.name()))
-                .andExpect(view().name("redirect:/reservation/completed"))
+                .andExpect(view().name("redirect:/reservation/completed?reservationId=" +
+                        reservation.getReservationId()))
                 .andExpect(flash().attributeCount(0))
                 .andExpect(model().errorCount(0));
 
-        verify(roomRepository, times(1)).save(any(Room.class));
+        verify(roomHolds, times(1)).book(any(), anyLong(), any(LocalDate.class), any(LocalDate.class));
+        verify(reservationRepository, times(1)).book(any(Reservation.class));
         verifyNoMoreInteractions(roomRepository);
+
+        ArgumentCaptor<BookingEvent> journalled = ArgumentCaptor.forClass(BookingEvent.class);
+        verify(bookingJournal, times(1)).append(journalled.capture());
+        assertThat(journalled.getValue().getType()).isEqualTo(BookingEvent.Type.Booked);
+        assertThat(journalled.getValue().getReservationId()).isEqualTo(reservation.getReservationId());
+        assertThat(journalled.getValue().getRoomId()).isEqualTo(2L);
+        assertThat(journalled.getValue().getTransactionId())
+                .isEqualTo(reservation.getCompletedPayment().getTransactionId());
+
+        verify(paymentProcessor, times(1)).submit(reservation.getReservationId());
+        assertThat(reservation.getCompletedPayment().getPaymentToken()).isEqualTo("tok_1234");
+    }
+
+    /**
+     * Without a token there is nothing to charge later, the nights are not booked and the user can try again.
+     */
+    @Test
+    public void postPayment_TokenizeFails_NotBooked() throws Exception {
+        ReservationFlow reservationFlow = FlowStages.reviewCompletedFlow();
+        when(paymentGateway.tokenize(any(PendingPayment.class))).thenThrow(new IllegalStateException("Unreachable"));
+
+        mockMvc.perform(post("/reservation/payment")
+                .sessionAttr("reservationFlow", reservationFlow)
+                .param("createdTime", LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME))
+                .param("creditCardType", PendingPayment.CreditCardType.MasterCard.name())
+                .param("creditCardNumber", "1234567892")
+                .param("cvv", "123")
+                .param("cardHolderName", "john smith")
+                .param("cardExpiryYear", "2018")
+                .param("cardExpiryMonth", Month.DECEMBER.name()))
+                .andExpect(view().name("reservation/payment"))
+                .andExpect(model().errorCount(1))
+                .andExpect(GlobalErrorMatchers.globalErrorMatchers()
+                        .hasGlobalErrorCode("pendingPayment", "paymentUnavailable"))
+                .andExpect(FlowMatchers.modelHasIncompleteFlowStep(ReservationFlow.Step.Payment));
+
+        verifyZeroInteractions(roomHolds, reservationRepository, bookingJournal, paymentProcessor);
+    }
+
+    /**
+     * The booking has committed when the journal append fails. The guest still sees the booking completed, the flow
+     * is cleared from the session and the booking is left to be journalled from its payment request.
+     */
+    @Test
+    public void postPayment_JournalFails_BookingCompleted() throws Exception {
+        ReservationFlow reservationFlow = FlowStages.reviewCompletedFlow();
+        Reservation reservation = reservationFlow.getReservation();
+        when(roomHolds.book(any(), anyLong(), any(LocalDate.class), any(LocalDate.class))).thenReturn(true);
+        when(bookingJournal.append(any(BookingEvent.class)))
+                .thenThrow(new UncheckedIOException(new IOException("No space left on device")));
+        when(paymentProcessor.journalBookingLater(reservation.getReservationId())).thenReturn(true);
+
+        MvcResult result = mockMvc.perform(post("/reservation/payment")
+                .sessionAttr("reservationFlow", reservationFlow)
+                .param("createdTime", LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME))
+                .param("creditCardType", PendingPayment.CreditCardType.MasterCard.name())
+                .param("creditCardNumber", "1234567892")
+                .param("cvv", "123")
+                .param("cardHolderName", "john smith")
+                .param("cardExpiryYear", "2018")
+                .param("cardExpiryMonth", Month.DECEMBER.name()))
+                .andExpect(view().name("redirect:/reservation/completed?reservationId=" +
+                        reservation.getReservationId()))
+                .andReturn();
+
+        assertThat(result.getRequest().getSession().getAttribute("reservationFlow")).isNull();
+        verify(reservationRepository, times(1)).book(any(Reservation.class));
+        verify(paymentProcessor, times(1)).journalBookingLater(reservation.getReservationId());
+        verify(paymentProcessor, times(1)).submit(reservation.getReservationId());
+    }
+
+    /**
+     * The hold expired and another session booked the same nights after this flow completed the dates step. The
+     * payment must not be saved and the user stays on the payment page with a global error.
+     */
+    @Test
+    public void postPayment_RoomNoLongerAvailable_NotSaved() throws Exception {
+        ReservationFlow reservationFlow = FlowStages.reviewCompletedFlow();
+        when(roomHolds.book(any(), anyLong(), any(LocalDate.class), any(LocalDate.class))).thenReturn(false);
+
+        mockMvc.perform(post("/reservation/payment")
+                .sessionAttr("reservationFlow", reservationFlow)
+                .param("createdTime", LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME))
+                .param("creditCardType", PendingPayment.CreditCardType.MasterCard.name())
+                .param("creditCardNumber", "1234567892")
+                .param("cvv", "123")
+                .param("cardHolderName", "john smith")
+                .param("cardExpiryYear", "2018")
+                .param("cardExpiryMonth", Month.DECEMBER.name()))
+                .andExpect(view().name("reservation/payment"))
+                .andExpect(model().errorCount(1))
+                .andExpect(GlobalErrorMatchers.globalErrorMatchers().hasGlobalErrorCode("pendingPayment", "unavailable"))
+                .andExpect(FlowMatchers.modelHasIncompleteFlowStep(ReservationFlow.Step.Payment));
+
+        verifyZeroInteractions(reservationRepository, bookingJournal, paymentProcessor);
+    }
+
+    /**
+     * This instance could claim the nights but another instance committed a booking for them first. The claim is
+     * released and the user stays on the payment page with the same global error.
+     */
+    @Test
+    public void postPayment_BookedElsewhere_ClaimReleased() throws Exception {
+        ReservationFlow reservationFlow = FlowStages.reviewCompletedFlow();
+        when(roomHolds.book(any(), anyLong(), any(LocalDate.class), any(LocalDate.class))).thenReturn(true);
+        doThrow(new RoomUnavailableException()).when(reservationRepository).book(any(Reservation.class));
+
+        mockMvc.perform(post("/reservation/payment")
+                .sessionAttr("reservationFlow", reservationFlow)
+                .param("createdTime", LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME))
+                .param("creditCardType", PendingPayment.CreditCardType.MasterCard.name())
+                .param("creditCardNumber", "1234567892")
+                .param("cvv", "123")
+                .param("cardHolderName", "john smith")
+                .param("cardExpiryYear", "2018")
+                .param("cardExpiryMonth", Month.DECEMBER.name()))
+                .andExpect(view().name("reservation/payment"))
+                .andExpect(model().errorCount(1))
+                .andExpect(GlobalErrorMatchers.globalErrorMatchers().hasGlobalErrorCode("pendingPayment", "unavailable"))
+                .andExpect(FlowMatchers.modelHasIncompleteFlowStep(ReservationFlow.Step.Payment));
+
+        verify(availabilityIndex, times(1)).release(anyLong(), any(LocalDate.class), any(LocalDate.class));
+        verifyZeroInteractions(bookingJournal, paymentProcessor);
     }
 }
@@ -30,7 +30,7 @@ public class FlowStages {
      * retrieved from server. Note how the {@code ReservationFlow.activeStep} is not set since this will be tested.
      */
     public static ReservationFlow pendingDateFlow() {
-        ReservationFlow reservationFlow = new ReservationFlow();
+        ReservationFlow reservationFlow = new ReservationFlow(0);
         reservationFlow.getReservation().setRoom(createRoom());
         return reservationFlow;
     }
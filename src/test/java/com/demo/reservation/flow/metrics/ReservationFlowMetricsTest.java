@@ -0,0 +1,177 @@
+package com.demo.reservation.flow.metrics;
+
+import com.demo.TimeProvider;
+import com.demo.availability.AvailabilityIndex;
+import com.demo.availability.RoomHolds;
+import com.demo.journal.BookingJournal;
+import com.demo.payment.PaymentGateway;
+import com.demo.payment.PaymentProcessor;
+import com.demo.persistance.RoomRepository;
+import com.demo.reservation.ExtrasService;
+import com.demo.reservation.ReservationRepository;
+import com.demo.reservation.flow.ReservationController;
+import com.demo.reservation.flow.TestContextConfiguration;
+import com.demo.reservation.flow.forms.ReservationFlow;
+import com.demo.reservation.flow.helpers.FlowStages;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(ReservationController.class)
+@Import(TestContextConfiguration.class)
+@ActiveProfiles("test")
+public class ReservationFlowMetricsTest {
+
+    // The registry is shared by every test in this class so each test asserts on its own handler tags.
+
+    @TestConfiguration
+    static class MeterRegistryConfiguration {
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private RoomRepository roomRepository;
+
+    @MockBean
+    private ExtrasService extrasService;
+
+    @MockBean
+    private ReservationRepository reservationRepository;
+
+    @MockBean
+    private AvailabilityIndex availabilityIndex;
+
+    @MockBean
+    private RoomHolds roomHolds;
+
+    @MockBean
+    private TimeProvider timeProvider;
+
+    @MockBean
+    private BookingJournal bookingJournal;
+
+    @MockBean
+    private PaymentProcessor paymentProcessor;
+
+    @MockBean
+    private PaymentGateway paymentGateway;
+
+    private Timer requestTimer(String step, String handler, String outcome) {
+        return meterRegistry.find(ReservationFlowMetrics.REQUEST)
+                .tags("step", step, "handler", handler, "outcome", outcome)
+                .timer();
+    }
+
+    private Timer stepTimer(String step, String outcome) {
+        return meterRegistry.find(ReservationFlowMetrics.STEP_DURATION)
+                .tags("step", step, "outcome", outcome)
+                .timer();
+    }
+
+    @Test
+    public void getDateForm_RecordsView() throws Exception {
+        ReservationFlow reservationFlow = FlowStages.pendingDateFlow();
+        when(roomRepository.findById(anyLong())).thenReturn(Optional.of(reservationFlow.getReservation().getRoom()));
+
+        mockMvc.perform(get("/reservation")
+                .param("roomId", "2")
+                .sessionAttr("reservationFlow", reservationFlow))
+                .andExpect(view().name("reservation/dates"));
+
+        assertThat(requestTimer("Dates", "getDateForm", "view").count()).isEqualTo(1);
+        assertThat(stepTimer("Dates", "view")).isNull();
+    }
+
+    @Test
+    public void postDateForm_InvalidDates_RecordsValidationError() throws Exception {
+        ReservationFlow reservationFlow = FlowStages.pendingDateFlow();
+        when(timeProvider.localDate()).thenReturn(LocalDate.of(2018, 1, 1));
+
+        mockMvc.perform(post("/reservation/dates")
+                .sessionAttr("reservationFlow", reservationFlow))
+                .andExpect(view().name("reservation/dates"));
+
+        assertThat(requestTimer("Dates", "dates", "validation_error").count()).isEqualTo(1);
+    }
+
+    /**
+     * Completing a step records the request and the time spent in the step that was submitted.
+     */
+    @Test
+    public void postGuests_RecordsCompleteAndTimeInStep() throws Exception {
+        ReservationFlow reservationFlow = FlowStages.guestCompletedFlow();
+        reservationFlow.setActive(ReservationFlow.Step.Guests, 1_000);
+        when(timeProvider.currentTimeMillis()).thenReturn(91_000L);
+
+        mockMvc.perform(post("/reservation/guests")
+                .sessionAttr("reservationFlow", reservationFlow))
+                .andExpect(view().name("redirect:/reservation/extras"));
+
+        assertThat(requestTimer("Guests", "postGuestToExtras", "complete").count()).isEqualTo(1);
+        assertThat(stepTimer("Guests", "complete").count()).isEqualTo(1);
+        assertThat(stepTimer("Guests", "complete").totalTime(TimeUnit.SECONDS)).isEqualTo(90);
+    }
+
+    @Test
+    public void postExtras_Back_RecordsSubmittedStep() throws Exception {
+        ReservationFlow reservationFlow = FlowStages.guestCompletedFlow();
+        reservationFlow.setActive(ReservationFlow.Step.Extras, 0);
+
+        mockMvc.perform(post("/reservation/extras")
+                .param("back", "")
+                .sessionAttr("reservationFlow", reservationFlow))
+                .andExpect(view().name("redirect:/reservation/guests"));
+
+        assertThat(requestTimer("Extras", "fromGeneralExtrasBackToGuests", "back").count()).isEqualTo(1);
+        assertThat(stepTimer("Extras", "back").count()).isEqualTo(1);
+    }
+
+    /**
+     * Cancelling clears the flow from the session but the step it was cancelled from is still known.
+     */
+    @Test
+    public void postPayment_Cancel_RecordsCancelledStep() throws Exception {
+        ReservationFlow reservationFlow = FlowStages.reviewCompletedFlow();
+        reservationFlow.setActive(ReservationFlow.Step.Payment, 0);
+
+        mockMvc.perform(post("/reservation/payment")
+                .param("cancel", "")
+                .sessionAttr("reservationFlow", reservationFlow))
+                .andExpect(view().name("redirect:/"));
+
+        assertThat(requestTimer("Payment", "cancelPayment", "cancel").count()).isEqualTo(1);
+        assertThat(stepTimer("Payment", "cancel").count()).isEqualTo(1);
+    }
+}
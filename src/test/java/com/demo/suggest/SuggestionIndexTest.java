@@ -0,0 +1,81 @@
+package com.demo.suggest;
+
+import com.demo.domain.location.State;
+import com.demo.persistance.HotelRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SuggestionIndexTest {
+
+    private SuggestionIndex index;
+
+    @Before
+    public void setup() {
+        HotelRepository hotelRepository = mock(HotelRepository.class);
+        when(hotelRepository.findAllLocations()).thenReturn(List.of(
+                new HotelLocation(1L, "Hotel Royal", State.VIC, "Melbourne", "3000"),
+                new HotelLocation(2L, "Melbourne Grand", State.VIC, "Melbourne", "3000"),
+                new HotelLocation(3L, "Waverley Inn", State.VIC, "Glen Waverley", "3150"),
+                new HotelLocation(4L, "Bondi Beach House", State.NSW, "Bondi", "2026")));
+        index = new SuggestionIndex(hotelRepository);
+        index.rebuild();
+    }
+
+    @Test
+    public void suggest_WordPrefix_CaseInsensitive() {
+        assertThat(index.suggest("wav", 10))
+                .extracting(Suggestion::getType, Suggestion::getLabel)
+                .containsExactlyInAnyOrder(
+                        tuple(Suggestion.Type.Suburb, "Glen Waverley"),
+                        tuple(Suggestion.Type.Hotel, "Waverley Inn"));
+    }
+
+    /**
+     * A suburb shared by several hotels is suggested once.
+     */
+    @Test
+    public void suggest_SharedLocation_Once() {
+        assertThat(index.suggest("MELB", 10))
+                .extracting(Suggestion::getType, Suggestion::getLabel)
+                .containsExactlyInAnyOrder(
+                        tuple(Suggestion.Type.Suburb, "Melbourne"),
+                        tuple(Suggestion.Type.Hotel, "Melbourne Grand"));
+        assertThat(index.suggest("300", 10))
+                .extracting(Suggestion::getPostcode, Suggestion::getState)
+                .containsExactly(tuple("3000", State.VIC));
+    }
+
+    @Test
+    public void suggest_MultipleWords() {
+        assertThat(index.suggest("  glen   wav ", 10))
+                .extracting(Suggestion::getSuburb).containsExactly("Glen Waverley");
+        assertThat(index.suggest("bondi beach", 10))
+                .extracting(Suggestion::getHotelId).containsExactly(4L);
+    }
+
+    @Test
+    public void suggest_Limit() {
+        assertThat(index.suggest("b", 2)).hasSize(2);
+        assertThat(index.suggest("", 10)).isEmpty();
+        assertThat(index.suggest(null, 10)).isEmpty();
+        assertThat(index.suggest("zz", 10)).isEmpty();
+    }
+
+    @Test
+    public void add_NewHotelsFound() {
+        index.add(List.of(new HotelLocation(5L, "Seaside Retreat", State.VIC, "Sorrento", "3943")));
+
+        assertThat(index.suggest("so", 10))
+                .extracting(Suggestion::getType).containsExactly(Suggestion.Type.Suburb);
+        assertThat(index.suggest("sea", 10))
+                .extracting(Suggestion::getHotelId).containsExactly(5L);
+        assertThat(index.suggest("wav", 10)).hasSize(2);
+    }
+}
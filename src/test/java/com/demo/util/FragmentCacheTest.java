@@ -0,0 +1,116 @@
+package com.demo.util;
+
+import com.demo.domain.Hotel;
+import com.demo.domain.location.Address;
+import com.demo.domain.location.Postcode;
+import com.demo.domain.location.State;
+import com.demo.reservation.flow.forms.ReservationFlow;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.IContext;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class FragmentCacheTest {
+
+    private ITemplateEngine templateEngine;
+
+    private Hotel hotel;
+
+    @Before
+    public void setup() {
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest(), new MockHttpServletResponse()));
+
+        templateEngine = mock(ITemplateEngine.class);
+        when(templateEngine.process(anyString(), anySet(), any(IContext.class)))
+                .thenReturn("<tr>first</tr>", "<tr>second</tr>");
+
+        hotel = new Hotel("Hotel Royal",
+                new Address("Hotel Royal", "33 kent street", null, State.VIC, "Melbourne", new Postcode("3000")),
+                4, "royal@hotel.com");
+        hotel.setId(1L);
+        ReflectionTestUtils.setField(hotel, "version", 0L);
+    }
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private FragmentCache fragmentCache(boolean enabled) {
+        return new FragmentCache(() -> templateEngine, new StaticApplicationContext(), enabled);
+    }
+
+    @Test
+    public void hotelRow_SameVersion_RenderedOnce() {
+        FragmentCache fragmentCache = fragmentCache(true);
+
+        assertThat(fragmentCache.hotelRow(hotel)).isEqualTo("<tr>first</tr>");
+        assertThat(fragmentCache.hotelRow(hotel)).isEqualTo("<tr>first</tr>");
+
+        verify(templateEngine, times(1)).process(eq("hotel/fragments"), eq(Set.of("hotelRow")), any(IContext.class));
+        assertThat(fragmentCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void hotelRow_NewVersion_RenderedAgainAndReplaced() {
+        FragmentCache fragmentCache = fragmentCache(true);
+        fragmentCache.hotelRow(hotel);
+
+        ReflectionTestUtils.setField(hotel, "version", 1L);
+
+        assertThat(fragmentCache.hotelRow(hotel)).isEqualTo("<tr>second</tr>");
+        assertThat(fragmentCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void disabled_RendersEveryTime() {
+        FragmentCache fragmentCache = fragmentCache(false);
+
+        assertThat(fragmentCache.hotelRow(hotel)).isEqualTo("<tr>first</tr>");
+        assertThat(fragmentCache.hotelRow(hotel)).isEqualTo("<tr>second</tr>");
+        assertThat(fragmentCache.size()).isEqualTo(0);
+    }
+
+    /**
+     * Flows on the same step with the same completed steps share one rendering of the step header.
+     */
+    @Test
+    public void reservationFlowSteps_KeyedByStepState() {
+        FragmentCache fragmentCache = fragmentCache(true);
+
+        ReservationFlow first = new ReservationFlow(0);
+        first.completeStep(ReservationFlow.Step.Dates);
+        first.setActive(ReservationFlow.Step.Guests, 0);
+
+        ReservationFlow second = new ReservationFlow(0);
+        second.completeStep(ReservationFlow.Step.Dates);
+        second.setActive(ReservationFlow.Step.Guests, 0);
+
+        ReservationFlow third = new ReservationFlow(0);
+        third.setActive(ReservationFlow.Step.Guests, 0);
+
+        fragmentCache.reservationFlowSteps(first);
+        fragmentCache.reservationFlowSteps(second);
+        fragmentCache.reservationFlowSteps(third);
+
+        verify(templateEngine, times(2))
+                .process(eq("reservation/fragments"), eq(Set.of("reservationFlowSteps")), any(IContext.class));
+    }
+}